@@ -27,6 +27,7 @@ import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
 import org.kiji.schema.impl.CounterCellDecoder;
 import org.kiji.schema.impl.GenericCellDecoder;
+import org.kiji.schema.impl.PrimitiveCellDecoder;
 import org.kiji.schema.layout.CellSpec;
 
 /**
@@ -54,6 +55,9 @@ public final class GenericCellDecoderFactory implements KijiCellDecoderFactory {
     switch (cellSpec.getCellSchema().getType()) {
     case CLASS:
     case INLINE:
+      if (PrimitiveCellDecoder.isSupported(cellSpec)) {
+        return new PrimitiveCellDecoder<T>(cellSpec);
+      }
       return new GenericCellDecoder<T>(cellSpec);
     case COUNTER:
       // purposefully forget the type (long) param of cell decoders for counters.
@@ -19,7 +19,11 @@
 
 package org.kiji.schema;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
 
 import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
@@ -50,4 +54,184 @@ public interface KijiBufferedWriter extends KijiPutter, KijiDeleter {
    * @throws IOException in case of an error.
    */
   void flush() throws IOException;
+
+  /**
+   * Options for KijiBufferedWriters.
+   *
+   * @see KijiWriterFactory#openBufferedWriter(KijiBufferedWriterOptions)
+   */
+  @ApiAudience.Public
+  public static final class KijiBufferedWriterOptions {
+    /** Throttle of the writer, in addition to the throttle of the table, or null. */
+    private KijiWriteThrottle mWriteThrottle = null;
+
+    /** Maximum number of full buffers flushed in the background, or 0 to flush synchronously. */
+    private int mMaxInFlightFlushes = 0;
+
+    /** Number of stripes of the write buffer. */
+    private int mNumStripes = 1;
+
+    /** Log file the mutations that cannot be sent to HBase are spilled to, or null. */
+    private File mSpillLogFile = null;
+
+    /** Interval between two attempts to replay the spill log, in milliseconds. */
+    private long mSpillReplayIntervalMillis = 1000L;
+
+    /** Creates KijiBufferedWriterOptions with the default options. */
+    public KijiBufferedWriterOptions() {}
+
+    /**
+     * Sets the throttle of the writer, in addition to the throttle of the table.
+     *
+     * <p>
+     *   Mutations are throttled when they are sent to HBase, rather than when they are buffered,
+     *   so that flushes reach HBase at the rate of the throttles. Each flush sends its mutations
+     *   in batches, and waits for the throttles before each batch. Mutations replayed from the
+     *   spill log are throttled the same way. With {@link KijiWriteThrottle.Backpressure#REJECT},
+     *   a flush exceeding the rate fails with a {@link KijiWriteThrottle.ThrottledException}, and
+     *   the mutations not sent yet stay buffered for the next flush.
+     * </p>
+     *
+     * @param throttle Throttle of the writer. May be shared with other writers.
+     * @return This KijiBufferedWriterOptions with the throttle set.
+     */
+    public KijiBufferedWriterOptions setWriteThrottle(KijiWriteThrottle throttle) {
+      mWriteThrottle = Preconditions.checkNotNull(throttle);
+      return this;
+    }
+
+    /**
+     * Gets the throttle of the writer.
+     *
+     * @return the throttle of the writer, or null if the writer is only throttled by its table.
+     */
+    public KijiWriteThrottle getWriteThrottle() {
+      return mWriteThrottle;
+    }
+
+    /**
+     * Enables flushing full buffers in the background.
+     *
+     * <p>
+     *   When the buffer overflows, the full buffer is swapped for an empty one and flushed on a
+     *   background thread, instead of blocking the writing thread for the whole flush.
+     *   Full buffers are flushed one at a time, in order. Once maxInFlightFlushes full buffers
+     *   are waiting or being flushed, writes block until a background flush completes.
+     * </p>
+     * <p>
+     *   A background flush failure is reported by the next write, flush() or close() call.
+     *   The mutations of the failed flush stay buffered, and the background flushes submitted
+     *   until the failure is reported keep their mutations buffered behind them. Once reported,
+     *   the next flush sends them all first, in order.
+     *   {@link KijiBufferedWriter#flush()} and {@link KijiBufferedWriter#close()} wait for all
+     *   the background flushes to complete.
+     * </p>
+     *
+     * @param maxInFlightFlushes Maximum number of full buffers flushed in the background,
+     *     or 0 to flush synchronously, which is the default.
+     * @return This KijiBufferedWriterOptions with background flushes set.
+     */
+    public KijiBufferedWriterOptions setAsyncFlush(int maxInFlightFlushes) {
+      Preconditions.checkArgument(maxInFlightFlushes >= 0,
+          "Invalid maximum number of in-flight flushes: %s", maxInFlightFlushes);
+      mMaxInFlightFlushes = maxInFlightFlushes;
+      return this;
+    }
+
+    /**
+     * Gets the maximum number of full buffers flushed in the background.
+     *
+     * @return the maximum number of full buffers flushed in the background,
+     *     or 0 if buffers are flushed synchronously.
+     */
+    public int getMaxInFlightFlushes() {
+      return mMaxInFlightFlushes;
+    }
+
+    /**
+     * Sets the number of stripes of the write buffer.
+     *
+     * <p>
+     *   The write buffer is split into stripes by row key, each stripe guarded by its own lock,
+     *   so that threads writing to different rows do not contend on a single lock. Flushes merge
+     *   all the stripes, and the mutations of each row are still sent in the order they were
+     *   issued. Only useful when the writer is shared by several threads. Defaults to 1.
+     * </p>
+     *
+     * @param numStripes Number of stripes of the write buffer.
+     * @return This KijiBufferedWriterOptions with the number of stripes set.
+     */
+    public KijiBufferedWriterOptions setStripes(int numStripes) {
+      Preconditions.checkArgument(numStripes >= 1, "Invalid number of stripes: %s", numStripes);
+      mNumStripes = numStripes;
+      return this;
+    }
+
+    /**
+     * Gets the number of stripes of the write buffer.
+     *
+     * @return the number of stripes of the write buffer.
+     */
+    public int getNumStripes() {
+      return mNumStripes;
+    }
+
+    /**
+     * Enables spilling the mutations that cannot be sent to HBase to a local log file.
+     *
+     * <p>
+     *   When a flush fails, the mutations not yet sent are appended to the log instead, and the
+     *   flush succeeds. A background thread replays the log to HBase periodically, until HBase
+     *   accepts the mutations. While the log holds mutations, flushes append to the log rather
+     *   than send to HBase, so that the mutations of a row are applied in the order they were
+     *   issued, and the memory used by the writer stays bounded by the write buffer size.
+     *   Spilled cells and deletes targeting the latest timestamp are pinned to the time they
+     *   are spilled, with timestamps that strictly increase in the order the mutations of each
+     *   row were issued. Deletes of the most recent version of a cell are not pinned.
+     * </p>
+     * <p>
+     *   Mutations still in the log when the writer is closed are replayed by the next writer
+     *   opened with the same log file, including after a crash.
+     *   A log file must not be used by more than one writer at a time.
+     * </p>
+     *
+     * @param logFile Path of the log file, created if necessary, or null to disable spilling.
+     * @return This KijiBufferedWriterOptions with the spill log set.
+     */
+    public KijiBufferedWriterOptions setSpillLog(File logFile) {
+      mSpillLogFile = logFile;
+      return this;
+    }
+
+    /**
+     * Gets the log file mutations are spilled to.
+     *
+     * @return the log file mutations are spilled to, or null if spilling is disabled.
+     */
+    public File getSpillLog() {
+      return mSpillLogFile;
+    }
+
+    /**
+     * Sets the interval between two attempts to replay the spill log. Defaults to 1 second.
+     *
+     * @param interval Interval between two attempts to replay the spill log.
+     * @param unit Unit of the interval.
+     * @return This KijiBufferedWriterOptions with the replay interval set.
+     */
+    public KijiBufferedWriterOptions setSpillReplayInterval(long interval, TimeUnit unit) {
+      Preconditions.checkArgument(interval > 0, "Invalid spill replay interval: %s", interval);
+      mSpillReplayIntervalMillis = unit.toMillis(interval);
+      return this;
+    }
+
+    /**
+     * Gets the interval between two attempts to replay the spill log, in milliseconds.
+     *
+     * @return the interval between two attempts to replay the spill log, in milliseconds.
+     */
+    public long getSpillReplayIntervalMillis() {
+      return mSpillReplayIntervalMillis;
+    }
+  }
 }
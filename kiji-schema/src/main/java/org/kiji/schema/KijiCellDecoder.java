@@ -54,4 +54,31 @@ public interface KijiCellDecoder<T> {
    * @throws IOException on I/O error.
    */
   T decodeValue(byte[] bytes) throws IOException;
+
+  /**
+   * Decodes a Kiji cell from its binary-encoded form, into an existing object if possible.
+   *
+   * <p>
+   *   If <code>reuse</code> is non-null, the decoder may fill it and return it as the cell data.
+   *   Decoders of immutable types ignore <code>reuse</code>.
+   * </p>
+   *
+   * @param bytes Binary encoded Kiji cell.
+   * @param reuse Optional object to decode the cell data into (may be null).
+   * @return the decoded KijiCell.
+   * @throws IOException on I/O error.
+   */
+  DecodedCell<T> decodeCell(byte[] bytes, T reuse) throws IOException;
+
+  /**
+   * Decodes a Kiji cell value from its binary-encoded form, into an existing object if possible.
+   *
+   * <p> See {@link #decodeCell(byte[], Object)} for the reuse semantics. </p>
+   *
+   * @param bytes Binary encoded Kiji cell value.
+   * @param reuse Optional object to decode the cell value into (may be null).
+   * @return the decoded cell value.
+   * @throws IOException on I/O error.
+   */
+  T decodeValue(byte[] bytes, T reuse) throws IOException;
 }
@@ -20,6 +20,7 @@
 package org.kiji.schema;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
@@ -58,4 +59,20 @@ public interface KijiCellEncoder {
    * @param <T> type of the value to encode.
    */
   <T> byte[] encode(T cellValue) throws IOException;
+
+  /**
+   * Encodes the specified value into a caller-supplied output stream.
+   *
+   * <p>
+   *   Writes the same bytes as {@link #encode(Object)}, without copying them into an intermediate
+   *   byte array. The output stream is neither flushed nor closed.
+   * </p>
+   *
+   * @param cellValue value to encode.
+   * @param out output stream to write the binary encoding of the cell to.
+   * @throws IOException on I/O error.
+   *
+   * @param <T> type of the value to encode.
+   */
+  <T> void encode(T cellValue, OutputStream out) throws IOException;
 }
@@ -0,0 +1,196 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.annotations.Inheritance;
+
+/**
+ * Interface for incrementing counters of a Kiji table with deltas coalesced in local memory.
+ *
+ * <p>
+ *   Increments of the same counter cell are summed locally and sent to HBase together, on
+ *   explicit calls to {@link #flush()} or {@link #close()}, or automatically when too many
+ *   counters have pending deltas or when the oldest pending delta is older than the durability
+ *   window of the incrementer. Pending deltas are lost if the JVM exits before they are flushed.
+ *   Counters are stored as with {@link KijiIncrementer#increment}.
+ * </p>
+ *
+ * <pre>
+ *   final KijiCoalescingIncrementer incrementer =
+ *       myKijiTable.getWriterFactory().openCoalescingIncrementer();
+ *   incrementer.increment(entityId, columnFamily, columnQualifier, amount);
+ * </pre>
+ *
+ * Accessible via {@link KijiTable#getWriterFactory()} then
+ * {@link KijiWriterFactory#openCoalescingIncrementer()}.
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+@Inheritance.Sealed
+public interface KijiCoalescingIncrementer extends Closeable, Flushable {
+  /**
+   * Adds a delta to a counter of a kiji table.
+   *
+   * <p>Throws an exception if the specified column is not a counter.</p>
+   *
+   * @param entityId Entity ID of the row containing the counter.
+   * @param family Column family.
+   * @param qualifier Column qualifier.
+   * @param amount Amount to increment the counter (may be negative).
+   * @throws IOException on I/O error.
+   */
+  void increment(EntityId entityId, String family, String qualifier, long amount)
+      throws IOException;
+
+  /**
+   * Reports the sum of the deltas of a counter not yet sent to HBase.
+   *
+   * @param entityId Entity ID of the row containing the counter.
+   * @param family Column family.
+   * @param qualifier Column qualifier.
+   * @return the sum of the pending deltas of the counter, or 0 if there is none.
+   */
+  long getPendingDelta(EntityId entityId, String family, String qualifier);
+
+  /**
+   * Sends all the pending deltas to HBase.
+   *
+   * @throws IOException in case of an error.
+   */
+  void flush() throws IOException;
+
+  /**
+   * Options for KijiCoalescingIncrementers.
+   *
+   * @see KijiWriterFactory#openCoalescingIncrementer(KijiCoalescingIncrementerOptions)
+   */
+  @ApiAudience.Public
+  public static final class KijiCoalescingIncrementerOptions {
+    /** Maximum number of counters with a pending delta before flushing automatically. */
+    private int mMaxPendingDeltas = 10000;
+
+    /** Maximum time a delta stays pending, in milliseconds, or 0 to disable timed flushes. */
+    private long mDurabilityWindowMillis = 0L;
+
+    /** Number of threads sending the increments of a flush in parallel. */
+    private int mNumSendThreads = 1;
+
+    /** Creates KijiCoalescingIncrementerOptions with the default options. */
+    public KijiCoalescingIncrementerOptions() {}
+
+    /**
+     * Sets the maximum number of counters with a pending delta.
+     *
+     * <p>
+     *   Adding a delta to a new counter once this number is reached flushes all the pending
+     *   deltas first. Defaults to 10,000.
+     * </p>
+     *
+     * @param maxPendingDeltas Maximum number of counters with a pending delta.
+     * @return This KijiCoalescingIncrementerOptions with the maximum number of pending deltas set.
+     */
+    public KijiCoalescingIncrementerOptions setMaxPendingDeltas(int maxPendingDeltas) {
+      Preconditions.checkArgument(maxPendingDeltas >= 1,
+          "Invalid maximum number of pending deltas: %s", maxPendingDeltas);
+      mMaxPendingDeltas = maxPendingDeltas;
+      return this;
+    }
+
+    /**
+     * Gets the maximum number of counters with a pending delta.
+     *
+     * @return the maximum number of counters with a pending delta.
+     */
+    public int getMaxPendingDeltas() {
+      return mMaxPendingDeltas;
+    }
+
+    /**
+     * Sets the durability window of the incrementer.
+     *
+     * <p>
+     *   When set, a background thread flushes the pending deltas at most this long after a delta
+     *   is added, which bounds how many increments a crashing client may lose. By default,
+     *   deltas are only flushed on command or when too many counters have pending deltas.
+     * </p>
+     * <p>
+     *   A timed flush failure is reported by the next increment(), flush() or close() call.
+     * </p>
+     *
+     * @param window Maximum time a delta stays pending, or 0 to disable timed flushes.
+     * @param unit Unit of the window.
+     * @return This KijiCoalescingIncrementerOptions with the durability window set.
+     */
+    public KijiCoalescingIncrementerOptions setDurabilityWindow(long window, TimeUnit unit) {
+      Preconditions.checkArgument(window >= 0, "Invalid durability window: %s", window);
+      mDurabilityWindowMillis = unit.toMillis(window);
+      return this;
+    }
+
+    /**
+     * Gets the durability window of the incrementer, in milliseconds.
+     *
+     * @return the maximum time a delta stays pending, in milliseconds,
+     *     or 0 if timed flushes are disabled.
+     */
+    public long getDurabilityWindowMillis() {
+      return mDurabilityWindowMillis;
+    }
+
+    /**
+     * Sets the number of threads sending the increments of a flush in parallel.
+     *
+     * <p>
+     *   Each row is sent to HBase as one Increment, which takes one round trip to the region
+     *   server of the row. With several send threads, the rows of a flush are split between the
+     *   threads, each sending its rows with its own HTable. Defaults to 1, which sends the
+     *   increments from the flushing thread.
+     * </p>
+     *
+     * @param numSendThreads Number of threads sending the increments of a flush.
+     * @return This KijiCoalescingIncrementerOptions with the number of send threads set.
+     */
+    public KijiCoalescingIncrementerOptions setSendThreads(int numSendThreads) {
+      Preconditions.checkArgument(numSendThreads >= 1,
+          "Invalid number of send threads: %s", numSendThreads);
+      mNumSendThreads = numSendThreads;
+      return this;
+    }
+
+    /**
+     * Gets the number of threads sending the increments of a flush in parallel.
+     *
+     * @return the number of threads sending the increments of a flush.
+     */
+    public int getNumSendThreads() {
+      return mNumSendThreads;
+    }
+  }
+}
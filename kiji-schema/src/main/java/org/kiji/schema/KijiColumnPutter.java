@@ -0,0 +1,80 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema;
+
+import java.io.IOException;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.annotations.Inheritance;
+
+/**
+ * Puts data into one column of a Kiji table, through the writer the column was opened from.
+ *
+ * <p>
+ *   The HBase column and the cell encoder of the Kiji column are resolved once, when the column
+ *   putter is created with {@link KijiPutter#column(String, String)}, and are reused for every
+ *   put. They are resolved again when the layout of the table changes.
+ * </p>
+ * <pre>
+ *   final KijiColumnPutter email = myTableWriter.column("info", "email");
+ *   email.put(entityId, timestamp, "user@example.com");
+ * </pre>
+ *
+ * <p>
+ *   A column putter is valid until its writer is closed, and is thread-safe if and only if its
+ *   writer is.
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+@Inheritance.Sealed
+public interface KijiColumnPutter {
+  /**
+   * Reports the Kiji column this putter writes to.
+   *
+   * @return the Kiji column this putter writes to.
+   */
+  KijiColumnName getColumnName();
+
+  /**
+   * Puts data into the column, with the current time as timestamp.
+   *
+   * @param entityId The entity (row) to put data into.
+   * @param value The data to write.
+   * @param <T> The type of the value being written.
+   * @throws IOException If there is an IO error.
+   */
+  <T> void put(EntityId entityId, T value)
+      throws IOException;
+
+  /**
+   * Puts data into the column.
+   *
+   * @param entityId The entity (row) to put data into.
+   * @param timestamp Timestamp, in millisecond since the Epoch.
+   * @param value The data to write.
+   * @param <T> The type of the value being written.
+   * @throws IOException If there is an IO error.
+   */
+  <T> void put(EntityId entityId, long timestamp, T value)
+      throws IOException;
+}
@@ -0,0 +1,85 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.annotations.Inheritance;
+
+/**
+ * Writes puts to a Kiji table as HFiles, to be bulk-loaded into the table.
+ *
+ * <p>
+ *   Puts are encoded and translated to HBase cells as by a {@link KijiTableWriter}, and buffered.
+ *   {@link #flush()} sorts the buffered cells and writes them into HFiles split at the current
+ *   region boundaries of the table, under the output directory of the writer.
+ *   {@link #bulkLoad()} loads all the HFiles written so far into the table.
+ *   Bulk loading bypasses the write path of HBase, and is much cheaper than sending the
+ *   puts for large imports.
+ * </p>
+ *
+ * <pre>
+ *   final KijiHFileWriter writer = table.getWriterFactory().openHFileWriter(outputPath);
+ *   try {
+ *     writer.put(entityId, "info", "name", timestamp, "value");
+ *     ...
+ *     writer.bulkLoad();
+ *   } finally {
+ *     writer.close();
+ *   }
+ * </pre>
+ *
+ * <p>
+ *   Puts without a timestamp, or with HConstants.LATEST_TIMESTAMP, are written with the current
+ *   time. When several puts write the same cell, the last one wins. Closing the writer flushes the
+ *   buffered puts but does not load them. Unlike a KijiTableWriter, a KijiHFileWriter does not
+ *   support deletes or counter increments.
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+@Inheritance.Sealed
+public interface KijiHFileWriter extends KijiPutter {
+  /**
+   * Sorts the buffered puts and writes them as HFiles under the output directory.
+   *
+   * @throws IOException on I/O error.
+   */
+  @Override
+  void flush() throws IOException;
+
+  /**
+   * Flushes the buffered puts, and bulk-loads all the HFiles written so far into the table.
+   *
+   * @throws IOException on I/O error.
+   */
+  void bulkLoad() throws IOException;
+
+  /**
+   * Gets the directory the HFiles are written to.
+   *
+   * @return the directory the HFiles are written to.
+   */
+  Path getOutputPath();
+}
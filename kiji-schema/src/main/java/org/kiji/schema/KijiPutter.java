@@ -76,4 +76,20 @@ public interface KijiPutter extends Closeable, Flushable {
    */
   <T> void put(EntityId entityId, String family, String qualifier, long timestamp, T value)
       throws IOException;
+
+  /**
+   * Opens a putter for a single column, with the column resolved once for all puts.
+   *
+   * <p>
+   *   Repeated puts into a small set of columns should go through column putters, to avoid
+   *   translating the column name and looking up the cell encoder for every put.
+   * </p>
+   *
+   * @param family A column family.
+   * @param qualifier A column qualifier.
+   * @return a putter for the specified column, valid until this putter is closed.
+   * @throws IOException If there is an IO error, or the column does not exist.
+   */
+  KijiColumnPutter column(String family, String qualifier)
+      throws IOException;
 }
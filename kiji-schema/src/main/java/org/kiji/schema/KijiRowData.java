@@ -181,6 +181,28 @@ public interface KijiRowData {
   <T> T getValue(String family, String qualifier, long timestamp)
       throws IOException;
 
+  /**
+   * Gets the data stored within the specified column with the specified timestamp,
+   * decoding it into an existing object if possible.
+   *
+   * <p>
+   *   Avro records may be decoded into <code>reuse</code> and returned, to save on object
+   *   construction in tight loops. Values that cannot be reused (eg. counters or strings) are
+   *   decoded into new objects, hence callers must always use the returned value.
+   * </p>
+   *
+   * @param family Column family of the desired data.
+   * @param qualifier Column qualifier of the desired data.
+   * @param timestamp Timestamp of the desired data.
+   * @param reuse Optional object to decode the data into (may be null).
+   * @param <T> Type of the data stored at the specified coordinates.
+   * @return Data contained in the specified column with the specified timestamp, or null
+   *     if the column or timestamp does not exist in this row.
+   * @throws IOException If there is an error.
+   */
+  <T> T getValue(String family, String qualifier, long timestamp, T reuse)
+      throws IOException;
+
   /**
    * Gets the data stored within the specified column with the latest timestamp.
    *
@@ -196,6 +218,88 @@ public interface KijiRowData {
   <T> T getMostRecentValue(String family, String qualifier)
       throws IOException;
 
+  /**
+   * Gets the data stored within the specified column with the latest timestamp,
+   * decoding it into an existing object if possible.
+   *
+   * <p> See {@link #getValue(String, String, long, Object)} for the reuse semantics. </p>
+   *
+   * @param family Column family of the desired data.
+   * @param qualifier Column qualifier of the desired data.
+   * @param reuse Optional object to decode the data into (may be null).
+   * @param <T> Type of the data stored at the specified coordinates.
+   * @return Data contained in the specified column with the latest timestamp, or null
+   *     if the column does not exist in this row.
+   * @throws IOException If there is an error.
+   */
+  <T> T getMostRecentValue(String family, String qualifier, T reuse)
+      throws IOException;
+
+  /**
+   * Gets the most recent value of a counter, int or long column, without boxing it.
+   *
+   * @param family Column family of the desired data.
+   * @param qualifier Column qualifier of the desired data.
+   * @param defaultValue Value to return if the column does not exist in this row.
+   * @return the value of the column with the latest timestamp, or <code>defaultValue</code>.
+   * @throws IOException If there is an error, or the column does not hold integral values.
+   *     Throws NoSuchColumnException if the column does not exist in the table layout.
+   */
+  long getMostRecentLong(String family, String qualifier, long defaultValue)
+      throws IOException;
+
+  /**
+   * Gets the timestamps of the cells in a column, as an array.
+   *
+   * <p>
+   *   Timestamps are in descending order, and match the values returned by
+   *   {@link #getLongValues(String, String)} and {@link #getDoubleValues(String, String)}.
+   * </p>
+   *
+   * @param family Column family of the desired data.
+   * @param qualifier Column qualifier of the desired data.
+   * @return the timestamps of the cells in the column, most recent first. Empty if the column
+   *     does not exist in this row.
+   */
+  long[] getTimestampArray(String family, String qualifier);
+
+  /**
+   * Gets the values of a counter, int or long column, without boxing them.
+   *
+   * <p>
+   *   Values are ordered by descending timestamp, as returned by
+   *   {@link #getTimestampArray(String, String)}.
+   * </p>
+   *
+   * @param family Column family of the desired data.
+   * @param qualifier Column qualifier of the desired data.
+   * @return the values of the cells in the column, most recent first. Empty if the column
+   *     does not exist in this row.
+   * @throws IOException If there is an error, or the column does not hold integral values.
+   *     Throws NoSuchColumnException if the column does not exist in the table layout.
+   */
+  long[] getLongValues(String family, String qualifier)
+      throws IOException;
+
+  /**
+   * Gets the values of a numeric column (counter, int, long, float or double), without boxing
+   * them.
+   *
+   * <p>
+   *   Values are ordered by descending timestamp, as returned by
+   *   {@link #getTimestampArray(String, String)}.
+   * </p>
+   *
+   * @param family Column family of the desired data.
+   * @param qualifier Column qualifier of the desired data.
+   * @return the values of the cells in the column, most recent first. Empty if the column
+   *     does not exist in this row.
+   * @throws IOException If there is an error, or the column does not hold numeric values.
+   *     Throws NoSuchColumnException if the column does not exist in the table layout.
+   */
+  double[] getDoubleValues(String family, String qualifier)
+      throws IOException;
+
   /**
    * Gets all data stored within the specified column family flattened to contain only
    * the data with the latest timestamps in each column.
@@ -371,6 +475,27 @@ public interface KijiRowData {
    */
   <T> Iterator<KijiCell<T>> iterator(String family) throws IOException;
 
+  /**
+   * Gets an iterator over the cells of a column, decoding the cells into an existing object
+   * if possible.
+   *
+   * <p>
+   *   Cells are decoded as the iterator advances. When the data of a cell is decoded into
+   *   <code>reuse</code>, it is overwritten by the next call to {@link Iterator#next()}:
+   *   callers must copy the data of a cell they want to keep beyond the next iteration.
+   * </p>
+   *
+   * @param family Column family of the desired cells.
+   * @param qualifier Column qualifier of the desired cells, or null to iterate over all the
+   *     cells of a map type column family.
+   * @param reuse Optional object to decode the cells into (may be null).
+   * @param <T> Type of the cells stored at the specified coordinates.
+   * @return An iterator of the cells of the specified column.
+   * @throws IOException If there is an error.
+   */
+  <T> Iterator<KijiCell<T>> iterator(String family, String qualifier, T reuse)
+      throws IOException;
+
   /**
    * Gets an iterable over all cells for the specified column.
    *
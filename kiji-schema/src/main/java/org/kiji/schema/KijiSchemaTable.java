@@ -22,12 +22,15 @@ package org.kiji.schema;
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Map;
+import java.util.List;
+import java.util.Set;
 
 import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.apache.avro.Schema;
-import org.apache.avro.util.WeakIdentityHashMap;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 
 import org.kiji.annotations.ApiAudience;
@@ -195,18 +198,128 @@ public interface KijiSchemaTable extends Flushable, Closeable {
    * Cache providing an efficient mapping from Avro schema object to the schema hash.
    *
    * Computing the hash code of a schema is expensive as it serializes the Avro schema object
-   * into JSON.
+   * into JSON. This cache is thread-safe and lock-free on hits.
    */
   @ApiAudience.Private
   static class SchemaHashCache {
+    /** Maximum number of entries in the structural cache. */
+    private static final int STRUCTURAL_CACHE_SIZE = 10000;
+
     /**
-     * Underlying cache is a weak identity hash map:
+     * Primary cache keyed by schema object identity:
      * <li> We must use object IDs since Schema.hashCode() and Schema.equals() implement a
-     *      comparison that ignores doc fields or default values.
-     * <li> We must use a weak map to ensure the cache gets garbage collected properly.
+     *      comparison that ignores doc fields or aliases.
+     * <li> We must use weak keys to ensure the cache gets garbage collected properly.
      */
-    private final Map<Schema, BytesKey> mCache =
-        Collections.synchronizedMap(new WeakIdentityHashMap<Schema, BytesKey>());
+    private final Cache<Schema, BytesKey> mCache = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
+
+    /**
+     * Secondary cache keyed by schema structure, so that equal schemas built as different
+     * objects do not need to be serialized and hashed again.
+     */
+    private final Cache<StructuralKey, BytesKey> mStructuralCache = CacheBuilder.newBuilder()
+        .maximumSize(STRUCTURAL_CACHE_SIZE)
+        .build();
+
+    /**
+     * Structural key for an Avro schema.
+     *
+     * <p>
+     *   Schema.equals() ignores the parts of a schema that do not affect the binary encoding,
+     *   but that are part of its JSON representation: docs, aliases and the order of properties.
+     *   Two schemas have equal structural keys if and only if they are equal and have the same
+     *   docs, aliases and property order, ie. if they have the same JSON representation.
+     * </p>
+     */
+    private static final class StructuralKey {
+      /** The schema. */
+      private final Schema mSchema;
+
+      /** Docs, aliases and property names of the schema, in traversal order. */
+      private final List<Object> mAnnotations;
+
+      /**
+       * Builds the structural key of a schema.
+       *
+       * @param schema Avro schema to build the structural key of.
+       */
+      StructuralKey(Schema schema) {
+        mSchema = schema;
+        mAnnotations = Lists.newArrayList();
+        collectAnnotations(schema, Sets.<Schema>newIdentityHashSet(), mAnnotations);
+      }
+
+      /**
+       * Collects the docs, aliases and property names of a schema, recursively.
+       *
+       * @param schema Avro schema to collect the annotations of.
+       * @param visited Named schemas visited already, to stop recursion in recursive schemas.
+       * @param annotations Collected annotations.
+       */
+      private static void collectAnnotations(
+          Schema schema,
+          Set<Schema> visited,
+          List<Object> annotations) {
+        annotations.add(schema.getProps().keySet().toString());
+        switch (schema.getType()) {
+        case RECORD: {
+          if (!visited.add(schema)) {
+            return;
+          }
+          annotations.add(schema.getDoc());
+          annotations.add(schema.getAliases());
+          for (Schema.Field field : schema.getFields()) {
+            annotations.add(field.doc());
+            annotations.add(field.aliases());
+            annotations.add(field.getProps().keySet().toString());
+            collectAnnotations(field.schema(), visited, annotations);
+          }
+          break;
+        }
+        case ENUM:
+        case FIXED: {
+          annotations.add(schema.getDoc());
+          annotations.add(schema.getAliases());
+          break;
+        }
+        case ARRAY: {
+          collectAnnotations(schema.getElementType(), visited, annotations);
+          break;
+        }
+        case MAP: {
+          collectAnnotations(schema.getValueType(), visited, annotations);
+          break;
+        }
+        case UNION: {
+          for (Schema branch : schema.getTypes()) {
+            collectAnnotations(branch, visited, annotations);
+          }
+          break;
+        }
+        default:
+          // Primitive types have no doc nor aliases.
+          break;
+        }
+      }
+
+      /** {@inheritDoc} */
+      @Override
+      public boolean equals(Object other) {
+        if (!(other instanceof StructuralKey)) {
+          return false;
+        }
+        final StructuralKey key = (StructuralKey) other;
+        return mSchema.equals(key.mSchema) && mAnnotations.equals(key.mAnnotations);
+      }
+
+      /** {@inheritDoc} */
+      @Override
+      public int hashCode() {
+        return mSchema.hashCode();
+      }
+    }
 
     /**
      * Computes a hash of the specified Avro schema.
@@ -227,11 +340,16 @@ public interface KijiSchemaTable extends Flushable, Closeable {
      * @return the schema hash.
      */
     public BytesKey getHash(Schema schema) {
-      final BytesKey hash = mCache.get(schema);
+      final BytesKey hash = mCache.getIfPresent(schema);
       if (null != hash) {
         return hash;
       }
-      final BytesKey newHash = new BytesKey(hashSchema(schema));
+      final StructuralKey structuralKey = new StructuralKey(schema);
+      BytesKey newHash = mStructuralCache.getIfPresent(structuralKey);
+      if (null == newHash) {
+        newHash = new BytesKey(hashSchema(schema));
+        mStructuralCache.put(structuralKey, newHash);
+      }
       mCache.put(schema, newHash);
       return newHash;
     }
@@ -23,11 +23,14 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
 
+import com.google.common.util.concurrent.ListenableFuture;
+
 import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
 import org.kiji.annotations.Inheritance;
 import org.kiji.schema.filter.KijiRowFilter;
 import org.kiji.schema.hbase.HBaseScanOptions;
+import org.kiji.schema.util.CloseableIterable;
 
 /**
  * Interface for reading data from a Kiji table.
@@ -79,6 +82,9 @@ import org.kiji.schema.hbase.HBaseScanOptions;
  * <p> Instantiated in Kiji Schema via {@link org.kiji.schema.KijiTable#openTableReader()}. </p>
  * <p>
  *   Unless otherwise specified, readers are not thread-safe and must be synchronized externally.
+ *   The asynchronous methods {@link #getAsync(EntityId, KijiDataRequest)} and
+ *   {@link #bulkGetAsync(List, KijiDataRequest)} may be invoked concurrently, and concurrently
+ *   with the synchronous methods of the reader.
  * </p>
  */
 @ApiAudience.Public
@@ -112,6 +118,64 @@ public interface KijiTableReader extends Closeable {
   List<KijiRowData> bulkGet(List<EntityId> entityIds, KijiDataRequest dataRequest)
       throws IOException;
 
+  /**
+   * Asynchronously retrieves data from a single row in the kiji table.
+   *
+   * <p>
+   *   The request is served by a bounded pool of threads shared by all the readers of the table.
+   *   The future fails with the exception that {@link #get(EntityId, KijiDataRequest)} would have
+   *   thrown, including when this reader is closed before the request is served.
+   * </p>
+   *
+   * @param entityId The entity id for the row to get data from.
+   * @param dataRequest Specifies the columns of data to retrieve.
+   * @return a future for the requested data, as returned by
+   *     {@link #get(EntityId, KijiDataRequest)}.
+   */
+  ListenableFuture<KijiRowData> getAsync(EntityId entityId, KijiDataRequest dataRequest);
+
+  /**
+   * Asynchronously retrieves data from a list of rows in the kiji table.
+   *
+   * <p>
+   *   The rows are fetched with a single batched request, served by a bounded pool of threads
+   *   shared by all the readers of the table.
+   * </p>
+   *
+   * @param entityIds The list of entity ids to collect data for.
+   * @param dataRequest Specifies constraints on the data to retrieve for each entity id.
+   * @return a future for the requested data, as returned by
+   *     {@link #bulkGet(List, KijiDataRequest)}.
+   */
+  ListenableFuture<List<KijiRowData>> bulkGetAsync(
+      List<EntityId> entityIds, KijiDataRequest dataRequest);
+
+  /**
+   * Retrieves data from a sequence of rows in the kiji table, as a stream of rows.
+   *
+   * <p>
+   *   The entity ids are split into batches of at most <code>batchSize</code> rows. Batches are
+   *   fetched in the background, with a bounded number of batches in flight, and each row is
+   *   available as soon as its batch completes. Rows are returned in the order of
+   *   <code>entityIds</code>. As with {@link #bulkGet(List, KijiDataRequest)}, the row is empty
+   *   if the entity id does not exist, and null if the get fails.
+   * </p>
+   *
+   * <p>
+   *   The returned iterable may be iterated over only once, and must be closed to release the
+   *   batches still in flight. Iterating throws a {@link KijiIOException} if a batch fails.
+   * </p>
+   *
+   * @param entityIds The entity ids to collect data for. Consumed lazily, as batches are sent.
+   * @param dataRequest Specifies constraints on the data to retrieve for each entity id.
+   * @param batchSize Maximum number of rows to fetch per batch.
+   * @return an iterable over the requested rows.
+   * @throws IOException If there is an IO error.
+   */
+  CloseableIterable<KijiRowData> bulkGetIterator(
+      Iterable<EntityId> entityIds, KijiDataRequest dataRequest, int batchSize)
+      throws IOException;
+
   /**
    * Gets a KijiRowScanner with the specified data request.
    *
@@ -0,0 +1,402 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/**
+ * Caps the rate of the mutations written to a Kiji table, in mutations and bytes per second.
+ *
+ * <p>
+ *   Rates are enforced with token buckets, which allow bursts of up to one second worth of
+ *   mutations and bytes. The size of a mutation is the size of the cells or delete markers sent
+ *   to HBase, including row keys and column names. Limits and backpressure can be adjusted at
+ *   any time, including while writers use the throttle. A throttle may be shared by several
+ *   writers, and is threadsafe.
+ * </p>
+ *
+ * <p>
+ *   Each writer is throttled by its own throttle, if any, specified when opening the writer with
+ *   {@link KijiWriterFactory}, and by the throttle of its table,
+ *   {@link KijiWriterFactory#getTableWriteThrottle()}. Throttles are unlimited by default.
+ * </p>
+ *
+ * <pre>
+ *   final KijiWriteThrottle throttle = new KijiWriteThrottle();
+ *   throttle.setMaxMutationsPerSecond(1000);
+ *   final KijiTableWriter writer = table.getWriterFactory().openTableWriter(throttle);
+ *   ...
+ *   LOG.info("Writer throttled for {} ms", throttle.getThrottledTime(TimeUnit.MILLISECONDS));
+ * </pre>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class KijiWriteThrottle {
+  /** Rate meaning no limit. */
+  public static final long UNLIMITED = Long.MAX_VALUE;
+
+  /** How writers react when they exceed the rate of a throttle. */
+  public static enum Backpressure {
+    /** Writers block until the rate allows the mutation. */
+    BLOCK,
+
+    /** Writers fail with a {@link ThrottledException}, and the mutation is not written. */
+    REJECT
+  }
+
+  /** Thrown when a mutation is rejected because it exceeds the rate of a throttle. */
+  @ApiAudience.Public
+  @SuppressWarnings("serial")
+  public static final class ThrottledException extends IOException {
+    /**
+     * Creates a new <code>ThrottledException</code> with the specified detail message.
+     * @param message The exception message.
+     */
+    public ThrottledException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Token bucket enforcing a single rate.
+   *
+   * <p> Access to a bucket must be synchronized on the throttle. </p>
+   */
+  private static final class Bucket {
+    /** Rate, in tokens per second, or UNLIMITED. */
+    private long mRate = UNLIMITED;
+
+    /** Tokens available. Negative when blocked writers reserved tokens in advance. */
+    private double mTokens = 0.0;
+
+    /** Time of the last refill, in nanoseconds. */
+    private long mLastRefillNanos = System.nanoTime();
+
+    /**
+     * Adds the tokens accumulated since the last refill, up to one second worth of tokens.
+     *
+     * @param nowNanos Current time, in nanoseconds.
+     */
+    private void refill(long nowNanos) {
+      if (mRate != UNLIMITED) {
+        final double elapsedSeconds = (nowNanos - mLastRefillNanos) / 1e9;
+        mTokens = Math.min(mRate, mTokens + elapsedSeconds * mRate);
+      }
+      mLastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Changes the rate of this bucket. The bucket starts full.
+     *
+     * @param rate New rate, in tokens per second, or UNLIMITED.
+     * @param nowNanos Current time, in nanoseconds.
+     */
+    private void setRate(long rate, long nowNanos) {
+      refill(nowNanos);
+      if ((mRate == UNLIMITED) || (mTokens > rate)) {
+        mTokens = rate;
+      }
+      mRate = rate;
+    }
+
+    /**
+     * Reports whether tokens can be taken without waiting.
+     *
+     * <p> Requests larger than the bucket are allowed whenever the bucket is full. </p>
+     *
+     * @param tokens Number of tokens to take.
+     * @return whether the tokens can be taken without waiting.
+     */
+    private boolean canTake(long tokens) {
+      return (mRate == UNLIMITED) || (mTokens >= Math.min(tokens, mRate));
+    }
+
+    /**
+     * Takes tokens from this bucket, possibly borrowing them from the future.
+     *
+     * @param tokens Number of tokens to take.
+     * @return how long to wait for the borrowed tokens, in nanoseconds.
+     */
+    private long take(long tokens) {
+      if (mRate == UNLIMITED) {
+        return 0L;
+      }
+      // Requests larger than the bucket wait for the bucket to be full, then go through:
+      final double debt = Math.min(tokens, mRate) - mTokens;
+      mTokens -= tokens;
+      return (debt <= 0.0) ? 0L : (long) (debt / mRate * 1e9);
+    }
+  }
+
+  /** Source of the identifiers ordering the locks of throttles acquired together. */
+  private static final AtomicLong NEXT_ID = new AtomicLong(0L);
+
+  /** Identifier of this throttle. Throttles acquired together are locked in this order. */
+  private final long mId = NEXT_ID.getAndIncrement();
+
+  /** Bucket limiting the number of mutations per second. */
+  private final Bucket mMutations = new Bucket();
+
+  /** Bucket limiting the number of bytes per second. */
+  private final Bucket mBytes = new Bucket();
+
+  /** How writers react when they exceed the rates of this throttle. */
+  private volatile Backpressure mBackpressure = Backpressure.BLOCK;
+
+  /** Total time writers were blocked by this throttle, in nanoseconds. */
+  private final AtomicLong mThrottledNanos = new AtomicLong(0L);
+
+  /** Number of mutations blocked or rejected by this throttle. */
+  private final AtomicLong mThrottledCount = new AtomicLong(0L);
+
+  /** Creates an unlimited throttle, blocking writers when limits are set. */
+  public KijiWriteThrottle() {
+  }
+
+  /**
+   * Sets the maximum number of mutations per second.
+   *
+   * @param maxMutationsPerSecond Maximum number of mutations per second, or UNLIMITED.
+   */
+  public synchronized void setMaxMutationsPerSecond(long maxMutationsPerSecond) {
+    Preconditions.checkArgument(maxMutationsPerSecond > 0,
+        "Invalid maximum number of mutations per second: %s", maxMutationsPerSecond);
+    mMutations.setRate(maxMutationsPerSecond, System.nanoTime());
+  }
+
+  /**
+   * Gets the maximum number of mutations per second.
+   *
+   * @return the maximum number of mutations per second, or UNLIMITED.
+   */
+  public synchronized long getMaxMutationsPerSecond() {
+    return mMutations.mRate;
+  }
+
+  /**
+   * Sets the maximum number of bytes per second.
+   *
+   * @param maxBytesPerSecond Maximum number of bytes per second, or UNLIMITED.
+   */
+  public synchronized void setMaxBytesPerSecond(long maxBytesPerSecond) {
+    Preconditions.checkArgument(maxBytesPerSecond > 0,
+        "Invalid maximum number of bytes per second: %s", maxBytesPerSecond);
+    mBytes.setRate(maxBytesPerSecond, System.nanoTime());
+  }
+
+  /**
+   * Gets the maximum number of bytes per second.
+   *
+   * @return the maximum number of bytes per second, or UNLIMITED.
+   */
+  public synchronized long getMaxBytesPerSecond() {
+    return mBytes.mRate;
+  }
+
+  /**
+   * Sets how writers react when they exceed the rates of this throttle.
+   *
+   * @param backpressure How writers react when they exceed the rates of this throttle.
+   */
+  public void setBackpressure(Backpressure backpressure) {
+    mBackpressure = Preconditions.checkNotNull(backpressure);
+  }
+
+  /**
+   * Gets how writers react when they exceed the rates of this throttle.
+   *
+   * @return how writers react when they exceed the rates of this throttle.
+   */
+  public Backpressure getBackpressure() {
+    return mBackpressure;
+  }
+
+  /**
+   * Reports the total time writers were blocked by this throttle.
+   *
+   * @param unit Unit of the time to report.
+   * @return the total time writers were blocked by this throttle.
+   */
+  public long getThrottledTime(TimeUnit unit) {
+    return unit.convert(mThrottledNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Reports the number of mutations blocked or rejected by this throttle.
+   *
+   * @return the number of mutations blocked or rejected by this throttle.
+   */
+  public long getThrottledCount() {
+    return mThrottledCount.get();
+  }
+
+  /**
+   * Waits until a mutation is allowed by this throttle, or rejects it, depending on the
+   * backpressure of this throttle.
+   *
+   * <p> Called by writers before writing a mutation. </p>
+   *
+   * @param bytes Size of the mutation, in bytes.
+   * @throws ThrottledException if the mutation is rejected.
+   */
+  public void acquire(long bytes) throws ThrottledException {
+    acquireAll(bytes, this);
+  }
+
+  /**
+   * Waits until a mutation is allowed by all the specified throttles, or rejects it, depending
+   * on the backpressure of each throttle.
+   *
+   * <p>
+   *   A mutation rejected by one of the throttles takes no tokens from any of them.
+   *   Called by writers before writing a mutation.
+   * </p>
+   *
+   * @param bytes Size of the mutation, in bytes.
+   * @param throttles Throttles the mutation must be allowed by.
+   * @throws ThrottledException if the mutation is rejected.
+   */
+  public static void acquireAll(long bytes, KijiWriteThrottle... throttles)
+      throws ThrottledException {
+    acquireAll(1, bytes, throttles);
+  }
+
+  /**
+   * Waits until a batch of mutations is allowed by all the specified throttles, or rejects it,
+   * depending on the backpressure of each throttle.
+   *
+   * <p>
+   *   The batch is allowed or rejected as a whole: a batch rejected by one of the throttles
+   *   takes no tokens from any of them. Called by writers before sending a batch of mutations.
+   * </p>
+   *
+   * @param numMutations Number of mutations in the batch.
+   * @param bytes Total size of the mutations, in bytes.
+   * @param throttles Throttles the mutations must be allowed by.
+   * @throws ThrottledException if the batch is rejected.
+   */
+  public static void acquireAll(int numMutations, long bytes, KijiWriteThrottle... throttles)
+      throws ThrottledException {
+    Preconditions.checkArgument(numMutations > 0, "Invalid number of mutations: %s", numMutations);
+    final KijiWriteThrottle[] sorted = throttles.clone();
+    // Lock the throttles in a global order, so that concurrent acquisitions cannot deadlock:
+    Arrays.sort(sorted, new Comparator<KijiWriteThrottle>() {
+      /** {@inheritDoc} */
+      @Override
+      public int compare(KijiWriteThrottle t1, KijiWriteThrottle t2) {
+        return (t1.mId < t2.mId) ? -1 : ((t1.mId == t2.mId) ? 0 : 1);
+      }
+    });
+    final long[] waitNanos = new long[sorted.length];
+    takeLocked(sorted, 0, numMutations, bytes, waitNanos);
+
+    long maxWaitNanos = 0L;
+    for (int i = 0; i < sorted.length; ++i) {
+      maxWaitNanos = Math.max(maxWaitNanos, waitNanos[i]);
+    }
+    if (maxWaitNanos > 0) {
+      final long startNanos = System.nanoTime();
+      try {
+        TimeUnit.NANOSECONDS.sleep(maxWaitNanos);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeInterruptedException(ie);
+      } finally {
+        final long throttledNanos = System.nanoTime() - startNanos;
+        for (int i = 0; i < sorted.length; ++i) {
+          if (waitNanos[i] > 0) {
+            sorted[i].mThrottledCount.addAndGet(numMutations);
+            sorted[i].mThrottledNanos.addAndGet(throttledNanos);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Locks throttles one after the other, then takes the tokens of a batch of mutations from
+   * all of them, unless one of them rejects the batch.
+   *
+   * @param throttles Throttles to take tokens from, sorted by identifier.
+   * @param index Index of the next throttle to lock.
+   * @param numMutations Number of mutations in the batch.
+   * @param bytes Total size of the mutations, in bytes.
+   * @param waitNanos Filled with how long each throttle requires to wait, in nanoseconds.
+   * @throws ThrottledException if the batch is rejected.
+   */
+  private static void takeLocked(
+      KijiWriteThrottle[] throttles, int index, int numMutations, long bytes, long[] waitNanos)
+      throws ThrottledException {
+    if (index < throttles.length) {
+      synchronized (throttles[index]) {
+        takeLocked(throttles, index + 1, numMutations, bytes, waitNanos);
+      }
+      return;
+    }
+
+    // All the throttles are locked: check them all before taking tokens from any.
+    final long nowNanos = System.nanoTime();
+    for (KijiWriteThrottle throttle : throttles) {
+      throttle.mMutations.refill(nowNanos);
+      throttle.mBytes.refill(nowNanos);
+      if ((throttle.mBackpressure == Backpressure.REJECT)
+          && !(throttle.mMutations.canTake(numMutations) && throttle.mBytes.canTake(bytes))) {
+        throttle.mThrottledCount.addAndGet(numMutations);
+        throw new ThrottledException(String.format(
+            "%d mutation(s) of %d bytes exceed the rate of %s.", numMutations, bytes, throttle));
+      }
+    }
+    for (int i = 0; i < throttles.length; ++i) {
+      waitNanos[i] = Math.max(
+          throttles[i].mMutations.take(numMutations), throttles[i].mBytes.take(bytes));
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(KijiWriteThrottle.class)
+        .add("max-mutations-per-second", toString(getMaxMutationsPerSecond()))
+        .add("max-bytes-per-second", toString(getMaxBytesPerSecond()))
+        .add("backpressure", mBackpressure)
+        .toString();
+  }
+
+  /**
+   * Formats a rate.
+   *
+   * @param rate Rate to format.
+   * @return the formatted rate.
+   */
+  private static String toString(long rate) {
+    return (rate == UNLIMITED) ? "unlimited" : Long.toString(rate);
+  }
+}
@@ -21,6 +21,8 @@ package org.kiji.schema;
 
 import java.io.IOException;
 
+import org.apache.hadoop.fs.Path;
+
 import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
 
@@ -42,6 +44,16 @@ public interface KijiWriterFactory {
    */
   KijiTableWriter openTableWriter() throws IOException;
 
+  /**
+   * Opens a new KijiTableWriter throttled by a given throttle, in addition to the throttle of
+   * the table. The caller of this method is responsible for closing the writer.
+   *
+   * @param throttle Throttle of the writer. May be shared with other writers.
+   * @return A new KijiTableWriter.
+   * @throws IOException in case of an error.
+   */
+  KijiTableWriter openTableWriter(KijiWriteThrottle throttle) throws IOException;
+
   /**
    * Opens a new AtomicKijiPutter for the KijiTable associated with this writer factory.
    * The caller of this method is responsible for closing the writer.
@@ -59,4 +71,71 @@ public interface KijiWriterFactory {
    * @throws IOException in case of an error.
    */
   KijiBufferedWriter openBufferedWriter() throws IOException;
+
+  /**
+   * Opens a new KijiBufferedWriter throttled by a given throttle, in addition to the throttle of
+   * the table. Mutations are throttled when sent to HBase.
+   * The caller of this method is responsible for closing the writer.
+   *
+   * @param throttle Throttle of the writer. May be shared with other writers.
+   * @return A new KijiBufferedWriter.
+   * @throws IOException in case of an error.
+   */
+  KijiBufferedWriter openBufferedWriter(KijiWriteThrottle throttle) throws IOException;
+
+  /**
+   * Opens a new KijiBufferedWriter with custom options, such as background flushes, a striped
+   * write buffer or a spill log. The caller of this method is responsible for closing the writer.
+   *
+   * @param options Options of the writer.
+   * @return A new KijiBufferedWriter.
+   * @throws IOException in case of an error.
+   */
+  KijiBufferedWriter openBufferedWriter(KijiBufferedWriter.KijiBufferedWriterOptions options)
+      throws IOException;
+
+  /**
+   * Opens a new KijiCoalescingIncrementer for the KijiTable associated with this writer factory.
+   * The caller of this method is responsible for closing the incrementer.
+   *
+   * @return A new KijiCoalescingIncrementer.
+   * @throws IOException in case of an error.
+   */
+  KijiCoalescingIncrementer openCoalescingIncrementer() throws IOException;
+
+  /**
+   * Opens a new KijiCoalescingIncrementer with custom options, such as a bounded number of
+   * pending deltas, a durability window or parallel sends. The caller of this method is
+   * responsible for closing the incrementer.
+   *
+   * <p>
+   *   Increments are throttled by the throttle of the table when they are sent to HBase.
+   * </p>
+   *
+   * @param options Options of the incrementer.
+   * @return A new KijiCoalescingIncrementer.
+   * @throws IOException in case of an error.
+   */
+  KijiCoalescingIncrementer openCoalescingIncrementer(
+      KijiCoalescingIncrementer.KijiCoalescingIncrementerOptions options) throws IOException;
+
+  /**
+   * Opens a new KijiHFileWriter for the KijiTable associated with this writer factory.
+   * The caller of this method is responsible for closing the writer.
+   *
+   * @param outputPath Directory to write the HFiles to, on the file system of the table.
+   *     Must not exist yet, or be empty.
+   * @return A new KijiHFileWriter.
+   * @throws IOException in case of an error.
+   */
+  KijiHFileWriter openHFileWriter(Path outputPath) throws IOException;
+
+  /**
+   * Gets the throttle shared by all the writers of the KijiTable associated with this writer
+   * factory. The throttle is unlimited until configured, and can be adjusted at any time.
+   * It is shared by all the handles on the table opened from the same Kiji instance.
+   *
+   * @return the throttle shared by all the writers of the table.
+   */
+  KijiWriteThrottle getTableWriteThrottle();
 }
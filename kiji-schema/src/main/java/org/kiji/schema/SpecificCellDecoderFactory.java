@@ -26,6 +26,7 @@ import com.google.common.base.Preconditions;
 import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
 import org.kiji.schema.impl.CounterCellDecoder;
+import org.kiji.schema.impl.PrimitiveCellDecoder;
 import org.kiji.schema.impl.SpecificCellDecoder;
 import org.kiji.schema.layout.CellSpec;
 
@@ -54,6 +55,9 @@ public final class SpecificCellDecoderFactory implements KijiCellDecoderFactory
     switch (cellSpec.getCellSchema().getType()) {
     case CLASS:
     case INLINE:
+      if (PrimitiveCellDecoder.isSupported(cellSpec)) {
+        return new PrimitiveCellDecoder<T>(cellSpec);
+      }
       return new SpecificCellDecoder<T>(cellSpec);
     case COUNTER:
       // purposefully forget the type (long) param of cell decoders for counters.
@@ -23,7 +23,10 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DecoderFactory;
 
@@ -47,6 +50,12 @@ import org.kiji.schema.util.Hasher;
 @ApiAudience.Private
 public abstract class AvroCellDecoder<T> implements KijiCellDecoder<T> {
 
+  /** Maximum number of writer schemas a thread caches DatumReaders for, per cell decoder. */
+  private static final int MAX_CACHED_WRITER_SCHEMAS = 64;
+
+  /** Maximum number of reader schemas a thread caches DatumReaders for, per writer schema. */
+  private static final int MAX_CACHED_READER_SCHEMAS = 8;
+
   /** Specification of the cell encoding. */
   private final CellSpec mCellSpec;
 
@@ -68,6 +77,41 @@ public abstract class AvroCellDecoder<T> implements KijiCellDecoder<T> {
    */
   private final Schema mReaderSchema;
 
+  /**
+   * Per-thread decoding state: the BinaryDecoder and the DatumReaders of this cell decoder are
+   * reused from one cell to the next, but never shared between threads.
+   */
+  private final ThreadLocal<DecodingState<T>> mDecodingState =
+      new ThreadLocal<DecodingState<T>>() {
+        /** {@inheritDoc} */
+        @Override
+        protected DecodingState<T> initialValue() {
+          return new DecodingState<T>();
+        }
+      };
+
+  /**
+   * State reused by a thread across the cells it decodes.
+   *
+   * @param <T> The type of the decoded cell data.
+   */
+  private static final class DecodingState<T> {
+    /** Binary decoder reconfigured for each cell. Null until the first cell is decoded. */
+    private BinaryDecoder mDecoder = null;
+
+    /**
+     * DatumReaders keyed by writer schema then reader schema. Schemas are compared by identity:
+     * schemas resolved through the schema table are cached instances, and resolving two schemas
+     * for equality is more expensive than building the DatumReader twice.
+     * Bounded, and weakly keyed so schemas no longer in use elsewhere can be collected.
+     */
+    private final Cache<Schema, Cache<Schema, DatumReader<T>>> mReaders =
+        CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(MAX_CACHED_WRITER_SCHEMAS)
+            .build();
+  }
+
   // -----------------------------------------------------------------------------------------------
 
   /** Interface for schema decoders. */
@@ -191,6 +235,7 @@ public abstract class AvroCellDecoder<T> implements KijiCellDecoder<T> {
    * Factory for DatumReader instances.
    *
    * Sub-classes must create DatumReader implementations for specific or generic records.
+   * DatumReaders are cached per thread and per writer/reader schema combination.
    *
    * @param writer Writer schema.
    * @param reader Reader schema.
@@ -210,6 +255,18 @@ public abstract class AvroCellDecoder<T> implements KijiCellDecoder<T> {
     return decodeCell(bytes).getData();
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public DecodedCell<T> decodeCell(byte[] encodedBytes, T reuse) throws IOException {
+    return decode(encodedBytes, reuse);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public T decodeValue(byte[] bytes, T reuse) throws IOException {
+    return decode(bytes, reuse).getData();
+  }
+
   /**
    * Decodes the serialized bytes into a KijiCell. If reuse is non-null, the implementation may fill
    * it and return it as the KijiCell data payload.
@@ -263,12 +320,41 @@ public abstract class AvroCellDecoder<T> implements KijiCellDecoder<T> {
       Schema readerSchema,
       T reuse)
       throws IOException {
-    final DatumReader<T> reader = createDatumReader(writerSchema, readerSchema);
-    return reader.read(reuse,
-        DecoderFactory.get().binaryDecoder(
-            encodedData.array(),
-            encodedData.position(),
-            encodedData.limit() - encodedData.position(),
-            null));
+    final DecodingState<T> state = mDecodingState.get();
+    final DatumReader<T> reader = getDatumReader(state, writerSchema, readerSchema);
+    state.mDecoder = DecoderFactory.get().binaryDecoder(
+        encodedData.array(),
+        encodedData.position(),
+        encodedData.limit() - encodedData.position(),
+        state.mDecoder);
+    return reader.read(reuse, state.mDecoder);
+  }
+
+  /**
+   * Gets the DatumReader for a writer/reader schema combination, creating it if necessary.
+   *
+   * @param state Decoding state of the current thread.
+   * @param writerSchema The schema that was used to encode the data.
+   * @param readerSchema The schema that is expected by the reader.
+   * @return the DatumReader for the specified writer/reader schema combination.
+   */
+  private DatumReader<T> getDatumReader(
+      DecodingState<T> state,
+      Schema writerSchema,
+      Schema readerSchema) {
+    Cache<Schema, DatumReader<T>> readers = state.mReaders.getIfPresent(writerSchema);
+    if (null == readers) {
+      readers = CacheBuilder.newBuilder()
+          .weakKeys()
+          .maximumSize(MAX_CACHED_READER_SCHEMAS)
+          .build();
+      state.mReaders.put(writerSchema, readers);
+    }
+    DatumReader<T> reader = readers.getIfPresent(readerSchema);
+    if (null == reader) {
+      reader = createDatumReader(writerSchema, readerSchema);
+      readers.put(readerSchema, reader);
+    }
+    return reader;
   }
 }
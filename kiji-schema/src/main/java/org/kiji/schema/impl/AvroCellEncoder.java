@@ -21,9 +21,11 @@ package org.kiji.schema.impl;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nonnull;
 
@@ -35,6 +37,7 @@ import com.google.common.collect.Sets;
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericContainer;
+import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
@@ -114,7 +117,7 @@ public final class AvroCellEncoder implements KijiCellEncoder {
    * @param cellSpec to get the Avro schema validation policy from.
    * @return the schema validation policy.
    */
-  private static AvroValidationPolicy getAvroValidationPolicy(final CellSpec cellSpec) {
+  static AvroValidationPolicy getAvroValidationPolicy(final CellSpec cellSpec) {
     final String validationPolicy = System.getProperty(SCHEMA_VALIDATION_POLICY);
     if (validationPolicy != null) {
       try {
@@ -139,7 +142,8 @@ public final class AvroCellEncoder implements KijiCellEncoder {
    *
    * <p>
    *   Avro datum writers aren't thread-safe, but if we ensure the schema of a datum writer is not
-   *   modified, the datum writer becomes thread-safe.
+   *   modified, the datum writer becomes thread-safe. The cache is concurrent, so that encoding
+   *   never requires a lock once a datum writer is cached.
    * </p>
    *
    * <p>
@@ -149,18 +153,33 @@ public final class AvroCellEncoder implements KijiCellEncoder {
    *   an identity map is also required as Schema.hashCode/equals are imperfect.
    * </p>
    */
-  private final Map<Schema, DatumWriter<Object>> mCachedDatumWriters = Maps.newHashMap();
+  private final ConcurrentMap<Schema, DatumWriter<Object>> mCachedDatumWriters =
+      Maps.newConcurrentMap();
 
   /**
-   * A byte stream for when encoding to a byte array.
-   *
-   * Since we use the same instance for all encodings, this makes the encoder thread-unsafe.
+   * Per-thread scratch state to encode cells, so that concurrent writers sharing this cell encoder
+   * never contend on a lock.
    */
-  private final ByteArrayOutputStream mByteArrayOutputStream = new ByteArrayOutputStream();
+  private final ThreadLocal<EncodingState> mEncodingState = new ThreadLocal<EncodingState>() {
+    /** {@inheritDoc} */
+    @Override
+    protected EncodingState initialValue() {
+      return new EncodingState();
+    }
+  };
+
+  /** Scratch state reused by a thread across the cells it encodes. */
+  private static final class EncodingState {
+    /** A byte stream for when encoding to a byte array. */
+    private final ByteArrayOutputStream mByteArrayOutputStream = new ByteArrayOutputStream();
 
-  /** An encoder that writes to the above byte stream. */
-  private final Encoder mByteArrayEncoder =
-      EncoderFactory.get().directBinaryEncoder(mByteArrayOutputStream, null);
+    /** An encoder that writes to the above byte stream. */
+    private final BinaryEncoder mByteArrayEncoder =
+        EncoderFactory.get().directBinaryEncoder(mByteArrayOutputStream, null);
+
+    /** An encoder reconfigured for each caller-supplied output stream. Null until first used. */
+    private BinaryEncoder mStreamEncoder = null;
+  }
 
   /**
    * Configured reader schema for the column to encode.
@@ -194,9 +213,10 @@ public final class AvroCellEncoder implements KijiCellEncoder {
      * Encodes the writer schema in the cell.
      *
      * @param writerSchema Avro schema of the data being encoded.
+     * @param encoder Encoder to write the writer schema to.
      * @throws IOException on I/O error.
      */
-    void encode(Schema writerSchema) throws IOException;
+    void encode(Schema writerSchema, Encoder encoder) throws IOException;
   }
 
   // -----------------------------------------------------------------------------------------------
@@ -205,9 +225,9 @@ public final class AvroCellEncoder implements KijiCellEncoder {
   private class SchemaHashEncoder implements SchemaEncoder {
     /** {@inheritDoc} */
     @Override
-    public void encode(final Schema writerSchema) throws IOException {
+    public void encode(final Schema writerSchema, final Encoder encoder) throws IOException {
       final BytesKey schemaHash = mCellSpec.getSchemaTable().getOrCreateSchemaHash(writerSchema);
-      mByteArrayEncoder.writeFixed(schemaHash.getBytes());
+      encoder.writeFixed(schemaHash.getBytes());
     }
   }
 
@@ -217,9 +237,9 @@ public final class AvroCellEncoder implements KijiCellEncoder {
   private class SchemaIdEncoder implements SchemaEncoder {
     /** {@inheritDoc} */
     @Override
-    public void encode(final Schema writerSchema) throws IOException {
+    public void encode(final Schema writerSchema, final Encoder encoder) throws IOException {
       final long schemaId = mCellSpec.getSchemaTable().getOrCreateSchemaId(writerSchema);
-      mByteArrayEncoder.writeFixed(ByteStreamArray.longToVarInt64(schemaId));
+      encoder.writeFixed(ByteStreamArray.longToVarInt64(schemaId));
     }
   }
 
@@ -241,7 +261,7 @@ public final class AvroCellEncoder implements KijiCellEncoder {
 
     /** {@inheritDoc} */
     @Override
-    public void encode(final Schema writerSchema) throws IOException {
+    public void encode(final Schema writerSchema, final Encoder encoder) throws IOException {
       // Nothing to encode, because the writer schema is already encoded in the column layout.
       // This means the writer schema must be exactly the declared reader schema.
     }
@@ -290,9 +310,31 @@ public final class AvroCellEncoder implements KijiCellEncoder {
 
   /** {@inheritDoc} */
   @Override
-  public synchronized <T> byte[] encode(final T cellValue) throws IOException {
-    mByteArrayOutputStream.reset();
+  public <T> byte[] encode(final T cellValue) throws IOException {
+    final EncodingState state = mEncodingState.get();
+    state.mByteArrayOutputStream.reset();
+    encode(cellValue, state.mByteArrayEncoder);
+    return state.mByteArrayOutputStream.toByteArray();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> void encode(final T cellValue, final OutputStream out) throws IOException {
+    final EncodingState state = mEncodingState.get();
+    state.mStreamEncoder = EncoderFactory.get().directBinaryEncoder(out, state.mStreamEncoder);
+    encode(cellValue, state.mStreamEncoder);
+  }
 
+  /**
+   * Encodes the specified value with a given Avro encoder.
+   *
+   * @param cellValue value to encode.
+   * @param encoder Avro encoder to write the binary encoding of the cell to.
+   * @throws IOException on I/O error.
+   *
+   * @param <T> type of the value to encode.
+   */
+  private <T> void encode(final T cellValue, final Encoder encoder) throws IOException {
     // Get the writer schema for this cell.
     final Schema writerSchema = getWriterSchema(cellValue);
 
@@ -314,7 +356,9 @@ public final class AvroCellEncoder implements KijiCellEncoder {
             throw new InternalKijiError("CellSpec has no column URI: " + mCellSpec);
           }
 
-          registerWriterSchema(mCellSpec.getColumnURI(), writerSchema);
+          synchronized (this) {
+            registerWriterSchema(mCellSpec.getColumnURI(), writerSchema);
+          }
         }
         break;
       }
@@ -342,23 +386,25 @@ public final class AvroCellEncoder implements KijiCellEncoder {
     }
 
     // Encode the Avro schema (if necessary):
-    mSchemaEncoder.encode(writerSchema);
+    mSchemaEncoder.encode(writerSchema, encoder);
 
     // Encode the cell value:
     try {
-      getDatumWriter(writerSchema).write(cellValue, mByteArrayEncoder);
+      getDatumWriter(writerSchema).write(cellValue, encoder);
     } catch (ClassCastException cce) {
       throw new KijiEncodingException(cce);
     } catch (AvroRuntimeException ure) {
       throw new KijiEncodingException(ure);
     }
-    return mByteArrayOutputStream.toByteArray();
   }
 
   /**
    * Gets a datum writer for a schema and caches it.
    *
-   * <p> Not thread-safe, calls to this method must be externally synchronized. </p>
+   * <p>
+   *   Thread-safe: concurrent callers may race to create a datum writer, but agree on the one
+   *   that gets cached.
+   * </p>
    *
    * @param schema The writer schema.
    * @return A datum writer for the given schema.
@@ -369,8 +415,8 @@ public final class AvroCellEncoder implements KijiCellEncoder {
       return existing;
     }
     final DatumWriter<Object> newWriter = new SpecificDatumWriter<Object>(schema);
-    mCachedDatumWriters.put(schema, newWriter);
-    return newWriter;
+    final DatumWriter<Object> raced = mCachedDatumWriters.putIfAbsent(schema, newWriter);
+    return (null != raced) ? raced : newWriter;
   }
 
   /**
@@ -400,7 +446,7 @@ public final class AvroCellEncoder implements KijiCellEncoder {
    *     disabled.
    * @throws IOException if there is an error looking up schemas.
    */
-  private static Set<Schema> getRegisteredWriters(final CellSpec spec) throws IOException {
+  static Set<Schema> getRegisteredWriters(final CellSpec spec) throws IOException {
     final List<Long> writerUIDs = spec.getCellSchema().getWriters();
     if (writerUIDs == null) {
       return null;
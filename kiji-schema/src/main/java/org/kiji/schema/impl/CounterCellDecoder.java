@@ -53,4 +53,16 @@ public final class CounterCellDecoder implements KijiCellDecoder<Long> {
   public Long decodeValue(byte[] bytes) throws IOException {
     return Bytes.toLong(bytes);
   }
+
+  /** {@inheritDoc} */
+  @Override
+  public DecodedCell<Long> decodeCell(byte[] bytes, Long reuse) throws IOException {
+    return decodeCell(bytes);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Long decodeValue(byte[] bytes, Long reuse) throws IOException {
+    return decodeValue(bytes);
+  }
 }
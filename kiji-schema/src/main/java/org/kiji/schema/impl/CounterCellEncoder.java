@@ -20,6 +20,7 @@
 package org.kiji.schema.impl;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 import org.apache.hadoop.hbase.util.Bytes;
 
@@ -53,4 +54,10 @@ public final class CounterCellEncoder implements KijiCellEncoder {
   public <T> byte[] encode(T cellValue) throws IOException {
     return Bytes.toBytes(((Number) cellValue).longValue());
   }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> void encode(T cellValue, OutputStream out) throws IOException {
+    out.write(encode(cellValue));
+  }
 }
@@ -52,6 +52,9 @@ public final class DefaultKijiCellEncoderFactory implements KijiCellEncoderFacto
     case INLINE:
     case AVRO:
     case CLASS:
+      if (PrimitiveCellEncoder.isSupported(cellSpec)) {
+        return new PrimitiveCellEncoder(cellSpec);
+      }
       return new AvroCellEncoder(cellSpec);
     case COUNTER:
       return CounterCellEncoder.get();
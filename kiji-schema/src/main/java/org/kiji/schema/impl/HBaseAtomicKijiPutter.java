@@ -224,6 +224,7 @@ public final class HBaseAtomicKijiPutter implements AtomicKijiPutter {
     if (!mHTable.isAutoFlush()) {
       mHTable.flushCommits();
     }
+    mTable.invalidateCachedRow(mId);
     reset();
   }
 
@@ -254,6 +255,7 @@ public final class HBaseAtomicKijiPutter implements AtomicKijiPutter {
       if (!mHTable.isAutoFlush()) {
         mHTable.flushCommits();
       }
+      mTable.invalidateCachedRow(mId);
       reset();
     }
     return retVal;
@@ -284,7 +284,7 @@ public class HBaseDataRequestAdapter {
    * @param scan The Scan to configure.
    * @param scanOptions The options to configure this Scan with.
    */
-  private void configureScan(Scan scan, HBaseScanOptions scanOptions) {
+  static void configureScan(Scan scan, HBaseScanOptions scanOptions) {
     if (null != scanOptions.getClientBufferSize()) {
       scan.setBatch(scanOptions.getClientBufferSize());
     }
@@ -22,11 +22,13 @@ package org.kiji.schema.impl;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HColumnDescriptor;
 import org.apache.hadoop.hbase.HTableDescriptor;
@@ -48,6 +50,7 @@ import org.kiji.schema.KijiSchemaTable;
 import org.kiji.schema.KijiSystemTable;
 import org.kiji.schema.KijiTable;
 import org.kiji.schema.KijiURI;
+import org.kiji.schema.KijiWriteThrottle;
 import org.kiji.schema.avro.RowKeyEncoding;
 import org.kiji.schema.avro.RowKeyFormat;
 import org.kiji.schema.avro.TableLayoutDesc;
@@ -116,6 +119,10 @@ public final class HBaseKiji implements Kiji {
   /** ZooKeeper client for this Kiji instance. */
   private final ZooKeeperClient mZKClient;
 
+  /** Throttles shared by all the writers of each table, keyed by table name. */
+  private final ConcurrentMap<String, KijiWriteThrottle> mWriteThrottles =
+      Maps.newConcurrentMap();
+
   /**
    * Creates a new <code>HBaseKiji</code> instance.
    *
@@ -289,6 +296,23 @@ public final class HBaseKiji implements Kiji {
     return mAdmin;
   }
 
+  /**
+   * Returns the throttle shared by all the writers of a table, through any of its handles.
+   * The throttle is created unlimited on first use.
+   *
+   * @param tableName Name of the table.
+   * @return the throttle shared by all the writers of the table.
+   */
+  public KijiWriteThrottle getWriteThrottle(String tableName) {
+    final KijiWriteThrottle throttle = mWriteThrottles.get(tableName);
+    if (throttle != null) {
+      return throttle;
+    }
+    final KijiWriteThrottle created = new KijiWriteThrottle();
+    final KijiWriteThrottle existing = mWriteThrottles.putIfAbsent(tableName, created);
+    return (existing != null) ? existing : created;
+  }
+
   /** {@inheritDoc} */
   @Override
   public KijiTable openTable(String tableName) throws IOException {
@@ -633,6 +657,7 @@ public final class HBaseKiji implements Kiji {
 
     // Delete from the meta table.
     getMetaTable().deleteTable(tableName);
+    mWriteThrottles.remove(tableName);
 
     // If the table persists immediately after deletion attempt, then give up.
     if (getHBaseAdmin().tableExists(hbaseTable)) {
@@ -20,20 +20,35 @@
 package org.kiji.schema.impl;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.TableNotFoundException;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Row;
 import org.apache.hadoop.hbase.client.RowLock;
 import org.apache.hadoop.hbase.filter.ColumnPrefixFilter;
 import org.apache.hadoop.hbase.filter.FilterList;
@@ -48,10 +63,14 @@ import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.Inheritance;
 import org.kiji.schema.EntityId;
 import org.kiji.schema.KijiBufferedWriter;
+import org.kiji.schema.KijiBufferedWriter.KijiBufferedWriterOptions;
 import org.kiji.schema.KijiCellEncoder;
 import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiColumnPutter;
 import org.kiji.schema.KijiTableNotFoundException;
+import org.kiji.schema.KijiWriteThrottle;
 import org.kiji.schema.NoSuchColumnException;
+import org.kiji.schema.RuntimeInterruptedException;
 import org.kiji.schema.hbase.HBaseColumnName;
 import org.kiji.schema.impl.HBaseKijiTable.LayoutCapsule;
 import org.kiji.schema.impl.HBaseKijiTableWriter.WriterLayoutCapsule;
@@ -59,6 +78,8 @@ import org.kiji.schema.layout.KijiTableLayout.LocalityGroupLayout.FamilyLayout;
 import org.kiji.schema.layout.KijiTableLayout.LocalityGroupLayout.FamilyLayout.ColumnLayout;
 import org.kiji.schema.layout.impl.CellEncoderProvider;
 import org.kiji.schema.platform.SchemaPlatformBridge;
+import org.kiji.schema.util.BytesKey;
+import org.kiji.schema.util.ResourceUtils;
 
 /**
  * <p>
@@ -68,8 +89,22 @@ import org.kiji.schema.platform.SchemaPlatformBridge;
  * </p>
  *
  * <p>
- * Access to this Writer is threadsafe.  All internal state mutations must synchronize against
- * mInternalLock.
+ * On flush, buffered puts are sent as lists rather than one by one. The mutations of each row
+ * reach HBase in the order they were issued, including puts and deletes interleaved.
+ * When a flush fails, the mutations not sent yet stay buffered and are sent first by the next
+ * flush. After a background flush fails, the background flushes following it send nothing until
+ * the failure is reported to the caller.
+ * </p>
+ *
+ * <p>
+ * Optionally, mutations that cannot be sent to HBase are spilled to a local log file instead of
+ * failing the flush, and replayed in the background once HBase accepts them again.
+ * See {@link KijiBufferedWriterOptions#setSpillLog(java.io.File)}.
+ * </p>
+ *
+ * <p>
+ * Access to this Writer is threadsafe.  Buffered mutations are guarded by the lock of their
+ * buffer stripe.  Flushes and layout updates must synchronize against mInternalLock.
  * </p>
  */
 @ApiAudience.Private
@@ -77,6 +112,9 @@ import org.kiji.schema.platform.SchemaPlatformBridge;
 public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
   private static final Logger LOG = LoggerFactory.getLogger(HBaseKijiBufferedWriter.class);
 
+  /** Maximum number of mutations throttled and sent to HBase at once. */
+  private static final int SEND_BATCH_SIZE = 1000;
+
   /** Underlying dedicated HTableInterface used by this writer. Owned by this writer. */
   private final HTableInterface mHTable;
 
@@ -86,7 +124,7 @@ public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
   /** Object which processes layout update from the KijiTable to which this Writer writes. */
   private final InnerLayoutUpdater mInnerLayoutUpdater = new InnerLayoutUpdater();
 
-  /** Monitor against which all internal state mutations must be synchronized. */
+  /** Monitor against which flushes and layout updates must be synchronized. */
   private final Object mInternalLock = new Object();
 
   /**
@@ -95,13 +133,57 @@ public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
    */
   private volatile WriterLayoutCapsule mWriterLayoutCapsule = null;
 
-  /** Local write buffers. */
-  private Map<EntityId, Put> mPutBuffer = new HashMap<EntityId, Put>();
-  private ArrayList<Delete> mDeleteBuffer = Lists.newArrayList();
+  /**
+   * Local write buffer, striped by row key. The mutations of a row always go to the same stripe.
+   * See {@link KijiBufferedWriterOptions#setStripes(int)}.
+   */
+  private final Stripe[] mStripes;
 
   /** Local write buffer size. */
-  private long mMaxWriteBufferSize = 1024L * 1024L * 2L;
-  private long mCurrentWriteBufferSize = 0L;
+  private volatile long mMaxWriteBufferSize = 1024L * 1024L * 2L;
+  private final AtomicLong mCurrentWriteBufferSize = new AtomicLong(0L);
+
+  /**
+   * Maximum number of full buffers flushed in the background, or 0 to flush synchronously.
+   * See {@link KijiBufferedWriterOptions#setAsyncFlush(int)}.
+   */
+  private final int mMaxInFlightFlushes;
+
+  /** Permits to flush a full buffer in the background. Null when flushing synchronously. */
+  private final Semaphore mInFlightFlushes;
+
+  /** Single thread flushing full buffers in order. Null when flushing synchronously. */
+  private final ExecutorService mFlushExecutor;
+
+  /** Dedicated HTable used by the background flushes. Null when flushing synchronously. */
+  private final HTableInterface mFlushHTable;
+
+  /**
+   * Rounds of mutations left unsent by a failed flush, in order. They are older than the mutations
+   * of the stripes, and are sent first by the next flush. Guarded by its own monitor.
+   */
+  private final List<MutationRound> mUnsentRounds = Lists.newArrayList();
+
+  /** Last background flush submitted. Guarded by mInternalLock. Null if none. */
+  private Future<?> mLastAsyncFlush = null;
+
+  /** First error raised by a background flush and not yet reported, or null. */
+  private final AtomicReference<Throwable> mAsyncFlushError = new AtomicReference<Throwable>();
+
+  /** Log the mutations that cannot be sent to HBase are spilled to. Null when not spilling. */
+  private final MutationSpillLog mSpillLog;
+
+  /** Replays the spill log to HBase. Null when not spilling. */
+  private final SpillLogReplayer mSpillReplayer;
+
+  /** Dedicated HTable used to replay the spill log. Null when not spilling. */
+  private final HTableInterface mReplayHTable;
+
+  /** Thread replaying the spill log periodically. Null when not spilling. */
+  private final ScheduledExecutorService mReplayExecutor;
+
+  /** Throttles the mutations of this writer, when they are buffered. */
+  private final MutationThrottler mThrottler;
 
   /** Static overhead size of a Delete. */
   private final long mDeleteSize = ClassSize.align(
@@ -109,10 +191,114 @@ public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
       + 2 * Bytes.SIZEOF_LONG + Bytes.SIZEOF_BOOLEAN
       + ClassSize.REFERENCE + ClassSize.TREEMAP);
 
+  /**
+   * Mutations that may be sent to HBase together without reordering the mutations of a row.
+   *
+   * <p>
+   *   Within a round, a row has either puts or deletes, but never both: puts of a row are
+   *   merged into a single Put, and deletes of a row commute with each other.
+   *   Puts and deletes of a round can therefore be sent as two lists, in any order.
+   * </p>
+   */
+  private static final class MutationRound {
+    /** Puts of this round, by row key, in the order rows were first put. */
+    private final Map<BytesKey, Put> mPuts = Maps.newLinkedHashMap();
+
+    /** Deletes of this round, in the order they were issued. */
+    private final List<Delete> mDeletes = Lists.newArrayList();
+
+    /** Row keys of the deletes of this round. */
+    private final Set<BytesKey> mDeletedRows = Sets.newHashSet();
+
+    /** Approximate heap size of the mutations of this round, in bytes. */
+    private long mSize = 0L;
+  }
+
+  /**
+   * Stripe of the local write buffer.
+   *
+   * <p>
+   *   Holds the mutations of the rows hashed to this stripe as rounds of mutations, in the order
+   *   the mutations were issued. New mutations are added to the last round, or to a new round if
+   *   they would otherwise be reordered with a mutation of the same row.
+   * </p>
+   * <p> Access to a stripe must be synchronized on the stripe. </p>
+   */
+  private static final class Stripe {
+    /** Rounds of mutations of this stripe, in the order they were issued. */
+    private List<MutationRound> mRounds = Lists.newArrayList();
+
+    /** Approximate heap size of the mutations of this stripe, in bytes. */
+    private long mSize = 0L;
+
+    /**
+     * Reports the round a mutation of a row can be added to without being reordered.
+     *
+     * @param row Row key of the mutation.
+     * @param isPut Whether the mutation is a put, as opposed to a delete.
+     * @return the last round of this stripe, or a new round.
+     */
+    private MutationRound getRound(BytesKey row, boolean isPut) {
+      if (!mRounds.isEmpty()) {
+        final MutationRound last = mRounds.get(mRounds.size() - 1);
+        // Puts must not be sent before the buffered deletes of their row, and vice-versa:
+        final boolean conflict =
+            isPut ? last.mDeletedRows.contains(row) : last.mPuts.containsKey(row);
+        if (!conflict) {
+          return last;
+        }
+      }
+      final MutationRound round = new MutationRound();
+      mRounds.add(round);
+      return round;
+    }
+
+    /**
+     * Adds a cell to put to this stripe.
+     *
+     * @param row Row key of the cell.
+     * @param kv Cell to put.
+     * @return the increase of the size of this stripe, in bytes.
+     * @throws IOException on error.
+     */
+    private long addPut(BytesKey row, KeyValue kv) throws IOException {
+      final MutationRound round = getRound(row, true);
+      final Put existing = round.mPuts.get(row);
+      final long delta;
+      if (existing != null) {
+        existing.add(kv);
+        delta = kv.heapSize() + ClassSize.REFERENCE;
+      } else {
+        final Put put = new Put(row.getBytes());
+        put.add(kv);
+        round.mPuts.put(row, put);
+        delta = put.heapSize();
+      }
+      round.mSize += delta;
+      mSize += delta;
+      return delta;
+    }
+
+    /**
+     * Adds a delete to this stripe.
+     *
+     * @param row Row key of the delete.
+     * @param delete Delete to add.
+     * @param size Approximate heap size of the delete.
+     */
+    private void addDelete(BytesKey row, Delete delete, long size) {
+      final MutationRound round = getRound(row, false);
+      round.mDeletes.add(delete);
+      round.mDeletedRows.add(row);
+      round.mSize += size;
+      mSize += size;
+    }
+  }
+
   /** False before instance construction is complete.  True any time after construction. */
   private final AtomicBoolean mIsOpen = new AtomicBoolean(false);
 
-  /** False before {@link #close()} completes.  True any time after close(). */
+  /** False before {@link #close()} is called.  True any time after close() is called. */
   private final AtomicBoolean mIsClosed = new AtomicBoolean(false);
 
   /** Provides for the updating of this Writer in response to a table layout update. */
@@ -166,22 +352,132 @@ public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
    * @throws IOException in case of IO errors.
    */
   public HBaseKijiBufferedWriter(HBaseKijiTable table) throws IOException {
+    this(table, new KijiBufferedWriterOptions());
+  }
+
+  /**
+   * Creates a buffered kiji table writer that stores modifications to be sent on command
+   * or when the buffer overflows.
+   *
+   * @param table A kiji table.
+   * @param options Options for the writer.
+   * @throws KijiTableNotFoundException in case of an invalid table parameter
+   * @throws IOException in case of IO errors.
+   */
+  public HBaseKijiBufferedWriter(HBaseKijiTable table, KijiBufferedWriterOptions options)
+      throws IOException {
     mTable = table;
+    mThrottler = new MutationThrottler(options.getWriteThrottle(), table);
     try {
       mHTable = mTable.openHTableConnection();
     } catch (TableNotFoundException e) {
       throw new KijiTableNotFoundException(table.getName());
     }
+    mStripes = new Stripe[options.getNumStripes()];
+    for (int i = 0; i < mStripes.length; ++i) {
+      mStripes[i] = new Stripe();
+    }
+    mMaxInFlightFlushes = options.getMaxInFlightFlushes();
+    if (mMaxInFlightFlushes > 0) {
+      mFlushHTable = mTable.openHTableConnection();
+      SchemaPlatformBridge.get().setAutoFlush(mFlushHTable, true);
+      mInFlightFlushes = new Semaphore(mMaxInFlightFlushes);
+      mFlushExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat(String.format("kiji-buffered-writer-%s-%%d", table.getName()))
+          .build());
+    } else {
+      mFlushHTable = null;
+      mInFlightFlushes = null;
+      mFlushExecutor = null;
+    }
+    if (options.getSpillLog() != null) {
+      mSpillLog = MutationSpillLog.open(options.getSpillLog());
+      mReplayHTable = mTable.openHTableConnection();
+      SchemaPlatformBridge.get().setAutoFlush(mReplayHTable, true);
+      mSpillReplayer = new SpillLogReplayer(mSpillLog, mReplayHTable, mTable, mThrottler);
+      mReplayExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat(String.format("kiji-spill-replayer-%s-%%d", table.getName()))
+          .build());
+      final long interval = options.getSpillReplayIntervalMillis();
+      mReplayExecutor.scheduleWithFixedDelay(new Runnable() {
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+          replaySpillLog();
+        }
+      }, 0L, interval, TimeUnit.MILLISECONDS);
+    } else {
+      mSpillLog = null;
+      mReplayHTable = null;
+      mSpillReplayer = null;
+      mReplayExecutor = null;
+    }
     mTable.registerLayoutConsumer(mInnerLayoutUpdater);
     Preconditions.checkState(mWriterLayoutCapsule != null,
         "KijiBufferedWriter for table: %s failed to initialize.", mTable.getURI());
 
-    SchemaPlatformBridge.get().setAutoFlush(mHTable, false);
+    // Mutations are sent as lists anyway. Auto-flush makes the HTables drop the puts of a failed
+    // flush, which this writer keeps buffered or spills itself, instead of sending them again
+    // out of order with the next flush:
+    SchemaPlatformBridge.get().setAutoFlush(mHTable, true);
     // Retain the table only after everything else succeeded:
     mTable.retain();
     mIsOpen.set(true);
   }
 
+  /**
+   * Reports the stripe of the write buffer holding the mutations of a row.
+   *
+   * @param row Row key.
+   * @return the stripe of the write buffer holding the mutations of the row.
+   */
+  private Stripe getStripe(BytesKey row) {
+    return mStripes[(row.hashCode() & Integer.MAX_VALUE) % mStripes.length];
+  }
+
+  /**
+   * Removes all the mutations from the write buffer, merging the stripes.
+   *
+   * <p>
+   *   The rows of different stripes are disjoint: the n-th rounds of all the stripes are merged
+   *   into a single round without reordering the mutations of any row.
+   *   Must be called while holding mInternalLock.
+   * </p>
+   *
+   * @return the rounds of mutations removed from the write buffer, in order.
+   */
+  private List<MutationRound> drainStripes() {
+    final List<MutationRound> merged = Lists.newArrayList();
+    for (Stripe stripe : mStripes) {
+      final List<MutationRound> rounds;
+      synchronized (stripe) {
+        rounds = stripe.mRounds;
+        stripe.mRounds = Lists.newArrayList();
+        mCurrentWriteBufferSize.addAndGet(-stripe.mSize);
+        stripe.mSize = 0L;
+      }
+      if (merged.isEmpty()) {
+        merged.addAll(rounds);
+        continue;
+      }
+      for (int i = 0; i < rounds.size(); ++i) {
+        final MutationRound round = rounds.get(i);
+        if (i >= merged.size()) {
+          merged.add(round);
+        } else {
+          final MutationRound target = merged.get(i);
+          target.mPuts.putAll(round.mPuts);
+          target.mDeletes.addAll(round.mDeletes);
+          target.mDeletedRows.addAll(round.mDeletedRows);
+          target.mSize += round.mSize;
+        }
+      }
+    }
+    return merged;
+  }
+
   // ----------------------------------------------------------------------------------------------
   // Puts
 
@@ -197,21 +493,17 @@ public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
    */
   private void updateBuffer(EntityId entityId, byte[] family, byte[] qualifier,
       long timestamp, byte[] value) throws IOException {
-    synchronized (mInternalLock) {
-      if (mPutBuffer.containsKey(entityId)) {
-        mCurrentWriteBufferSize -= mPutBuffer.get(entityId).heapSize();
-        mPutBuffer.get(entityId).add(family, qualifier,
-            timestamp, value);
-        mCurrentWriteBufferSize += mPutBuffer.get(entityId).heapSize();
-      } else {
-        final Put put = new Put(entityId.getHBaseRowKey())
-            .add(family, qualifier, timestamp, value);
-        mPutBuffer.put(entityId, put);
-        mCurrentWriteBufferSize += put.heapSize();
-      }
-      if (mCurrentWriteBufferSize > mMaxWriteBufferSize) {
-        flush();
-      }
+    checkAsyncFlushError();
+    final byte[] rowKey = entityId.getHBaseRowKey();
+    final BytesKey row = new BytesKey(rowKey);
+    final KeyValue kv = new KeyValue(rowKey, family, qualifier, timestamp, value);
+    final Stripe stripe = getStripe(row);
+    final long delta;
+    synchronized (stripe) {
+      delta = stripe.addPut(row, kv);
+    }
+    if (mCurrentWriteBufferSize.addAndGet(delta) > mMaxWriteBufferSize) {
+      flushFullBuffer();
     }
   }
 
@@ -244,6 +536,39 @@ public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
         encoded);
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public KijiColumnPutter column(String family, String qualifier) throws IOException {
+    Preconditions.checkState(mIsOpen.get(),
+        "Cannot open a column of a KijiBufferedWriter which has not yet completed construction");
+    Preconditions.checkState(!mIsClosed.get(),
+        "Cannot open a column of a closed KijiBufferedWriter.");
+    return new WriterColumnPutter(
+        new ResolvedWriterColumn(new KijiColumnName(family, qualifier), mWriterLayoutCapsule),
+        mCellWriter);
+  }
+
+  /** Receives the cells put through the column putters of this writer. */
+  private final WriterColumnPutter.CellWriter mCellWriter = new WriterColumnPutter.CellWriter() {
+    /** {@inheritDoc} */
+    @Override
+    public WriterLayoutCapsule getLayoutCapsule() {
+      Preconditions.checkState(mIsOpen.get(),
+          "Cannot add to buffer of a KijiBufferedWriter which has not yet completed construction");
+      Preconditions.checkState(!mIsClosed.get(),
+          "Cannot add to buffer of a closed KijiBufferedWriter.");
+      return mWriterLayoutCapsule;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeCell(
+        EntityId entityId, byte[] family, byte[] qualifier, long timestamp, byte[] encoded)
+        throws IOException {
+      updateBuffer(entityId, family, qualifier, timestamp, encoded);
+    }
+  };
+
   // ----------------------------------------------------------------------------------------------
   // Deletes
 
@@ -254,14 +579,16 @@ public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
    * @throws IOException in case of an error on flush.
    */
   private void updateBuffer(Delete d) throws IOException {
-    synchronized (mInternalLock) {
-      mDeleteBuffer.add(d);
-      long heapSize = mDeleteSize;
-      heapSize += ClassSize.align(ClassSize.ARRAY + d.getRow().length);
-      mCurrentWriteBufferSize += heapSize;
-      if (mCurrentWriteBufferSize > mMaxWriteBufferSize) {
-        flush();
-      }
+    checkAsyncFlushError();
+    final BytesKey row = new BytesKey(d.getRow());
+    long heapSize = mDeleteSize;
+    heapSize += ClassSize.align(ClassSize.ARRAY + d.getRow().length);
+    final Stripe stripe = getStripe(row);
+    synchronized (stripe) {
+      stripe.addDelete(row, d, heapSize);
+    }
+    if (mCurrentWriteBufferSize.addAndGet(heapSize) > mMaxWriteBufferSize) {
+      flushFullBuffer();
     }
   }
 
@@ -475,7 +802,7 @@ public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
     Preconditions.checkArgument(bufferSize > 0,
         "Buffer size cannot be negative, got %s.", bufferSize);
     mMaxWriteBufferSize = bufferSize;
-    if (mCurrentWriteBufferSize > mMaxWriteBufferSize) {
+    if (mCurrentWriteBufferSize.get() > mMaxWriteBufferSize) {
       flush();
     }
     SchemaPlatformBridge.get().setWriteBufferSize(mHTable, bufferSize);
@@ -489,33 +816,354 @@ public class HBaseKijiBufferedWriter implements KijiBufferedWriter {
           "Cannot flush a KijiBufferedWriter which has not yet completed construction");
       Preconditions.checkState(!mIsClosed.get(),
           "Cannot flush buffer of a closed KijiBufferedWriter.");
-      if (mDeleteBuffer.size() > 0) {
-        mHTable.delete(mDeleteBuffer);
-        mDeleteBuffer.clear();
+      flushBuffer();
+    }
+  }
+
+  /**
+   * Sends all the buffered mutations to HBase, or spills them if enabled, and waits for the
+   * background flushes to complete. Must be called while holding mInternalLock.
+   *
+   * @throws IOException on I/O error, or if a background flush failed.
+   */
+  private void flushBuffer() throws IOException {
+    if (mMaxInFlightFlushes > 0) {
+      // Background flushes complete in order: waiting for the last one waits for all of them.
+      submitAsyncFlush();
+      if (mLastAsyncFlush != null) {
+        HBaseKijiTableReader.waitFor(mLastAsyncFlush);
+        mLastAsyncFlush = null;
+      }
+      checkAsyncFlushError();
+    } else {
+      flushSynchronously();
+    }
+  }
+
+  /**
+   * Flushes the buffer once it overflows, in the background if enabled.
+   *
+   * @throws IOException on I/O error.
+   */
+  private void flushFullBuffer() throws IOException {
+    synchronized (mInternalLock) {
+      // Another thread may have flushed the buffer while this thread waited for the lock:
+      if (mCurrentWriteBufferSize.get() <= mMaxWriteBufferSize) {
+        return;
       }
-      if (mPutBuffer.size() > 0) {
-        for (EntityId eid : mPutBuffer.keySet()) {
-          mHTable.put(mPutBuffer.get(eid));
+      if (mMaxInFlightFlushes > 0) {
+        submitAsyncFlush();
+      } else {
+        flushSynchronously();
+      }
+    }
+  }
+
+  /**
+   * Swaps the buffer for an empty one and flushes it in the background.
+   *
+   * <p>
+   *   Blocks until a background flush completes if the maximum number of in-flight flushes
+   *   is reached. Must be called while holding mInternalLock.
+   * </p>
+   */
+  private void submitAsyncFlush() {
+    try {
+      mInFlightFlushes.acquire();
+    } catch (InterruptedException ie) {
+      throw new RuntimeInterruptedException(ie);
+    }
+    // Drain after acquiring a permit, to include the mutations buffered while blocked:
+    final List<MutationRound> rounds = drainStripes();
+    final boolean hasUnsentRounds;
+    synchronized (mUnsentRounds) {
+      hasUnsentRounds = !mUnsentRounds.isEmpty();
+    }
+    if (rounds.isEmpty() && !hasUnsentRounds) {
+      mInFlightFlushes.release();
+      return;
+    }
+    try {
+      mLastAsyncFlush = mFlushExecutor.submit(new Runnable() {
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+          try {
+            flushInBackground(rounds);
+          } finally {
+            mInFlightFlushes.release();
+          }
         }
-        mHTable.flushCommits();
-        mPutBuffer.clear();
+      });
+    } catch (RejectedExecutionException ree) {
+      keepUnsentRounds(rounds);
+      mInFlightFlushes.release();
+      throw ree;
+    }
+  }
+
+  /**
+   * Sends rounds of buffered mutations to HBase from the background flush thread, or spills them
+   * if enabled.
+   *
+   * <p>
+   *   The rounds left unsent by a failed flush are sent first. While the failure of a background
+   *   flush is not reported yet, nothing is sent: the rounds are kept buffered behind the rounds
+   *   left unsent, so that no mutation reaches HBase before the mutations issued before it.
+   * </p>
+   *
+   * @param newRounds Rounds of mutations drained from the write buffer, in order.
+   */
+  private void flushInBackground(List<MutationRound> newRounds) {
+    final List<MutationRound> rounds;
+    synchronized (mUnsentRounds) {
+      if (mAsyncFlushError.get() != null) {
+        keepUnsentRounds(newRounds);
+        return;
+      }
+      rounds = takeUnsentRounds();
+    }
+    rounds.addAll(newRounds);
+    try {
+      sendOrSpill(mFlushHTable, rounds);
+    } catch (Throwable thr) {
+      LOG.error("Background flush of KijiBufferedWriter for table {} failed.",
+          mTable.getURI(), thr);
+      mAsyncFlushError.compareAndSet(null, thr);
+    } finally {
+      // Rounds are removed from the list as they are sent or spilled: the others are unsent.
+      keepUnsentRounds(rounds);
+    }
+  }
+
+  /**
+   * Sends all the buffered mutations to HBase, or spills them if enabled.
+   *
+   * <p>
+   *   If sending fails, the rounds not sent yet stay in the write buffer, ahead of the mutations
+   *   buffered since, and are sent first by the next flush. Must be called while holding
+   *   mInternalLock.
+   * </p>
+   *
+   * @throws IOException on I/O error.
+   */
+  private void flushSynchronously() throws IOException {
+    final List<MutationRound> rounds = takeUnsentRounds();
+    rounds.addAll(drainStripes());
+    try {
+      sendOrSpill(mHTable, rounds);
+    } finally {
+      // Rounds are removed from the list as they are sent or spilled: the others are unsent.
+      keepUnsentRounds(rounds);
+    }
+  }
+
+  /**
+   * Removes the rounds left unsent by failed flushes from the write buffer, to send them.
+   *
+   * @return the rounds left unsent by failed flushes, in order, possibly none.
+   */
+  private List<MutationRound> takeUnsentRounds() {
+    synchronized (mUnsentRounds) {
+      final List<MutationRound> rounds = Lists.newArrayList(mUnsentRounds);
+      mUnsentRounds.clear();
+      for (MutationRound round : rounds) {
+        mCurrentWriteBufferSize.addAndGet(-round.mSize);
+      }
+      return rounds;
+    }
+  }
+
+  /**
+   * Keeps rounds of mutations that were not sent in the write buffer, after the rounds already
+   * left unsent. They are sent first by the next flush.
+   *
+   * @param rounds Rounds of mutations that were not sent, in order, possibly none.
+   */
+  private void keepUnsentRounds(List<MutationRound> rounds) {
+    synchronized (mUnsentRounds) {
+      for (MutationRound round : rounds) {
+        mCurrentWriteBufferSize.addAndGet(round.mSize);
       }
-      mCurrentWriteBufferSize = 0L;
+      mUnsentRounds.addAll(rounds);
+    }
+  }
+
+  /**
+   * Reports the first error raised by a background flush since the last report, if any.
+   *
+   * @throws IOException if a background flush failed.
+   */
+  private void checkAsyncFlushError() throws IOException {
+    final Throwable error = mAsyncFlushError.getAndSet(null);
+    if (error != null) {
+      throw new IOException("Background flush of KijiBufferedWriter failed.", error);
+    }
+  }
+
+  /**
+   * Sends rounds of buffered mutations to HBase, or spills them if enabled.
+   *
+   * <p>
+   *   Rounds are spilled if the spill log holds mutations not yet replayed, or if sending them
+   *   fails. In the latter case, the rounds already sent are not spilled. Rounds rejected by a
+   *   throttle are not spilled either.
+   * </p>
+   *
+   * @param htable HTable to send the mutations with.
+   * @param rounds Rounds of mutations to send, removed from the list as they are sent or spilled.
+   * @throws IOException on I/O error.
+   */
+  private void sendOrSpill(HTableInterface htable, List<MutationRound> rounds)
+      throws IOException {
+    if (mSpillLog == null) {
+      sendRounds(htable, rounds);
+      return;
+    }
+    if (!mSpillLog.isEmpty() && mSpillLog.appendIfNotEmpty(toMutations(rounds))) {
+      rounds.clear();
+      return;
+    }
+    try {
+      sendRounds(htable, rounds);
+    } catch (KijiWriteThrottle.ThrottledException te) {
+      // Mutations rejected by a throttle stay buffered rather than spilled, so that spilling
+      // cannot bypass the throttle:
+      throw te;
+    } catch (IOException ioe) {
+      LOG.warn("Flush of KijiBufferedWriter for table {} failed, spilling mutations to {}: {}",
+          mTable.getURI(), mSpillLog, ioe.getMessage());
+      mSpillLog.append(toMutations(rounds));
+      rounds.clear();
+    }
+  }
+
+  /**
+   * Lists the mutations of rounds of mutations, in an order that preserves the order in which
+   * the mutations of each row were issued.
+   *
+   * @param rounds Rounds of mutations.
+   * @return the mutations of the rounds.
+   */
+  private static List<Row> toMutations(List<MutationRound> rounds) {
+    final List<Row> mutations = Lists.newArrayList();
+    for (MutationRound round : rounds) {
+      mutations.addAll(round.mDeletes);
+      mutations.addAll(round.mPuts.values());
+    }
+    return mutations;
+  }
+
+  /** Replays the spill log to HBase, if it holds mutations. Failures are retried later. */
+  private void replaySpillLog() {
+    if (mSpillLog.isEmpty()) {
+      return;
+    }
+    try {
+      mSpillReplayer.replay();
+    } catch (Throwable thr) {
+      LOG.debug("Cannot replay {} to table {} yet: {}", mSpillLog, mTable.getURI(), thr);
+    }
+  }
+
+  /**
+   * Sends rounds of buffered mutations to HBase, and removes them from the list as they are sent.
+   *
+   * <p>
+   *   Rounds are sent one after the other, each as batches of deletes followed by batches of
+   *   puts, which preserves the order in which the mutations of each row were issued. Each batch
+   *   is throttled right before it is sent, so that the rate of the mutations reaching HBase
+   *   honors the throttles of the writer and table. A batch rejected by a throttle stays in its
+   *   round.
+   * </p>
+   *
+   * @param htable HTable to send the mutations with.
+   * @param rounds Rounds of mutations to send.
+   * @throws IOException on I/O error.
+   */
+  private void sendRounds(HTableInterface htable, List<MutationRound> rounds)
+      throws IOException {
+    while (!rounds.isEmpty()) {
+      final MutationRound round = rounds.get(0);
+      if (!round.mDeletes.isEmpty()) {
+        while (!round.mDeletes.isEmpty()) {
+          final List<Delete> batch =
+              round.mDeletes.subList(0, Math.min(SEND_BATCH_SIZE, round.mDeletes.size()));
+          mThrottler.throttleDeletes(batch);
+          // HTable.delete(List) removes the deletes it applied from the list, so that deletes
+          // already applied are neither sent again nor spilled if sending the round fails:
+          htable.delete(batch);
+          batch.clear();
+        }
+        for (BytesKey row : round.mDeletedRows) {
+          mTable.invalidateCachedRow(row.getBytes());
+        }
+      }
+      while (!round.mPuts.isEmpty()) {
+        final List<BytesKey> rows =
+            Lists.newArrayList(Iterables.limit(round.mPuts.keySet(), SEND_BATCH_SIZE));
+        final List<Put> batch = Lists.newArrayListWithCapacity(rows.size());
+        for (BytesKey row : rows) {
+          batch.add(round.mPuts.get(row));
+        }
+        mThrottler.throttlePuts(batch);
+        htable.put(batch);
+        htable.flushCommits();
+        // Puts already applied are neither sent again nor spilled if sending the round fails:
+        for (BytesKey row : rows) {
+          round.mPuts.remove(row);
+          mTable.invalidateCachedRow(row.getBytes());
+        }
+      }
+      rounds.remove(0);
     }
   }
 
   /** {@inheritDoc} */
   @Override
   public void close() throws IOException {
-    flush();
     Preconditions.checkState(mIsOpen.get(),
         "Cannot close a KijiBufferedWriter which has not yet completed construction");
-    Preconditions.checkState(!mIsClosed.get(),
+    Preconditions.checkState(!mIsClosed.getAndSet(true),
         "Cannot close an already closed KijiBufferedWriter.");
-    mTable.unregisterLayoutConsumer(mInnerLayoutUpdater);
-    mHTable.close();
-    mTable.release();
-    mIsClosed.set(true);
+    try {
+      synchronized (mInternalLock) {
+        flushBuffer();
+      }
+    } finally {
+      releaseResources();
+    }
+  }
+
+  /**
+   * Releases the threads, HTables, spill log and table used by this writer, each of them even if
+   * releasing the others fails.
+   *
+   * @throws IOException on I/O error.
+   */
+  private void releaseResources() throws IOException {
+    try {
+      if (mFlushExecutor != null) {
+        mFlushExecutor.shutdown();
+      }
+      ResourceUtils.closeOrLog(mFlushHTable);
+      if (mSpillLog != null) {
+        mReplayExecutor.shutdown();
+        try {
+          mSpillReplayer.replay();
+        } catch (IOException ioe) {
+          LOG.warn("Closing KijiBufferedWriter for table {} with mutations left in {}: {}",
+              mTable.getURI(), mSpillLog, ioe.getMessage());
+        } finally {
+          ResourceUtils.closeOrLog(mSpillLog);
+          ResourceUtils.closeOrLog(mReplayHTable);
+        }
+      }
+    } finally {
+      mTable.unregisterLayoutConsumer(mInnerLayoutUpdater);
+      ResourceUtils.closeOrLog(mHTable);
+      mTable.release();
+    }
   }
 
   /** {@inheritDoc} */
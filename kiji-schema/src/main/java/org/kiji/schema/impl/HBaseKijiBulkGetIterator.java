@@ -0,0 +1,178 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiIOException;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.util.CloseableIterable;
+
+/**
+ * Iterates over the rows of a bulk get, fetching the rows in pipelined batches.
+ *
+ * <p>
+ *   Batches of entity IDs are fetched on the table reader executor, with at most a fixed number of
+ *   batches in flight. Rows are returned in the order of the entity IDs, as soon as the batch they
+ *   belong to completes. As with {@link HBaseKijiTableReader#bulkGet}, a row that could not be
+ *   retrieved is returned as null.
+ * </p>
+ *
+ * <p> This iterable may only be iterated over once, and is not thread-safe. </p>
+ */
+@ApiAudience.Private
+final class HBaseKijiBulkGetIterator
+    implements CloseableIterable<KijiRowData>, Iterator<KijiRowData> {
+
+  /** Reader to fetch the batches with. */
+  private final HBaseKijiTableReader mReader;
+
+  /** Executor to fetch the batches on. */
+  private final ListeningExecutorService mExecutor;
+
+  /** Entity IDs of the rows not yet submitted. */
+  private final Iterator<EntityId> mEntityIds;
+
+  /** Data request for all the rows. */
+  private final KijiDataRequest mDataRequest;
+
+  /** Maximum number of rows per batch. */
+  private final int mBatchSize;
+
+  /** Maximum number of batches in flight. */
+  private final int mMaxInFlightBatches;
+
+  /** Batches in flight, in the order of the entity IDs. */
+  private final LinkedList<Future<List<KijiRowData>>> mInFlight =
+      new LinkedList<Future<List<KijiRowData>>>();
+
+  /** Iterator over the rows of the current batch. Never null, but potentially empty. */
+  private Iterator<KijiRowData> mCurrentBatch = Iterators.emptyIterator();
+
+  /**
+   * Starts fetching the rows of a bulk get.
+   *
+   * @param reader Reader to fetch the rows with.
+   * @param executor Executor to fetch the rows on.
+   * @param entityIds Entity IDs of the rows to fetch.
+   * @param dataRequest Data request for the rows to fetch.
+   * @param batchSize Maximum number of rows per batch.
+   * @param maxInFlightBatches Maximum number of batches in flight.
+   */
+  HBaseKijiBulkGetIterator(
+      HBaseKijiTableReader reader,
+      ListeningExecutorService executor,
+      Iterable<EntityId> entityIds,
+      KijiDataRequest dataRequest,
+      int batchSize,
+      int maxInFlightBatches) {
+    Preconditions.checkArgument(batchSize > 0, "Invalid batch size: %s", batchSize);
+    Preconditions.checkArgument(maxInFlightBatches > 0,
+        "Invalid maximum number of batches in flight: %s", maxInFlightBatches);
+    mReader = reader;
+    mExecutor = executor;
+    mEntityIds = entityIds.iterator();
+    mDataRequest = dataRequest;
+    mBatchSize = batchSize;
+    mMaxInFlightBatches = maxInFlightBatches;
+    submitBatches();
+  }
+
+  /** Submits batches until the maximum number of batches in flight is reached. */
+  private void submitBatches() {
+    while ((mInFlight.size() < mMaxInFlightBatches) && mEntityIds.hasNext()) {
+      final List<EntityId> batch = new ArrayList<EntityId>(mBatchSize);
+      while ((batch.size() < mBatchSize) && mEntityIds.hasNext()) {
+        batch.add(mEntityIds.next());
+      }
+      mInFlight.add(mExecutor.submit(new Callable<List<KijiRowData>>() {
+        /** {@inheritDoc} */
+        @Override
+        public List<KijiRowData> call() throws IOException {
+          return mReader.serialBulkGet(batch, mDataRequest);
+        }
+      }));
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Iterator<KijiRowData> iterator() {
+    return this;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean hasNext() {
+    while (!mCurrentBatch.hasNext()) {
+      final Future<List<KijiRowData>> next = mInFlight.poll();
+      if (null == next) {
+        return false;
+      }
+      // Keep the pipeline full while waiting for the next batch:
+      submitBatches();
+      try {
+        mCurrentBatch = HBaseKijiTableReader.waitFor(next).iterator();
+      } catch (IOException ioe) {
+        throw new KijiIOException(ioe);
+      }
+    }
+    return true;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiRowData next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return mCurrentBatch.next();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException("remove() is not supported.");
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() throws IOException {
+    for (Future<List<KijiRowData>> future : mInFlight) {
+      future.cancel(false);
+    }
+    mInFlight.clear();
+    mCurrentBatch = Iterators.emptyIterator();
+  }
+}
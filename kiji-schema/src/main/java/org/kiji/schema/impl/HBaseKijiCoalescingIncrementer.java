@@ -0,0 +1,600 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema.impl;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.Inheritance;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiCoalescingIncrementer;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiTableNotFoundException;
+import org.kiji.schema.avro.SchemaType;
+import org.kiji.schema.hbase.HBaseColumnName;
+import org.kiji.schema.impl.HBaseKijiTable.LayoutCapsule;
+import org.kiji.schema.util.BytesKey;
+import org.kiji.schema.util.ResourceUtils;
+
+/**
+ * <p>
+ * HBase implementation of a KijiCoalescingIncrementer.  Uses HTable connections from the pool of
+ * its table.  Deltas are summed locally per counter cell, and the deltas of a row are sent to
+ * HBase as a single Increment of all the counters of the row.  Counters whose deltas sum to zero
+ * are not sent at all.
+ * </p>
+ *
+ * <p>
+ * Pending deltas are flushed on command, when more than a maximum number of counters have
+ * pending deltas, and, if enabled, at most a durability window after being added.
+ * A flush swaps the pending deltas for an empty buffer and sends them without holding the lock
+ * guarding the buffer, so that other threads keep adding deltas while a flush is in flight.
+ * The rows of a flush are optionally split between several send threads.
+ * Deltas of a row are removed from the flush before being sent: if sending a row fails, its
+ * deltas are lost rather than risking to be applied twice, and the rows not sent yet, including
+ * rows rejected by the throttle of the table, go back to the pending deltas.
+ * </p>
+ *
+ * <p>
+ * Access to this incrementer is threadsafe.  Pending deltas are guarded by mInternalLock.
+ * Flushes hold mSendLock for reading while they send; layout updates and close() hold it for
+ * writing, to wait for the flushes in flight.  mSendLock is always acquired before
+ * mInternalLock.
+ * </p>
+ */
+@ApiAudience.Private
+@Inheritance.Sealed
+public final class HBaseKijiCoalescingIncrementer implements KijiCoalescingIncrementer {
+  private static final Logger LOG = LoggerFactory.getLogger(HBaseKijiCoalescingIncrementer.class);
+
+  /** KijiTable this incrementer is attached to. */
+  private final HBaseKijiTable mTable;
+
+  /** Object which processes layout update from the KijiTable this incrementer writes to. */
+  private final InnerLayoutUpdater mInnerLayoutUpdater = new InnerLayoutUpdater();
+
+  /** Monitor guarding the pending deltas. */
+  private final Object mInternalLock = new Object();
+
+  /** Held for reading while flushes send, and for writing to wait for the flushes in flight. */
+  private final ReentrantReadWriteLock mSendLock = new ReentrantReadWriteLock();
+
+  /** Layout of the table, updated by mInnerLayoutUpdater. */
+  private volatile LayoutCapsule mLayoutCapsule = null;
+
+  /**
+   * Pending deltas, by row key then by counter column, in the order rows were first incremented.
+   * Guarded by mInternalLock.
+   */
+  private Map<BytesKey, Map<KijiColumnName, Long>> mPendingDeltas = Maps.newLinkedHashMap();
+
+  /** Number of counters with a pending delta. Guarded by mInternalLock. */
+  private int mNumPendingDeltas = 0;
+
+  /** Throttles the increments sent to HBase with the throttle of the table. */
+  private final MutationThrottler mThrottler;
+
+  /** Maximum number of counters with a pending delta before flushing automatically. */
+  private final int mMaxPendingDeltas;
+
+  /** Maximum time a delta stays pending, in milliseconds, or 0 to disable timed flushes. */
+  private final long mDurabilityWindowMillis;
+
+  /** Number of threads sending the increments of a flush. */
+  private final int mNumSendThreads;
+
+  /** Threads sending the increments of a flush. Null when flushing threads send themselves. */
+  private final ExecutorService mSendExecutor;
+
+  /** Thread running the timed flushes. Null when timed flushes are disabled. */
+  private final ScheduledExecutorService mFlushTimer;
+
+  /** Next timed flush, if one is scheduled. Guarded by mInternalLock. */
+  private ScheduledFuture<?> mScheduledFlush = null;
+
+  /** First error raised by a timed flush and not yet reported, or null. */
+  private final AtomicReference<Throwable> mTimedFlushError = new AtomicReference<Throwable>();
+
+  /** False before instance construction is complete.  True any time after construction. */
+  private final AtomicBoolean mIsOpen = new AtomicBoolean(false);
+
+  /** False before {@link #close()} is called.  True any time after close() is called. */
+  private final AtomicBoolean mIsClosed = new AtomicBoolean(false);
+
+  /** Provides for the updating of this incrementer in response to a table layout update. */
+  private final class InnerLayoutUpdater implements LayoutConsumer {
+    /** {@inheritDoc} */
+    @Override
+    public void update(final LayoutCapsule capsule) throws IOException {
+      // No flush may send deltas with the previous layout once the layout is updated:
+      mSendLock.writeLock().lock();
+      try {
+        synchronized (mInternalLock) {
+          if (mIsOpen.get()) {
+            Preconditions.checkState(!mIsClosed.get(),
+                "Cannot update layout for a closed KijiCoalescingIncrementer.");
+            LOG.info("Flushing deltas from KijiCoalescingIncrementer for table: {} in "
+                + "preparation for layout update.", mTable.getURI());
+            flushPendingDeltas();
+          }
+          LOG.debug("Updating layout used by KijiCoalescingIncrementer: {} for table: {} to "
+              + "version: {}", this, mTable.getURI(), capsule.getLayout().getDesc().getLayoutId());
+          mLayoutCapsule = capsule;
+        }
+      } finally {
+        mSendLock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Creates an incrementer that coalesces deltas until they are flushed on command or when too
+   * many counters have pending deltas.
+   *
+   * @param table A kiji table.
+   * @throws KijiTableNotFoundException in case of an invalid table parameter
+   * @throws IOException in case of IO errors.
+   */
+  public HBaseKijiCoalescingIncrementer(HBaseKijiTable table) throws IOException {
+    this(table, new KijiCoalescingIncrementerOptions());
+  }
+
+  /**
+   * Creates an incrementer that coalesces deltas until they are flushed.
+   *
+   * @param table A kiji table.
+   * @param options Options for the incrementer.
+   * @throws KijiTableNotFoundException in case of an invalid table parameter
+   * @throws IOException in case of IO errors.
+   */
+  public HBaseKijiCoalescingIncrementer(
+      HBaseKijiTable table,
+      KijiCoalescingIncrementerOptions options)
+      throws IOException {
+    mTable = table;
+    try {
+      ResourceUtils.closeOrLog(mTable.openHTableConnection());
+    } catch (TableNotFoundException e) {
+      throw new KijiTableNotFoundException(table.getName());
+    }
+    mThrottler = new MutationThrottler(null, table);
+    mMaxPendingDeltas = options.getMaxPendingDeltas();
+    mDurabilityWindowMillis = options.getDurabilityWindowMillis();
+    mNumSendThreads = options.getNumSendThreads();
+    if (mNumSendThreads > 1) {
+      mSendExecutor = Executors.newFixedThreadPool(mNumSendThreads, new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat(String.format("kiji-coalescing-incrementer-send-%s-%%d", table.getName()))
+          .build());
+    } else {
+      mSendExecutor = null;
+    }
+    if (mDurabilityWindowMillis > 0) {
+      mFlushTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat(String.format("kiji-coalescing-incrementer-%s-%%d", table.getName()))
+          .build());
+    } else {
+      mFlushTimer = null;
+    }
+    mTable.registerLayoutConsumer(mInnerLayoutUpdater);
+    Preconditions.checkState(mLayoutCapsule != null,
+        "KijiCoalescingIncrementer for table: %s failed to initialize.", mTable.getURI());
+
+    // Retain the table only after everything else succeeded:
+    mTable.retain();
+    mIsOpen.set(true);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void increment(EntityId entityId, String family, String qualifier, long amount)
+      throws IOException {
+    Preconditions.checkState(mIsOpen.get(),
+        "Cannot increment with a KijiCoalescingIncrementer which has not yet completed "
+        + "construction");
+    Preconditions.checkState(!mIsClosed.get(),
+        "Cannot increment with a closed KijiCoalescingIncrementer.");
+    checkTimedFlushError();
+
+    final KijiColumnName column = new KijiColumnName(family, qualifier);
+    final BytesKey row = new BytesKey(entityId.getHBaseRowKey());
+    while (true) {
+      synchronized (mInternalLock) {
+        verifyIsCounter(column);
+        Map<KijiColumnName, Long> rowDeltas = mPendingDeltas.get(row);
+        final Long pending = (rowDeltas == null) ? null : rowDeltas.get(column);
+        if (pending != null) {
+          rowDeltas.put(column, pending + amount);
+          return;
+        }
+        if (mNumPendingDeltas < mMaxPendingDeltas) {
+          if (rowDeltas == null) {
+            rowDeltas = Maps.newHashMap();
+            mPendingDeltas.put(row, rowDeltas);
+          }
+          rowDeltas.put(column, amount);
+          mNumPendingDeltas += 1;
+          scheduleTimedFlush();
+          return;
+        }
+      }
+      // Flush without holding the lock, so that other threads keep adding deltas meanwhile:
+      flushPendingDeltas();
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public long getPendingDelta(EntityId entityId, String family, String qualifier) {
+    final KijiColumnName column = new KijiColumnName(family, qualifier);
+    final BytesKey row = new BytesKey(entityId.getHBaseRowKey());
+    synchronized (mInternalLock) {
+      final Map<KijiColumnName, Long> rowDeltas = mPendingDeltas.get(row);
+      final Long pending = (rowDeltas == null) ? null : rowDeltas.get(column);
+      return (pending == null) ? 0L : pending;
+    }
+  }
+
+  /**
+   * Verifies that a column is a counter.
+   *
+   * @param column A column name.
+   * @throws IOException If the column is not a counter, or it does not exist.
+   */
+  private void verifyIsCounter(KijiColumnName column) throws IOException {
+    if (mLayoutCapsule.getLayout().getCellSchema(column).getType() != SchemaType.COUNTER) {
+      throw new IOException(String.format("Column '%s' is not a counter", column));
+    }
+  }
+
+  /**
+   * Schedules a timed flush, unless one is already scheduled or timed flushes are disabled.
+   *
+   * <p>
+   *   A scheduled flush sends all the pending deltas, including the ones added after it was
+   *   scheduled: no delta stays pending longer than the durability window.
+   *   Must be called while holding mInternalLock.
+   * </p>
+   */
+  private void scheduleTimedFlush() {
+    if ((mFlushTimer == null) || (mScheduledFlush != null)) {
+      return;
+    }
+    try {
+      mScheduledFlush = mFlushTimer.schedule(new Runnable() {
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+          // Hold the send lock from the closed check on, so that close() waits for this flush:
+          mSendLock.readLock().lock();
+          try {
+            synchronized (mInternalLock) {
+              mScheduledFlush = null;
+              if (mIsClosed.get()) {
+                return;
+              }
+            }
+            flushPendingDeltas();
+          } catch (Throwable thr) {
+            LOG.error("Timed flush of KijiCoalescingIncrementer for table {} failed.",
+                mTable.getURI(), thr);
+            mTimedFlushError.compareAndSet(null, thr);
+          } finally {
+            mSendLock.readLock().unlock();
+          }
+        }
+      }, mDurabilityWindowMillis, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException ree) {
+      LOG.debug("Timed flush rejected by KijiCoalescingIncrementer being closed.");
+    }
+  }
+
+  /**
+   * Reports the first error raised by a timed flush since the last report, if any.
+   *
+   * @throws IOException if a timed flush failed.
+   */
+  private void checkTimedFlushError() throws IOException {
+    final Throwable error = mTimedFlushError.getAndSet(null);
+    if (error != null) {
+      throw new IOException("Timed flush of KijiCoalescingIncrementer failed.", error);
+    }
+  }
+
+  /**
+   * Sends the pending deltas to HBase, one Increment per row, each throttled by the throttle of
+   * the table.
+   *
+   * <p>
+   *   The pending deltas are swapped for an empty buffer, then sent without holding
+   *   mInternalLock. The rows not sent go back to the pending deltas.
+   *   Must not be called while holding mInternalLock, unless holding mSendLock for writing.
+   * </p>
+   *
+   * @throws IOException on I/O error.
+   */
+  private void flushPendingDeltas() throws IOException {
+    mSendLock.readLock().lock();
+    try {
+      final LayoutCapsule capsule;
+      final Map<BytesKey, Map<KijiColumnName, Long>> deltas;
+      synchronized (mInternalLock) {
+        if (mPendingDeltas.isEmpty()) {
+          return;
+        }
+        capsule = mLayoutCapsule;
+        deltas = mPendingDeltas;
+        mPendingDeltas = Maps.newLinkedHashMap();
+        mNumPendingDeltas = 0;
+      }
+      final List<Map<BytesKey, Map<KijiColumnName, Long>>> groups = splitRows(deltas);
+      try {
+        sendGroups(capsule, groups);
+      } finally {
+        requeueDeltas(groups);
+      }
+    } finally {
+      mSendLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Splits the rows of a flush between the send threads.
+   *
+   * @param deltas Deltas of the flush, by row key then by counter column.
+   * @return the groups of rows sent by each send thread.
+   */
+  private List<Map<BytesKey, Map<KijiColumnName, Long>>> splitRows(
+      Map<BytesKey, Map<KijiColumnName, Long>> deltas) {
+    final int numGroups = Math.min(mNumSendThreads, deltas.size());
+    if (numGroups <= 1) {
+      final List<Map<BytesKey, Map<KijiColumnName, Long>>> groups = Lists.newArrayList();
+      groups.add(deltas);
+      return groups;
+    }
+    final List<Map<BytesKey, Map<KijiColumnName, Long>>> groups =
+        Lists.newArrayListWithCapacity(numGroups);
+    for (int i = 0; i < numGroups; ++i) {
+      final Map<BytesKey, Map<KijiColumnName, Long>> group = Maps.newLinkedHashMap();
+      groups.add(group);
+    }
+    int index = 0;
+    for (Map.Entry<BytesKey, Map<KijiColumnName, Long>> entry : deltas.entrySet()) {
+      groups.get(index).put(entry.getKey(), entry.getValue());
+      index = (index + 1) % numGroups;
+    }
+    return groups;
+  }
+
+  /**
+   * Sends groups of rows to HBase, in parallel if there are several groups.
+   *
+   * <p> Returns or fails only once all the groups are done, sent or not. </p>
+   *
+   * @param capsule Layout to translate the counter columns with.
+   * @param groups Groups of rows to send. Rows are removed from their group as they are sent.
+   * @throws IOException on I/O error.
+   */
+  private void sendGroups(
+      final LayoutCapsule capsule,
+      List<Map<BytesKey, Map<KijiColumnName, Long>>> groups)
+      throws IOException {
+    if (groups.size() == 1) {
+      sendRows(capsule, groups.get(0));
+      return;
+    }
+    final List<Future<Void>> futures = Lists.newArrayList();
+    for (final Map<BytesKey, Map<KijiColumnName, Long>> group : groups) {
+      futures.add(mSendExecutor.submit(new Callable<Void>() {
+        /** {@inheritDoc} */
+        @Override
+        public Void call() throws IOException {
+          sendRows(capsule, group);
+          return null;
+        }
+      }));
+    }
+    // Wait for all the groups before reporting a failure, so that their rows can be requeued:
+    for (Future<Void> future : futures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException ee) {
+        LOG.debug("Sending increments to table {} failed: {}", mTable.getURI(), ee.getCause());
+      }
+    }
+    for (Future<Void> future : futures) {
+      HBaseKijiTableReader.waitFor(future);
+    }
+  }
+
+  /**
+   * Sends rows of deltas to HBase, one Increment per row, with an HTable of the pool of the table.
+   *
+   * @param capsule Layout to translate the counter columns with.
+   * @param rows Rows of deltas to send, removed as they are sent.
+   * @throws IOException on I/O error.
+   */
+  private void sendRows(LayoutCapsule capsule, Map<BytesKey, Map<KijiColumnName, Long>> rows)
+      throws IOException {
+    final HTableInterface htable = mTable.openHTableConnection();
+    try {
+      final Iterator<Map.Entry<BytesKey, Map<KijiColumnName, Long>>> it =
+          rows.entrySet().iterator();
+      while (it.hasNext()) {
+        final Map.Entry<BytesKey, Map<KijiColumnName, Long>> entry = it.next();
+        final byte[] rowKey = entry.getKey().getBytes();
+        final Increment increment = new Increment(rowKey);
+        for (Map.Entry<KijiColumnName, Long> delta : entry.getValue().entrySet()) {
+          if (delta.getValue() == 0L) {
+            continue;
+          }
+          final HBaseColumnName hbaseColumnName =
+              capsule.getColumnNameTranslator().toHBaseColumnName(delta.getKey());
+          increment.addColumn(
+              hbaseColumnName.getFamily(), hbaseColumnName.getQualifier(), delta.getValue());
+        }
+        if (increment.hasFamilies()) {
+          // A row rejected by the throttle of the table stays pending:
+          mThrottler.throttle(increment);
+        }
+        // Remove the deltas of the row before sending them, so they are never applied twice:
+        it.remove();
+        if (increment.hasFamilies()) {
+          htable.increment(increment);
+          mTable.invalidateCachedRow(rowKey);
+        }
+      }
+    } finally {
+      ResourceUtils.closeOrLog(htable);
+    }
+  }
+
+  /**
+   * Adds the deltas of the rows a flush did not send back to the pending deltas.
+   *
+   * @param groups Groups of rows of the flush, holding the rows not sent.
+   */
+  private void requeueDeltas(List<Map<BytesKey, Map<KijiColumnName, Long>>> groups) {
+    synchronized (mInternalLock) {
+      for (Map<BytesKey, Map<KijiColumnName, Long>> group : groups) {
+        for (Map.Entry<BytesKey, Map<KijiColumnName, Long>> entry : group.entrySet()) {
+          Map<KijiColumnName, Long> rowDeltas = mPendingDeltas.get(entry.getKey());
+          if (rowDeltas == null) {
+            rowDeltas = Maps.newHashMap();
+            mPendingDeltas.put(entry.getKey(), rowDeltas);
+          }
+          for (Map.Entry<KijiColumnName, Long> delta : entry.getValue().entrySet()) {
+            final Long pending = rowDeltas.get(delta.getKey());
+            if (pending == null) {
+              rowDeltas.put(delta.getKey(), delta.getValue());
+              mNumPendingDeltas += 1;
+            } else {
+              rowDeltas.put(delta.getKey(), pending + delta.getValue());
+            }
+          }
+        }
+      }
+      if (!mPendingDeltas.isEmpty()) {
+        scheduleTimedFlush();
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void flush() throws IOException {
+    Preconditions.checkState(mIsOpen.get(),
+        "Cannot flush a KijiCoalescingIncrementer which has not yet completed construction");
+    Preconditions.checkState(!mIsClosed.get(),
+        "Cannot flush a closed KijiCoalescingIncrementer.");
+    flushPendingDeltas();
+    checkTimedFlushError();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() throws IOException {
+    Preconditions.checkState(mIsOpen.get(),
+        "Cannot close a KijiCoalescingIncrementer which has not yet completed construction");
+    Preconditions.checkState(!mIsClosed.getAndSet(true),
+        "Cannot close an already closed KijiCoalescingIncrementer.");
+    try {
+      flushPendingDeltas();
+      checkTimedFlushError();
+    } finally {
+      // Release every resource, even if the final flush failed:
+      try {
+        // Wait for the flushes in flight, including timed flushes:
+        mSendLock.writeLock().lock();
+        mSendLock.writeLock().unlock();
+        if (mFlushTimer != null) {
+          mFlushTimer.shutdownNow();
+        }
+        if (mSendExecutor != null) {
+          mSendExecutor.shutdown();
+        }
+        mTable.unregisterLayoutConsumer(mInnerLayoutUpdater);
+      } finally {
+        mTable.release();
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(HBaseKijiCoalescingIncrementer.class)
+        .add("id", System.identityHashCode(this))
+        .add("table", mTable.getURI())
+        .add("max-pending-deltas", mMaxPendingDeltas)
+        .add("durability-window-ms", mDurabilityWindowMillis)
+        .add("send-threads", mNumSendThreads)
+        .toString();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  protected void finalize() throws Throwable {
+    try {
+      if (mIsOpen.get()) {
+        if (!mIsClosed.get()) {
+          LOG.warn("Closing KijiCoalescingIncrementer in finalize.  "
+              + "Always close KijiCoalescingIncrementers.");
+          close();
+        }
+      }
+    } catch (Throwable thr) {
+      LOG.warn("Throwable thrown by close() in finalize of KijiCoalescingIncrementer: {}\n{}",
+          thr.getMessage(), StringUtils.stringifyException(thr));
+    } finally {
+      super.finalize();
+    }
+  }
+}
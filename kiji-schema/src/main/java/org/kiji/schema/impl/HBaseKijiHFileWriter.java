@@ -0,0 +1,946 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.hfile.Compression;
+import org.apache.hadoop.hbase.io.hfile.HFile;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.Inheritance;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiCellEncoder;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiColumnPutter;
+import org.kiji.schema.KijiHFileWriter;
+import org.kiji.schema.KijiRegion;
+import org.kiji.schema.NoSuchColumnException;
+import org.kiji.schema.avro.LocalityGroupDesc;
+import org.kiji.schema.hbase.HBaseColumnName;
+import org.kiji.schema.impl.HBaseKijiTable.LayoutCapsule;
+import org.kiji.schema.impl.HBaseKijiTableWriter.WriterLayoutCapsule;
+import org.kiji.schema.layout.KijiTableLayout.LocalityGroupLayout;
+import org.kiji.schema.layout.impl.CellEncoderProvider;
+import org.kiji.schema.platform.SchemaPlatformBridge;
+import org.kiji.schema.util.BytesKey;
+import org.kiji.schema.util.ResourceUtils;
+
+/**
+ * HBase implementation of a KijiHFileWriter.
+ *
+ * <p>
+ *   Puts are encoded into HBase KeyValues and buffered in memory. When the buffer is full, it is
+ *   sorted and spilled to a local run file. {@link #flush()} merges the runs and the buffer into
+ *   a single sorted stream, split at the region boundaries of the table as of the flush, and
+ *   written as one HFile per region and locality group under a new part directory of the output.
+ *   When there are more runs than the maximum merge fan-in, the oldest runs are first merged into
+ *   intermediate runs, so that a flush never opens more than this number of run files at once:
+ * </p>
+ * <pre>
+ *   &lt;output&gt;/part-00000.hfile/&lt;locality group&gt;/region-00000
+ * </pre>
+ * <p>
+ *   HFiles are written with the compression and block size of their locality group.
+ *   {@link #bulkLoad()} hands the part directories not loaded yet to
+ *   {@link HBaseKijiTable#bulkLoad(Path)}; a region split between a flush and a load is
+ *   handled by the HBase bulk loader, at the cost of splitting the affected HFiles.
+ * </p>
+ *
+ * <p> This class is not thread-safe and must be synchronized externally. </p>
+ */
+@ApiAudience.Private
+@Inheritance.Sealed
+public final class HBaseKijiHFileWriter implements KijiHFileWriter {
+  private static final Logger LOG = LoggerFactory.getLogger(HBaseKijiHFileWriter.class);
+
+  /** Prefix of the local run files. */
+  private static final String RUN_FILE_PREFIX = "kiji-hfile-run-";
+
+  /** Orders KeyValues by key. */
+  private static final Comparator<KeyValue> KV_COMPARATOR = KeyValue.COMPARATOR;
+
+  /** The kiji table instance. */
+  private final HBaseKijiTable mTable;
+
+  /** States of a writer instance. */
+  private static enum State {
+    UNINITIALIZED,
+    OPEN,
+    CLOSING,
+    CLOSED
+  }
+
+  /** Tracks the state of this writer. */
+  private final AtomicReference<State> mState = new AtomicReference<State>(State.UNINITIALIZED);
+
+  /** Processes layout update from the KijiTable to which this writer writes. */
+  private final InnerLayoutUpdater mInnerLayoutUpdater = new InnerLayoutUpdater();
+
+  /** Layout of the table, updated by mInnerLayoutUpdater. */
+  private volatile WriterLayoutCapsule mWriterLayoutCapsule = null;
+
+  /** Configuration of the Kiji instance. */
+  private final Configuration mConf;
+
+  /** File system of the output directory. */
+  private final FileSystem mFileSystem;
+
+  /** Directory the HFiles are written to. */
+  private final Path mOutputPath;
+
+  /** Local directory of the run files. */
+  private final File mSpillDir;
+
+  /** Heap size of the buffered cells above which the buffer is spilled, in bytes. */
+  private final long mMaxBufferSize;
+
+  /** Maximum number of sorted sources merged at once, including the buffer. */
+  private final int mMaxMergeFanIn;
+
+  /** Cells buffered in memory, in the order they were put. */
+  private List<KeyValue> mBuffer = Lists.newArrayList();
+
+  /** Heap size of the buffered cells, in bytes. */
+  private long mBufferSize = 0;
+
+  /** Sorted runs spilled from the buffer and not flushed yet, oldest first. */
+  private final List<File> mRuns = Lists.newArrayList();
+
+  /** Number of part directories written so far. */
+  private int mNumParts = 0;
+
+  /** Part directories written and not bulk-loaded yet, oldest first. */
+  private final List<Path> mUnloadedParts = Lists.newArrayList();
+
+  /** Provides for the updating of this writer in response to a table layout update. */
+  private final class InnerLayoutUpdater implements LayoutConsumer {
+    /** {@inheritDoc} */
+    @Override
+    public void update(final LayoutCapsule capsule) throws IOException {
+      final State state = mState.get();
+      if ((state == State.CLOSED) || (state == State.CLOSING)) {
+        LOG.debug("Writer closing or closed: ignoring layout update.");
+        return;
+      }
+      final CellEncoderProvider provider = new CellEncoderProvider(
+          mTable.getURI(),
+          capsule.getLayout(),
+          mTable.getKiji().getSchemaTable(),
+          DefaultKijiCellEncoderFactory.get());
+      LOG.debug("Updating layout used by KijiHFileWriter: {} for table: {} to version: {}",
+          this, mTable.getURI(), capsule.getLayout().getDesc().getLayoutId());
+      // Cells buffered so far are already translated, and stay valid.
+      mWriterLayoutCapsule = new WriterLayoutCapsule(
+          provider,
+          capsule.getLayout(),
+          capsule.getColumnNameTranslator());
+    }
+  }
+
+  /** Options for opening an HBaseKijiHFileWriter. */
+  public static final class Options {
+    private Path mOutputPath = null;
+    private long mBufferSize = 64L * 1024 * 1024;
+    private File mSpillDir = new File(System.getProperty("java.io.tmpdir"));
+    private int mMaxMergeFanIn = 64;
+
+    /**
+     * Sets the directory to write the HFiles to. Required.
+     *
+     * @param outputPath Directory to write the HFiles to, on the file system of the table.
+     *     Must not exist yet, or be empty.
+     * @return This options instance.
+     */
+    public Options withOutputPath(Path outputPath) {
+      mOutputPath = outputPath;
+      return this;
+    }
+
+    /**
+     * Gets the directory to write the HFiles to.
+     *
+     * @return the directory to write the HFiles to.
+     */
+    public Path getOutputPath() {
+      return mOutputPath;
+    }
+
+    /**
+     * Sets the size of the in-memory buffer.
+     *
+     * <p>
+     *   Once the heap size of the buffered cells reaches this size, the buffer is sorted and
+     *   spilled to a local file. Defaults to 64MB.
+     * </p>
+     *
+     * @param bufferSize Heap size of the buffer, in bytes.
+     * @return This options instance.
+     */
+    public Options withBufferSize(long bufferSize) {
+      Preconditions.checkArgument(bufferSize > 0, "Invalid buffer size: %s", bufferSize);
+      mBufferSize = bufferSize;
+      return this;
+    }
+
+    /**
+     * Gets the size of the in-memory buffer.
+     *
+     * @return the heap size of the buffer, in bytes.
+     */
+    public long getBufferSize() {
+      return mBufferSize;
+    }
+
+    /**
+     * Sets the local directory to spill the buffer to. Defaults to java.io.tmpdir.
+     *
+     * @param spillDir Local directory to spill the buffer to.
+     * @return This options instance.
+     */
+    public Options withSpillDirectory(File spillDir) {
+      mSpillDir = spillDir;
+      return this;
+    }
+
+    /**
+     * Gets the local directory to spill the buffer to.
+     *
+     * @return the local directory to spill the buffer to.
+     */
+    public File getSpillDirectory() {
+      return mSpillDir;
+    }
+
+    /**
+     * Sets the maximum number of sorted sources merged at once, including the buffer.
+     *
+     * <p>
+     *   A flush merging more runs first merges the oldest runs into intermediate runs, in as
+     *   many passes as necessary. Bounds the number of run files open at once. Defaults to 64.
+     * </p>
+     *
+     * @param maxMergeFanIn Maximum number of sorted sources merged at once. At least 2.
+     * @return This options instance.
+     */
+    public Options withMaxMergeFanIn(int maxMergeFanIn) {
+      Preconditions.checkArgument(maxMergeFanIn >= 2, "Invalid merge fan-in: %s", maxMergeFanIn);
+      mMaxMergeFanIn = maxMergeFanIn;
+      return this;
+    }
+
+    /**
+     * Gets the maximum number of sorted sources merged at once.
+     *
+     * @return the maximum number of sorted sources merged at once, including the buffer.
+     */
+    public int getMaxMergeFanIn() {
+      return mMaxMergeFanIn;
+    }
+  }
+
+  /**
+   * Creates a new HFile writer for a Kiji table.
+   *
+   * @param table Kiji table to write HFiles for.
+   * @param options Options of the writer.
+   * @throws IOException on I/O error, or if the output directory is not empty.
+   */
+  public HBaseKijiHFileWriter(HBaseKijiTable table, Options options) throws IOException {
+    Preconditions.checkArgument(options.getOutputPath() != null,
+        "HFile writer for table: %s requires an output path.", table.getURI());
+    mTable = table;
+    mConf = table.getKiji().getConf();
+    mOutputPath = options.getOutputPath();
+    mFileSystem = mOutputPath.getFileSystem(mConf);
+    mSpillDir = options.getSpillDirectory();
+    mMaxBufferSize = options.getBufferSize();
+    mMaxMergeFanIn = options.getMaxMergeFanIn();
+
+    if (mFileSystem.exists(mOutputPath)) {
+      final FileStatus[] existing = mFileSystem.listStatus(mOutputPath);
+      if ((existing == null) || (existing.length > 0)) {
+        throw new IOException(String.format(
+            "Output path '%s' of HFile writer is not an empty directory.", mOutputPath));
+      }
+    }
+
+    mTable.registerLayoutConsumer(mInnerLayoutUpdater);
+    Preconditions.checkState(mWriterLayoutCapsule != null,
+        "KijiHFileWriter for table: %s failed to initialize.", mTable.getURI());
+
+    // Retain the table only when everything succeeds.
+    mTable.retain();
+    Preconditions.checkState(mState.compareAndSet(State.UNINITIALIZED, State.OPEN));
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Puts
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> void put(EntityId entityId, String family, String qualifier, T value)
+      throws IOException {
+    put(entityId, family, qualifier, HConstants.LATEST_TIMESTAMP, value);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> void put(EntityId entityId, String family, String qualifier, long timestamp, T value)
+      throws IOException {
+    Preconditions.checkState(mState.get() == State.OPEN, "Writer %s is not open.", this);
+
+    final KijiColumnName columnName = new KijiColumnName(family, qualifier);
+    final WriterLayoutCapsule capsule = mWriterLayoutCapsule;
+    final HBaseColumnName hbaseColumnName =
+        capsule.getColumnNameTranslator().toHBaseColumnName(columnName);
+
+    final KijiCellEncoder cellEncoder =
+        capsule.getCellEncoderProvider().getEncoder(family, qualifier);
+    if (null == cellEncoder) {
+      throw new NoSuchColumnException(columnName.toString());
+    }
+    addCell(entityId.getHBaseRowKey(), hbaseColumnName.getFamily(),
+        hbaseColumnName.getQualifier(), timestamp, cellEncoder.encode(value));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiColumnPutter column(String family, String qualifier) throws IOException {
+    Preconditions.checkState(mState.get() == State.OPEN, "Writer %s is not open.", this);
+    return new WriterColumnPutter(
+        new ResolvedWriterColumn(new KijiColumnName(family, qualifier), mWriterLayoutCapsule),
+        mCellWriter);
+  }
+
+  /** Receives the cells put through the column putters of this writer. */
+  private final WriterColumnPutter.CellWriter mCellWriter = new WriterColumnPutter.CellWriter() {
+    /** {@inheritDoc} */
+    @Override
+    public WriterLayoutCapsule getLayoutCapsule() {
+      Preconditions.checkState(mState.get() == State.OPEN,
+          "Writer %s is not open.", HBaseKijiHFileWriter.this);
+      return mWriterLayoutCapsule;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeCell(
+        EntityId entityId, byte[] family, byte[] qualifier, long timestamp, byte[] encoded)
+        throws IOException {
+      addCell(entityId.getHBaseRowKey(), family, qualifier, timestamp, encoded);
+    }
+  };
+
+  /**
+   * Buffers a cell, and spills the buffer if it is full.
+   *
+   * @param rowKey HBase row key of the cell.
+   * @param family HBase family of the cell.
+   * @param qualifier HBase qualifier of the cell.
+   * @param timestamp Timestamp of the cell, or HConstants.LATEST_TIMESTAMP for the current time.
+   * @param value Encoded value of the cell.
+   * @throws IOException on I/O error.
+   */
+  private void addCell(
+      byte[] rowKey, byte[] family, byte[] qualifier, long timestamp, byte[] value)
+      throws IOException {
+    // HFiles are loaded as-is: LATEST_TIMESTAMP must be resolved here, as the region server does.
+    final long cellTimestamp =
+        (timestamp == HConstants.LATEST_TIMESTAMP) ? System.currentTimeMillis() : timestamp;
+    final KeyValue kv =
+        new KeyValue(rowKey, family, qualifier, cellTimestamp, KeyValue.Type.Put, value);
+    mBuffer.add(kv);
+    mBufferSize += kv.heapSize();
+    if (mBufferSize >= mMaxBufferSize) {
+      spillBuffer();
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Sorting
+
+  /**
+   * Sorts cells, keeping only the last of the cells with the same key.
+   *
+   * @param cells Cells to sort, in the order they were put.
+   * @return the sorted cells, without duplicate keys.
+   */
+  private static List<KeyValue> sortCells(List<KeyValue> cells) {
+    // Collections.sort() is stable: cells with the same key stay in put order.
+    Collections.sort(cells, KV_COMPARATOR);
+    final List<KeyValue> sorted = Lists.newArrayListWithCapacity(cells.size());
+    for (KeyValue kv : cells) {
+      final int last = sorted.size() - 1;
+      if ((last >= 0) && (KV_COMPARATOR.compare(sorted.get(last), kv) == 0)) {
+        sorted.set(last, kv);
+      } else {
+        sorted.add(kv);
+      }
+    }
+    return sorted;
+  }
+
+  /**
+   * Sorts the buffered cells and writes them to a new local run file.
+   *
+   * <p> Each cell of a run file is written as its length followed by its KeyValue bytes. </p>
+   *
+   * @throws IOException on I/O error.
+   */
+  private void spillBuffer() throws IOException {
+    if (mBuffer.isEmpty()) {
+      return;
+    }
+    final List<KeyValue> sorted = sortCells(mBuffer);
+    final File runFile = File.createTempFile(RUN_FILE_PREFIX, ".run", mSpillDir);
+    mRuns.add(runFile);
+    final RunSink out = new RunSink(runFile);
+    try {
+      for (KeyValue kv : sorted) {
+        out.append(kv);
+      }
+    } finally {
+      out.close();
+    }
+    LOG.debug("Spilled {} cells from KijiHFileWriter: {} to run file: {}",
+        sorted.size(), this, runFile);
+    mBuffer = Lists.newArrayList();
+    mBufferSize = 0;
+  }
+
+  /** Sorted source of cells merged by a flush. */
+  private abstract static class CellSource implements Closeable {
+    /** Sources holding newer cells have a higher rank. */
+    private final int mRank;
+
+    /** Next cell of the source, or null when the source is exhausted. */
+    private KeyValue mHead = null;
+
+    /**
+     * Initializes a source of cells.
+     *
+     * @param rank Rank of the source: newer sources have higher ranks.
+     */
+    protected CellSource(int rank) {
+      mRank = rank;
+    }
+
+    /**
+     * Reads the next cell of the source.
+     *
+     * @return the next cell of the source, or null if the source is exhausted.
+     * @throws IOException on I/O error.
+     */
+    protected abstract KeyValue readNext() throws IOException;
+
+    /**
+     * Moves the head of this source to its next cell.
+     *
+     * @return whether the source has a next cell.
+     * @throws IOException on I/O error.
+     */
+    public boolean advance() throws IOException {
+      mHead = readNext();
+      return (mHead != null);
+    }
+
+    /** @return the next cell of the source. */
+    public KeyValue getHead() {
+      return mHead;
+    }
+
+    /** @return the rank of the source. */
+    public int getRank() {
+      return mRank;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+    }
+  }
+
+  /** Source of cells from a local run file. */
+  private static final class RunSource extends CellSource {
+    /** Stream of the run file. */
+    private final DataInputStream mInput;
+
+    /**
+     * Opens a run file.
+     *
+     * @param rank Rank of the run.
+     * @param runFile Run file to read.
+     * @throws IOException on I/O error.
+     */
+    private RunSource(int rank, File runFile) throws IOException {
+      super(rank);
+      mInput = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile)));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected KeyValue readNext() throws IOException {
+      final int length;
+      try {
+        length = mInput.readInt();
+      } catch (EOFException eofe) {
+        return null;
+      }
+      final byte[] bytes = new byte[length];
+      mInput.readFully(bytes);
+      return new KeyValue(bytes, 0, length);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+      mInput.close();
+    }
+  }
+
+  /** Source of cells from a sorted list in memory. */
+  private static final class ListSource extends CellSource {
+    /** Remaining cells. */
+    private final Iterator<KeyValue> mCells;
+
+    /**
+     * Initializes a source of cells from memory.
+     *
+     * @param rank Rank of the source.
+     * @param cells Sorted cells.
+     */
+    private ListSource(int rank, List<KeyValue> cells) {
+      super(rank);
+      mCells = cells.iterator();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected KeyValue readNext() {
+      return mCells.hasNext() ? mCells.next() : null;
+    }
+  }
+
+  /** Destination of sorted cells. */
+  private interface CellSink {
+    /**
+     * Appends a cell. Cells must be appended in sorted order.
+     *
+     * @param kv Cell to append.
+     * @throws IOException on I/O error.
+     */
+    void append(KeyValue kv) throws IOException;
+  }
+
+  /** Writes sorted cells to a local run file, each as its length followed by its bytes. */
+  private static final class RunSink implements CellSink, Closeable {
+    /** Stream of the run file. */
+    private final DataOutputStream mOutput;
+
+    /**
+     * Creates a run file.
+     *
+     * @param runFile Run file to write.
+     * @throws IOException on I/O error.
+     */
+    private RunSink(File runFile) throws IOException {
+      mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile)));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void append(KeyValue kv) throws IOException {
+      mOutput.writeInt(kv.getLength());
+      mOutput.write(kv.getBuffer(), kv.getOffset(), kv.getLength());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+      mOutput.close();
+    }
+  }
+
+  /** Orders sources by head cell, then newest first. */
+  private static final Comparator<CellSource> SOURCE_COMPARATOR = new Comparator<CellSource>() {
+    /** {@inheritDoc} */
+    @Override
+    public int compare(CellSource left, CellSource right) {
+      final int cmp = KV_COMPARATOR.compare(left.getHead(), right.getHead());
+      if (cmp != 0) {
+        return cmp;
+      }
+      return right.getRank() - left.getRank();
+    }
+  };
+
+  // ----------------------------------------------------------------------------------------------
+  // HFile output
+
+  /**
+   * Writes a sorted stream of cells as HFiles, one per region of the table and locality group.
+   */
+  private final class PartitionedHFileOutput implements CellSink, Closeable {
+    /** Directory of the HFiles. */
+    private final Path mPartDir;
+
+    /** Sorted start keys of the regions of the table. The first one is empty. */
+    private final List<byte[]> mRegionStartKeys;
+
+    /** Locality groups of the table, by HBase family. */
+    private final Map<BytesKey, LocalityGroupDesc> mLocalityGroups = Maps.newHashMap();
+
+    /** HFile writers of the current region, by HBase family. */
+    private final Map<BytesKey, HFile.Writer> mWriters = Maps.newHashMap();
+
+    /** Index of the region of the current row. */
+    private int mRegion = 0;
+
+    /**
+     * Prepares the output of a flush.
+     *
+     * @param partDir Directory of the HFiles.
+     * @param capsule Layout of the table.
+     * @throws IOException on I/O error.
+     */
+    private PartitionedHFileOutput(Path partDir, WriterLayoutCapsule capsule)
+        throws IOException {
+      mPartDir = partDir;
+      mRegionStartKeys = Lists.newArrayList();
+      for (KijiRegion region : mTable.getRegions()) {
+        mRegionStartKeys.add(region.getStartKey());
+      }
+      Collections.sort(mRegionStartKeys, Bytes.BYTES_COMPARATOR);
+      if (mRegionStartKeys.isEmpty() || (mRegionStartKeys.get(0).length > 0)) {
+        mRegionStartKeys.add(0, HConstants.EMPTY_START_ROW);
+      }
+      for (LocalityGroupLayout group : capsule.getLayout().getLocalityGroups()) {
+        mLocalityGroups.put(new BytesKey(group.getId().toByteArray()), group.getDesc());
+      }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void append(KeyValue kv) throws IOException {
+      final byte[] row = kv.getRow();
+      int region = mRegion;
+      while ((region + 1 < mRegionStartKeys.size())
+          && (Bytes.compareTo(row, mRegionStartKeys.get(region + 1)) >= 0)) {
+        region += 1;
+      }
+      if (region != mRegion) {
+        closeWriters();
+        mRegion = region;
+      }
+
+      final BytesKey family = new BytesKey(kv.getFamily());
+      HFile.Writer writer = mWriters.get(family);
+      if (null == writer) {
+        writer = openWriter(family.getBytes());
+        mWriters.put(family, writer);
+      }
+      writer.append(kv);
+    }
+
+    /**
+     * Opens the HFile of a family for the current region.
+     *
+     * @param family HBase family.
+     * @return a new HFile writer.
+     * @throws IOException on I/O error.
+     */
+    private HFile.Writer openWriter(byte[] family) throws IOException {
+      final LocalityGroupDesc groupDesc = mLocalityGroups.get(new BytesKey(family));
+      final int blockSize;
+      final Compression.Algorithm compression;
+      if (null == groupDesc) {
+        // The locality group was removed from the layout since the cell was buffered.
+        blockSize = HColumnDescriptor.DEFAULT_BLOCKSIZE;
+        compression = Compression.Algorithm.NONE;
+      } else {
+        blockSize = (groupDesc.getBlockSize() != null)
+            ? groupDesc.getBlockSize()
+            : HColumnDescriptor.DEFAULT_BLOCKSIZE;
+        compression = Compression.Algorithm.valueOf(groupDesc.getCompressionType().toString());
+      }
+      final Path path = new Path(new Path(mPartDir, Bytes.toString(family)),
+          String.format("region-%05d", mRegion));
+      return SchemaPlatformBridge.get().createHFileWriter(
+          mConf, mFileSystem, path, blockSize, compression, KeyValue.KEY_COMPARATOR);
+    }
+
+    /**
+     * Closes the HFiles of the current region.
+     *
+     * @throws IOException on I/O error.
+     */
+    private void closeWriters() throws IOException {
+      final byte[] loadTime = Bytes.toBytes(System.currentTimeMillis());
+      for (HFile.Writer writer : mWriters.values()) {
+        writer.appendFileInfo(StoreFile.BULKLOAD_TIME_KEY, loadTime);
+        writer.appendFileInfo(StoreFile.MAJOR_COMPACTION_KEY, Bytes.toBytes(true));
+        writer.close();
+      }
+      mWriters.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+      closeWriters();
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Flush, load and close
+
+  /**
+   * Merges sorted sources into a sink, keeping only the newest of the cells with the same key.
+   *
+   * @param sources Sorted sources to merge. Closed by the caller.
+   * @param sink Sink to write the merged cells to.
+   * @return the number of cells written.
+   * @throws IOException on I/O error.
+   */
+  private static long mergeSources(List<CellSource> sources, CellSink sink) throws IOException {
+    final PriorityQueue<CellSource> queue =
+        new PriorityQueue<CellSource>(Math.max(1, sources.size()), SOURCE_COMPARATOR);
+    for (CellSource source : sources) {
+      if (source.advance()) {
+        queue.add(source);
+      }
+    }
+    long numCells = 0;
+    KeyValue previous = null;
+    while (!queue.isEmpty()) {
+      final CellSource source = queue.poll();
+      final KeyValue kv = source.getHead();
+      if (source.advance()) {
+        queue.add(source);
+      }
+      // Sources with the same key are polled newest first: skip the older cells.
+      if ((previous != null) && (KV_COMPARATOR.compare(previous, kv) == 0)) {
+        continue;
+      }
+      sink.append(kv);
+      previous = kv;
+      numCells += 1;
+    }
+    return numCells;
+  }
+
+  /**
+   * Merges the oldest runs into intermediate runs, until the runs and the buffer fit within the
+   * maximum merge fan-in.
+   *
+   * <p>
+   *   Each pass merges the oldest runs into a single run, which takes their place as the oldest
+   *   run: newer cells still win over older cells with the same key.
+   * </p>
+   *
+   * @throws IOException on I/O error.
+   */
+  private void mergeOldestRuns() throws IOException {
+    while (mRuns.size() + 1 > mMaxMergeFanIn) {
+      final List<File> merged = mRuns.subList(0, mMaxMergeFanIn);
+      final File runFile = File.createTempFile(RUN_FILE_PREFIX, ".run", mSpillDir);
+      final List<CellSource> sources = Lists.newArrayList();
+      boolean success = false;
+      try {
+        for (File mergedFile : merged) {
+          sources.add(new RunSource(sources.size(), mergedFile));
+        }
+        final RunSink out = new RunSink(runFile);
+        try {
+          mergeSources(sources, out);
+        } finally {
+          out.close();
+        }
+        success = true;
+      } finally {
+        for (CellSource source : sources) {
+          ResourceUtils.closeOrLog(source);
+        }
+        if (!success && !runFile.delete()) {
+          LOG.warn("Unable to delete run file: {}", runFile);
+        }
+      }
+      LOG.debug("Merged {} run files from KijiHFileWriter: {} into run file: {}",
+          merged.size(), this, runFile);
+      for (File mergedFile : merged) {
+        if (!mergedFile.delete()) {
+          LOG.warn("Unable to delete run file: {}", mergedFile);
+        }
+      }
+      merged.clear();
+      mRuns.add(0, runFile);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void flush() throws IOException {
+    final State state = mState.get();
+    Preconditions.checkState((state == State.OPEN) || (state == State.CLOSING),
+        "Writer %s is not open.", this);
+    if (mBuffer.isEmpty() && mRuns.isEmpty()) {
+      return;
+    }
+    mergeOldestRuns();
+
+    final List<CellSource> sources = Lists.newArrayList();
+    final Path partDir = new Path(mOutputPath, String.format("part-%05d.hfile", mNumParts));
+    final long numCells;
+    boolean success = false;
+    try {
+      for (File runFile : mRuns) {
+        sources.add(new RunSource(sources.size(), runFile));
+      }
+      sources.add(new ListSource(sources.size(), sortCells(mBuffer)));
+
+      final PartitionedHFileOutput output =
+          new PartitionedHFileOutput(partDir, mWriterLayoutCapsule);
+      try {
+        numCells = mergeSources(sources, output);
+      } finally {
+        output.close();
+      }
+      success = true;
+    } finally {
+      for (CellSource source : sources) {
+        ResourceUtils.closeOrLog(source);
+      }
+      if (!success) {
+        // The next flush writes to the same part directory: remove the partial HFiles.
+        deletePart(partDir);
+      }
+    }
+
+    deleteRuns();
+    mBuffer = Lists.newArrayList();
+    mBufferSize = 0;
+    mNumParts += 1;
+    mUnloadedParts.add(partDir);
+    LOG.debug("Flushed {} cells from KijiHFileWriter: {} to: {}", numCells, this, partDir);
+  }
+
+  /**
+   * Deletes the part directory of a failed flush, logging failures.
+   *
+   * @param partDir Part directory to delete.
+   */
+  private void deletePart(Path partDir) {
+    try {
+      if (mFileSystem.exists(partDir) && !mFileSystem.delete(partDir, true)) {
+        LOG.warn("Unable to delete part directory: {}", partDir);
+      }
+    } catch (IOException ioe) {
+      LOG.warn("Unable to delete part directory: {}: {}", partDir, ioe.getMessage());
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void bulkLoad() throws IOException {
+    Preconditions.checkState(mState.get() == State.OPEN, "Writer %s is not open.", this);
+    flush();
+    while (!mUnloadedParts.isEmpty()) {
+      final Path partDir = mUnloadedParts.get(0);
+      mTable.bulkLoad(partDir);
+      mUnloadedParts.remove(0);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Path getOutputPath() {
+    return mOutputPath;
+  }
+
+  /** Deletes the local run files. */
+  private void deleteRuns() {
+    for (File runFile : mRuns) {
+      if (!runFile.delete()) {
+        LOG.warn("Unable to delete run file: {}", runFile);
+      }
+    }
+    mRuns.clear();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() throws IOException {
+    if (!mState.compareAndSet(State.OPEN, State.CLOSING)) {
+      LOG.error("Cannot close writer {} in state {}.", this, mState.get());
+      return;
+    }
+    mTable.unregisterLayoutConsumer(mInnerLayoutUpdater);
+    try {
+      flush();
+    } finally {
+      deleteRuns();
+      mTable.release();
+      Preconditions.checkState(mState.compareAndSet(State.CLOSING, State.CLOSED));
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(HBaseKijiHFileWriter.class)
+        .add("id", System.identityHashCode(this))
+        .add("table", mTable.getURI())
+        .add("output", mOutputPath)
+        .add("state", mState)
+        .toString();
+  }
+}
@@ -56,4 +56,16 @@ public final class HBaseKijiReaderFactory implements KijiReaderFactory {
       throws IOException {
     return new HBaseKijiTableReader(mTable, overrides);
   }
+
+  /**
+   * Opens a new reader for the KijiTable associated with this reader factory.
+   *
+   * @param options Options for the reader.
+   * @return a new KijiTableReader.
+   * @throws IOException on I/O error.
+   */
+  public HBaseKijiTableReader openTableReader(HBaseKijiTableReader.Options options)
+      throws IOException {
+    return new HBaseKijiTableReader(mTable, options);
+  }
 }
@@ -26,7 +26,6 @@ import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.NoSuchElementException;
-import java.util.TreeMap;
 
 import com.google.common.base.Objects;
 
@@ -37,6 +36,7 @@ import org.apache.avro.Schema;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValue.KVComparator;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,14 +79,17 @@ public final class HBaseKijiRowData implements KijiRowData {
   /** The layout for the table this row data came from. */
   private final KijiTableLayout mTableLayout;
 
+  /** Translator for the column names of mTableLayout. */
+  private final ColumnNameTranslator mColumnNameTranslator;
+
   /** The HBase result providing the data of this object. */
-  private Result mResult;
+  private final Result mResult;
 
   /** Provider for cell decoders. */
   private final CellDecoderProvider mDecoderProvider;
 
-  /** A map from kiji family to kiji qualifier to timestamp to raw encoded cell values. */
-  private NavigableMap<String, NavigableMap<String, NavigableMap<Long, byte[]>>> mFilteredMap;
+  /** Index of the requested cells in the HBase result. Built lazily. */
+  private HBaseResultIndex mIndex;
 
   /**
    * Creates a provider for cell decoders.
@@ -131,8 +134,34 @@ public final class HBaseKijiRowData implements KijiRowData {
       Result result,
       CellDecoderProvider decoderProvider)
       throws IOException {
+    this(table, dataRequest, entityId, result, decoderProvider,
+        table.getLayoutCapsule().getColumnNameTranslator());
+  }
+
+  /**
+   * Initializes a row data from an HBase Result.
+   *
+   * @param table Kiji table containing this row.
+   * @param dataRequest Data requested for this row.
+   * @param entityId This row entity ID.
+   * @param result HBase result containing the requested cells (and potentially more).
+   * @param decoderProvider Provider for cell decoders.
+   *     Null means the row creates its own provider for cell decoders (not recommended).
+   * @param translator Translator for the column names of the table layout the result was read
+   *     with. Determines the table layout of this row.
+   * @throws IOException on I/O error.
+   */
+  public HBaseKijiRowData(
+      HBaseKijiTable table,
+      KijiDataRequest dataRequest,
+      EntityId entityId,
+      Result result,
+      CellDecoderProvider decoderProvider,
+      ColumnNameTranslator translator)
+      throws IOException {
     mTable = table;
-    mTableLayout = table.getLayout();
+    mColumnNameTranslator = translator;
+    mTableLayout = translator.getTableLayout();
     mDataRequest = dataRequest;
     mEntityId = entityId;
     mResult = result;
@@ -161,8 +190,10 @@ public final class HBaseKijiRowData implements KijiRowData {
     private int mNumVersions;
     /** The current index in the underlying KV array. */
     private int mCurrentIdx;
-    /** The next cell to return. */
-    private KijiCell<T> mNextCell;
+    /** Kiji qualifier of the next cell to return, or null if there are no more cells. */
+    private String mNextQualifier;
+    /** Optional object decoded cells are filled into. May be null. */
+    private final T mReuse;
 
     /**
      * An iterator of KijiCells, for a particular column.
@@ -170,13 +201,18 @@ public final class HBaseKijiRowData implements KijiRowData {
      * @param columnName The Kiji column that is being iterated over.
      * @param rowdata The HBaseKijiRowData instance containing the desired data.
      * @param eId of the rowdata we are iterating over.
+     * @param reuse Optional object to decode the cells into (may be null).
      * @throws IOException on I/O error
      */
-    protected KijiCellIterator(KijiColumnName columnName, HBaseKijiRowData rowdata, EntityId eId)
+    protected KijiCellIterator(
+        KijiColumnName columnName,
+        HBaseKijiRowData rowdata,
+        EntityId eId,
+        T reuse)
         throws IOException {
       mColumn = columnName;
-      // Initialize column name translator.
-      mColumnNameTranslator = new ColumnNameTranslator(rowdata.mTableLayout);
+      mReuse = reuse;
+      mColumnNameTranslator = rowdata.mColumnNameTranslator;
       // Get cell decoder.
       mDecoder = rowdata.mDecoderProvider.getDecoder(mColumn.getFamily(), mColumn.getQualifier());
       // Get info about the data request for this column.
@@ -189,26 +225,33 @@ public final class HBaseKijiRowData implements KijiRowData {
       final HBaseColumnName colName = mColumnNameTranslator.toHBaseColumnName(mColumn);
       mCurrentIdx = findInsertionPoint(mKVs, new KeyValue(eId.getHBaseRowKey(), colName.getFamily(),
           colName.getQualifier()));
-      mNextCell = getNextCell();
+      mNextQualifier = getNextQualifier();
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean hasNext() {
-      return (null != mNextCell);
+      return (null != mNextQualifier);
     }
 
     /** {@inheritDoc} */
     @Override
     public KijiCell<T> next() {
-      KijiCell<T> cellToReturn = mNextCell;
-      if (null == mNextCell) {
+      if (null == mNextQualifier) {
         throw new NoSuchElementException();
-      } else {
-        mNumVersions += 1;
+      }
+      mNumVersions += 1;
+      // Decode the cell before looking ahead, as the next cell may be decoded into mReuse:
+      final KeyValue kv = mKVs[mCurrentIdx];
+      final KijiCell<T> cellToReturn;
+      try {
+        cellToReturn = new KijiCell<T>(mColumn.getFamily(), mNextQualifier,
+            kv.getTimestamp(), mDecoder.decodeCell(kv.getValue(), mReuse));
+      } catch (IOException ex) {
+        throw new KijiIOException(ex);
       }
       mCurrentIdx = getNextIndex(mCurrentIdx);
-      mNextCell = getNextCell();
+      mNextQualifier = getNextQualifier();
       return cellToReturn;
     }
 
@@ -219,25 +262,23 @@ public final class HBaseKijiRowData implements KijiRowData {
     }
 
     /**
-     * Constructs the next cell that will be returned by the iterator.
+     * Reports the Kiji qualifier of the next cell that will be returned by the iterator.
      *
-     * @return The next cell in the column we are iterating over, potentially null.
+     * @return The qualifier of the next cell in the column we are iterating over, potentially null.
      */
-    private KijiCell<T> getNextCell() {
-      KijiCell<T> nextCell = null;
+    private String getNextQualifier() {
+      String nextQualifier = null;
       try {
-        if (mCurrentIdx < mKVs.length) { // If our index is out of bounds, nextCell is null.
+        if (mCurrentIdx < mKVs.length) { // If our index is out of bounds, there is no next cell.
           final KeyValue kv = mKVs[mCurrentIdx];
           // Filter KeyValues by Kiji column family.
-          final KijiColumnName colName = mColumnNameTranslator.toKijiColumnName(
-              new HBaseColumnName(kv.getFamily(), kv.getQualifier()));
-          nextCell = new KijiCell<T>(mColumn.getFamily(), colName.getQualifier(),
-              kv.getTimestamp(), mDecoder.decodeCell(kv.getValue()));
+          final KijiColumnName colName = mColumnNameTranslator.toKijiColumnName(kv);
+          nextQualifier = colName.getQualifier();
         }
       } catch (IOException ex) {
         throw new KijiIOException(ex);
       }
-      return nextCell;
+      return nextQualifier;
     }
 
     /**
@@ -268,9 +309,8 @@ public final class HBaseKijiRowData implements KijiRowData {
         final KeyValue kv = mKVs[nextIndex];
         // Filter KeyValues by Kiji column family.
         try {
-          final KijiColumnName colName = mColumnNameTranslator.toKijiColumnName(
-            new HBaseColumnName(kv.getFamily(), kv.getQualifier()));
-          if (!colName.getQualifier().equals(mNextCell.getQualifier())) {
+          final KijiColumnName colName = mColumnNameTranslator.toKijiColumnName(kv);
+          if (!colName.getQualifier().equals(mNextQualifier)) {
             if (mColumn.isFullyQualified()) {
               return mKVs.length;
             } else {
@@ -356,7 +396,7 @@ public final class HBaseKijiRowData implements KijiRowData {
     @Override
     public Iterator<KijiCell<T>> iterator() {
       try {
-        return new KijiCellIterator<T>(mColumnName , mRowData, mEntityId);
+        return new KijiCellIterator<T>(mColumnName , mRowData, mEntityId, null);
       } catch (IOException ex) {
         throw new KijiIOException(ex);
       }
@@ -406,137 +446,63 @@ public final class HBaseKijiRowData implements KijiRowData {
   }
 
   /**
-   * Gets a map from kiji family to qualifier to timestamp to raw kiji-encoded bytes of a cell.
+   * Gets the translator for the column names of the table layout of this row data.
    *
-   * @return The map.
+   * @return the translator for the column names of the table layout of this row data.
    */
-  public synchronized NavigableMap<String, NavigableMap<String, NavigableMap<Long, byte[]>>>
-      getMap() {
-    if (null != mFilteredMap) {
-      return mFilteredMap;
-    }
-
-    LOG.debug("Filtering the HBase Result into a map of kiji cells...");
-    final NavigableMap<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> map =
-        mResult.getMap();
-    mFilteredMap = new TreeMap<String, NavigableMap<String, NavigableMap<Long, byte[]>>>();
-    if (null == map) {
-      LOG.debug("No result data.");
-      return mFilteredMap;
-    }
-
-    final ColumnNameTranslator columnNameTranslator = new ColumnNameTranslator(mTableLayout);
-    // Loop over the families in the HTable.
-    for (NavigableMap.Entry<byte[], NavigableMap<byte[], NavigableMap<Long, byte[]>>> familyEntry
-             : map.entrySet()) {
-      // Loop over the columns in the family.
-      for (NavigableMap.Entry<byte[], NavigableMap<Long, byte[]>> columnEntry
-               : familyEntry.getValue().entrySet()) {
-        final HBaseColumnName hbaseColumnName =
-            new HBaseColumnName(familyEntry.getKey(), columnEntry.getKey());
-
-        // Translate the HBase column name to a Kiji column name.
-        KijiColumnName kijiColumnName;
-        try {
-          kijiColumnName = columnNameTranslator.toKijiColumnName(
-              new HBaseColumnName(familyEntry.getKey(), columnEntry.getKey()));
-        } catch (NoSuchColumnException e) {
-          LOG.info("Ignoring HBase family " + hbaseColumnName
-              + " because it doesn't contain Kiji data.");
-          continue;
-        }
-        LOG.debug("Adding family [{}] to getMap() result.", kijiColumnName.getName());
-
-        // First check if all columns were requested.
-        KijiDataRequest.Column columnRequest =
-            mDataRequest.getColumn(kijiColumnName.getFamily(), null);
-        if (null == columnRequest) {
-          // Not all columns were requested, so check if this particular column was.
-          columnRequest =
-              mDataRequest.getColumn(kijiColumnName.getFamily(), kijiColumnName.getQualifier());
-        }
-        if (null == columnRequest) {
-          LOG.debug("Ignoring unrequested data: " + kijiColumnName.getFamily() + ":"
-              + kijiColumnName.getQualifier());
-          continue;
-        }
-
-        // Loop over the versions.
-        int numVersions = 0;
-        for (NavigableMap.Entry<Long, byte[]> versionEntry : columnEntry.getValue().entrySet()) {
-          if (numVersions >= columnRequest.getMaxVersions()) {
-            LOG.debug("Skipping remaining cells because we hit max versions requested: "
-                + columnRequest.getMaxVersions());
-            break;
-          }
+  public ColumnNameTranslator getColumnNameTranslator() {
+    return mColumnNameTranslator;
+  }
 
-          // Read the timestamp.
-          final long timestamp = versionEntry.getKey();
-          if (mDataRequest.isTimestampInRange(timestamp)) {
-            // Add the cell to the filtered map.
-            if (!mFilteredMap.containsKey(kijiColumnName.getFamily())) {
-              mFilteredMap.put(kijiColumnName.getFamily(),
-                  new TreeMap<String, NavigableMap<Long, byte[]>>());
-            }
-            final NavigableMap<String, NavigableMap<Long, byte[]>> columnMap =
-                mFilteredMap.get(kijiColumnName.getFamily());
-            if (!columnMap.containsKey(kijiColumnName.getQualifier())) {
-              columnMap.put(kijiColumnName.getQualifier(),
-                  new TreeMap<Long, byte[]>(TimestampComparator.INSTANCE));
-            }
-            final NavigableMap<Long, byte[]> versionMap =
-                columnMap.get(kijiColumnName.getQualifier());
-            versionMap.put(versionEntry.getKey(), versionEntry.getValue());
-            ++numVersions;
-          } else {
-            LOG.debug("Excluding cell at timestamp " + timestamp + " because it is out of range ["
-                + mDataRequest.getMinTimestamp() + "," + mDataRequest.getMaxTimestamp() + ")");
-          }
-        }
-      }
+  /**
+   * Gets the index of the requested cells in the HBase result, building it if necessary.
+   *
+   * @return the index of the requested cells in the HBase result.
+   */
+  private synchronized HBaseResultIndex getIndex() {
+    if (null == mIndex) {
+      mIndex = new HBaseResultIndex(mResult.raw(), mDataRequest, mColumnNameTranslator);
     }
-    return mFilteredMap;
+    return mIndex;
+  }
+
+  /**
+   * Gets a map from kiji family to qualifier to timestamp to raw kiji-encoded bytes of a cell.
+   *
+   * <p>
+   *   The map is built on demand, and shared by all the callers: it must not be modified.
+   *   Accessing individual columns through the KijiRowData methods does not require this map.
+   * </p>
+   *
+   * @return The map.
+   */
+  public NavigableMap<String, NavigableMap<String, NavigableMap<Long, byte[]>>> getMap() {
+    return getIndex().getMap();
   }
 
   /** {@inheritDoc} */
   @Override
-  public synchronized boolean containsColumn(String family, String qualifier) {
-    final NavigableMap<String, NavigableMap<Long, byte[]>> columnMap = getMap().get(family);
-    if (null == columnMap) {
-      return false;
-    }
-   final  NavigableMap<Long, byte[]> versionMap = columnMap.get(qualifier);
-    if (null == versionMap) {
-      return false;
-    }
-    return !versionMap.isEmpty();
+  public boolean containsColumn(String family, String qualifier) {
+    return getIndex().getColumn(family, qualifier) >= 0;
   }
 
   /** {@inheritDoc} */
   @Override
-  public synchronized boolean containsColumn(String family) {
-
-    final NavigableMap<String, NavigableMap<Long, byte[]>> columnMap = getMap().get(family);
-        for (Map.Entry<String, NavigableMap<String, NavigableMap<Long, byte[]>>> columnMapEntry
-          : getMap().entrySet()) {
-          LOG.debug("The result return contains family [{}]", columnMapEntry.getKey());
-        }
-    if (null == columnMap) {
-      return false;
-    }
-    return !columnMap.isEmpty();
+  public boolean containsColumn(String family) {
+    return getIndex().containsFamily(family);
   }
 
   /** {@inheritDoc} */
   @Override
-  public synchronized boolean containsCell(String family, String qualifier, long timestamp) {
-    return containsColumn(family, qualifier)
-        && getTimestamps(family, qualifier).contains(timestamp);
+  public boolean containsCell(String family, String qualifier, long timestamp) {
+    final HBaseResultIndex index = getIndex();
+    final int column = index.getColumn(family, qualifier);
+    return (column >= 0) && (index.findCell(column, timestamp) >= 0);
   }
 
   /** {@inheritDoc} */
   @Override
-  public synchronized NavigableSet<String> getQualifiers(String family) {
+  public NavigableSet<String> getQualifiers(String family) {
     final NavigableMap<String, NavigableMap<Long, byte[]>> qmap = getRawQualifierMap(family);
     if (null == qmap) {
       return Sets.newTreeSet();
@@ -546,7 +512,7 @@ public final class HBaseKijiRowData implements KijiRowData {
 
   /** {@inheritDoc} */
   @Override
-  public synchronized NavigableSet<Long> getTimestamps(String family, String qualifier) {
+  public NavigableSet<Long> getTimestamps(String family, String qualifier) {
     final NavigableMap<Long, byte[]> tmap = getRawTimestampMap(family, qualifier);
     if (null == tmap) {
       return Sets.newTreeSet(TimestampComparator.INSTANCE);
@@ -572,7 +538,7 @@ public final class HBaseKijiRowData implements KijiRowData {
    * @return the encoded map of qualifiers in the specified family, or null.
    */
   private NavigableMap<String, NavigableMap<Long, byte[]>> getRawQualifierMap(String family) {
-    return getMap().get(family);
+    return getIndex().getQualifierMap(family);
   }
 
   /**
@@ -583,11 +549,12 @@ public final class HBaseKijiRowData implements KijiRowData {
    * @return the encoded time-series in the specified family:qualifier column, or null.
    */
   private NavigableMap<Long, byte[]> getRawTimestampMap(String family, String qualifier) {
-    final NavigableMap<String, NavigableMap<Long, byte[]>> qmap = getRawQualifierMap(family);
-    if (null == qmap) {
+    final HBaseResultIndex index = getIndex();
+    final int column = index.getColumn(family, qualifier);
+    if (column < 0) {
       return null;
     }
-    return qmap.get(qualifier);
+    return index.getTimestampMap(column);
   }
 
   /**
@@ -599,19 +566,47 @@ public final class HBaseKijiRowData implements KijiRowData {
    * @return the encoded cell content, or null.
    */
   private byte[] getRawCell(String family, String qualifier, long timestamp) {
-    final NavigableMap<Long, byte[]> tmap = getRawTimestampMap(family, qualifier);
-    if (null == tmap) {
+    final HBaseResultIndex index = getIndex();
+    final int column = index.getColumn(family, qualifier);
+    if (column < 0) {
+      return null;
+    }
+    final int cell = index.findCell(column, timestamp);
+    if (cell < 0) {
       return null;
     }
-    return tmap.get(timestamp);
+    return index.getKeyValue(cell).getValue();
+  }
+
+  /**
+   * Reports the most recent KeyValue of a given column.
+   *
+   * @param family Family to look up.
+   * @param qualifier Qualifier to look up.
+   * @return the most recent KeyValue in the specified family:qualifier column, or null.
+   */
+  private KeyValue getMostRecentKeyValue(String family, String qualifier) {
+    final HBaseResultIndex index = getIndex();
+    final int column = index.getColumn(family, qualifier);
+    if (column < 0) {
+      return null;
+    }
+    return index.getKeyValue(index.getStart(column));
   }
 
   /** {@inheritDoc} */
   @Override
   public <T> T getValue(String family, String qualifier, long timestamp) throws IOException {
+    return getValue(family, qualifier, timestamp, null);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> T getValue(String family, String qualifier, long timestamp, T reuse)
+      throws IOException {
     final KijiCellDecoder<T> decoder = mDecoderProvider.getDecoder(family, qualifier);
     final byte[] bytes = getRawCell(family, qualifier, timestamp);
-    return decoder.decodeValue(bytes);
+    return decoder.decodeValue(bytes, reuse);
   }
 
   /** {@inheritDoc} */
@@ -626,13 +621,188 @@ public final class HBaseKijiRowData implements KijiRowData {
   /** {@inheritDoc} */
   @Override
   public <T> T getMostRecentValue(String family, String qualifier) throws IOException {
+    return getMostRecentValue(family, qualifier, null);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> T getMostRecentValue(String family, String qualifier, T reuse) throws IOException {
     final KijiCellDecoder<T> decoder = mDecoderProvider.getDecoder(family, qualifier);
-    final NavigableMap<Long, byte[]> tmap = getRawTimestampMap(family, qualifier);
-    if (null == tmap) {
+    final KeyValue kv = getMostRecentKeyValue(family, qualifier);
+    if (null == kv) {
       return null;
     }
-    final byte[] bytes = tmap.values().iterator().next();
-    return decoder.decodeValue(bytes);
+    return decoder.decodeValue(kv.getValue(), reuse);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public long getMostRecentLong(String family, String qualifier, long defaultValue)
+      throws IOException {
+    final KijiCellDecoder<Object> decoder = getExistingColumnDecoder(family, qualifier);
+    final KeyValue kv = getMostRecentKeyValue(family, qualifier);
+    if (null == kv) {
+      return defaultValue;
+    }
+    return decodeLong(decoder, kv, family, qualifier);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public long[] getTimestampArray(String family, String qualifier) {
+    final HBaseResultIndex index = getIndex();
+    final int column = index.getColumn(family, qualifier);
+    if (column < 0) {
+      return new long[0];
+    }
+    final int start = index.getStart(column);
+    final long[] timestamps = new long[index.getEnd(column) - start];
+    for (int i = 0; i < timestamps.length; ++i) {
+      timestamps[i] = index.getKeyValue(start + i).getTimestamp();
+    }
+    return timestamps;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public long[] getLongValues(String family, String qualifier) throws IOException {
+    final KijiCellDecoder<Object> decoder = getExistingColumnDecoder(family, qualifier);
+    final HBaseResultIndex index = getIndex();
+    final int column = index.getColumn(family, qualifier);
+    if (column < 0) {
+      return new long[0];
+    }
+    final int start = index.getStart(column);
+    final long[] values = new long[index.getEnd(column) - start];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = decodeLong(decoder, index.getKeyValue(start + i), family, qualifier);
+    }
+    return values;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public double[] getDoubleValues(String family, String qualifier) throws IOException {
+    final KijiCellDecoder<Object> decoder = getExistingColumnDecoder(family, qualifier);
+    final HBaseResultIndex index = getIndex();
+    final int column = index.getColumn(family, qualifier);
+    if (column < 0) {
+      return new double[0];
+    }
+    final int start = index.getStart(column);
+    final double[] values = new double[index.getEnd(column) - start];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = decodeDouble(decoder, index.getKeyValue(start + i), family, qualifier);
+    }
+    return values;
+  }
+
+  /**
+   * Gets the cell decoder for a column, which must exist in the table layout.
+   *
+   * @param family Family of the column.
+   * @param qualifier Qualifier of the column.
+   * @return the cell decoder for the specified column.
+   * @throws IOException if the column does not exist in the table layout.
+   */
+  private KijiCellDecoder<Object> getExistingColumnDecoder(String family, String qualifier)
+      throws IOException {
+    if (!mTableLayout.exists(new KijiColumnName(family, qualifier))) {
+      throw new NoSuchColumnException(
+          "Cannot decode cells of non-existent column: " + family + ":" + qualifier);
+    }
+    return mDecoderProvider.getDecoder(family, qualifier);
+  }
+
+  /**
+   * Decodes the content of a counter cell.
+   *
+   * @param kv KeyValue holding the counter.
+   * @param family Family of the cell, for error reporting.
+   * @param qualifier Qualifier of the cell, for error reporting.
+   * @return the value of the counter.
+   * @throws IOException if the cell is not a valid counter.
+   */
+  private static long decodeCounter(KeyValue kv, String family, String qualifier)
+      throws IOException {
+    if (kv.getValueLength() != Bytes.SIZEOF_LONG) {
+      throw new IOException(String.format(
+          "Invalid counter cell %s:%s at timestamp %d: expecting %d bytes, got %d.",
+          family, qualifier, kv.getTimestamp(), Bytes.SIZEOF_LONG, kv.getValueLength()));
+    }
+    return Bytes.toLong(kv.getBuffer(), kv.getValueOffset(), Bytes.SIZEOF_LONG);
+  }
+
+  /**
+   * Decodes the content of a cell as a primitive long.
+   *
+   * <p>
+   *   Counters and final primitive cells are decoded in place from the KeyValue buffer.
+   *   Other cells are decoded through their cell decoder, and must hold an int or a long.
+   * </p>
+   *
+   * @param decoder Decoder for the column of the cell.
+   * @param kv KeyValue holding the encoded cell.
+   * @param family Family of the cell, for error reporting.
+   * @param qualifier Qualifier of the cell, for error reporting.
+   * @return the decoded value.
+   * @throws IOException on I/O error, or if the cell does not hold an integral value.
+   */
+  private static long decodeLong(
+      KijiCellDecoder<?> decoder,
+      KeyValue kv,
+      String family,
+      String qualifier)
+      throws IOException {
+    if (decoder instanceof CounterCellDecoder) {
+      return decodeCounter(kv, family, qualifier);
+    } else if (decoder instanceof PrimitiveCellDecoder) {
+      return ((PrimitiveCellDecoder<?>) decoder)
+          .decodeLong(kv.getBuffer(), kv.getValueOffset(), kv.getValueLength());
+    }
+    final Object value = decoder.decodeValue(kv.getValue());
+    if ((value instanceof Long) || (value instanceof Integer)) {
+      return ((Number) value).longValue();
+    }
+    throw new IOException(String.format(
+        "Cannot decode cell %s:%s at timestamp %d as a long: %s",
+        family, qualifier, kv.getTimestamp(), value));
+  }
+
+  /**
+   * Decodes the content of a cell as a primitive double.
+   *
+   * <p>
+   *   Counters and final primitive cells are decoded in place from the KeyValue buffer.
+   *   Other cells are decoded through their cell decoder, and must hold a number.
+   * </p>
+   *
+   * @param decoder Decoder for the column of the cell.
+   * @param kv KeyValue holding the encoded cell.
+   * @param family Family of the cell, for error reporting.
+   * @param qualifier Qualifier of the cell, for error reporting.
+   * @return the decoded value.
+   * @throws IOException on I/O error, or if the cell does not hold a numeric value.
+   */
+  private static double decodeDouble(
+      KijiCellDecoder<?> decoder,
+      KeyValue kv,
+      String family,
+      String qualifier)
+      throws IOException {
+    if (decoder instanceof CounterCellDecoder) {
+      return decodeCounter(kv, family, qualifier);
+    } else if (decoder instanceof PrimitiveCellDecoder) {
+      return ((PrimitiveCellDecoder<?>) decoder)
+          .decodeDouble(kv.getBuffer(), kv.getValueOffset(), kv.getValueLength());
+    }
+    final Object value = decoder.decodeValue(kv.getValue());
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    throw new IOException(String.format(
+        "Cannot decode cell %s:%s at timestamp %d as a double: %s",
+        family, qualifier, kv.getTimestamp(), value));
   }
 
   /** {@inheritDoc} */
@@ -683,13 +853,11 @@ public final class HBaseKijiRowData implements KijiRowData {
   @Override
   public <T> KijiCell<T> getMostRecentCell(String family, String qualifier) throws IOException {
     final KijiCellDecoder<T> decoder = mDecoderProvider.getDecoder(family,  qualifier);
-    final NavigableMap<Long, byte[]> tmap = getRawTimestampMap(family, qualifier);
-    if (null == tmap) {
+    final KeyValue kv = getMostRecentKeyValue(family, qualifier);
+    if (null == kv) {
       return null;
     }
-    final byte[] bytes = tmap.values().iterator().next();
-    final long timestamp = tmap.firstKey();
-    return new KijiCell<T>(family, qualifier, timestamp, decoder.decodeCell(bytes));
+    return new KijiCell<T>(family, qualifier, kv.getTimestamp(), decoder.decodeCell(kv.getValue()));
   }
 
   /** {@inheritDoc} */
@@ -716,13 +884,14 @@ public final class HBaseKijiRowData implements KijiRowData {
     final KijiCellDecoder<T> decoder = mDecoderProvider.getDecoder(family,  qualifier);
 
     final NavigableMap<Long, KijiCell<T>> result = Maps.newTreeMap(TimestampComparator.INSTANCE);
-    final NavigableMap<Long, byte[]> tmap = getRawTimestampMap(family, qualifier);
-    if (tmap != null) {
-      for (Map.Entry<Long, byte[]> entry : tmap.entrySet()) {
-        final Long timestamp = entry.getKey();
-        final byte[] bytes = entry.getValue();
+    final HBaseResultIndex index = getIndex();
+    final int column = index.getColumn(family, qualifier);
+    if (column >= 0) {
+      for (int i = index.getStart(column); i < index.getEnd(column); ++i) {
+        final KeyValue kv = index.getKeyValue(i);
+        final long timestamp = kv.getTimestamp();
         final KijiCell<T> cell =
-            new KijiCell<T>(family, qualifier, timestamp, decoder.decodeCell(bytes));
+            new KijiCell<T>(family, qualifier, timestamp, decoder.decodeCell(kv.getValue()));
         result.put(timestamp, cell);
       }
     }
@@ -751,7 +920,20 @@ public final class HBaseKijiRowData implements KijiRowData {
   @Override
   public <T> Iterator<KijiCell<T>> iterator(String family, String qualifier) throws
     IOException {
-    return new KijiCellIterator<T>(new KijiColumnName(family, qualifier), this, mEntityId);
+    return new KijiCellIterator<T>(new KijiColumnName(family, qualifier), this, mEntityId, null);
+  }
+
+  /**  {@inheritDoc} */
+  @Override
+  public <T> Iterator<KijiCell<T>> iterator(String family, String qualifier, T reuse)
+      throws IOException {
+    if (null == qualifier) {
+      Preconditions.checkState(mTableLayout.getFamilyMap().get(family).isMapType(),
+          "iterator(String family, null, T reuse) is only enabled on map type column families."
+          + " The column family [%s], is a group type column family.",
+          family);
+    }
+    return new KijiCellIterator<T>(new KijiColumnName(family, qualifier), this, mEntityId, reuse);
   }
 
   /**  {@inheritDoc} */
@@ -763,7 +945,7 @@ public final class HBaseKijiRowData implements KijiRowData {
         + " on map type column families. The column family [%s], is a group type column family."
         + " Please use the iterator(String family, String qualifier) method.",
         family);
-    return new KijiCellIterator<T>(new KijiColumnName(family, null), this, mEntityId);
+    return new KijiCellIterator<T>(new KijiColumnName(family, null), this, mEntityId, null);
   }
 
   /**  {@inheritDoc} */
@@ -790,8 +972,8 @@ public final class HBaseKijiRowData implements KijiRowData {
   public KijiPager getPager(String family, String qualifier)
     throws KijiColumnPagingNotEnabledException {
     final KijiColumnName kijiColumnName = new KijiColumnName(family, qualifier);
-    return new HBaseVersionPager(
-        mEntityId, mDataRequest, mTable,  kijiColumnName, mDecoderProvider);
+    return new HBaseVersionPager(mEntityId, mDataRequest, mTable, kijiColumnName,
+        mDecoderProvider, mColumnNameTranslator);
   }
 
   /** {@inheritDoc} */
@@ -803,7 +985,8 @@ public final class HBaseKijiRowData implements KijiRowData {
         + "The column family '%s' is a group type column family. "
         + "Please use the getPager(String family, String qualifier) method.",
         family);
-    return new HBaseMapFamilyPager(mEntityId, mDataRequest, mTable, kijiFamily);
+    return new HBaseMapFamilyPager(
+        mEntityId, mDataRequest, mTable, kijiFamily, mColumnNameTranslator);
   }
 
   /** {@inheritDoc} */
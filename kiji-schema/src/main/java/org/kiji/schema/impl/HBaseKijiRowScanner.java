@@ -42,6 +42,7 @@ import org.kiji.schema.KijiIOException;
 import org.kiji.schema.KijiRowData;
 import org.kiji.schema.KijiRowScanner;
 import org.kiji.schema.layout.impl.CellDecoderProvider;
+import org.kiji.schema.layout.impl.ColumnNameTranslator;
 import org.kiji.schema.util.Debug;
 
 /**
@@ -72,6 +73,9 @@ public class HBaseKijiRowScanner implements KijiRowScanner {
   /** Provider for cell decoders. */
   private final CellDecoderProvider mCellDecoderProvider;
 
+  /** Translator for the column names of the table layout the rows are read with. */
+  private final ColumnNameTranslator mColumnNameTranslator;
+
   /** Whether the scanner is open. */
   private final AtomicBoolean mIsOpen = new AtomicBoolean(false);
 
@@ -106,6 +110,7 @@ public class HBaseKijiRowScanner implements KijiRowScanner {
     private HBaseKijiTable mTable;
     private Scan mScan;
     private CellDecoderProvider mCellDecoderProvider;
+    private ColumnNameTranslator mColumnNameTranslator;
     private boolean mReopenScannerOnTimeout;
 
     /**
@@ -163,6 +168,19 @@ public class HBaseKijiRowScanner implements KijiRowScanner {
       return this;
     }
 
+    /**
+     * Sets the translator for the column names of the table layout the rows are read with.
+     *
+     * <p> By default, the translator of the current table layout is used. </p>
+     *
+     * @param translator Translator for the column names of the table layout.
+     * @return This options instance.
+     */
+    public Options withColumnNameTranslator(ColumnNameTranslator translator) {
+      mColumnNameTranslator = translator;
+      return this;
+    }
+
     /**
      * Gets the data request.
      *
@@ -199,6 +217,15 @@ public class HBaseKijiRowScanner implements KijiRowScanner {
       return mCellDecoderProvider;
     }
 
+    /**
+     * Gets the translator for the column names of the table layout the rows are read with.
+     *
+     * @return the translator for the column names, or null to use the current table layout.
+     */
+    public ColumnNameTranslator getColumnNameTranslator() {
+      return mColumnNameTranslator;
+    }
+
     /**
      * Reports whether the HBase scanner should be re-opened on timeout.
      *
@@ -226,6 +253,9 @@ public class HBaseKijiRowScanner implements KijiRowScanner {
     mTable = options.getTable();
     mScan = options.getScan();
     mCellDecoderProvider = options.getCellDecoderProvider();
+    mColumnNameTranslator = (null != options.getColumnNameTranslator())
+        ? options.getColumnNameTranslator()
+        : mTable.getLayoutCapsule().getColumnNameTranslator();
     mReopenScannerOnTimeout = options.getReopenScannerOnTimeout();
 
     mEntityIdFactory = EntityIdFactory.getFactory(mTable.getLayout());
@@ -367,7 +397,8 @@ public class HBaseKijiRowScanner implements KijiRowScanner {
       // Decode the HBase result into a KijiRowData:
       try {
         final EntityId entityId = mEntityIdFactory.getEntityIdFromHBaseRowKey(result.getRow());
-        return new HBaseKijiRowData(mTable, mDataRequest, entityId, result, mCellDecoderProvider);
+        return new HBaseKijiRowData(mTable, mDataRequest, entityId, result,
+            mCellDecoderProvider, mColumnNameTranslator);
       } catch (IOException ioe) {
         throw new KijiIOException(ioe);
       }
@@ -23,6 +23,9 @@ import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -30,6 +33,9 @@ import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -59,6 +65,7 @@ import org.kiji.schema.KijiTable;
 import org.kiji.schema.KijiTableReader;
 import org.kiji.schema.KijiTableWriter;
 import org.kiji.schema.KijiURI;
+import org.kiji.schema.KijiWriteThrottle;
 import org.kiji.schema.KijiWriterFactory;
 import org.kiji.schema.RuntimeInterruptedException;
 import org.kiji.schema.avro.RowKeyFormat;
@@ -87,6 +94,26 @@ public final class HBaseKijiTable implements KijiTable {
   private static final Logger CLEANUP_LOG =
       LoggerFactory.getLogger("cleanup." + HBaseKijiTable.class.getName());
 
+  /**
+   * System property controlling the number of threads serving the asynchronous read requests
+   * issued by the readers of a single KijiTable.
+   */
+  public static final String READER_THREAD_POOL_SIZE_PROPERTY =
+      "org.kiji.schema.impl.HBaseKijiTable.READER_THREAD_POOL_SIZE";
+
+  /** Number of threads serving the asynchronous read requests of this table. */
+  private static final int READER_THREAD_POOL_SIZE =
+      Integer.parseInt(System.getProperty(READER_THREAD_POOL_SIZE_PROPERTY, "16"));
+
+  /** Whether the current thread belongs to the reader executor of a table. */
+  private static final ThreadLocal<Boolean> IS_READER_THREAD = new ThreadLocal<Boolean>() {
+    /** {@inheritDoc} */
+    @Override
+    protected Boolean initialValue() {
+      return false;
+    }
+  };
+
   /** The kiji instance this table belongs to. */
   private final HBaseKiji mKiji;
 
@@ -169,6 +196,19 @@ public final class HBaseKijiTable implements KijiTable {
    */
   private final Set<LayoutConsumer> mLayoutConsumers = new HashSet<LayoutConsumer>();
 
+  /**
+   * Bounded executor serving the asynchronous read requests of the readers of this table.
+   * Created lazily on first use, shut down when the table is closed.
+   * Guarded by mReaderExecutorLock.
+   */
+  private ListeningExecutorService mReaderExecutor = null;
+
+  /** Lock guarding the lazy construction of mReaderExecutor. */
+  private final Object mReaderExecutorLock = new Object();
+
+  /** Row caches of the readers of this table, invalidated by the writers of this table. */
+  private final Set<KijiRowCache> mRowCaches = new CopyOnWriteArraySet<KijiRowCache>();
+
   /**
    * Container class encapsulating the KijiTableLayout and related objects which must all reflect
    * layout updates atomically.  This object represents a snapshot of the table layout at a moment
@@ -493,6 +533,46 @@ public final class HBaseKijiTable implements KijiTable {
     }
   }
 
+  /**
+   * Registers a reader row cache to be invalidated by the writers of this table.
+   *
+   * @param rowCache Row cache to register.
+   */
+  public void registerRowCache(KijiRowCache rowCache) {
+    mRowCaches.add(rowCache);
+  }
+
+  /**
+   * Unregisters a reader row cache. Should only be called when the reader is closed.
+   *
+   * @param rowCache Row cache to unregister.
+   */
+  public void unregisterRowCache(KijiRowCache rowCache) {
+    mRowCaches.remove(rowCache);
+  }
+
+  /**
+   * Invalidates the cached copies of a row, after the row has been written to.
+   *
+   * @param entityId Entity ID of the row written to.
+   */
+  public void invalidateCachedRow(EntityId entityId) {
+    if (!mRowCaches.isEmpty()) {
+      invalidateCachedRow(entityId.getHBaseRowKey());
+    }
+  }
+
+  /**
+   * Invalidates the cached copies of a row, after the row has been written to.
+   *
+   * @param hbaseRowKey HBase row key of the row written to.
+   */
+  public void invalidateCachedRow(byte[] hbaseRowKey) {
+    for (KijiRowCache rowCache : mRowCaches) {
+      rowCache.invalidate(hbaseRowKey);
+    }
+  }
+
   /**
    * Opens a new connection to the HBase table backing this Kiji table.
    *
@@ -510,6 +590,62 @@ public final class HBaseKijiTable implements KijiTable {
     return mHTablePool.getTable(mHBaseTableName);
   }
 
+  /**
+   * Returns the executor serving the asynchronous read requests of the readers of this table.
+   *
+   * <p>
+   *   The executor uses a bounded number of daemon threads, configured through the system property
+   *   {@link #READER_THREAD_POOL_SIZE_PROPERTY}. Tasks submitted to this executor must not block
+   *   waiting for other tasks submitted to the same executor: readers check
+   *   {@link #isReaderExecutorThread()} and read inline instead of fanning out.
+   * </p>
+   *
+   * @return the executor serving the asynchronous read requests of the readers of this table.
+   */
+  public ListeningExecutorService getReaderExecutor() {
+    synchronized (mReaderExecutorLock) {
+      Preconditions.checkState(mIsOpen.get(),
+          "Cannot use reader executor of closed KijiTable %s.", mTableURI);
+      if (null == mReaderExecutor) {
+        mReaderExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(
+            READER_THREAD_POOL_SIZE,
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(String.format("kiji-reader-%s-%%d", mName))
+                .setThreadFactory(new ThreadFactory() {
+                  /** {@inheritDoc} */
+                  @Override
+                  public Thread newThread(final Runnable runnable) {
+                    return new Thread(new Runnable() {
+                      /** {@inheritDoc} */
+                      @Override
+                      public void run() {
+                        IS_READER_THREAD.set(true);
+                        runnable.run();
+                      }
+                    });
+                  }
+                })
+                .build()));
+      }
+      return mReaderExecutor;
+    }
+  }
+
+  /**
+   * Reports whether the current thread belongs to the reader executor of a table.
+   *
+   * <p>
+   *   Work running on a reader executor must not wait for other tasks of a reader executor:
+   *   once all the threads of the executor wait, the tasks they wait for never run.
+   * </p>
+   *
+   * @return whether the current thread belongs to the reader executor of a table.
+   */
+  static boolean isReaderExecutorThread() {
+    return IS_READER_THREAD.get();
+  }
+
   /**
    * {@inheritDoc}
    * If you need both the table layout and a column name translator within a single short lived
@@ -571,6 +707,16 @@ public final class HBaseKijiTable implements KijiTable {
     return mWriterFactory;
   }
 
+  /**
+   * Returns the throttle shared by all the writers of this table, including the writers opened
+   * through other handles on this table from the same Kiji instance.
+   *
+   * @return the throttle shared by all the writers of this table.
+   */
+  public KijiWriteThrottle getWriteThrottle() {
+    return mKiji.getWriteThrottle(mName);
+  }
+
   /**
    * Return the regions in this table as a list.
    *
@@ -637,6 +783,12 @@ public final class HBaseKijiTable implements KijiTable {
     }
 
     LOG.debug("Closing HBaseKijiTable '{}'.", mTableURI);
+    synchronized (mReaderExecutorLock) {
+      if (null != mReaderExecutor) {
+        mReaderExecutor.shutdown();
+        mReaderExecutor = null;
+      }
+    }
     mHTablePool.close();
 
     mKiji.release();
@@ -24,12 +24,24 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.google.common.base.Objects;
-
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.Result;
@@ -42,10 +54,10 @@ import org.kiji.schema.EntityId;
 import org.kiji.schema.InternalKijiError;
 import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiDataRequest;
-import org.kiji.schema.KijiDataRequestValidator;
 import org.kiji.schema.KijiRowData;
 import org.kiji.schema.KijiRowScanner;
 import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.RuntimeInterruptedException;
 import org.kiji.schema.SpecificCellDecoderFactory;
 import org.kiji.schema.filter.KijiRowFilter;
 import org.kiji.schema.filter.KijiRowFilterApplicator;
@@ -56,14 +68,49 @@ import org.kiji.schema.layout.InvalidLayoutException;
 import org.kiji.schema.layout.KijiTableLayout;
 import org.kiji.schema.layout.impl.CellDecoderProvider;
 import org.kiji.schema.layout.impl.ColumnNameTranslator;
+import org.kiji.schema.util.BytesKey;
+import org.kiji.schema.util.CloseableIterable;
 
 /**
  * Reads from a kiji table by sending the requests directly to the HBase tables.
+ *
+ * <p>
+ *   Asynchronous requests run on the threads of the table reader executor, concurrently with
+ *   the other requests of the reader. The state they share is safe for concurrent use:
+ *   <ul>
+ *     <li> each HBase request uses its own HTable from the pool of the table; </li>
+ *     <li> the layout dependent state is an immutable capsule, swapped on layout updates; </li>
+ *     <li> the prepared data requests, the row cache and the gets in flight are held in
+ *          concurrent maps; </li>
+ *     <li> cell decoders keep their decoding state per thread. </li>
+ *   </ul>
+ *   Requests still queued when the reader is closed fail as if issued after close().
+ * </p>
  */
 @ApiAudience.Private
 public class HBaseKijiTableReader implements KijiTableReader {
   private static final Logger LOG = LoggerFactory.getLogger(HBaseKijiTableReader.class);
 
+  /**
+   * System property controlling the default maximum number of region server groups fetched
+   * concurrently by a bulk get. The default value of 1 sends bulk gets as a single batch.
+   */
+  public static final String BULK_GET_PARALLELISM_PROPERTY =
+      "org.kiji.schema.impl.HBaseKijiTableReader.BULK_GET_PARALLELISM";
+
+  /** Default maximum number of region server groups fetched concurrently by a bulk get. */
+  private static final int DEFAULT_BULK_GET_PARALLELISM =
+      Integer.parseInt(System.getProperty(BULK_GET_PARALLELISM_PROPERTY, "1"));
+
+  /** Default maximum number of batches in flight for a bulk get iterator. */
+  private static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 2;
+
+  /** Maximum number of prepared data requests cached by a reader for a given table layout. */
+  private static final int MAX_PREPARED_REQUESTS = 1000;
+
+  /** Time, in milliseconds, after which the region locations used by bulk gets are refreshed. */
+  private static final long REGION_INDEX_REFRESH_PERIOD_MS = 60 * 1000;
+
   /** HBase KijiTable to read from. */
   private final HBaseKijiTable mTable;
 
@@ -73,24 +120,51 @@ public class HBaseKijiTableReader implements KijiTableReader {
   /** Map of overridden cell specs. */
   private final Map<KijiColumnName, CellSpec> mCellSpecOverrides;
 
+  /** Maximum number of region server groups fetched concurrently by a bulk get. */
+  private final int mBulkGetParallelism;
+
+  /** Maximum number of batches in flight for a bulk get iterator. */
+  private final int mMaxInFlightBatches;
+
+  /** Cache of the rows read with get(), or null if row caching is disabled. */
+  private final KijiRowCache mRowCache;
+
+  /** HBase Gets in flight, shared by identical concurrent requests, or null if disabled. */
+  private final ConcurrentMap<InFlightGetKey, SettableFuture<HBaseKijiRowData>> mInFlightGets;
+
+  /** Snapshot of the table regions used to group bulk gets. Null until first needed. */
+  private volatile KijiRegionIndex mRegionIndex = null;
+
   /** Object which processes layout update from the KijiTable from which this Reader reads. */
   private final InnerLayoutUpdater mInnerLayoutUpdater = new InnerLayoutUpdater();
 
   /**
    * Encapsulation of all table layout related state necessary for the operation of this reader.
    * Can be hot swapped to reflect a table layout update.
+   * Volatile since asynchronous requests read it from the threads of the table reader executor.
    */
-  private ReaderLayoutCapsule mReaderLayoutCapsule = null;
+  private volatile ReaderLayoutCapsule mReaderLayoutCapsule = null;
 
   /**
    * Container class encapsulating all reader state which must be updated in response to a table
-   * layout update.
+   * layout update. Immutable but for the cache of prepared requests, which is thread-safe.
    */
   private static final class ReaderLayoutCapsule {
     private final CellDecoderProvider mCellDecoderProvider;
     private final KijiTableLayout mLayout;
     private final ColumnNameTranslator mTranslator;
 
+    /**
+     * Data requests prepared against mLayout.
+     * Keyed by data request identity, since KijiDataRequest.equals() ignores column filters.
+     * Discarded with this capsule when the table layout changes.
+     */
+    private final Cache<KijiDataRequest, PreparedKijiDataRequest> mPreparedRequests =
+        CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(MAX_PREPARED_REQUESTS)
+            .build();
+
     /**
      * Default constructor.
      *
@@ -133,6 +207,60 @@ public class HBaseKijiTableReader implements KijiTableReader {
     private CellDecoderProvider getCellDecoderProvider() {
       return mCellDecoderProvider;
     }
+
+    /**
+     * Get the specified data request prepared against the layout of this capsule.
+     *
+     * @param dataRequest the data request to prepare.
+     * @return the data request prepared against the layout of this capsule.
+     * @throws IOException on I/O error.
+     */
+    private PreparedKijiDataRequest prepare(KijiDataRequest dataRequest) throws IOException {
+      final PreparedKijiDataRequest cached = mPreparedRequests.getIfPresent(dataRequest);
+      if (cached != null) {
+        return cached;
+      }
+      final PreparedKijiDataRequest prepared =
+          PreparedKijiDataRequest.prepare(dataRequest, mLayout, mTranslator);
+      mPreparedRequests.put(dataRequest, prepared);
+      return prepared;
+    }
+  }
+
+  /**
+   * Identifies identical get requests: same row and same data request instance.
+   * Data requests are compared by identity, since KijiDataRequest.equals() ignores column filters.
+   */
+  private static final class InFlightGetKey {
+    private final BytesKey mRowKey;
+    private final KijiDataRequest mDataRequest;
+
+    /**
+     * Initializes the key of a get request.
+     *
+     * @param entityId Entity ID of the row requested.
+     * @param dataRequest Data request.
+     */
+    private InFlightGetKey(EntityId entityId, KijiDataRequest dataRequest) {
+      mRowKey = new BytesKey(entityId.getHBaseRowKey());
+      mDataRequest = dataRequest;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof InFlightGetKey)) {
+        return false;
+      }
+      final InFlightGetKey key = (InFlightGetKey) other;
+      return (mDataRequest == key.mDataRequest) && mRowKey.equals(key.mRowKey);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+      return 31 * mRowKey.hashCode() + System.identityHashCode(mDataRequest);
+    }
   }
 
   /** Provides for the updating of this Reader in response to a table layout update. */
@@ -147,6 +275,10 @@ public class HBaseKijiTableReader implements KijiTableReader {
           mCellSpecOverrides);
       // If the capsule is null this is the initial setup and we do not need a log message.
       if (mReaderLayoutCapsule != null) {
+        if (mRowCache != null) {
+          // Cached rows were decoded with the former layout:
+          mRowCache.invalidateAll();
+        }
         LOG.debug(
             "Updating layout used by KijiTableReader: {} for table: {} from version: {} to: {}",
             this,
@@ -166,6 +298,160 @@ public class HBaseKijiTableReader implements KijiTableReader {
     }
   }
 
+  /** Options for opening an HBaseKijiTableReader. */
+  public static final class Options {
+    private Map<KijiColumnName, CellSpec> mCellSpecOverrides = Maps.newHashMap();
+    private int mBulkGetParallelism = DEFAULT_BULK_GET_PARALLELISM;
+    private long mRowCacheMaxWeight = 0;
+    private long mRowCacheTTLMillis = 0;
+    private boolean mCoalesceGets = false;
+    private int mMaxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
+
+    /**
+     * Sets the column specifications overriding the actual table layout.
+     *
+     * @param overrides Map of column specifications overriding the actual table layout.
+     * @return This options instance.
+     */
+    public Options withCellSpecOverrides(Map<KijiColumnName, CellSpec> overrides) {
+      mCellSpecOverrides = Preconditions.checkNotNull(overrides);
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of region server groups fetched concurrently by a bulk get.
+     *
+     * <p>
+     *   With a value greater than 1, bulk gets are split into one batch per region server,
+     *   and the batches are fetched and parsed concurrently on the table reader executor.
+     *   With a value of 1, bulk gets are sent as a single batch from the calling thread.
+     * </p>
+     *
+     * @param parallelism Maximum number of batches fetched concurrently by a bulk get.
+     * @return This options instance.
+     */
+    public Options withBulkGetParallelism(int parallelism) {
+      Preconditions.checkArgument(parallelism >= 1,
+          "Invalid bulk get parallelism: %s", parallelism);
+      mBulkGetParallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Enables caching of the rows read with {@link HBaseKijiTableReader#get}.
+     *
+     * <p>
+     *   Rows are cached per entity ID and data request instance. The cache evicts the least
+     *   recently used rows when the approximate size of the cached rows exceeds maxWeight,
+     *   and rows older than ttlMillis. Cached rows are invalidated by layout updates and by
+     *   writes through the writers of the same KijiTable instance.
+     * </p>
+     *
+     * @param maxWeight Maximum approximate size of the cached rows, in bytes.
+     * @param ttlMillis Time-to-live of the cached rows, in milliseconds.
+     * @return This options instance.
+     */
+    public Options withRowCache(long maxWeight, long ttlMillis) {
+      Preconditions.checkArgument(maxWeight > 0, "Invalid row cache maximum weight: %s", maxWeight);
+      Preconditions.checkArgument(ttlMillis > 0, "Invalid row cache time-to-live: %s", ttlMillis);
+      mRowCacheMaxWeight = maxWeight;
+      mRowCacheTTLMillis = ttlMillis;
+      return this;
+    }
+
+    /**
+     * Sets whether concurrent identical gets share a single HBase Get.
+     *
+     * <p>
+     *   When enabled, concurrent calls to {@link HBaseKijiTableReader#get} for the same entity ID
+     *   and the same data request instance are served by a single HBase Get, and share the same
+     *   row data. A call joining a Get already in flight may not observe writes that completed
+     *   after that Get was sent.
+     * </p>
+     *
+     * @param coalesceGets Whether concurrent identical gets share a single HBase Get.
+     * @return This options instance.
+     */
+    public Options withGetCoalescing(boolean coalesceGets) {
+      mCoalesceGets = coalesceGets;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of batches in flight for the iterators returned by
+     * {@link HBaseKijiTableReader#bulkGetIterator}.
+     *
+     * <p>
+     *   Higher values hide more of the latency of each batch, at the cost of buffering more rows.
+     *   At most (maxInFlightBatches + 1) batches of rows are held in memory by an iterator.
+     * </p>
+     *
+     * @param maxInFlightBatches Maximum number of batches in flight per bulk get iterator.
+     * @return This options instance.
+     */
+    public Options withMaxInFlightBatches(int maxInFlightBatches) {
+      Preconditions.checkArgument(maxInFlightBatches >= 1,
+          "Invalid maximum number of batches in flight: %s", maxInFlightBatches);
+      mMaxInFlightBatches = maxInFlightBatches;
+      return this;
+    }
+
+    /**
+     * Gets the column specifications overriding the actual table layout.
+     *
+     * @return the column specifications overriding the actual table layout.
+     */
+    public Map<KijiColumnName, CellSpec> getCellSpecOverrides() {
+      return mCellSpecOverrides;
+    }
+
+    /**
+     * Gets the maximum number of region server groups fetched concurrently by a bulk get.
+     *
+     * @return the maximum number of region server groups fetched concurrently by a bulk get.
+     */
+    public int getBulkGetParallelism() {
+      return mBulkGetParallelism;
+    }
+
+    /**
+     * Gets the maximum approximate size of the cached rows.
+     *
+     * @return the maximum approximate size of the cached rows, in bytes, or 0 if row caching is
+     *     disabled.
+     */
+    public long getRowCacheMaxWeight() {
+      return mRowCacheMaxWeight;
+    }
+
+    /**
+     * Gets the time-to-live of the cached rows.
+     *
+     * @return the time-to-live of the cached rows, in milliseconds.
+     */
+    public long getRowCacheTTLMillis() {
+      return mRowCacheTTLMillis;
+    }
+
+    /**
+     * Reports whether concurrent identical gets share a single HBase Get.
+     *
+     * @return whether concurrent identical gets share a single HBase Get.
+     */
+    public boolean getGetCoalescing() {
+      return mCoalesceGets;
+    }
+
+    /**
+     * Gets the maximum number of batches in flight for a bulk get iterator.
+     *
+     * @return the maximum number of batches in flight for a bulk get iterator.
+     */
+    public int getMaxInFlightBatches() {
+      return mMaxInFlightBatches;
+    }
+  }
+
   /**
    * Creates a new <code>HBaseKijiTableReader</code> instance that sends the read requests
    * directly to HBase.
@@ -174,7 +460,7 @@ public class HBaseKijiTableReader implements KijiTableReader {
    * @throws IOException on I/O error.
    */
   public HBaseKijiTableReader(HBaseKijiTable table) throws IOException {
-    this(table, Maps.<KijiColumnName, CellSpec>newHashMap());
+    this(table, new Options());
   }
 
   /**
@@ -189,11 +475,34 @@ public class HBaseKijiTableReader implements KijiTableReader {
       HBaseKijiTable table,
       Map<KijiColumnName, CellSpec> layoutOverride)
       throws IOException {
+    this(table, new Options().withCellSpecOverrides(layoutOverride));
+  }
+
+  /**
+   * Creates a new <code>HBaseKijiTableReader</code> instance that sends the read requests
+   * directly to HBase.
+   *
+   * @param table The kiji table to read from.
+   * @param options Options for the reader.
+   * @throws IOException on I/O error.
+   */
+  public HBaseKijiTableReader(HBaseKijiTable table, Options options) throws IOException {
     mTable = table;
-    mCellSpecOverrides = layoutOverride;
+    mCellSpecOverrides = options.getCellSpecOverrides();
+    mBulkGetParallelism = options.getBulkGetParallelism();
+    mMaxInFlightBatches = options.getMaxInFlightBatches();
+    mRowCache = (options.getRowCacheMaxWeight() > 0)
+        ? new KijiRowCache(options.getRowCacheMaxWeight(), options.getRowCacheTTLMillis())
+        : null;
+    mInFlightGets = options.getGetCoalescing()
+        ? new ConcurrentHashMap<InFlightGetKey, SettableFuture<HBaseKijiRowData>>()
+        : null;
     mTable.registerLayoutConsumer(mInnerLayoutUpdater);
     Preconditions.checkState(mReaderLayoutCapsule != null,
         "KijiTableReader for table: %s failed to initialize.", mTable.getURI());
+    if (mRowCache != null) {
+      mTable.registerRowCache(mRowCache);
+    }
 
     // Retain the table only when everything succeeds.
     mTable.retain();
@@ -205,29 +514,87 @@ public class HBaseKijiTableReader implements KijiTableReader {
   public KijiRowData get(EntityId entityId, KijiDataRequest dataRequest)
       throws IOException {
     Preconditions.checkState(mIsOpen.get(), "Reader %s is closed.", this);
+    if ((null == mRowCache) && (null == mInFlightGets)) {
+      return fetchRow(entityId, dataRequest);
+    }
 
-    final ReaderLayoutCapsule capsule = mReaderLayoutCapsule;
-    // Make sure the request validates against the layout of the table.
-    final KijiTableLayout tableLayout = capsule.getLayout();
-    validateRequestAgainstLayout(dataRequest, tableLayout);
+    long stamp = 0;
+    if (mRowCache != null) {
+      final HBaseKijiRowData cached = mRowCache.get(entityId, dataRequest);
+      if (cached != null) {
+        return cached;
+      }
+      // Read the stamp before fetching, to detect writes concurrent with the fetch:
+      stamp = mRowCache.getStamp(entityId);
+    }
+    final HBaseKijiRowData rowData = (mInFlightGets != null)
+        ? coalescedFetchRow(entityId, dataRequest)
+        : fetchRow(entityId, dataRequest);
+    if (mRowCache != null) {
+      mRowCache.put(entityId, dataRequest, rowData, stamp);
+    }
+    return rowData;
+  }
 
-    // Construct an HBase Get to send to the HTable.
-    HBaseDataRequestAdapter hbaseRequestAdapter =
-        new HBaseDataRequestAdapter(dataRequest, capsule.getColumnNameTranslator());
-    Get hbaseGet;
+  /**
+   * Retrieves data from a single row in HBase, sharing the HBase Get and its result with the
+   * concurrent identical requests.
+   *
+   * @param entityId The entity id for the row to get data from.
+   * @param dataRequest Specifies the columns of data to retrieve.
+   * @return the requested data.
+   * @throws IOException on I/O error.
+   */
+  private HBaseKijiRowData coalescedFetchRow(EntityId entityId, KijiDataRequest dataRequest)
+      throws IOException {
+    final InFlightGetKey key = new InFlightGetKey(entityId, dataRequest);
+    final SettableFuture<HBaseKijiRowData> future = SettableFuture.create();
+    final SettableFuture<HBaseKijiRowData> inFlight = mInFlightGets.putIfAbsent(key, future);
+    if (inFlight != null) {
+      // An identical request is already in flight, share its result:
+      return waitFor(inFlight);
+    }
     try {
-      hbaseGet = hbaseRequestAdapter.toGet(entityId, tableLayout);
-    } catch (InvalidLayoutException e) {
-      // The table layout should never be invalid at this point, since we got it from a valid
-      // opened table.  If it is, there's something seriously wrong.
-      throw new InternalKijiError(e);
+      final HBaseKijiRowData rowData = fetchRow(entityId, dataRequest);
+      future.set(rowData);
+      return rowData;
+    } catch (IOException ioe) {
+      future.setException(ioe);
+      throw ioe;
+    } catch (RuntimeException re) {
+      future.setException(re);
+      throw re;
+    } catch (Error err) {
+      future.setException(err);
+      throw err;
+    } finally {
+      mInFlightGets.remove(key, future);
     }
+  }
+
+  /**
+   * Retrieves data from a single row in HBase, bypassing the row cache.
+   *
+   * @param entityId The entity id for the row to get data from.
+   * @param dataRequest Specifies the columns of data to retrieve.
+   * @return the requested data.
+   * @throws IOException on I/O error.
+   */
+  private HBaseKijiRowData fetchRow(EntityId entityId, KijiDataRequest dataRequest)
+      throws IOException {
+    final ReaderLayoutCapsule capsule = mReaderLayoutCapsule;
+    // Make sure the request validates against the layout of the table (once per layout).
+    final PreparedKijiDataRequest preparedRequest = capsule.prepare(dataRequest);
+
+    // Construct an HBase Get to send to the HTable.
+    final Get hbaseGet = preparedRequest.toGet(entityId);
+
     // Send the HTable Get.
-    final Result result = hbaseGet.hasFamilies() ? doHBaseGet(hbaseGet) : new Result();
+    final Result result = preparedRequest.hasFamilies() ? doHBaseGet(hbaseGet) : new Result();
 
     // Parse the result.
-    return new HBaseKijiRowData(
-        mTable, dataRequest, entityId, result, capsule.getCellDecoderProvider());
+    return new HBaseKijiRowData(mTable, dataRequest, entityId, result,
+        capsule.getCellDecoderProvider(), capsule.getColumnNameTranslator());
   }
 
   /** {@inheritDoc} */
@@ -241,14 +608,29 @@ public class HBaseKijiTableReader implements KijiTableReader {
     if (entityIds.size() == 1) {
       return Collections.singletonList(this.get(entityIds.get(0), dataRequest));
     }
+    // Reader executor threads must not wait for other tasks of the executor: read inline.
+    if ((mBulkGetParallelism > 1) && !HBaseKijiTable.isReaderExecutorThread()) {
+      return parallelBulkGet(entityIds, dataRequest);
+    }
+    return serialBulkGet(entityIds, dataRequest);
+  }
+
+  /**
+   * Retrieves data from a list of rows with a single batch of HBase Gets.
+   *
+   * @param entityIds The list of entity ids to collect data for.
+   * @param dataRequest Specifies constraints on the data to retrieve for each entity id.
+   * @return the requested data, as specified in {@link #bulkGet(List, KijiDataRequest)}.
+   * @throws IOException on I/O error.
+   */
+  List<KijiRowData> serialBulkGet(List<EntityId> entityIds, KijiDataRequest dataRequest)
+      throws IOException {
+    Preconditions.checkState(mIsOpen.get(), "Reader %s is closed.", this);
     final ReaderLayoutCapsule capsule = mReaderLayoutCapsule;
-    final KijiTableLayout tableLayout = capsule.getLayout();
-    validateRequestAgainstLayout(dataRequest, tableLayout);
-    final HBaseDataRequestAdapter hbaseRequestAdapter =
-        new HBaseDataRequestAdapter(dataRequest, capsule.getColumnNameTranslator());
+    final PreparedKijiDataRequest preparedRequest = capsule.prepare(dataRequest);
 
     // Construct a list of hbase Gets to send to the HTable.
-    final List<Get> hbaseGetList = makeGetList(entityIds, tableLayout, hbaseRequestAdapter);
+    final List<Get> hbaseGetList = makeGetList(entityIds, preparedRequest);
 
     // Send the HTable Gets.
     final Result[] results = doHBaseGet(hbaseGetList);
@@ -256,11 +638,185 @@ public class HBaseKijiTableReader implements KijiTableReader {
 
     // Parse the results.  If a Result is null, then the corresponding KijiRowData should also
     // be null.  This indicates that there was an error retrieving this row.
-    List<KijiRowData> rowDataList = parseResults(results, entityIds, dataRequest, tableLayout);
+    List<KijiRowData> rowDataList = parseResults(results, entityIds, dataRequest, capsule);
 
     return rowDataList;
   }
 
+  /**
+   * Retrieves data from a list of rows by fetching the rows hosted by each region server
+   * concurrently, on the table reader executor.
+   *
+   * <p>
+   *   At most mBulkGetParallelism region server groups are fetched at once.
+   *   Results are parsed on the executor threads and reported in the order of the input list.
+   *   Must not be called from a thread of the reader executor, which would wait for tasks
+   *   queued behind it.
+   * </p>
+   *
+   * @param entityIds The list of entity ids to collect data for.
+   * @param dataRequest Specifies constraints on the data to retrieve for each entity id.
+   * @return the requested data, as specified in {@link #bulkGet(List, KijiDataRequest)}.
+   * @throws IOException on I/O error.
+   */
+  private List<KijiRowData> parallelBulkGet(
+      final List<EntityId> entityIds,
+      final KijiDataRequest dataRequest)
+      throws IOException {
+    final ReaderLayoutCapsule capsule = mReaderLayoutCapsule;
+    final PreparedKijiDataRequest preparedRequest = capsule.prepare(dataRequest);
+    final List<Get> hbaseGetList = makeGetList(entityIds, preparedRequest);
+
+    // Group the Gets by region server, keeping track of the position of each Get:
+    final KijiRegionIndex regionIndex = getRegionIndex();
+    final Map<String, List<Integer>> groups = Maps.newLinkedHashMap();
+    for (int index = 0; index < hbaseGetList.size(); ++index) {
+      final String serverKey = regionIndex.getServerKey(hbaseGetList.get(index).getRow());
+      List<Integer> group = groups.get(serverKey);
+      if (null == group) {
+        group = Lists.newArrayList();
+        groups.put(serverKey, group);
+      }
+      group.add(index);
+    }
+
+    final KijiRowData[] rows = new KijiRowData[entityIds.size()];
+    final Semaphore permits = new Semaphore(mBulkGetParallelism);
+    final ListeningExecutorService executor = mTable.getReaderExecutor();
+    final List<Future<Void>> futures = Lists.newArrayListWithCapacity(groups.size());
+    for (final List<Integer> group : groups.values()) {
+      try {
+        permits.acquire();
+      } catch (InterruptedException ie) {
+        throw new RuntimeInterruptedException(ie);
+      }
+      futures.add(executor.submit(new Callable<Void>() {
+        /** {@inheritDoc} */
+        @Override
+        public Void call() throws IOException {
+          try {
+            final List<Get> gets = new ArrayList<Get>(group.size());
+            for (int index : group) {
+              gets.add(hbaseGetList.get(index));
+            }
+            final Result[] results = doHBaseGet(gets);
+            Preconditions.checkState(group.size() == results.length);
+            for (int i = 0; i < results.length; ++i) {
+              final int index = group.get(i);
+              rows[index] = (null == results[i])
+                  ? null
+                  : new HBaseKijiRowData(mTable, dataRequest, entityIds.get(index), results[i],
+                        capsule.getCellDecoderProvider(), capsule.getColumnNameTranslator());
+            }
+            return null;
+          } finally {
+            permits.release();
+          }
+        }
+      }));
+    }
+
+    // Futures complete before the rows they filled in are read, which guarantees visibility:
+    for (Future<Void> future : futures) {
+      waitFor(future);
+    }
+    return Lists.newArrayList(rows);
+  }
+
+  /**
+   * Returns a snapshot of the regions of the table, refreshing it periodically.
+   *
+   * @return a snapshot of the regions of the table.
+   * @throws IOException on I/O error.
+   */
+  private KijiRegionIndex getRegionIndex() throws IOException {
+    final KijiRegionIndex regionIndex = mRegionIndex;
+    if ((regionIndex != null)
+        && (System.currentTimeMillis() - regionIndex.getCreationTime()
+            < REGION_INDEX_REFRESH_PERIOD_MS)) {
+      return regionIndex;
+    }
+    final KijiRegionIndex newRegionIndex = new KijiRegionIndex(mTable.getRegions());
+    mRegionIndex = newRegionIndex;
+    return newRegionIndex;
+  }
+
+  /**
+   * Waits for a future to complete, and reports its failure as the original exception if possible.
+   *
+   * @param future Future to wait for.
+   * @param <T> Type of the value computed by the future.
+   * @return the value computed by the future.
+   * @throws IOException if the future failed with an IOException.
+   */
+  static <T> T waitFor(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException ie) {
+      throw new RuntimeInterruptedException(ie);
+    } catch (ExecutionException ee) {
+      final Throwable cause = ee.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new IOException(cause);
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public ListenableFuture<KijiRowData> getAsync(
+      final EntityId entityId,
+      final KijiDataRequest dataRequest) {
+    Preconditions.checkState(mIsOpen.get(), "Reader %s is closed.", this);
+    return mTable.getReaderExecutor().submit(new Callable<KijiRowData>() {
+      /** {@inheritDoc} */
+      @Override
+      public KijiRowData call() throws IOException {
+        return get(entityId, dataRequest);
+      }
+    });
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public ListenableFuture<List<KijiRowData>> bulkGetAsync(
+      final List<EntityId> entityIds,
+      final KijiDataRequest dataRequest) {
+    Preconditions.checkState(mIsOpen.get(), "Reader %s is closed.", this);
+    return mTable.getReaderExecutor().submit(new Callable<List<KijiRowData>>() {
+      /** {@inheritDoc} */
+      @Override
+      public List<KijiRowData> call() throws IOException {
+        // Never fan out from an executor thread: tasks must not wait for other executor tasks.
+        return serialBulkGet(entityIds, dataRequest);
+      }
+    });
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public CloseableIterable<KijiRowData> bulkGetIterator(
+      Iterable<EntityId> entityIds,
+      KijiDataRequest dataRequest,
+      int batchSize)
+      throws IOException {
+    Preconditions.checkState(mIsOpen.get(), "Reader %s is closed.", this);
+    // Validate the data request upfront rather than in the first batch:
+    mReaderLayoutCapsule.prepare(dataRequest);
+    // Reader executor threads must not wait for other tasks of the executor: fetch inline.
+    final ListeningExecutorService executor = HBaseKijiTable.isReaderExecutorThread()
+        ? MoreExecutors.sameThreadExecutor()
+        : mTable.getReaderExecutor();
+    return new HBaseKijiBulkGetIterator(this, executor,
+        entityIds, dataRequest, batchSize, mMaxInFlightBatches);
+  }
+
   /** {@inheritDoc} */
   @Override
   public KijiRowScanner getScanner(KijiDataRequest dataRequest) throws IOException {
@@ -282,11 +838,8 @@ public class HBaseKijiTableReader implements KijiTableReader {
       HBaseScanOptions scanOptions = kijiScannerOptions.getHBaseScanOptions();
 
       final ReaderLayoutCapsule capsule = mReaderLayoutCapsule;
-      final HBaseDataRequestAdapter dataRequestAdapter =
-          new HBaseDataRequestAdapter(dataRequest, capsule.getColumnNameTranslator());
       final KijiTableLayout tableLayout = capsule.getLayout();
-      validateRequestAgainstLayout(dataRequest, tableLayout);
-      final Scan scan = dataRequestAdapter.toScan(tableLayout, scanOptions);
+      final Scan scan = capsule.prepare(dataRequest).toScan(scanOptions);
 
       if (null != startRow) {
         scan.setStartRow(startRow.getHBaseRowKey());
@@ -307,6 +860,7 @@ public class HBaseKijiTableReader implements KijiTableReader {
           .withTable(mTable)
           .withScan(scan)
           .withCellDecoderProvider(capsule.getCellDecoderProvider())
+          .withColumnNameTranslator(capsule.getColumnNameTranslator())
           .withReopenScannerOnTimeout(kijiScannerOptions.getReopenScannerOnTimeout()));
     } catch (InvalidLayoutException e) {
       // The table layout should never be invalid at this point, since we got it from a valid
@@ -315,6 +869,15 @@ public class HBaseKijiTableReader implements KijiTableReader {
     }
   }
 
+  /**
+   * Returns the cache of the rows read with get(), for monitoring purposes.
+   *
+   * @return the cache of the rows read with get(), or null if row caching is disabled.
+   */
+  public KijiRowCache getRowCache() {
+    return mRowCache;
+  }
+
   /** {@inheritDoc} */
   @Override
   public String toString() {
@@ -333,12 +896,12 @@ public class HBaseKijiTableReader implements KijiTableReader {
    * @param results The results to parse.
    * @param entityIds The matching set of EntityIds.
    * @param dataRequest The KijiDataRequest.
-   * @param tableLayout The table layout.
+   * @param capsule The reader layout capsule used to build the request.
    * @return The list of KijiRowData returned by these results.
    * @throws IOException If there is an error.
    */
   private List<KijiRowData> parseResults(Result[] results, List<EntityId> entityIds,
-      KijiDataRequest dataRequest, KijiTableLayout tableLayout) throws IOException {
+      KijiDataRequest dataRequest, ReaderLayoutCapsule capsule) throws IOException {
     List<KijiRowData> rowDataList = new ArrayList<KijiRowData>(results.length);
 
     for (int i = 0; i < results.length; i++) {
@@ -348,7 +911,7 @@ public class HBaseKijiTableReader implements KijiTableReader {
       final HBaseKijiRowData rowData = (null == result)
           ? null
           : new HBaseKijiRowData(mTable, dataRequest, entityId, result,
-                mReaderLayoutCapsule.getCellDecoderProvider());
+                capsule.getCellDecoderProvider(), capsule.getColumnNameTranslator());
       rowDataList.add(rowData);
     }
     return rowDataList;
@@ -358,43 +921,28 @@ public class HBaseKijiTableReader implements KijiTableReader {
    * Creates a list of hbase Gets for a set of entityIds.
    *
    * @param entityIds The set of entityIds to collect.
-   * @param tableLayout The table layout specifying constraints on what data to return for a row.
-   * @param hbaseRequestAdapter The HBaseDataRequestAdapter.
+   * @param preparedRequest The prepared data request to build the Gets from.
    * @return A list of hbase Gets-- one for each entity id.
    * @throws IOException If there is an error.
    */
-  private static List<Get> makeGetList(List<EntityId> entityIds, KijiTableLayout tableLayout,
-      HBaseDataRequestAdapter hbaseRequestAdapter)
+  private static List<Get> makeGetList(
+      List<EntityId> entityIds,
+      PreparedKijiDataRequest preparedRequest)
       throws IOException {
-    List<Get> hbaseGetList = new ArrayList<Get>(entityIds.size());
-    try {
-      for (EntityId entityId : entityIds) {
-        hbaseGetList.add(hbaseRequestAdapter.toGet(entityId, tableLayout));
-      }
-      return hbaseGetList;
-    } catch (InvalidLayoutException ile) {
-      // The table layout should never be invalid at this point, since we got it from a valid
-      // opened table.  If it is, there's something seriously wrong.
-      throw new InternalKijiError(ile);
+    final List<Get> hbaseGetList = new ArrayList<Get>(entityIds.size());
+    for (EntityId entityId : entityIds) {
+      hbaseGetList.add(preparedRequest.toGet(entityId));
     }
-  }
-
-  /**
-   * Validate a data request against a table layout.
-   *
-   * @param dataRequest A KijiDataRequest.
-   * @param layout the KijiTableLayout of the table against which to validate the data request.
-   */
-  private void validateRequestAgainstLayout(KijiDataRequest dataRequest, KijiTableLayout layout) {
-    // TODO(SCHEMA-263): This could be made more efficient if the layout and/or validator were
-    // cached.
-    KijiDataRequestValidator.validatorForLayout(layout).validate(dataRequest);
+    return hbaseGetList;
   }
 
   /** {@inheritDoc} */
   @Override
   public void close() throws IOException {
     if (mIsOpen.getAndSet(false)) {
+      if (mRowCache != null) {
+        mTable.unregisterRowCache(mRowCache);
+      }
       mTable.unregisterLayoutConsumer(mInnerLayoutUpdater);
       mTable.release();
     } else {
@@ -47,7 +47,9 @@ import org.kiji.schema.EntityId;
 import org.kiji.schema.KijiCell;
 import org.kiji.schema.KijiCellEncoder;
 import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiColumnPutter;
 import org.kiji.schema.KijiTableWriter;
+import org.kiji.schema.KijiWriteThrottle;
 import org.kiji.schema.NoSuchColumnException;
 import org.kiji.schema.avro.SchemaType;
 import org.kiji.schema.hbase.HBaseColumnName;
@@ -89,6 +91,9 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
   /** Dedicated HTable connection. */
   private final HTableInterface mHTable;
 
+  /** Throttles the mutations of this writer. */
+  private final MutationThrottler mThrottler;
+
   /**
    * All state which should be modified atomically to reflect an update to the underlying table's
    * layout.
@@ -194,7 +199,20 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
    * @throws IOException on I/O error.
    */
   public HBaseKijiTableWriter(HBaseKijiTable table) throws IOException {
+    this(table, null);
+  }
+
+  /**
+   * Creates a non-buffered kiji table writer that sends modifications directly to Kiji.
+   *
+   * @param table A kiji table.
+   * @param throttle Throttle of the writer, in addition to the throttle of the table, or null.
+   * @throws IOException on I/O error.
+   */
+  public HBaseKijiTableWriter(HBaseKijiTable table, KijiWriteThrottle throttle)
+      throws IOException {
     mTable = table;
+    mThrottler = new MutationThrottler(throttle, table);
     mTable.registerLayoutConsumer(mInnerLayoutUpdater);
     Preconditions.checkState(mWriterLayoutCapsule != null,
         "KijiTableWriter for table: %s failed to initialize.", mTable.getURI());
@@ -231,9 +249,42 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
 
     final Put put = new Put(entityId.getHBaseRowKey())
         .add(hbaseColumnName.getFamily(), hbaseColumnName.getQualifier(), timestamp, encoded);
+    mThrottler.throttle(put);
     mHTable.put(put);
+    mTable.invalidateCachedRow(entityId);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiColumnPutter column(String family, String qualifier) throws IOException {
+    Preconditions.checkState(mState.get() == State.OPEN, "Writer %s is not open.", this);
+    return new WriterColumnPutter(
+        new ResolvedWriterColumn(new KijiColumnName(family, qualifier), mWriterLayoutCapsule),
+        mCellWriter);
   }
 
+  /** Receives the cells put through the column putters of this writer. */
+  private final WriterColumnPutter.CellWriter mCellWriter = new WriterColumnPutter.CellWriter() {
+    /** {@inheritDoc} */
+    @Override
+    public WriterLayoutCapsule getLayoutCapsule() {
+      Preconditions.checkState(mState.get() == State.OPEN,
+          "Writer %s is not open.", HBaseKijiTableWriter.this);
+      return mWriterLayoutCapsule;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void writeCell(
+        EntityId entityId, byte[] family, byte[] qualifier, long timestamp, byte[] encoded)
+        throws IOException {
+      final Put put = new Put(entityId.getHBaseRowKey()).add(family, qualifier, timestamp, encoded);
+      mThrottler.throttle(put);
+      mHTable.put(put);
+      mTable.invalidateCachedRow(entityId);
+    }
+  };
+
   // ----------------------------------------------------------------------------------------------
   // Counter increment
 
@@ -255,7 +306,10 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
         hbaseColumnName.getFamily(),
         hbaseColumnName.getQualifier(),
         amount);
+    mThrottler.throttle(increment.getRow().length + hbaseColumnName.getFamily().length
+        + hbaseColumnName.getQualifier().length + Bytes.SIZEOF_LONG);
     final Result result = mHTable.increment(increment);
+    mTable.invalidateCachedRow(entityId);
     final NavigableMap<Long, byte[]> counterEntries =
         result.getMap().get(hbaseColumnName.getFamily()).get(hbaseColumnName.getQualifier());
     assert null != counterEntries;
@@ -296,7 +350,9 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
     Preconditions.checkState(mState.get() == State.OPEN, "Writer %s is not open.", this);
 
     final Delete delete = new Delete(entityId.getHBaseRowKey(), upToTimestamp, null);
+    mThrottler.throttle(delete);
     mHTable.delete(delete);
+    mTable.invalidateCachedRow(entityId);
   }
 
   /** {@inheritDoc} */
@@ -336,7 +392,9 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
     delete.deleteFamily(hbaseColumnName.getFamily(), upToTimestamp);
 
     // Send the delete to the HBase HTable.
+    mThrottler.throttle(delete);
     mHTable.delete(delete);
+    mTable.invalidateCachedRow(entityId);
   }
 
   /**
@@ -366,7 +424,9 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
     }
 
     // Send the delete to the HBase HTable.
+    mThrottler.throttle(delete);
     mHTable.delete(delete);
+    mTable.invalidateCachedRow(entityId);
   }
 
   /**
@@ -394,6 +454,10 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
         .toHBaseColumnName(new KijiColumnName(familyName));
     final byte[] hbaseRow = entityId.getHBaseRowKey();
 
+    // Throttle before locking the row, so the row is not locked while throttled:
+    mThrottler.throttle(hbaseRow.length + hbaseColumnName.getFamily().length
+        + hbaseColumnName.getQualifier().length);
+
     // Lock the row.
     final RowLock rowLock = mHTable.lockRow(hbaseRow);
     try {
@@ -420,6 +484,7 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
           delete.deleteColumns(hbaseColumnName.getFamily(), hbaseQualifier, upToTimestamp);
         }
         mHTable.delete(delete);
+        mTable.invalidateCachedRow(entityId);
       }
     } finally {
       // Make sure to unlock the row!
@@ -443,7 +508,9 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
         .toHBaseColumnName(new KijiColumnName(family, qualifier));
     final Delete delete = new Delete(entityId.getHBaseRowKey())
         .deleteColumns(hbaseColumnName.getFamily(), hbaseColumnName.getQualifier(), upToTimestamp);
+    mThrottler.throttle(delete);
     mHTable.delete(delete);
+    mTable.invalidateCachedRow(entityId);
   }
 
   /** {@inheritDoc} */
@@ -462,7 +529,9 @@ public final class HBaseKijiTableWriter implements KijiTableWriter {
         .toHBaseColumnName(new KijiColumnName(family, qualifier));
     final Delete delete = new Delete(entityId.getHBaseRowKey())
         .deleteColumn(hbaseColumnName.getFamily(), hbaseColumnName.getQualifier(), timestamp);
+    mThrottler.throttle(delete);
     mHTable.delete(delete);
+    mTable.invalidateCachedRow(entityId);
   }
 
   // ----------------------------------------------------------------------------------------------
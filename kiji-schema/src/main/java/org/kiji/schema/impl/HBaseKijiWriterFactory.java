@@ -21,10 +21,17 @@ package org.kiji.schema.impl;
 
 import java.io.IOException;
 
+import org.apache.hadoop.fs.Path;
+
 import org.kiji.annotations.ApiAudience;
 import org.kiji.schema.AtomicKijiPutter;
 import org.kiji.schema.KijiBufferedWriter;
+import org.kiji.schema.KijiBufferedWriter.KijiBufferedWriterOptions;
+import org.kiji.schema.KijiCoalescingIncrementer;
+import org.kiji.schema.KijiCoalescingIncrementer.KijiCoalescingIncrementerOptions;
+import org.kiji.schema.KijiHFileWriter;
 import org.kiji.schema.KijiTableWriter;
+import org.kiji.schema.KijiWriteThrottle;
 import org.kiji.schema.KijiWriterFactory;
 
 /** Factory for Table Writers. */
@@ -49,6 +56,12 @@ public final class HBaseKijiWriterFactory implements KijiWriterFactory {
     return new HBaseKijiTableWriter(mTable);
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public KijiTableWriter openTableWriter(KijiWriteThrottle throttle) throws IOException {
+    return new HBaseKijiTableWriter(mTable, throttle);
+  }
+
   /** {@inheritDoc} */
   @Override
   public AtomicKijiPutter openAtomicPutter() throws IOException {
@@ -60,4 +73,44 @@ public final class HBaseKijiWriterFactory implements KijiWriterFactory {
   public KijiBufferedWriter openBufferedWriter() throws IOException {
     return new HBaseKijiBufferedWriter(mTable);
   }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiBufferedWriter openBufferedWriter(KijiWriteThrottle throttle) throws IOException {
+    return new HBaseKijiBufferedWriter(mTable,
+        new KijiBufferedWriterOptions().setWriteThrottle(throttle));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiBufferedWriter openBufferedWriter(KijiBufferedWriterOptions options)
+      throws IOException {
+    return new HBaseKijiBufferedWriter(mTable, options);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiCoalescingIncrementer openCoalescingIncrementer() throws IOException {
+    return new HBaseKijiCoalescingIncrementer(mTable);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiCoalescingIncrementer openCoalescingIncrementer(
+      KijiCoalescingIncrementerOptions options) throws IOException {
+    return new HBaseKijiCoalescingIncrementer(mTable, options);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiHFileWriter openHFileWriter(Path outputPath) throws IOException {
+    return new HBaseKijiHFileWriter(mTable,
+        new HBaseKijiHFileWriter.Options().withOutputPath(outputPath));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiWriteThrottle getTableWriteThrottle() {
+    return mTable.getWriteThrottle();
+  }
 }
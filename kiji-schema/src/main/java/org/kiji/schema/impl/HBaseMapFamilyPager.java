@@ -43,7 +43,7 @@ import org.kiji.schema.filter.Filters;
 import org.kiji.schema.filter.KijiColumnFilter;
 import org.kiji.schema.filter.KijiColumnRangeFilter;
 import org.kiji.schema.filter.StripValueColumnFilter;
-import org.kiji.schema.impl.HBaseKijiTable.LayoutCapsule;
+import org.kiji.schema.layout.impl.ColumnNameTranslator;
 import org.kiji.schema.util.Debug;
 
 /**
@@ -83,6 +83,9 @@ public final class HBaseMapFamilyPager implements KijiPager {
   /** Column data request for the map-type family to page through. */
   private final KijiDataRequest.Column mColumnRequest;
 
+  /** Translator for the column names of the table layout the pages are read with. */
+  private final ColumnNameTranslator mColumnNameTranslator;
+
   /** Flag to determine if the pager is open or closed. */
   private final AtomicBoolean mIsOpen = new AtomicBoolean(false);
 
@@ -106,13 +109,15 @@ public final class HBaseMapFamilyPager implements KijiPager {
    * @param dataRequest The requested data.
    * @param table The Kiji table that this row belongs to.
    * @param family Iterate through the qualifiers from this map-type family.
+   * @param translator Translator for the column names of the table layout to read with.
    * @throws KijiColumnPagingNotEnabledException If paging is not enabled for the specified family.
    */
   HBaseMapFamilyPager(
       EntityId entityId,
       KijiDataRequest dataRequest,
       HBaseKijiTable table,
-      KijiColumnName family)
+      KijiColumnName family,
+      ColumnNameTranslator translator)
       throws KijiColumnPagingNotEnabledException {
 
     Preconditions.checkArgument(!family.isFullyQualified(),
@@ -128,6 +133,7 @@ public final class HBaseMapFamilyPager implements KijiPager {
 
     mEntityId = entityId;
     mTable = table;
+    mColumnNameTranslator = translator;
     mHasNext = true;  // there might be no page to read, but we don't know until we issue an RPC
 
     // Only retain the table if everything else ran fine:
@@ -175,11 +181,10 @@ public final class HBaseMapFamilyPager implements KijiPager {
 
     LOG.debug("HBaseMapPager data request: {} and page size {}", nextPageDataRequest, pageSize);
 
-    final LayoutCapsule capsule = mTable.getLayoutCapsule();
     final HBaseDataRequestAdapter adapter =
-        new HBaseDataRequestAdapter(nextPageDataRequest, capsule.getColumnNameTranslator());
+        new HBaseDataRequestAdapter(nextPageDataRequest, mColumnNameTranslator);
     try {
-      final Get hbaseGet = adapter.toGet(mEntityId, capsule.getLayout());
+      final Get hbaseGet = adapter.toGet(mEntityId, mColumnNameTranslator.getTableLayout());
       if (LOG.isDebugEnabled()) {
         LOG.debug("Sending HBase Get: {} with filter {}",
             hbaseGet, Debug.toDebugString(hbaseGet.getFilter()));
@@ -189,7 +194,8 @@ public final class HBaseMapFamilyPager implements KijiPager {
 
       final KijiRowData page =
           // No cell is being decoded here so we don't need a cell decoder provider:
-          new HBaseKijiRowData(mTable, nextPageDataRequest, mEntityId, result, null);
+          new HBaseKijiRowData(
+              mTable, nextPageDataRequest, mEntityId, result, null, mColumnNameTranslator);
 
       // There is an HBase bug that leads to less KeyValue being returned than expected.
       // An empty result appears to be a reliable way to detect the end of the iteration.
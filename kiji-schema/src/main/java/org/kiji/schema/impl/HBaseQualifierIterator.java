@@ -29,6 +29,7 @@ import org.kiji.schema.EntityId;
 import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiColumnPagingNotEnabledException;
 import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.layout.impl.ColumnNameTranslator;
 import org.kiji.schema.util.CloseableIterable;
 
 /**
@@ -59,7 +60,28 @@ public class HBaseQualifierIterator implements CloseableIterable<String>, Iterat
       HBaseKijiTable table,
       KijiColumnName family)
       throws KijiColumnPagingNotEnabledException {
-    mPager = new HBaseQualifierPager(entityId, dataRequest, table, family);
+    this(entityId, dataRequest, table, family,
+        table.getLayoutCapsule().getColumnNameTranslator());
+  }
+
+  /**
+   * Constructs a new iterator over the qualifiers of a map-type family.
+   *
+   * @param entityId ID of the row to page through.
+   * @param dataRequest Data request for the map-type family to page through.
+   * @param table HBase kiji table containing the row.
+   * @param family Family column name.
+   * @param translator Translator for the column names of the table layout to read with.
+   * @throws KijiColumnPagingNotEnabledException if paging is not configured for the family.
+   */
+  public HBaseQualifierIterator(
+      EntityId entityId,
+      KijiDataRequest dataRequest,
+      HBaseKijiTable table,
+      KijiColumnName family,
+      ColumnNameTranslator translator)
+      throws KijiColumnPagingNotEnabledException {
+    mPager = new HBaseQualifierPager(entityId, dataRequest, table, family, translator);
 
     mPageIterator = Iterators.emptyIterator();
     while (!mPageIterator.hasNext() && mPager.hasNext()) {
@@ -43,8 +43,7 @@ import org.kiji.schema.filter.Filters;
 import org.kiji.schema.filter.KijiColumnFilter;
 import org.kiji.schema.filter.KijiColumnRangeFilter;
 import org.kiji.schema.filter.StripValueColumnFilter;
-import org.kiji.schema.hbase.HBaseColumnName;
-import org.kiji.schema.impl.HBaseKijiTable.LayoutCapsule;
+import org.kiji.schema.layout.impl.ColumnNameTranslator;
 import org.kiji.schema.util.Debug;
 
 /**
@@ -74,6 +73,9 @@ public final class HBaseQualifierPager implements Iterator<String[]>, Closeable
   /** Column data request for the map-type family to page through. */
   private final KijiDataRequest.Column mColumnRequest;
 
+  /** Translator for the column names of the table layout the pages are read with. */
+  private final ColumnNameTranslator mColumnNameTranslator;
+
   /** True only if there is another page of data to read through {@link #next()}. */
   private boolean mHasNext;
 
@@ -98,6 +100,27 @@ public final class HBaseQualifierPager implements Iterator<String[]>, Closeable
       HBaseKijiTable table,
       KijiColumnName family)
       throws KijiColumnPagingNotEnabledException {
+    this(entityId, dataRequest, table, family,
+        table.getLayoutCapsule().getColumnNameTranslator());
+  }
+
+  /**
+   * Initializes a qualifier pager.
+   *
+   * @param entityId The entityId of the row.
+   * @param dataRequest The requested data.
+   * @param table The Kiji table that this row belongs to.
+   * @param family Iterate through the qualifiers from this map-type family.
+   * @param translator Translator for the column names of the table layout to read with.
+   * @throws KijiColumnPagingNotEnabledException If paging is not enabled for the specified family.
+   */
+  public HBaseQualifierPager(
+      EntityId entityId,
+      KijiDataRequest dataRequest,
+      HBaseKijiTable table,
+      KijiColumnName family,
+      ColumnNameTranslator translator)
+      throws KijiColumnPagingNotEnabledException {
 
     Preconditions.checkArgument(!family.isFullyQualified(),
         "Must use HBaseQualifierPager on a map-type family, but got '{}'.", family);
@@ -112,6 +135,7 @@ public final class HBaseQualifierPager implements Iterator<String[]>, Closeable
 
     mEntityId = entityId;
     mTable = table;
+    mColumnNameTranslator = translator;
     mHasNext = true;  // there might be no page to read, but we don't know until we issue an RPC
 
     // Only retain the table if everything else ran fine:
@@ -161,11 +185,10 @@ public final class HBaseQualifierPager implements Iterator<String[]>, Closeable
 
     LOG.debug("HBaseMapPager data request: {} and page size {}", nextPageDataRequest, pageSize);
 
-    final LayoutCapsule capsule = mTable.getLayoutCapsule();
-    final HBaseDataRequestAdapter adapter = new HBaseDataRequestAdapter(
-        nextPageDataRequest, capsule.getColumnNameTranslator());
+    final HBaseDataRequestAdapter adapter =
+        new HBaseDataRequestAdapter(nextPageDataRequest, mColumnNameTranslator);
     try {
-      final Get hbaseGet = adapter.toGet(mEntityId, capsule.getLayout());
+      final Get hbaseGet = adapter.toGet(mEntityId, mColumnNameTranslator.getTableLayout());
       if (LOG.isDebugEnabled()) {
         LOG.debug("Sending HBase Get: {} with filter {}",
             hbaseGet, Debug.toDebugString(hbaseGet.getFilter()));
@@ -176,10 +199,7 @@ public final class HBaseQualifierPager implements Iterator<String[]>, Closeable
       final KeyValue[] kvs = result.raw();
       final String[] qualifiers = new String[kvs.length];
       for (int i = 0; i < kvs.length; ++i) {
-        final HBaseColumnName hbaseColumn =
-            new HBaseColumnName(kvs[i].getFamily(), kvs[i].getQualifier());
-        final KijiColumnName kijiColumn =
-            capsule.getColumnNameTranslator().toKijiColumnName(hbaseColumn);
+        final KijiColumnName kijiColumn = mColumnNameTranslator.toKijiColumnName(kvs[i]);
         qualifiers[i] = kijiColumn.getQualifier();
       }
 
@@ -0,0 +1,350 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.google.common.collect.Maps;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.NoSuchColumnException;
+import org.kiji.schema.hbase.HBaseColumnName;
+import org.kiji.schema.layout.impl.ColumnNameTranslator;
+import org.kiji.schema.util.TimestampComparator;
+
+/**
+ * Flat index of the Kiji cells in an HBase Result.
+ *
+ * <p>
+ *   The index is built in a single pass over the sorted KeyValue array of the Result.
+ *   Each requested Kiji column is recorded as a contiguous range of KeyValues, after filtering
+ *   the cells by time range and max-versions, and each HBase column is translated to a Kiji
+ *   column name only once. Map views of the cells, as returned by
+ *   {@link HBaseKijiRowData#getMap()}, are built lazily, only when requested.
+ * </p>
+ *
+ * <p>
+ *   The KeyValues must be sorted as in a Result returned by HBase: by HBase column,
+ *   then by decreasing timestamp.
+ * </p>
+ *
+ * <p>
+ *   The index itself is immutable. The lazily built map views are shared by all callers and
+ *   must not be modified.
+ * </p>
+ */
+@ApiAudience.Private
+final class HBaseResultIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(HBaseResultIndex.class);
+
+  /** KeyValues of an empty Result. */
+  private static final KeyValue[] EMPTY_KVS = new KeyValue[0];
+
+  /** Initial capacity of the column arrays. */
+  private static final int INITIAL_CAPACITY = 8;
+
+  /** KeyValues of the Result, as returned by HBase. */
+  private final KeyValue[] mKVs;
+
+  /** Index in mKVs of the first cell of each indexed column. */
+  private final int[] mStarts;
+
+  /** Index in mKVs after the last cell of each indexed column. */
+  private final int[] mEnds;
+
+  /** Map from Kiji family name to (map from qualifier to indexed column). */
+  private final Map<String, Map<String, Integer>> mFamilies;
+
+  /** Lazily built timestamp maps, by indexed column. */
+  private final Object[] mTimestampMaps;
+
+  /** Lazily built qualifier maps, by family name. */
+  private final Map<String, NavigableMap<String, NavigableMap<Long, byte[]>>> mQualifierMaps =
+      Maps.newHashMap();
+
+  /** Lazily built map of all the cells, or null. */
+  private NavigableMap<String, NavigableMap<String, NavigableMap<Long, byte[]>>> mMap = null;
+
+  /**
+   * Indexes the cells of an HBase Result.
+   *
+   * @param kvs KeyValues of the HBase Result, as returned by Result.raw(). May be null.
+   * @param dataRequest Data request to filter the cells with.
+   * @param translator Translator for the column names of the table.
+   */
+  HBaseResultIndex(KeyValue[] kvs, KijiDataRequest dataRequest, ColumnNameTranslator translator) {
+    mKVs = (kvs != null) ? kvs : EMPTY_KVS;
+    mFamilies = Maps.newHashMap();
+
+    int[] starts = new int[INITIAL_CAPACITY];
+    int[] ends = new int[INITIAL_CAPACITY];
+    int numColumns = 0;
+
+    int columnStart = 0;
+    while (columnStart < mKVs.length) {
+      // Cells of an HBase column are contiguous:
+      int columnEnd = columnStart + 1;
+      while ((columnEnd < mKVs.length) && sameColumn(mKVs[columnStart], mKVs[columnEnd])) {
+        columnEnd += 1;
+      }
+
+      final KijiColumnName columnName = toKijiColumnName(mKVs[columnStart], translator);
+      final KijiDataRequest.Column columnRequest =
+          (null == columnName) ? null : getColumnRequest(dataRequest, columnName);
+      if (columnRequest != null) {
+        // Cells are sorted by decreasing timestamp: cells in the time range are contiguous.
+        int start = columnStart;
+        while ((start < columnEnd)
+            && !dataRequest.isTimestampInRange(mKVs[start].getTimestamp())) {
+          start += 1;
+        }
+        final int maxVersions = columnRequest.getMaxVersions();
+        int end = start;
+        while ((end < columnEnd)
+            && (end - start < maxVersions)
+            && dataRequest.isTimestampInRange(mKVs[end].getTimestamp())) {
+          end += 1;
+        }
+        if (end > start) {
+          if (numColumns == starts.length) {
+            starts = Arrays.copyOf(starts, numColumns * 2);
+            ends = Arrays.copyOf(ends, numColumns * 2);
+          }
+          starts[numColumns] = start;
+          ends[numColumns] = end;
+          Map<String, Integer> family = mFamilies.get(columnName.getFamily());
+          if (null == family) {
+            family = Maps.newHashMap();
+            mFamilies.put(columnName.getFamily(), family);
+          }
+          family.put(columnName.getQualifier(), numColumns);
+          numColumns += 1;
+        }
+      }
+      columnStart = columnEnd;
+    }
+
+    mStarts = starts;
+    mEnds = ends;
+    mTimestampMaps = new Object[numColumns];
+  }
+
+  /**
+   * Reports whether two KeyValues belong to the same HBase column.
+   *
+   * @param kv1 First KeyValue.
+   * @param kv2 Second KeyValue.
+   * @return whether the two KeyValues belong to the same HBase column.
+   */
+  private static boolean sameColumn(KeyValue kv1, KeyValue kv2) {
+    return Bytes.equals(
+            kv1.getBuffer(), kv1.getQualifierOffset(), kv1.getQualifierLength(),
+            kv2.getBuffer(), kv2.getQualifierOffset(), kv2.getQualifierLength())
+        && Bytes.equals(
+            kv1.getBuffer(), kv1.getFamilyOffset(), kv1.getFamilyLength(),
+            kv2.getBuffer(), kv2.getFamilyOffset(), kv2.getFamilyLength());
+  }
+
+  /**
+   * Translates the HBase column of a KeyValue into a Kiji column name.
+   *
+   * @param kv KeyValue to translate the column of.
+   * @param translator Translator for the column names of the table.
+   * @return the Kiji column name, or null if the HBase column does not contain Kiji data.
+   */
+  private static KijiColumnName toKijiColumnName(KeyValue kv, ColumnNameTranslator translator) {
+    try {
+      return translator.toKijiColumnName(kv);
+    } catch (NoSuchColumnException nsce) {
+      LOG.info("Ignoring HBase column {} because it doesn't contain Kiji data.",
+          new HBaseColumnName(kv.getFamily(), kv.getQualifier()));
+      return null;
+    }
+  }
+
+  /**
+   * Returns the part of a data request applying to a given column.
+   *
+   * @param dataRequest Data request.
+   * @param columnName Kiji column name.
+   * @return the part of the data request applying to the column, or null if not requested.
+   */
+  private static KijiDataRequest.Column getColumnRequest(
+      KijiDataRequest dataRequest,
+      KijiColumnName columnName) {
+    // First check if all columns were requested.
+    final KijiDataRequest.Column familyRequest =
+        dataRequest.getColumn(columnName.getFamily(), null);
+    if (familyRequest != null) {
+      return familyRequest;
+    }
+    // Not all columns were requested, so check if this particular column was.
+    return dataRequest.getColumn(columnName.getFamily(), columnName.getQualifier());
+  }
+
+  /**
+   * Reports whether the indexed cells include cells from the specified family.
+   *
+   * @param family Kiji family name.
+   * @return whether the indexed cells include cells from the specified family.
+   */
+  boolean containsFamily(String family) {
+    return mFamilies.containsKey(family);
+  }
+
+  /**
+   * Looks up an indexed column.
+   *
+   * @param family Kiji family name.
+   * @param qualifier Kiji qualifier.
+   * @return the index of the column, or -1 if the column has no indexed cell.
+   */
+  int getColumn(String family, String qualifier) {
+    final Map<String, Integer> columns = mFamilies.get(family);
+    if (null == columns) {
+      return -1;
+    }
+    final Integer column = columns.get(qualifier);
+    return (null == column) ? -1 : column;
+  }
+
+  /**
+   * Returns the KeyValue with the specified index.
+   *
+   * @param index Index of the KeyValue, between {@link #getStart(int)} (included) and
+   *     {@link #getEnd(int)} (excluded) for some column.
+   * @return the KeyValue with the specified index.
+   */
+  KeyValue getKeyValue(int index) {
+    return mKVs[index];
+  }
+
+  /**
+   * Returns the index of the most recent cell of a column.
+   *
+   * @param column Index of the column, as returned by {@link #getColumn(String, String)}.
+   * @return the index of the most recent cell of the column.
+   */
+  int getStart(int column) {
+    return mStarts[column];
+  }
+
+  /**
+   * Returns the index after the least recent cell of a column.
+   *
+   * @param column Index of the column, as returned by {@link #getColumn(String, String)}.
+   * @return the index after the least recent cell of the column.
+   */
+  int getEnd(int column) {
+    return mEnds[column];
+  }
+
+  /**
+   * Finds the cell of a column with the specified timestamp.
+   *
+   * @param column Index of the column, as returned by {@link #getColumn(String, String)}.
+   * @param timestamp Timestamp of the cell to find.
+   * @return the index of the cell, or -1 if the column has no cell with this timestamp.
+   */
+  int findCell(int column, long timestamp) {
+    // Binary search over the decreasing timestamps of the column:
+    int low = mStarts[column];
+    int high = mEnds[column] - 1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      final long middleTimestamp = mKVs[middle].getTimestamp();
+      if (middleTimestamp > timestamp) {
+        low = middle + 1;
+      } else if (middleTimestamp < timestamp) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the map from timestamp to encoded cell content of a column.
+   *
+   * @param column Index of the column, as returned by {@link #getColumn(String, String)}.
+   * @return the map from timestamp to encoded cell content of the column.
+   */
+  @SuppressWarnings("unchecked")
+  synchronized NavigableMap<Long, byte[]> getTimestampMap(int column) {
+    NavigableMap<Long, byte[]> timestampMap = (NavigableMap<Long, byte[]>) mTimestampMaps[column];
+    if (null == timestampMap) {
+      timestampMap = new TreeMap<Long, byte[]>(TimestampComparator.INSTANCE);
+      for (int index = mStarts[column]; index < mEnds[column]; ++index) {
+        final KeyValue kv = mKVs[index];
+        timestampMap.put(kv.getTimestamp(), kv.getValue());
+      }
+      mTimestampMaps[column] = timestampMap;
+    }
+    return timestampMap;
+  }
+
+  /**
+   * Returns the map from qualifier to timestamp to encoded cell content of a family.
+   *
+   * @param family Kiji family name.
+   * @return the map from qualifier to timestamp to encoded cell content of the family,
+   *     or null if the family has no indexed cell.
+   */
+  synchronized NavigableMap<String, NavigableMap<Long, byte[]>> getQualifierMap(String family) {
+    NavigableMap<String, NavigableMap<Long, byte[]>> qualifierMap = mQualifierMaps.get(family);
+    if (null == qualifierMap) {
+      final Map<String, Integer> columns = mFamilies.get(family);
+      if (null == columns) {
+        return null;
+      }
+      qualifierMap = new TreeMap<String, NavigableMap<Long, byte[]>>();
+      for (Map.Entry<String, Integer> entry : columns.entrySet()) {
+        qualifierMap.put(entry.getKey(), getTimestampMap(entry.getValue()));
+      }
+      mQualifierMaps.put(family, qualifierMap);
+    }
+    return qualifierMap;
+  }
+
+  /**
+   * Returns the map from family to qualifier to timestamp to encoded cell content.
+   *
+   * @return the map from family to qualifier to timestamp to encoded cell content.
+   */
+  synchronized NavigableMap<String, NavigableMap<String, NavigableMap<Long, byte[]>>> getMap() {
+    if (null == mMap) {
+      mMap = new TreeMap<String, NavigableMap<String, NavigableMap<Long, byte[]>>>();
+      for (String family : mFamilies.keySet()) {
+        mMap.put(family, getQualifierMap(family));
+      }
+    }
+    return mMap;
+  }
+}
@@ -25,17 +25,23 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.Decoder;
@@ -116,6 +122,34 @@ public class HBaseSchemaTable implements KijiSchemaTable {
   private static final byte[] SCHEMA_COUNTER_ROW_NAME_BYTES =
       Bytes.toBytes(SCHEMA_COUNTER_ROW_NAME);
 
+  /**
+   * Name of the configuration property to enable preloading the schema table.
+   *
+   * <p>
+   *   When set to "true", all the schema entries are loaded with a single scan of the schema ID
+   *   table when the schema table is opened, instead of one HBase get per schema on demand.
+   * </p>
+   */
+  public static final String PRELOAD = "org.kiji.schema.impl.HBaseSchemaTable.PRELOAD";
+
+  /**
+   * Name of the configuration property to specify a local snapshot file of the schema table.
+   *
+   * <p>
+   *   When set, the schema table is preloaded from the snapshot file if the snapshot is still
+   *   up-to-date, ie. if no schema has been registered since the snapshot was written.
+   *   Otherwise, the schema table is preloaded from HBase and the snapshot file is rewritten.
+   * </p>
+   */
+  public static final String SNAPSHOT_FILE =
+      "org.kiji.schema.impl.HBaseSchemaTable.SNAPSHOT_FILE";
+
+  /** Snapshot file metadata key for the URI of the Kiji instance. */
+  private static final String SNAPSHOT_URI_KEY = "kiji.schema.table.uri";
+
+  /** Snapshot file metadata key for the schema ID counter. */
+  private static final String SNAPSHOT_COUNTER_KEY = "kiji.schema.table.counter";
+
   /** HTable used to map schema hash to schema entries. */
   private final HTableInterface mSchemaHashTable;
 
@@ -125,11 +159,24 @@ public class HBaseSchemaTable implements KijiSchemaTable {
   /** Lock for the kiji instance schema table. */
   private final Lock mZKLock;
 
-  /** Maps schema MD5 hashes to schema entries. */
-  private final Map<BytesKey, SchemaEntry> mSchemaHashMap = new HashMap<BytesKey, SchemaEntry>();
+  /**
+   * Maps schema MD5 hashes to schema entries.
+   *
+   * <p>
+   *   Read without locking. Updated only while holding the monitor of this schema table.
+   * </p>
+   */
+  private final Map<BytesKey, SchemaEntry> mSchemaHashMap =
+      new ConcurrentHashMap<BytesKey, SchemaEntry>();
 
-  /** Maps schema IDs to schema entries. */
-  private final Map<Long, SchemaEntry> mSchemaIdMap = new HashMap<Long, SchemaEntry>();
+  /**
+   * Maps schema IDs to schema entries.
+   *
+   * <p>
+   *   Read without locking. Updated only while holding the monitor of this schema table.
+   * </p>
+   */
+  private final Map<Long, SchemaEntry> mSchemaIdMap = new ConcurrentHashMap<Long, SchemaEntry>();
 
   /** Schema hash cache. */
   private final SchemaHashCache mHashCache = new KijiSchemaTable.SchemaHashCache();
@@ -138,7 +185,7 @@ public class HBaseSchemaTable implements KijiSchemaTable {
   private final KijiURI mURI;
 
   /** Whether this schema table is open. */
-  private boolean mIsOpen = false;
+  private volatile boolean mIsOpen = false;
 
   /** Used for testing finalize() behavior. */
   private String mConstructorStack = "";
@@ -258,7 +305,8 @@ public class HBaseSchemaTable implements KijiSchemaTable {
     this(newSchemaHashTable(kijiURI, conf, tableFactory),
         newSchemaIdTable(kijiURI, conf, tableFactory),
         newLock(kijiURI, lockFactory),
-        kijiURI);
+        kijiURI,
+        conf);
   }
 
   /**
@@ -268,13 +316,15 @@ public class HBaseSchemaTable implements KijiSchemaTable {
    * @param idTable The HTable that maps schema IDs to schema entries.
    * @param zkLock Lock protecting the schema tables.
    * @param uri URI of the Kiji instance this schema table belongs to.
+   * @param conf Configuration providing the {@link #PRELOAD} and {@link #SNAPSHOT_FILE} settings.
    * @throws IOException on I/O error.
    */
   public HBaseSchemaTable(
       HTableInterface hashTable,
       HTableInterface idTable,
       Lock zkLock,
-      KijiURI uri)
+      KijiURI uri,
+      Configuration conf)
       throws IOException {
     mSchemaHashTable = Preconditions.checkNotNull(hashTable);
     mSchemaIdTable = Preconditions.checkNotNull(idTable);
@@ -286,6 +336,139 @@ public class HBaseSchemaTable implements KijiSchemaTable {
     if (CLEANUP_LOG.isDebugEnabled()) {
       mConstructorStack = Debug.getStackTrace();
     }
+
+    final String snapshotPath = conf.get(SNAPSHOT_FILE);
+    if (conf.getBoolean(PRELOAD, false) || (null != snapshotPath)) {
+      preload((null != snapshotPath) ? new File(snapshotPath) : null);
+    }
+  }
+
+  /**
+   * Loads all the schema entries in memory, from a snapshot file if possible.
+   *
+   * @param snapshotFile Optional snapshot file to load from and to refresh (may be null).
+   * @throws IOException on I/O error.
+   */
+  private synchronized void preload(File snapshotFile) throws IOException {
+    final long counter = getSchemaIdCounter();
+    if (null != snapshotFile) {
+      final List<SchemaEntry> entries = readSnapshot(snapshotFile, counter);
+      if (null != entries) {
+        storeInMemory(entries);
+        LOG.debug("Preloaded {} schema entries from snapshot file {}.",
+            entries.size(), snapshotFile);
+        return;
+      }
+    }
+
+    final Set<SchemaEntry> entries = loadSchemaIdTable(mSchemaIdTable);
+    storeInMemory(entries);
+    LOG.debug("Preloaded {} schema entries from schema ID table.", entries.size());
+    if (null != snapshotFile) {
+      writeSnapshot(snapshotFile, entries, counter);
+    }
+  }
+
+  /**
+   * Reads the schema entries from a snapshot file.
+   *
+   * @param snapshotFile Snapshot file to read.
+   * @param counter Current value of the schema ID counter.
+   * @return the schema entries from the snapshot, or null if the snapshot file does not exist,
+   *     is invalid, or is outdated.
+   */
+  private List<SchemaEntry> readSnapshot(File snapshotFile, long counter) {
+    if (!snapshotFile.exists()) {
+      return null;
+    }
+    try {
+      final DataFileReader<SchemaTableEntry> fileReader = new DataFileReader<SchemaTableEntry>(
+          snapshotFile, new SpecificDatumReader<SchemaTableEntry>(SchemaTableEntry.class));
+      try {
+        final String uri = fileReader.getMetaString(SNAPSHOT_URI_KEY);
+        if (!String.valueOf(mURI).equals(uri)) {
+          LOG.info("Ignoring schema table snapshot {} for Kiji instance {}.", snapshotFile, uri);
+          return null;
+        }
+        // Schema IDs are allocated sequentially: the snapshot is up-to-date if and only if the
+        // schema ID counter has not changed since the snapshot was written.
+        final long snapshotCounter = fileReader.getMetaLong(SNAPSHOT_COUNTER_KEY);
+        if (snapshotCounter != counter) {
+          LOG.info("Ignoring outdated schema table snapshot {}: counter is {}, expecting {}.",
+              snapshotFile, snapshotCounter, counter);
+          return null;
+        }
+        final List<SchemaEntry> entries = Lists.newArrayList();
+        for (SchemaTableEntry avroEntry : fileReader) {
+          entries.add(fromAvroEntry(avroEntry));
+        }
+        return entries;
+      } finally {
+        ResourceUtils.closeOrLog(fileReader);
+      }
+    } catch (IOException ioe) {
+      LOG.warn("Unable to read schema table snapshot {}: {}", snapshotFile, ioe.getMessage());
+      return null;
+    } catch (AvroRuntimeException are) {
+      LOG.warn("Unable to read schema table snapshot {}: {}", snapshotFile, are.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Writes the schema entries to a snapshot file.
+   *
+   * <p>
+   *   The snapshot is written to a uniquely named temporary file next to it first, then atomically
+   *   renamed, so that concurrent writers of the same snapshot never see a partial file.
+   * </p>
+   *
+   * @param snapshotFile Snapshot file to write.
+   * @param entries Schema entries to write.
+   * @param counter Value of the schema ID counter before the entries were loaded.
+   */
+  private void writeSnapshot(File snapshotFile, Collection<SchemaEntry> entries, long counter) {
+    File tmpFile = null;
+    try {
+      final File snapshotDir = snapshotFile.getAbsoluteFile().getParentFile();
+      tmpFile = File.createTempFile("." + snapshotFile.getName() + "-", ".tmp", snapshotDir);
+      final DataFileWriter<SchemaTableEntry> fileWriter = new DataFileWriter<SchemaTableEntry>(
+          new SpecificDatumWriter<SchemaTableEntry>(SchemaTableEntry.class));
+      try {
+        fileWriter.setMeta(SNAPSHOT_URI_KEY, String.valueOf(mURI));
+        fileWriter.setMeta(SNAPSHOT_COUNTER_KEY, counter);
+        fileWriter.create(SchemaTableEntry.SCHEMA$, tmpFile);
+        for (SchemaEntry entry : entries) {
+          fileWriter.append(toAvroEntry(entry));
+        }
+      } finally {
+        fileWriter.close();
+      }
+      if (tmpFile.renameTo(snapshotFile)) {
+        tmpFile = null;
+      } else {
+        LOG.warn("Unable to rename schema table snapshot {} to {}.", tmpFile, snapshotFile);
+      }
+    } catch (IOException ioe) {
+      LOG.warn("Unable to write schema table snapshot {}: {}", snapshotFile, ioe.getMessage());
+    } finally {
+      // Never leave a temporary file behind, whether written partially or not renamed:
+      if ((tmpFile != null) && tmpFile.exists() && !tmpFile.delete()) {
+        LOG.warn("Unable to delete temporary schema table snapshot {}.", tmpFile);
+      }
+    }
+  }
+
+  /**
+   * Reports the current value of the schema ID counter, ie. the next schema ID to allocate.
+   *
+   * @return the current value of the schema ID counter.
+   * @throws IOException on I/O error.
+   */
+  private long getSchemaIdCounter() throws IOException {
+    final Result result = mSchemaIdTable.get(new Get(SCHEMA_COUNTER_ROW_NAME_BYTES)
+        .addColumn(SCHEMA_COLUMN_FAMILY_BYTES, SCHEMA_COLUMN_QUALIFIER_BYTES));
+    return result.isEmpty() ? 0L : Bytes.toLong(result.value());
   }
 
   /**
@@ -297,10 +480,29 @@ public class HBaseSchemaTable implements KijiSchemaTable {
    * @return Either the pre-existing entry for the specified schema, or a newly created entry.
    * @throws IOException on I/O error.
    */
-  private synchronized SchemaEntry getOrCreateSchemaEntry(final Schema schema) throws IOException {
+  private SchemaEntry getOrCreateSchemaEntry(final Schema schema) throws IOException {
     Preconditions.checkState(mIsOpen, "Schema tables are closed");
 
     final BytesKey schemaHash = getSchemaHash(schema);
+    final SchemaEntry cachedEntry = mSchemaHashMap.get(schemaHash);
+    if (cachedEntry != null) {
+      return cachedEntry;
+    }
+    return createSchemaEntry(schema, schemaHash);
+  }
+
+  /**
+   * Looks up a schema entry in the HTables, registering the schema if necessary.
+   *
+   * @param schema Avro schema to look up.
+   * @param schemaHash Hash of the Avro schema.
+   * @return Either the pre-existing entry for the specified schema, or a newly created entry.
+   * @throws IOException on I/O error.
+   */
+  private synchronized SchemaEntry createSchemaEntry(
+      final Schema schema,
+      final BytesKey schemaHash)
+      throws IOException {
     final SchemaEntry knownEntry = getSchemaEntry(schemaHash);
     if (knownEntry != null) {
       return knownEntry;
@@ -459,16 +661,32 @@ public class HBaseSchemaTable implements KijiSchemaTable {
 
   /** {@inheritDoc} */
   @Override
-  public synchronized Schema getSchema(long schemaId) throws IOException {
+  public Schema getSchema(long schemaId) throws IOException {
     final SchemaEntry entry = getSchemaEntry(schemaId);
     return (entry == null) ? null : entry.getSchema();
   }
 
   /** {@inheritDoc} */
   @Override
-  public synchronized SchemaEntry getSchemaEntry(long schemaId) throws IOException {
+  public SchemaEntry getSchemaEntry(long schemaId) throws IOException {
     Preconditions.checkState(mIsOpen, "Schema table is closed");
 
+    final SchemaEntry existingEntry = mSchemaIdMap.get(schemaId);
+    if (existingEntry != null) {
+      return existingEntry;
+    }
+    return loadSchemaEntry(schemaId);
+  }
+
+  /**
+   * Loads a schema entry from the ID table, and caches it in memory.
+   *
+   * @param schemaId ID of the schema entry to load.
+   * @return the schema entry, or null if the schema ID does not exist in the table.
+   * @throws IOException on I/O error.
+   */
+  private synchronized SchemaEntry loadSchemaEntry(long schemaId) throws IOException {
+    // The entry may have been loaded by another thread while waiting for the lock:
     final SchemaEntry existingEntry = mSchemaIdMap.get(schemaId);
     if (existingEntry != null) {
       return existingEntry;
@@ -492,9 +710,25 @@ public class HBaseSchemaTable implements KijiSchemaTable {
 
   /** {@inheritDoc} */
   @Override
-  public synchronized SchemaEntry getSchemaEntry(BytesKey schemaHash) throws IOException {
+  public SchemaEntry getSchemaEntry(BytesKey schemaHash) throws IOException {
     Preconditions.checkState(mIsOpen, "Schema table is closed");
 
+    final SchemaEntry existingEntry = mSchemaHashMap.get(schemaHash);
+    if (existingEntry != null) {
+      return existingEntry;
+    }
+    return loadSchemaEntry(schemaHash);
+  }
+
+  /**
+   * Loads a schema entry from the hash table, and caches it in memory.
+   *
+   * @param schemaHash Hash of the schema entry to load.
+   * @return the schema entry, or null if the schema hash does not exist in the table.
+   * @throws IOException on I/O error.
+   */
+  private synchronized SchemaEntry loadSchemaEntry(BytesKey schemaHash) throws IOException {
+    // The entry may have been loaded by another thread while waiting for the lock:
     final SchemaEntry existingEntry = mSchemaHashMap.get(schemaHash);
     if (existingEntry != null) {
       return existingEntry;
@@ -520,7 +754,7 @@ public class HBaseSchemaTable implements KijiSchemaTable {
   /**
    * Stores the specified schema entry in memory.
    *
-   * External synchronization required.
+   * Caller must hold the monitor of this schema table.
    *
    * @param avroEntry Avro schema entry.
    * @return the SchemaEntry stored in memory.
@@ -532,7 +766,7 @@ public class HBaseSchemaTable implements KijiSchemaTable {
   /**
    * Stores the specified schema entry in memory.
    *
-   * External synchronization required.
+   * Caller must hold the monitor of this schema table.
    *
    * @param entry the SchemaEntry to store in memory.
    * @return the SchemaEntry stored in memory.
@@ -555,6 +789,35 @@ public class HBaseSchemaTable implements KijiSchemaTable {
     return entry;
   }
 
+  /**
+   * Stores the specified schema entries in memory.
+   *
+   * <p>
+   *   Entries are stored by increasing schema ID: if a schema was assigned several IDs,
+   *   its hash maps to the most recent ID. Entries whose ID is already known are ignored.
+   * </p>
+   *
+   * Caller must hold the monitor of this schema table.
+   *
+   * @param entries the SchemaEntries to store in memory.
+   */
+  private void storeInMemory(final Collection<SchemaEntry> entries) {
+    final List<SchemaEntry> sorted = Lists.newArrayList(entries);
+    Collections.sort(sorted, new Comparator<SchemaEntry>() {
+      /** {@inheritDoc} */
+      @Override
+      public int compare(SchemaEntry entry1, SchemaEntry entry2) {
+        return Long.valueOf(entry1.getId()).compareTo(entry2.getId());
+      }
+    });
+    for (SchemaEntry entry : sorted) {
+      if (!mSchemaIdMap.containsKey(entry.getId())) {
+        mSchemaIdMap.put(entry.getId(), entry);
+        mSchemaHashMap.put(entry.getHash(), entry);
+      }
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public synchronized void flush() throws IOException {
@@ -637,11 +900,13 @@ public class HBaseSchemaTable implements KijiSchemaTable {
     idTableDescriptor.addFamily(idColumnDescriptor);
     admin.createTable(idTableDescriptor);
 
+    // The schema tables are empty: do not preload nor snapshot them.
     final HBaseSchemaTable schemaTable = new HBaseSchemaTable(
         newSchemaHashTable(kijiURI, conf, tableFactory),
         newSchemaIdTable(kijiURI, conf, tableFactory),
         newLock(kijiURI, lockFactory),
-        kijiURI);
+        kijiURI,
+        new Configuration(false));
     try {
       schemaTable.setSchemaIdCounter(0L);
       schemaTable.registerPrimitiveSchemas();
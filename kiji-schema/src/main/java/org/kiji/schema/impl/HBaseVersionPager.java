@@ -41,8 +41,8 @@ import org.kiji.schema.KijiDataRequestBuilder.ColumnsDef;
 import org.kiji.schema.KijiIOException;
 import org.kiji.schema.KijiPager;
 import org.kiji.schema.KijiRowData;
-import org.kiji.schema.impl.HBaseKijiTable.LayoutCapsule;
 import org.kiji.schema.layout.impl.CellDecoderProvider;
+import org.kiji.schema.layout.impl.ColumnNameTranslator;
 
 /**
  * Pages through the versions of a fully-qualified column.
@@ -72,6 +72,9 @@ public final class HBaseVersionPager implements KijiPager {
   /** Provider for cell decoders. */
   private final CellDecoderProvider mCellDecoderProvider;
 
+  /** Translator for the column names of the table layout the pages are read with. */
+  private final ColumnNameTranslator mColumnNameTranslator;
+
   /** Name of the column being paged through. */
   private final KijiColumnName mColumnName;
 
@@ -110,6 +113,7 @@ public final class HBaseVersionPager implements KijiPager {
    * @param table The Kiji table that this row belongs to.
    * @param colName Name of the paged column.
    * @param cellDecoderProvider Provider for cell decoders.
+   * @param translator Translator for the column names of the table layout to read with.
    * @throws KijiColumnPagingNotEnabledException If paging is not enabled for the specified column.
    */
   protected HBaseVersionPager(
@@ -117,7 +121,8 @@ public final class HBaseVersionPager implements KijiPager {
       KijiDataRequest dataRequest,
       HBaseKijiTable table,
       KijiColumnName colName,
-      CellDecoderProvider cellDecoderProvider)
+      CellDecoderProvider cellDecoderProvider,
+      ColumnNameTranslator translator)
       throws KijiColumnPagingNotEnabledException {
     Preconditions.checkArgument(colName.isFullyQualified());
 
@@ -156,6 +161,7 @@ public final class HBaseVersionPager implements KijiPager {
     mEntityId = entityId;
     mTable = table;
     mCellDecoderProvider = cellDecoderProvider;
+    mColumnNameTranslator = translator;
     mHasNext = true;  // there might be no page to read, but we don't know until we issue an RPC
 
     mPageMaxTimestamp = mDataRequest.getMaxTimestamp();
@@ -197,11 +203,10 @@ public final class HBaseVersionPager implements KijiPager {
             .add(mColumnName))
         .build();
 
-    final LayoutCapsule capsule = mTable.getLayoutCapsule();
-    final HBaseDataRequestAdapter adapter = new HBaseDataRequestAdapter(
-        nextPageDataRequest, capsule.getColumnNameTranslator());
+    final HBaseDataRequestAdapter adapter =
+        new HBaseDataRequestAdapter(nextPageDataRequest, mColumnNameTranslator);
     try {
-      final Get hbaseGet = adapter.toGet(mEntityId, capsule.getLayout());
+      final Get hbaseGet = adapter.toGet(mEntityId, mColumnNameTranslator.getTableLayout());
       LOG.debug("Sending HBase Get: {}", hbaseGet);
       final Result result = doHBaseGet(hbaseGet);
       LOG.debug("{} cells were requested, {} cells were received.", pageSize, result.size());
@@ -222,8 +227,8 @@ public final class HBaseVersionPager implements KijiPager {
         }
       }
 
-      return new HBaseKijiRowData(
-          mTable, nextPageDataRequest, mEntityId, result, mCellDecoderProvider);
+      return new HBaseKijiRowData(mTable, nextPageDataRequest, mEntityId, result,
+          mCellDecoderProvider, mColumnNameTranslator);
     } catch (IOException ioe) {
       throw new KijiIOException(ioe);
     }
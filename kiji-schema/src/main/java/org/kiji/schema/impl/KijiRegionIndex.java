@@ -0,0 +1,130 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiRegion;
+
+/**
+ * Immutable snapshot of the regions of a Kiji table, for mapping HBase row keys to regions.
+ *
+ * <p>
+ *   A snapshot may become stale when regions are split or moved. Callers only use it to group
+ *   requests for efficiency: HBase still routes each request to the proper region.
+ * </p>
+ */
+@ApiAudience.Private
+final class KijiRegionIndex {
+  /** Start keys of the regions, in increasing order. The first start key is empty. */
+  private final byte[][] mStartKeys;
+
+  /** Host:port of the region server hosting each region, or null if unknown. */
+  private final String[] mLocations;
+
+  /** Time, in milliseconds since the Epoch, when this snapshot was created. */
+  private final long mCreationTime;
+
+  /**
+   * Creates a new snapshot of the specified regions.
+   *
+   * @param regions Regions of the table, ordered by start key, as returned by
+   *     {@link HBaseKijiTable#getRegions()}.
+   */
+  KijiRegionIndex(List<KijiRegion> regions) {
+    Preconditions.checkArgument(!regions.isEmpty(), "Table has no region.");
+    mStartKeys = new byte[regions.size()][];
+    mLocations = new String[regions.size()];
+    for (int i = 0; i < regions.size(); ++i) {
+      final KijiRegion region = regions.get(i);
+      mStartKeys[i] = region.getStartKey();
+      final List<String> locations = region.getLocations();
+      mLocations[i] = locations.isEmpty() ? null : locations.get(0);
+    }
+    mCreationTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Returns the number of regions in this snapshot.
+   *
+   * @return the number of regions in this snapshot.
+   */
+  int size() {
+    return mStartKeys.length;
+  }
+
+  /**
+   * Returns the start key of the region with the specified index.
+   *
+   * @param regionIndex Index of the region, between 0 and {@link #size()} (excluded).
+   * @return the start key of the region with the specified index.
+   */
+  byte[] getStartKey(int regionIndex) {
+    return mStartKeys[regionIndex];
+  }
+
+  /**
+   * Returns the index of the region containing the specified row.
+   *
+   * @param rowKey HBase row key.
+   * @return the index of the region containing the specified row.
+   */
+  int getRegionIndex(byte[] rowKey) {
+    // Binary search for the last region whose start key is lower than or equal to rowKey:
+    int low = 0;
+    int high = mStartKeys.length - 1;
+    while (low < high) {
+      final int middle = (low + high + 1) >>> 1;
+      if (Bytes.compareTo(mStartKeys[middle], rowKey) <= 0) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns a key identifying the server hosting the region containing the specified row.
+   *
+   * <p> Falls back to identifying the region itself when the location is unknown. </p>
+   *
+   * @param rowKey HBase row key.
+   * @return a key identifying the server hosting the region containing the specified row.
+   */
+  String getServerKey(byte[] rowKey) {
+    final int regionIndex = getRegionIndex(rowKey);
+    final String location = mLocations[regionIndex];
+    return (location != null) ? location : "region-" + regionIndex;
+  }
+
+  /**
+   * Returns the time when this snapshot was created.
+   *
+   * @return the time when this snapshot was created, in milliseconds since the Epoch.
+   */
+  long getCreationTime() {
+    return mCreationTime;
+  }
+}
@@ -0,0 +1,337 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import org.apache.hadoop.hbase.KeyValue;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.util.BytesKey;
+
+/**
+ * Bounded client-side cache of rows read by a KijiTableReader.
+ *
+ * <p>
+ *   Rows are cached per (entity ID, data request) pair. Data requests are compared by identity,
+ *   since KijiDataRequest.equals() ignores column filters: serving code should reuse the same
+ *   KijiDataRequest instances to benefit from the cache.
+ * </p>
+ *
+ * <p>
+ *   Entries are evicted once the approximate size of the cached HBase results exceeds the
+ *   configured maximum weight (least recently used rows first), or once they are older than the
+ *   configured time-to-live. Writes to a row through the writers of the same KijiTable invalidate
+ *   the cached entries for this row; writes from other clients are only visible once cached
+ *   entries expire.
+ * </p>
+ *
+ * <p> A KijiRowCache is thread-safe. </p>
+ */
+@ApiAudience.Private
+public final class KijiRowCache {
+  /** Number of stripes for the invalidation counters. Must be a power of 2. */
+  private static final int NUM_INVALIDATION_STRIPES = 256;
+
+  /** Approximate heap overhead of a cached entry, in bytes. */
+  private static final int ENTRY_OVERHEAD = 128;
+
+  /** Time-to-live of cached entries, in milliseconds. */
+  private final long mTTLMillis;
+
+  /**
+   * Cached rows, keyed by HBase row key.
+   * Entity IDs are not used as keys since their equality depends on their concrete class.
+   */
+  private final Cache<BytesKey, CachedRow> mCache;
+
+  /**
+   * Invalidation counters, striped by row key.
+   * A row fetched while its stripe counter changes may be stale, and is not cached.
+   */
+  private final AtomicLongArray mInvalidations = new AtomicLongArray(NUM_INVALIDATION_STRIPES);
+
+  /** Number of cache hits. */
+  private final AtomicLong mHitCount = new AtomicLong(0);
+
+  /** Number of cache misses. */
+  private final AtomicLong mMissCount = new AtomicLong(0);
+
+  /** Number of entries evicted because of the size bound or expiration. */
+  private final AtomicLong mEvictionCount = new AtomicLong(0);
+
+  /** Cached entry for a given data request. */
+  private static final class CachedEntry {
+    private final HBaseKijiRowData mRowData;
+    private final long mExpirationTime;
+    private final int mWeight;
+
+    /**
+     * Initializes a cached entry.
+     *
+     * @param rowData Cached row data.
+     * @param expirationTime Time when this entry expires, in milliseconds since the Epoch.
+     */
+    private CachedEntry(HBaseKijiRowData rowData, long expirationTime) {
+      mRowData = rowData;
+      mExpirationTime = expirationTime;
+      int weight = ENTRY_OVERHEAD;
+      final KeyValue[] kvs = rowData.getHBaseResult().raw();
+      if (kvs != null) {
+        for (KeyValue kv : kvs) {
+          weight += kv.getLength();
+        }
+      }
+      mWeight = weight;
+    }
+  }
+
+  /**
+   * Immutable set of cached entries for a row, keyed by data request identity.
+   * Updated by replacing it with a modified copy.
+   */
+  private static final class CachedRow {
+    private final Map<KijiDataRequest, CachedEntry> mEntries;
+    private final int mWeight;
+
+    /**
+     * Initializes a cached row.
+     *
+     * @param entries Cached entries for this row. Must not be modified afterwards.
+     */
+    private CachedRow(Map<KijiDataRequest, CachedEntry> entries) {
+      mEntries = entries;
+      int weight = 0;
+      for (CachedEntry entry : entries.values()) {
+        weight += entry.mWeight;
+      }
+      mWeight = weight;
+    }
+
+    /**
+     * Returns a copy of this cached row with an additional entry.
+     *
+     * @param dataRequest Data request of the additional entry.
+     * @param entry Additional entry.
+     * @param now Current time, used to drop expired entries from the copy.
+     * @return a copy of this cached row with an additional entry.
+     */
+    private CachedRow with(KijiDataRequest dataRequest, CachedEntry entry, long now) {
+      final Map<KijiDataRequest, CachedEntry> entries =
+          new IdentityHashMap<KijiDataRequest, CachedEntry>();
+      for (Map.Entry<KijiDataRequest, CachedEntry> existing : mEntries.entrySet()) {
+        if (existing.getValue().mExpirationTime > now) {
+          entries.put(existing.getKey(), existing.getValue());
+        }
+      }
+      entries.put(dataRequest, entry);
+      return new CachedRow(entries);
+    }
+  }
+
+  /**
+   * Creates a new row cache.
+   *
+   * @param maxWeight Maximum approximate size of the cached rows, in bytes.
+   * @param ttlMillis Time-to-live of cached rows, in milliseconds.
+   */
+  public KijiRowCache(long maxWeight, long ttlMillis) {
+    Preconditions.checkArgument(maxWeight > 0, "Invalid row cache maximum weight: %s", maxWeight);
+    Preconditions.checkArgument(ttlMillis > 0, "Invalid row cache time-to-live: %s", ttlMillis);
+    mTTLMillis = ttlMillis;
+    mCache = CacheBuilder.newBuilder()
+        .maximumWeight(maxWeight)
+        .weigher(new Weigher<BytesKey, CachedRow>() {
+          /** {@inheritDoc} */
+          @Override
+          public int weigh(BytesKey rowKey, CachedRow row) {
+            return row.mWeight;
+          }
+        })
+        .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+        .removalListener(new RemovalListener<BytesKey, CachedRow>() {
+          /** {@inheritDoc} */
+          @Override
+          public void onRemoval(RemovalNotification<BytesKey, CachedRow> notification) {
+            if (notification.wasEvicted()) {
+              mEvictionCount.addAndGet(notification.getValue().mEntries.size());
+            }
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Returns the stripe of the invalidation counter for the specified row.
+   *
+   * @param rowKey HBase row key of the row.
+   * @return the stripe of the invalidation counter for the specified row.
+   */
+  private static int stripe(BytesKey rowKey) {
+    final int hash = rowKey.hashCode();
+    return (hash ^ (hash >>> 16)) & (NUM_INVALIDATION_STRIPES - 1);
+  }
+
+  /**
+   * Looks up a cached row.
+   *
+   * @param entityId Entity ID of the row to look up.
+   * @param dataRequest Data request the row was read with.
+   * @return the cached row data, or null if the row is not cached.
+   */
+  public HBaseKijiRowData get(EntityId entityId, KijiDataRequest dataRequest) {
+    final CachedRow row = mCache.getIfPresent(new BytesKey(entityId.getHBaseRowKey()));
+    if (row != null) {
+      final CachedEntry entry = row.mEntries.get(dataRequest);
+      if ((entry != null) && (entry.mExpirationTime > System.currentTimeMillis())) {
+        mHitCount.incrementAndGet();
+        return entry.mRowData;
+      }
+    }
+    mMissCount.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Returns a stamp to pass to {@link #put(EntityId, KijiDataRequest, HBaseKijiRowData, long)}.
+   *
+   * <p> Must be called before reading the row from HBase. </p>
+   *
+   * @param entityId Entity ID of the row about to be read.
+   * @return a stamp to pass to {@link #put(EntityId, KijiDataRequest, HBaseKijiRowData, long)}.
+   */
+  public long getStamp(EntityId entityId) {
+    return mInvalidations.get(stripe(new BytesKey(entityId.getHBaseRowKey())));
+  }
+
+  /**
+   * Caches a row, unless the row may have been invalidated while it was being read.
+   *
+   * @param entityId Entity ID of the row.
+   * @param dataRequest Data request the row was read with.
+   * @param rowData Row data to cache.
+   * @param stamp Stamp returned by {@link #getStamp(EntityId)} before the row was read.
+   */
+  public void put(
+      EntityId entityId,
+      KijiDataRequest dataRequest,
+      HBaseKijiRowData rowData,
+      long stamp) {
+    final BytesKey rowKey = new BytesKey(entityId.getHBaseRowKey());
+    final int stripe = stripe(rowKey);
+    final long now = System.currentTimeMillis();
+    final CachedEntry entry = new CachedEntry(rowData, now + mTTLMillis);
+    final ConcurrentMap<BytesKey, CachedRow> map = mCache.asMap();
+    while (true) {
+      if (mInvalidations.get(stripe) != stamp) {
+        // The row may have been written while it was read: do not cache stale data.
+        return;
+      }
+      final CachedRow existing = map.get(rowKey);
+      if (existing == null) {
+        final Map<KijiDataRequest, CachedEntry> entries =
+            new IdentityHashMap<KijiDataRequest, CachedEntry>();
+        entries.put(dataRequest, entry);
+        if (map.putIfAbsent(rowKey, new CachedRow(entries)) == null) {
+          break;
+        }
+      } else if (map.replace(rowKey, existing, existing.with(dataRequest, entry, now))) {
+        break;
+      }
+    }
+    if (mInvalidations.get(stripe) != stamp) {
+      // Invalidated concurrently with the insertion:
+      map.remove(rowKey);
+    }
+  }
+
+  /**
+   * Invalidates the cached entries of a row.
+   *
+   * @param hbaseRowKey HBase row key of the row to invalidate.
+   */
+  public void invalidate(byte[] hbaseRowKey) {
+    final BytesKey rowKey = new BytesKey(hbaseRowKey);
+    mInvalidations.incrementAndGet(stripe(rowKey));
+    mCache.invalidate(rowKey);
+  }
+
+  /** Invalidates all the cached rows. */
+  public void invalidateAll() {
+    for (int i = 0; i < NUM_INVALIDATION_STRIPES; ++i) {
+      mInvalidations.incrementAndGet(i);
+    }
+    mCache.invalidateAll();
+  }
+
+  /**
+   * Returns the number of lookups that found a cached row.
+   *
+   * @return the number of lookups that found a cached row.
+   */
+  public long getHitCount() {
+    return mHitCount.get();
+  }
+
+  /**
+   * Returns the number of lookups that did not find a cached row.
+   *
+   * @return the number of lookups that did not find a cached row.
+   */
+  public long getMissCount() {
+    return mMissCount.get();
+  }
+
+  /**
+   * Returns the number of entries evicted because of the size bound or expiration.
+   *
+   * <p> Entries removed by invalidation are not counted. </p>
+   *
+   * @return the number of entries evicted because of the size bound or expiration.
+   */
+  public long getEvictionCount() {
+    return mEvictionCount.get();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(KijiRowCache.class)
+        .add("rows", mCache.size())
+        .add("hits", mHitCount.get())
+        .add("misses", mMissCount.get())
+        .add("evictions", mEvictionCount.get())
+        .toString();
+  }
+}
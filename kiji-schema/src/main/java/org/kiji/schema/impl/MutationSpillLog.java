@@ -0,0 +1,484 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.Writable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.util.BytesKey;
+
+/**
+ * Local append-only log of HBase mutations, used to spill the buffered mutations of a writer while
+ * HBase cannot accept them.
+ *
+ * <p>
+ *   Mutations are stored as they were buffered, with the cells already encoded by the writer,
+ *   and are read back in the order they were appended. Every append is synced to disk.
+ *   The log keeps track of the position up to which mutations have been replayed, and is
+ *   truncated once all its mutations have been replayed.
+ * </p>
+ *
+ * <p>
+ *   File format: a header made of a magic number, a format version and the replay position,
+ *   followed by records. A record is the length and CRC32 checksum of its payload, followed by
+ *   the payload: the type of the mutation and the mutation serialized as an HBase Writable.
+ *   Reopening a log after a crash drops the records left incomplete or corrupted by the crash.
+ * </p>
+ *
+ * <p> Access to this log is threadsafe. </p>
+ */
+@ApiAudience.Private
+final class MutationSpillLog implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(MutationSpillLog.class);
+
+  /** Magic number identifying a spill log file. */
+  private static final int MAGIC = 0x4b53504c;  // "KSPL"
+
+  /** Version of the file format. */
+  private static final int VERSION = 1;
+
+  /** Offset of the replay position in the header. */
+  private static final long REPLAY_POSITION_OFFSET = 8L;
+
+  /** Size of the header, in bytes. */
+  private static final long HEADER_SIZE = 16L;
+
+  /** Size of the length and checksum of a record, in bytes. */
+  private static final int RECORD_HEADER_SIZE = Bytes.SIZEOF_INT + Bytes.SIZEOF_LONG;
+
+  /** Maximum size of the payload of a record, used to detect corrupted lengths. */
+  private static final int MAX_PAYLOAD_SIZE = 1 << 30;
+
+  /** Record type of a Put. */
+  private static final byte TYPE_PUT = 0;
+
+  /** Record type of a Delete. */
+  private static final byte TYPE_DELETE = 1;
+
+  /** Path of the log file. */
+  private final File mPath;
+
+  /** Log file. */
+  private final RandomAccessFile mFile;
+
+  /** Offset of the first record not yet replayed. */
+  private long mReplayPosition;
+
+  /** Offset of the end of the last record. */
+  private long mEnd;
+
+  /** Latest timestamp mutations have been pinned to by this log. */
+  private long mLastPinnedTimestamp = 0L;
+
+  /** Mutations read from the log, with the position of the record following them. */
+  public static final class Batch {
+    private final List<Row> mMutations;
+    private final long mEndPosition;
+
+    /**
+     * Creates a batch of mutations read from the log.
+     *
+     * @param mutations Mutations, in the order they were appended.
+     * @param endPosition Offset of the record following the batch.
+     */
+    private Batch(List<Row> mutations, long endPosition) {
+      mMutations = mutations;
+      mEndPosition = endPosition;
+    }
+
+    /**
+     * Gets the mutations of this batch, in the order they were appended.
+     *
+     * @return the mutations of this batch. Each mutation is either a Put or a Delete.
+     */
+    public List<Row> getMutations() {
+      return mMutations;
+    }
+  }
+
+  /**
+   * Opens a spill log, creating it if necessary.
+   *
+   * <p>
+   *   Records left incomplete or corrupted by a crash are dropped, along with the records
+   *   following them. The mutations not yet replayed are kept.
+   * </p>
+   *
+   * @param path Path of the log file.
+   * @return the opened spill log.
+   * @throws IOException on I/O error, or if the file is not a spill log.
+   */
+  public static MutationSpillLog open(File path) throws IOException {
+    final RandomAccessFile file = new RandomAccessFile(path, "rw");
+    try {
+      return new MutationSpillLog(path, file);
+    } catch (IOException ioe) {
+      file.close();
+      throw ioe;
+    }
+  }
+
+  /**
+   * Initializes a spill log and recovers its content.
+   *
+   * @param path Path of the log file.
+   * @param file Log file, opened for reading and writing.
+   * @throws IOException on I/O error, or if the file is not a spill log.
+   */
+  private MutationSpillLog(File path, RandomAccessFile file) throws IOException {
+    mPath = path;
+    mFile = file;
+    if (mFile.length() < HEADER_SIZE) {
+      // New log, or crash while creating it:
+      mFile.setLength(0L);
+      mFile.writeInt(MAGIC);
+      mFile.writeInt(VERSION);
+      mFile.writeLong(HEADER_SIZE);
+      mFile.getFD().sync();
+      mReplayPosition = HEADER_SIZE;
+      mEnd = HEADER_SIZE;
+      return;
+    }
+
+    mFile.seek(0L);
+    final int magic = mFile.readInt();
+    final int version = mFile.readInt();
+    if ((magic != MAGIC) || (version != VERSION)) {
+      throw new IOException(String.format(
+          "File '%s' is not a spill log with version %d.", mPath, VERSION));
+    }
+    mReplayPosition = mFile.readLong();
+    if (mReplayPosition < HEADER_SIZE) {
+      throw new IOException(String.format(
+          "Spill log '%s' has an invalid replay position: %d.", mPath, mReplayPosition));
+    }
+    if (mReplayPosition > mFile.length()) {
+      // Crash while resetting a fully replayed log, after truncating it:
+      writeReplayPosition(HEADER_SIZE);
+    }
+
+    // Scan the records not yet replayed, and drop the tail left incomplete by a crash:
+    long position = mReplayPosition;
+    while (true) {
+      final long next = skipRecord(position);
+      if (next < 0) {
+        break;
+      }
+      position = next;
+    }
+    if (position < mFile.length()) {
+      LOG.warn("Dropping {} bytes of incomplete records at the end of spill log '{}'.",
+          mFile.length() - position, mPath);
+      mFile.setLength(position);
+      mFile.getFD().sync();
+    }
+    mEnd = position;
+    if (mEnd > mReplayPosition) {
+      LOG.info("Recovered {} bytes of mutations to replay from spill log '{}'.",
+          mEnd - mReplayPosition, mPath);
+    }
+  }
+
+  /**
+   * Validates the record at a given position.
+   *
+   * @param position Offset of the record to validate.
+   * @return the offset of the next record, or -1 if there is no valid record at this position.
+   * @throws IOException on I/O error.
+   */
+  private long skipRecord(long position) throws IOException {
+    final byte[] payload = readPayload(position);
+    return (payload == null) ? -1L : position + RECORD_HEADER_SIZE + payload.length;
+  }
+
+  /**
+   * Reads the payload of the record at a given position, and validates it.
+   *
+   * @param position Offset of the record to read.
+   * @return the payload of the record, or null if there is no valid record at this position.
+   * @throws IOException on I/O error.
+   */
+  private byte[] readPayload(long position) throws IOException {
+    final long length = mFile.length();
+    if (position + RECORD_HEADER_SIZE > length) {
+      return null;
+    }
+    mFile.seek(position);
+    final int size = mFile.readInt();
+    final long checksum = mFile.readLong();
+    if ((size <= 0) || (size > MAX_PAYLOAD_SIZE)
+        || (position + RECORD_HEADER_SIZE + size > length)) {
+      return null;
+    }
+    final byte[] payload = new byte[size];
+    mFile.readFully(payload);
+    final CRC32 crc = new CRC32();
+    crc.update(payload);
+    return (crc.getValue() == checksum) ? payload : null;
+  }
+
+  /**
+   * Reports whether all the mutations of this log have been replayed.
+   *
+   * @return whether all the mutations of this log have been replayed.
+   */
+  public synchronized boolean isEmpty() {
+    return mReplayPosition == mEnd;
+  }
+
+  /**
+   * Appends mutations to this log, and syncs them to disk.
+   *
+   * <p>
+   *   Cells and deletes targeting the latest timestamp are pinned to the current time, so that
+   *   replaying them later, or more than once, does not affect cells written in the meantime.
+   *   Each mutation of a row is pinned to a timestamp strictly greater than the timestamps of
+   *   the mutations of the row appended before it, as HBase resolves mutations with equal
+   *   timestamps regardless of their order: a delete would hide the put following it.
+   *   Deletes of the most recent version of a cell are not pinned, and delete the most recent
+   *   version of the cell when they are replayed.
+   * </p>
+   *
+   * @param mutations Puts and Deletes to append, in order.
+   * @throws IOException on I/O error.
+   */
+  public synchronized void append(List<Row> mutations) throws IOException {
+    if (mutations.isEmpty()) {
+      return;
+    }
+    // Timestamps never go backwards, even if the clock does:
+    final long now = Math.max(System.currentTimeMillis(), mLastPinnedTimestamp + 1);
+    // Timestamp of the last mutation of each row, incremented for each mutation of the row
+    // to keep the timestamps of the rows with few mutations close to the current time:
+    final Map<BytesKey, Long> rowTimestamps = Maps.newHashMap();
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    for (Row mutation : mutations) {
+      final BytesKey row = new BytesKey(mutation.getRow());
+      final Long previous = rowTimestamps.get(row);
+      final long timestamp = (previous == null) ? now : previous + 1;
+      rowTimestamps.put(row, timestamp);
+      mLastPinnedTimestamp = Math.max(mLastPinnedTimestamp, timestamp);
+      final byte[] payload = serialize(pinLatestTimestamp(mutation, timestamp));
+      final CRC32 crc = new CRC32();
+      crc.update(payload);
+      out.writeInt(payload.length);
+      out.writeLong(crc.getValue());
+      out.write(payload);
+    }
+    out.flush();
+    mFile.seek(mEnd);
+    mFile.write(bytes.toByteArray());
+    mFile.getFD().sync();
+    mEnd += bytes.size();
+  }
+
+  /**
+   * Appends mutations to this log, unless all the mutations of this log have been replayed.
+   *
+   * <p>
+   *   Mutations issued after mutations that are still in the log must go through the log,
+   *   or they would reach HBase before the mutations they follow.
+   * </p>
+   *
+   * @param mutations Puts and Deletes to append, in order.
+   * @return whether the mutations were appended.
+   * @throws IOException on I/O error.
+   */
+  public synchronized boolean appendIfNotEmpty(List<Row> mutations) throws IOException {
+    if (isEmpty()) {
+      return false;
+    }
+    append(mutations);
+    return true;
+  }
+
+  /**
+   * Reads the next mutations to replay. The mutations remain in the log until committed.
+   *
+   * @param maxMutations Maximum number of mutations to read.
+   * @return the next mutations to replay, possibly none.
+   * @throws IOException on I/O error.
+   */
+  public synchronized Batch read(int maxMutations) throws IOException {
+    Preconditions.checkArgument(maxMutations > 0);
+    final List<Row> mutations = Lists.newArrayList();
+    long position = mReplayPosition;
+    while ((position < mEnd) && (mutations.size() < maxMutations)) {
+      final byte[] payload = readPayload(position);
+      if (payload == null) {
+        throw new IOException(String.format(
+            "Spill log '%s' is corrupted at offset %d.", mPath, position));
+      }
+      mutations.add(deserialize(payload));
+      position += RECORD_HEADER_SIZE + payload.length;
+    }
+    return new Batch(mutations, position);
+  }
+
+  /**
+   * Records that the mutations of a batch have been replayed.
+   *
+   * <p> The log is truncated once all its mutations have been replayed. </p>
+   *
+   * @param batch Batch of mutations replayed. Must be the last batch read from this log.
+   * @throws IOException on I/O error.
+   */
+  public synchronized void commit(Batch batch) throws IOException {
+    Preconditions.checkArgument(batch.mEndPosition >= mReplayPosition);
+    if (batch.mEndPosition == mEnd) {
+      // Nothing left to replay: reset the log.
+      // Truncate first, so that a crash in between does not replay the mutations again.
+      mFile.setLength(HEADER_SIZE);
+      mFile.getFD().sync();
+      writeReplayPosition(HEADER_SIZE);
+      mEnd = HEADER_SIZE;
+    } else {
+      writeReplayPosition(batch.mEndPosition);
+    }
+  }
+
+  /**
+   * Writes the replay position to the header of the log, and syncs it to disk.
+   *
+   * @param position New replay position.
+   * @throws IOException on I/O error.
+   */
+  private void writeReplayPosition(long position) throws IOException {
+    mFile.seek(REPLAY_POSITION_OFFSET);
+    mFile.writeLong(position);
+    mFile.getFD().sync();
+    mReplayPosition = position;
+  }
+
+  /**
+   * Pins the cells and deletes of a mutation targeting the latest timestamp to a given time,
+   * except the deletes of the most recent version of a cell.
+   *
+   * @param mutation Put or Delete to pin.
+   * @param timestamp Timestamp to pin the mutation to.
+   * @return the pinned mutation.
+   */
+  private static Row pinLatestTimestamp(Row mutation, long timestamp) {
+    final Map<byte[], List<KeyValue>> familyMap;
+    if (mutation instanceof Put) {
+      familyMap = ((Put) mutation).getFamilyMap();
+    } else if (mutation instanceof Delete) {
+      final Delete delete = (Delete) mutation;
+      if (delete.isEmpty() && (delete.getTimeStamp() == HConstants.LATEST_TIMESTAMP)) {
+        // Row delete: its timestamp is the delete timestamp.
+        return new Delete(delete.getRow(), timestamp, null);
+      }
+      familyMap = delete.getFamilyMap();
+    } else {
+      throw new IllegalArgumentException("Cannot spill mutation: " + mutation);
+    }
+    final byte[] timestampBytes = Bytes.toBytes(timestamp);
+    for (List<KeyValue> kvs : familyMap.values()) {
+      for (KeyValue kv : kvs) {
+        if (kv.getType() == KeyValue.Type.Delete.getCode()) {
+          // A single-version delete marker at the latest timestamp deletes the most recent
+          // version of its cell: pinned, it would only delete a version with that exact stamp.
+          continue;
+        }
+        kv.updateLatestStamp(timestampBytes);
+      }
+    }
+    return mutation;
+  }
+
+  /**
+   * Serializes a mutation into the payload of a record.
+   *
+   * @param mutation Put or Delete to serialize.
+   * @return the payload of the record.
+   * @throws IOException on I/O error.
+   */
+  private static byte[] serialize(Row mutation) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte((mutation instanceof Put) ? TYPE_PUT : TYPE_DELETE);
+    ((Writable) mutation).write(out);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Deserializes a mutation from the payload of a record.
+   *
+   * @param payload Payload of the record.
+   * @return the Put or Delete serialized in the record.
+   * @throws IOException on I/O error.
+   */
+  private static Row deserialize(byte[] payload) throws IOException {
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+    final byte type = in.readByte();
+    switch (type) {
+      case TYPE_PUT: {
+        final Put put = new Put();
+        put.readFields(in);
+        return put;
+      }
+      case TYPE_DELETE: {
+        final Delete delete = new Delete();
+        delete.readFields(in);
+        return delete;
+      }
+      default:
+        throw new IOException("Unknown spilled mutation type: " + type);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public synchronized void close() throws IOException {
+    mFile.close();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return String.format("MutationSpillLog(%s)", mPath);
+  }
+}
@@ -0,0 +1,203 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema.impl;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import com.google.common.base.Preconditions;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiWriteThrottle;
+
+/**
+ * Throttles the mutations of a writer, with the throttle of the writer and the throttle of
+ * its table.
+ *
+ * <p> The size of a mutation is the size of its cells or delete markers, as sent to HBase. </p>
+ */
+@ApiAudience.Private
+final class MutationThrottler {
+  /** Throttle of the writer, or null. */
+  private final KijiWriteThrottle mWriterThrottle;
+
+  /** Throttle of the table. */
+  private final KijiWriteThrottle mTableThrottle;
+
+  /**
+   * Creates a throttler for a writer.
+   *
+   * @param writerThrottle Throttle of the writer, or null.
+   * @param table Table the writer writes to.
+   */
+  MutationThrottler(KijiWriteThrottle writerThrottle, HBaseKijiTable table) {
+    mWriterThrottle = writerThrottle;
+    mTableThrottle = Preconditions.checkNotNull(table.getWriteThrottle());
+  }
+
+  /**
+   * Gets the throttle of the writer.
+   *
+   * @return the throttle of the writer, or null.
+   */
+  public KijiWriteThrottle getWriterThrottle() {
+    return mWriterThrottle;
+  }
+
+  /**
+   * Waits until a mutation is allowed by the writer and table throttles, or rejects it.
+   *
+   * @param bytes Size of the mutation, in bytes.
+   * @throws IOException if the mutation is rejected.
+   */
+  public void throttle(long bytes) throws IOException {
+    throttle(1, bytes);
+  }
+
+  /**
+   * Waits until a batch of mutations is allowed by the writer and table throttles, or rejects
+   * the whole batch.
+   *
+   * @param numMutations Number of mutations in the batch.
+   * @param bytes Total size of the mutations, in bytes.
+   * @throws IOException if the batch is rejected.
+   */
+  public void throttle(int numMutations, long bytes) throws IOException {
+    // Acquire both throttles at once, so that a batch rejected by one of them does not
+    // consume the rate of the other:
+    if (mWriterThrottle != null) {
+      KijiWriteThrottle.acquireAll(numMutations, bytes, mWriterThrottle, mTableThrottle);
+    } else {
+      KijiWriteThrottle.acquireAll(numMutations, bytes, mTableThrottle);
+    }
+  }
+
+  /**
+   * Waits until a put is allowed by the writer and table throttles, or rejects it.
+   *
+   * @param put Put to throttle.
+   * @throws IOException if the put is rejected.
+   */
+  public void throttle(Put put) throws IOException {
+    throttle(sizeOf(put));
+  }
+
+  /**
+   * Waits until a batch of puts is allowed by the writer and table throttles, or rejects it.
+   *
+   * @param puts Puts to throttle. Must not be empty.
+   * @throws IOException if the puts are rejected.
+   */
+  public void throttlePuts(Collection<Put> puts) throws IOException {
+    long bytes = 0;
+    for (Put put : puts) {
+      bytes += sizeOf(put);
+    }
+    throttle(puts.size(), bytes);
+  }
+
+  /**
+   * Waits until a delete is allowed by the writer and table throttles, or rejects it.
+   *
+   * @param delete Delete to throttle.
+   * @throws IOException if the delete is rejected.
+   */
+  public void throttle(Delete delete) throws IOException {
+    throttle(sizeOf(delete));
+  }
+
+  /**
+   * Waits until a batch of deletes is allowed by the writer and table throttles, or rejects it.
+   *
+   * @param deletes Deletes to throttle. Must not be empty.
+   * @throws IOException if the deletes are rejected.
+   */
+  public void throttleDeletes(Collection<Delete> deletes) throws IOException {
+    long bytes = 0;
+    for (Delete delete : deletes) {
+      bytes += sizeOf(delete);
+    }
+    throttle(deletes.size(), bytes);
+  }
+
+  /**
+   * Waits until an increment is allowed by the writer and table throttles, or rejects it.
+   *
+   * <p> The size of an increment is the size of its row key, column names and deltas. </p>
+   *
+   * @param increment Increment to throttle.
+   * @throws IOException if the increment is rejected.
+   */
+  public void throttle(Increment increment) throws IOException {
+    long bytes = increment.getRow().length;
+    for (Map.Entry<byte[], NavigableMap<byte[], Long>> family
+        : increment.getFamilyMap().entrySet()) {
+      for (byte[] qualifier : family.getValue().keySet()) {
+        bytes += family.getKey().length + qualifier.length + Bytes.SIZEOF_LONG;
+      }
+    }
+    throttle(bytes);
+  }
+
+  /**
+   * Computes the size of a put.
+   *
+   * @param put Put to measure.
+   * @return the size of the cells of the put, in bytes.
+   */
+  private static long sizeOf(Put put) {
+    return sizeOf(put.getFamilyMap());
+  }
+
+  /**
+   * Computes the size of a delete.
+   *
+   * @param delete Delete to measure.
+   * @return the size of the row key and delete markers of the delete, in bytes.
+   */
+  private static long sizeOf(Delete delete) {
+    return delete.getRow().length + sizeOf(delete.getFamilyMap());
+  }
+
+  /**
+   * Computes the size of the cells or delete markers of a mutation.
+   *
+   * @param familyMap Cells or delete markers of the mutation.
+   * @return the size of the cells or delete markers, in bytes.
+   */
+  private static long sizeOf(Map<byte[], List<KeyValue>> familyMap) {
+    long size = 0;
+    for (List<KeyValue> kvs : familyMap.values()) {
+      for (KeyValue kv : kvs) {
+        size += kv.getLength();
+      }
+    }
+    return size;
+  }
+}
@@ -0,0 +1,183 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.TimeRange;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.HBaseEntityId;
+import org.kiji.schema.InternalKijiError;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiDataRequestValidator;
+import org.kiji.schema.hbase.HBaseScanOptions;
+import org.kiji.schema.layout.InvalidLayoutException;
+import org.kiji.schema.layout.KijiTableLayout;
+import org.kiji.schema.layout.impl.ColumnNameTranslator;
+
+/**
+ * KijiDataRequest validated against a table layout and compiled into an HBase Get template.
+ *
+ * <p>
+ *   Preparing a data request validates it and translates its columns, filters, time range and
+ *   max-versions once. Building the HBase Get for a given row then only binds the row key.
+ *   A prepared data request is tied to the table layout it was prepared against, and must be
+ *   discarded when the layout of the table changes.
+ * </p>
+ *
+ * <p>
+ *   Prepared data requests are immutable and may be used concurrently.
+ *   The HBase Gets and Scans built from a prepared request get their own copy of the column sets
+ *   of the template, as callers may add columns to them (eg. to apply a row filter).
+ *   The filters of the template are shared, and are never modified.
+ * </p>
+ */
+@ApiAudience.Private
+public final class PreparedKijiDataRequest {
+  /** The data request this was prepared from. */
+  private final KijiDataRequest mDataRequest;
+
+  /** The table layout this request was prepared against. */
+  private final KijiTableLayout mLayout;
+
+  /** HBase Get template, for an empty row key. */
+  private final Get mTemplate;
+
+  /**
+   * Initializes a prepared data request.
+   *
+   * @param dataRequest The data request this was prepared from.
+   * @param layout The table layout this request was prepared against.
+   * @param template HBase Get template.
+   */
+  private PreparedKijiDataRequest(
+      KijiDataRequest dataRequest,
+      KijiTableLayout layout,
+      Get template) {
+    mDataRequest = dataRequest;
+    mLayout = layout;
+    mTemplate = template;
+  }
+
+  /**
+   * Validates a data request against a table layout and prepares it.
+   *
+   * @param dataRequest Data request to prepare.
+   * @param layout Table layout to prepare the data request against.
+   * @param translator Column name translator for the table layout.
+   * @return the prepared data request.
+   * @throws IOException on I/O error.
+   * @throws org.kiji.schema.KijiDataRequestException if the data request is invalid.
+   */
+  public static PreparedKijiDataRequest prepare(
+      KijiDataRequest dataRequest,
+      KijiTableLayout layout,
+      ColumnNameTranslator translator)
+      throws IOException {
+    KijiDataRequestValidator.validatorForLayout(layout).validate(dataRequest);
+    try {
+      final Get template = new HBaseDataRequestAdapter(dataRequest, translator)
+          .toGet(HBaseEntityId.fromHBaseRowKey(new byte[0]), layout);
+      return new PreparedKijiDataRequest(dataRequest, layout, template);
+    } catch (InvalidLayoutException ile) {
+      // The table layout should never be invalid at this point, since we got it from a valid
+      // opened table.  If it is, there's something seriously wrong.
+      throw new InternalKijiError(ile);
+    }
+  }
+
+  /**
+   * Returns the data request this was prepared from.
+   *
+   * @return the data request this was prepared from.
+   */
+  public KijiDataRequest getDataRequest() {
+    return mDataRequest;
+  }
+
+  /**
+   * Returns the table layout this request was prepared against.
+   *
+   * @return the table layout this request was prepared against.
+   */
+  public KijiTableLayout getLayout() {
+    return mLayout;
+  }
+
+  /**
+   * Reports whether the HBase requests built from this prepared request read any HBase family.
+   *
+   * <p> A request for no HBase family does not need to be sent to HBase. </p>
+   *
+   * @return whether the HBase requests built from this prepared request read any HBase family.
+   */
+  public boolean hasFamilies() {
+    return mTemplate.hasFamilies();
+  }
+
+  /**
+   * Builds the HBase Get for the specified row.
+   *
+   * @param entityId Entity ID of the row to build an HBase Get for.
+   * @return the HBase Get for the specified row.
+   * @throws IOException on I/O error.
+   */
+  public Get toGet(EntityId entityId) throws IOException {
+    final Get get = new Get(entityId.getHBaseRowKey());
+    final Map<byte[], NavigableSet<byte[]>> familyMap = get.getFamilyMap();
+    for (Map.Entry<byte[], NavigableSet<byte[]>> entry : mTemplate.getFamilyMap().entrySet()) {
+      // Copy the qualifier sets: callers such as KijiRowFilterApplicator add columns to them.
+      final NavigableSet<byte[]> qualifiers = entry.getValue();
+      if (null == qualifiers) {
+        familyMap.put(entry.getKey(), null);
+      } else {
+        final NavigableSet<byte[]> copy = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+        copy.addAll(qualifiers);
+        familyMap.put(entry.getKey(), copy);
+      }
+    }
+    final TimeRange timeRange = mTemplate.getTimeRange();
+    return get
+        .setFilter(mTemplate.getFilter())
+        .setTimeRange(timeRange.getMin(), timeRange.getMax())
+        .setMaxVersions(mTemplate.getMaxVersions());
+  }
+
+  /**
+   * Builds an HBase Scan for this prepared request.
+   *
+   * @param scanOptions Custom options for the scan.
+   * @return an HBase Scan for this prepared request.
+   * @throws IOException on I/O error.
+   */
+  public Scan toScan(HBaseScanOptions scanOptions) throws IOException {
+    final Scan scan = new Scan(toGet(HBaseEntityId.fromHBaseRowKey(new byte[0])));
+    HBaseDataRequestAdapter.configureScan(scan, scanOptions);
+    return scan;
+  }
+}
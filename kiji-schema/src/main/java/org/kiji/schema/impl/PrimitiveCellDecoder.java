@@ -0,0 +1,283 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import org.apache.avro.Schema;
+import org.apache.avro.util.Utf8;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.DecodedCell;
+import org.kiji.schema.InternalKijiError;
+import org.kiji.schema.KijiCellDecoder;
+import org.kiji.schema.layout.CellSpec;
+
+/**
+ * Decodes cells of final columns with a primitive Avro schema, without going through Avro.
+ *
+ * <p>
+ *   Decodes the bytes written by {@link AvroCellEncoder} and {@link PrimitiveCellEncoder} into
+ *   the same values as the specific and generic Avro cell decoders would, without resolving
+ *   the writer and reader schemas.
+ * </p>
+ *
+ * @param <T> The type of the decoded cell data.
+ */
+@ApiAudience.Private
+public final class PrimitiveCellDecoder<T> implements KijiCellDecoder<T> {
+  /** Avro schema property selecting the Java class of strings. */
+  private static final String STRING_PROP = "avro.java.string";
+
+  /** Avro schema properties that do not prevent decoding a column with this decoder. */
+  private static final Set<String> SUPPORTED_PROPS = ImmutableSet.of(STRING_PROP);
+
+  /**
+   * Reports whether a column can be decoded with a primitive cell decoder.
+   *
+   * @param cellSpec Specification of the cell to decode.
+   * @return whether the column has final storage and a primitive Avro schema.
+   */
+  public static boolean isSupported(final CellSpec cellSpec) {
+    return PrimitiveCellEncoder.isSupported(cellSpec)
+        && SUPPORTED_PROPS.containsAll(cellSpec.getAvroSchema().getProps().keySet());
+  }
+
+  /** Avro schema of the column to decode. */
+  private final Schema mSchema;
+
+  /** Whether strings are decoded as java.lang.String rather than Utf8. */
+  private final boolean mDecodeJavaStrings;
+
+  /**
+   * Creates a new primitive cell decoder.
+   *
+   * @param cellSpec Specification of the cell to decode.
+   */
+  public PrimitiveCellDecoder(final CellSpec cellSpec) {
+    Preconditions.checkArgument(isSupported(cellSpec), "Unsupported cell: %s", cellSpec);
+    mSchema = cellSpec.getAvroSchema();
+    mDecodeJavaStrings = "String".equals(mSchema.getProp(STRING_PROP));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public DecodedCell<T> decodeCell(byte[] bytes) throws IOException {
+    return decodeCell(bytes, null);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public T decodeValue(byte[] bytes) throws IOException {
+    return decodeValue(bytes, null);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public DecodedCell<T> decodeCell(byte[] bytes, T reuse) throws IOException {
+    return new DecodedCell<T>(mSchema, decodeValue(bytes, reuse));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public T decodeValue(byte[] bytes, T reuse) throws IOException {
+    try {
+      @SuppressWarnings("unchecked")
+      final T value = (T) decode(bytes, reuse);
+      return value;
+    } catch (ArrayIndexOutOfBoundsException aioobe) {
+      throw new IOException(String.format(
+          "Truncated %s cell: %s", mSchema.getType(), Bytes.toStringBinary(bytes)));
+    }
+  }
+
+  /**
+   * Decodes the value of an int or long cell as a primitive long, without boxing.
+   *
+   * @param bytes Buffer holding the encoded cell.
+   * @param offset Offset of the encoded cell in the buffer.
+   * @param length Length of the encoded cell.
+   * @return the decoded value.
+   * @throws IOException if the column is not an int or long column, or the cell is truncated.
+   */
+  public long decodeLong(byte[] bytes, int offset, int length) throws IOException {
+    switch (mSchema.getType()) {
+    case INT:
+    case LONG: {
+      final int[] position = new int[] {offset};
+      final long value;
+      try {
+        value = readVarLong(bytes, position);
+      } catch (ArrayIndexOutOfBoundsException aioobe) {
+        throw new IOException(String.format("Truncated %s cell: %s",
+            mSchema.getType(), Bytes.toStringBinary(bytes, offset, length)));
+      }
+      checkTruncated(bytes, offset, length, position[0] - offset);
+      return value;
+    }
+    default:
+      throw new IOException(String.format("Cannot decode %s cell as a long.", mSchema.getType()));
+    }
+  }
+
+  /**
+   * Decodes the value of a numeric cell as a primitive double, without boxing.
+   *
+   * @param bytes Buffer holding the encoded cell.
+   * @param offset Offset of the encoded cell in the buffer.
+   * @param length Length of the encoded cell.
+   * @return the decoded value.
+   * @throws IOException if the column is not a numeric column, or the cell is truncated.
+   */
+  public double decodeDouble(byte[] bytes, int offset, int length) throws IOException {
+    switch (mSchema.getType()) {
+    case INT:
+    case LONG:
+      return decodeLong(bytes, offset, length);
+    case FLOAT:
+      checkTruncated(bytes, offset, length, 4);
+      return Float.intBitsToFloat((int) readLittleEndian(bytes, offset, 4));
+    case DOUBLE:
+      checkTruncated(bytes, offset, length, 8);
+      return Double.longBitsToDouble(readLittleEndian(bytes, offset, 8));
+    default:
+      throw new IOException(
+          String.format("Cannot decode %s cell as a double.", mSchema.getType()));
+    }
+  }
+
+  /**
+   * Checks that an encoded cell holds at least the bytes needed to decode its value.
+   *
+   * @param bytes Buffer holding the encoded cell.
+   * @param offset Offset of the encoded cell in the buffer.
+   * @param length Length of the encoded cell.
+   * @param needed Number of bytes needed to decode the value.
+   * @throws IOException if the cell is truncated.
+   */
+  private void checkTruncated(byte[] bytes, int offset, int length, int needed)
+      throws IOException {
+    if (needed > length) {
+      throw new IOException(String.format("Truncated %s cell: %s",
+          mSchema.getType(), Bytes.toStringBinary(bytes, offset, length)));
+    }
+  }
+
+  /**
+   * Decodes a primitive value from its Avro binary encoding.
+   *
+   * @param bytes Avro binary encoding of the value.
+   * @param reuse Optional object to decode strings and bytes into (may be null).
+   * @return the decoded value.
+   */
+  private Object decode(byte[] bytes, Object reuse) {
+    switch (mSchema.getType()) {
+    case BOOLEAN: return bytes[0] == 1;
+    case INT: return (int) readVarLong(bytes, new int[1]);
+    case LONG: return readVarLong(bytes, new int[1]);
+    case FLOAT: return Float.intBitsToFloat((int) readLittleEndian(bytes, 0, 4));
+    case DOUBLE: return Double.longBitsToDouble(readLittleEndian(bytes, 0, 8));
+    case STRING: {
+      final int[] offset = new int[1];
+      final int length = (int) readVarLong(bytes, offset);
+      checkLength(bytes, offset[0], length);
+      if (mDecodeJavaStrings) {
+        return Bytes.toString(bytes, offset[0], length);
+      }
+      final Utf8 utf8 = (reuse instanceof Utf8) ? (Utf8) reuse : new Utf8();
+      utf8.setByteLength(length);
+      System.arraycopy(bytes, offset[0], utf8.getBytes(), 0, length);
+      return utf8;
+    }
+    case BYTES: {
+      final int[] offset = new int[1];
+      final int length = (int) readVarLong(bytes, offset);
+      checkLength(bytes, offset[0], length);
+      final ByteBuffer buffer;
+      if ((reuse instanceof ByteBuffer) && (length <= ((ByteBuffer) reuse).capacity())) {
+        buffer = (ByteBuffer) reuse;
+        buffer.clear();
+      } else {
+        buffer = ByteBuffer.allocate(length);
+      }
+      buffer.put(bytes, offset[0], length);
+      buffer.flip();
+      return buffer;
+    }
+    default: throw new InternalKijiError("Unexpected schema type: " + mSchema.getType());
+    }
+  }
+
+  /**
+   * Reads a zig-zag variable-length encoded integer.
+   *
+   * @param bytes Buffer to read from.
+   * @param offset Single-element array holding the offset to read from. Updated to the offset
+   *     following the integer.
+   * @return the decoded integer.
+   */
+  private static long readVarLong(byte[] bytes, int[] offset) {
+    int pos = offset[0];
+    long value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = bytes[pos++] & 0xff;
+      value |= (long) (b & 0x7f) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    offset[0] = pos;
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Reads a fixed-size little-endian integer, as Avro encodes floats and doubles.
+   *
+   * @param bytes Buffer to read from.
+   * @param offset Offset of the first byte to read.
+   * @param size Number of bytes to read.
+   * @return the decoded integer.
+   */
+  private static long readLittleEndian(byte[] bytes, int offset, int size) {
+    long value = 0;
+    for (int i = offset + size - 1; i >= offset; --i) {
+      value = (value << 8) | (bytes[i] & 0xff);
+    }
+    return value;
+  }
+
+  /**
+   * Checks that a buffer holds enough bytes.
+   *
+   * @param bytes Buffer to check.
+   * @param offset Offset of the first byte.
+   * @param length Number of bytes expected from the offset.
+   */
+  private static void checkLength(byte[] bytes, int offset, int length) {
+    if ((length < 0) || (offset + length > bytes.length)) {
+      throw new ArrayIndexOutOfBoundsException(offset + length);
+    }
+  }
+}
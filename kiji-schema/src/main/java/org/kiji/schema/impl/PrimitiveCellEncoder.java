@@ -0,0 +1,259 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryData;
+import org.apache.avro.util.Utf8;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.DecodedCell;
+import org.kiji.schema.InternalKijiError;
+import org.kiji.schema.KijiCellEncoder;
+import org.kiji.schema.avro.AvroValidationPolicy;
+import org.kiji.schema.avro.SchemaStorage;
+import org.kiji.schema.layout.CellSpec;
+
+/**
+ * Serializes cells of final columns with a primitive Avro schema, without going through Avro.
+ *
+ * <p>
+ *   Produces the same bytes as {@link AvroCellEncoder}: final columns do not embed the writer
+ *   schema, and primitive values are written using the Avro binary encoding directly.
+ *   Values that {@link AvroCellEncoder} would not encode as the column schema (eg. because of
+ *   the schema validation policy) are delegated to an {@link AvroCellEncoder}, so that they
+ *   get encoded or rejected exactly as before.
+ * </p>
+ */
+@ApiAudience.Private
+public final class PrimitiveCellEncoder implements KijiCellEncoder {
+  /** Avro types supported by this encoder. */
+  private static final Set<Schema.Type> SUPPORTED_TYPES = Sets.immutableEnumSet(
+      Schema.Type.BOOLEAN,
+      Schema.Type.INT,
+      Schema.Type.LONG,
+      Schema.Type.FLOAT,
+      Schema.Type.DOUBLE,
+      Schema.Type.STRING,
+      Schema.Type.BYTES);
+
+  /** Maximum size of a primitive value other than strings and bytes, in bytes. */
+  private static final int MAX_PRIMITIVE_SIZE = 10;
+
+  /**
+   * Reports whether a column can be encoded with a primitive cell encoder.
+   *
+   * @param cellSpec Specification of the cell to encode.
+   * @return whether the column has final storage and a primitive Avro schema.
+   */
+  public static boolean isSupported(final CellSpec cellSpec) {
+    if (!cellSpec.isAvro()
+        || (cellSpec.getCellSchema().getStorage() != SchemaStorage.FINAL)) {
+      return false;
+    }
+    final Schema schema = cellSpec.getAvroSchema();
+    return (null != schema) && SUPPORTED_TYPES.contains(schema.getType());
+  }
+
+  /** Avro schema of the column to encode. */
+  private final Schema mSchema;
+
+  /** Classes of the values to encode directly. Other values are delegated to mAvroEncoder. */
+  private final Set<Class<?>> mDirectClasses;
+
+  /** Avro encoder for the values that are not encoded directly. */
+  private final AvroCellEncoder mAvroEncoder;
+
+  /**
+   * Creates a new primitive cell encoder.
+   *
+   * @param cellSpec Specification of the cell to encode.
+   * @throws IOException on I/O error.
+   */
+  public PrimitiveCellEncoder(final CellSpec cellSpec) throws IOException {
+    Preconditions.checkArgument(isSupported(cellSpec), "Unsupported cell: %s", cellSpec);
+    mSchema = cellSpec.getAvroSchema();
+    mAvroEncoder = new AvroCellEncoder(cellSpec);
+    mDirectClasses = getDirectClasses(cellSpec, mSchema);
+  }
+
+  /**
+   * Computes the classes of the values that AvroCellEncoder encodes with the column schema
+   * as the writer schema, without registering any new writer schema.
+   *
+   * @param cellSpec Specification of the cell to encode.
+   * @param schema Avro schema of the column.
+   * @return the classes of the values that can be encoded directly.
+   * @throws IOException on I/O error.
+   */
+  private static Set<Class<?>> getDirectClasses(final CellSpec cellSpec, final Schema schema)
+      throws IOException {
+    final AvroValidationPolicy policy = AvroCellEncoder.getAvroValidationPolicy(cellSpec);
+    if (policy == AvroValidationPolicy.SCHEMA_1_0) {
+      // The writer schema is always the column schema: values are encoded if Avro accepts them.
+      switch (schema.getType()) {
+      case BOOLEAN: return ImmutableSet.<Class<?>>of(Boolean.class);
+      case INT: return ImmutableSet.<Class<?>>of(Integer.class);
+      case LONG: return ImmutableSet.<Class<?>>of(Long.class);
+      case FLOAT: return ImmutableSet.<Class<?>>of(Float.class);
+      case DOUBLE: return ImmutableSet.<Class<?>>of(Double.class);
+      case STRING: return ImmutableSet.<Class<?>>of(String.class, Utf8.class);
+      case BYTES: return ImmutableSet.<Class<?>>of(ByteBuffer.allocate(0).getClass());
+      default: throw new InternalKijiError("Unexpected schema type: " + schema.getType());
+      }
+    }
+
+    if ((policy == AvroValidationPolicy.STRICT) || (policy == AvroValidationPolicy.DEVELOPER)) {
+      final Set<Schema> registeredWriters = AvroCellEncoder.getRegisteredWriters(cellSpec);
+      if ((null == registeredWriters) || !registeredWriters.contains(schema)) {
+        return ImmutableSet.of();
+      }
+    }
+
+    // The writer schema is inferred from the class of the value, and must match the column schema:
+    final ImmutableSet.Builder<Class<?>> builder = ImmutableSet.builder();
+    for (Class<?> klass : Arrays.<Class<?>>asList(
+        Boolean.class, Integer.class, Long.class, Float.class, Double.class,
+        String.class, Utf8.class)) {
+      if (schema.equals(AvroCellEncoder.PRIMITIVE_SCHEMAS.get(klass.getCanonicalName()))) {
+        builder.add(klass);
+      }
+    }
+    return builder.build();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public byte[] encode(final DecodedCell<?> cell) throws IOException {
+    return encode(cell.getData());
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> byte[] encode(final T cellValue) throws IOException {
+    if ((null == cellValue) || !mDirectClasses.contains(cellValue.getClass())) {
+      return mAvroEncoder.encode(cellValue);
+    }
+    switch (mSchema.getType()) {
+    case STRING: {
+      final byte[] utf8 = toUtf8(cellValue);
+      final int utf8Length = getUtf8Length(cellValue, utf8);
+      final byte[] header = new byte[MAX_PRIMITIVE_SIZE];
+      final int headerLength = BinaryData.encodeInt(utf8Length, header, 0);
+      final byte[] bytes = new byte[headerLength + utf8Length];
+      System.arraycopy(header, 0, bytes, 0, headerLength);
+      System.arraycopy(utf8, 0, bytes, headerLength, utf8Length);
+      return bytes;
+    }
+    case BYTES: {
+      final ByteBuffer buffer = ((ByteBuffer) cellValue).duplicate();
+      final byte[] header = new byte[MAX_PRIMITIVE_SIZE];
+      final int headerLength = BinaryData.encodeInt(buffer.remaining(), header, 0);
+      final byte[] bytes = new byte[headerLength + buffer.remaining()];
+      System.arraycopy(header, 0, bytes, 0, headerLength);
+      buffer.get(bytes, headerLength, buffer.remaining());
+      return bytes;
+    }
+    default: {
+      final byte[] buffer = new byte[MAX_PRIMITIVE_SIZE];
+      return Arrays.copyOf(buffer, encodePrimitive(cellValue, buffer));
+    }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> void encode(final T cellValue, final OutputStream out) throws IOException {
+    if ((null == cellValue) || !mDirectClasses.contains(cellValue.getClass())) {
+      mAvroEncoder.encode(cellValue, out);
+      return;
+    }
+    final byte[] buffer = new byte[MAX_PRIMITIVE_SIZE];
+    switch (mSchema.getType()) {
+    case STRING: {
+      final byte[] utf8 = toUtf8(cellValue);
+      final int utf8Length = getUtf8Length(cellValue, utf8);
+      out.write(buffer, 0, BinaryData.encodeInt(utf8Length, buffer, 0));
+      out.write(utf8, 0, utf8Length);
+      break;
+    }
+    case BYTES: {
+      final ByteBuffer bytes = (ByteBuffer) cellValue;
+      out.write(buffer, 0, BinaryData.encodeInt(bytes.remaining(), buffer, 0));
+      out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+      break;
+    }
+    default:
+      out.write(buffer, 0, encodePrimitive(cellValue, buffer));
+      break;
+    }
+  }
+
+  /**
+   * Encodes a fixed-size primitive value using the Avro binary encoding.
+   *
+   * @param cellValue Value to encode. Must be an instance of one of the direct classes.
+   * @param buffer Buffer to encode the value into, of at least MAX_PRIMITIVE_SIZE bytes.
+   * @return the number of bytes written in the buffer.
+   */
+  private int encodePrimitive(final Object cellValue, final byte[] buffer) {
+    switch (mSchema.getType()) {
+    case BOOLEAN: return BinaryData.encodeBoolean((Boolean) cellValue, buffer, 0);
+    case INT: return BinaryData.encodeInt((Integer) cellValue, buffer, 0);
+    case LONG: return BinaryData.encodeLong((Long) cellValue, buffer, 0);
+    case FLOAT: return BinaryData.encodeFloat((Float) cellValue, buffer, 0);
+    case DOUBLE: return BinaryData.encodeDouble((Double) cellValue, buffer, 0);
+    default: throw new InternalKijiError("Unexpected schema type: " + mSchema.getType());
+    }
+  }
+
+  /**
+   * Gets the UTF-8 bytes of a string value, as Avro encodes them.
+   *
+   * @param cellValue String or Utf8 value.
+   * @return the UTF-8 bytes of the string. May be larger than the string for Utf8 values.
+   */
+  private static byte[] toUtf8(final Object cellValue) {
+    return (cellValue instanceof Utf8)
+        ? ((Utf8) cellValue).getBytes()
+        : Bytes.toBytes((String) cellValue);
+  }
+
+  /**
+   * Gets the number of UTF-8 bytes of a string value.
+   *
+   * @param cellValue String or Utf8 value.
+   * @param utf8 UTF-8 bytes of the string, as returned by {@link #toUtf8(Object)}.
+   * @return the number of UTF-8 bytes of the string.
+   */
+  private static int getUtf8Length(final Object cellValue, final byte[] utf8) {
+    return (cellValue instanceof Utf8) ? ((Utf8) cellValue).getByteLength() : utf8.length;
+  }
+}
@@ -0,0 +1,139 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema.impl;
+
+import java.io.IOException;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiCellEncoder;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.NoSuchColumnException;
+import org.kiji.schema.hbase.HBaseColumnName;
+import org.kiji.schema.impl.HBaseKijiTableWriter.WriterLayoutCapsule;
+
+/**
+ * Kiji column written to by a column putter, resolved against the layout of its writer.
+ *
+ * <p>
+ *   Caches the HBase column and the cell encoder of the Kiji column for the last writer layout
+ *   capsule it was resolved against. A writer swaps its capsule on layout updates, so the column
+ *   is resolved again on the first put following a layout update.
+ * </p>
+ *
+ * <p> This class is thread-safe. </p>
+ */
+@ApiAudience.Private
+final class ResolvedWriterColumn {
+  /** Kiji column to resolve. */
+  private final KijiColumnName mColumnName;
+
+  /** Resolution against the last writer layout capsule seen. Null until the first resolution. */
+  private volatile Resolution mResolution = null;
+
+  /** HBase column and cell encoder of the Kiji column, for a given writer layout capsule. */
+  static final class Resolution {
+    /** Writer layout capsule the column was resolved against. */
+    private final WriterLayoutCapsule mCapsule;
+
+    /** HBase family of the column. */
+    private final byte[] mHBaseFamily;
+
+    /** HBase qualifier of the column. */
+    private final byte[] mHBaseQualifier;
+
+    /** Encoder for the cells of the column. */
+    private final KijiCellEncoder mCellEncoder;
+
+    /**
+     * Initializes a new resolution.
+     *
+     * @param capsule Writer layout capsule the column was resolved against.
+     * @param hbaseColumnName HBase column of the column.
+     * @param cellEncoder Encoder for the cells of the column.
+     */
+    private Resolution(
+        WriterLayoutCapsule capsule,
+        HBaseColumnName hbaseColumnName,
+        KijiCellEncoder cellEncoder) {
+      mCapsule = capsule;
+      mHBaseFamily = hbaseColumnName.getFamily();
+      mHBaseQualifier = hbaseColumnName.getQualifier();
+      mCellEncoder = cellEncoder;
+    }
+
+    /** @return the HBase family of the column. */
+    byte[] getHBaseFamily() {
+      return mHBaseFamily;
+    }
+
+    /** @return the HBase qualifier of the column. */
+    byte[] getHBaseQualifier() {
+      return mHBaseQualifier;
+    }
+
+    /** @return the encoder for the cells of the column. */
+    KijiCellEncoder getCellEncoder() {
+      return mCellEncoder;
+    }
+  }
+
+  /**
+   * Initializes a new column and resolves it against a writer layout capsule.
+   *
+   * @param columnName Kiji column to resolve.
+   * @param capsule Current layout capsule of the writer.
+   * @throws IOException on I/O error, or if the column does not exist.
+   */
+  ResolvedWriterColumn(KijiColumnName columnName, WriterLayoutCapsule capsule)
+      throws IOException {
+    mColumnName = columnName;
+    resolve(capsule);
+  }
+
+  /** @return the Kiji column. */
+  KijiColumnName getColumnName() {
+    return mColumnName;
+  }
+
+  /**
+   * Resolves the column against a writer layout capsule.
+   *
+   * @param capsule Current layout capsule of the writer.
+   * @return the resolution of the column against the specified capsule.
+   * @throws IOException on I/O error, or if the column does not exist in the capsule layout.
+   */
+  Resolution resolve(WriterLayoutCapsule capsule) throws IOException {
+    final Resolution resolution = mResolution;
+    if ((resolution != null) && (resolution.mCapsule == capsule)) {
+      return resolution;
+    }
+    final HBaseColumnName hbaseColumnName =
+        capsule.getColumnNameTranslator().toHBaseColumnName(mColumnName);
+    final KijiCellEncoder cellEncoder = capsule.getCellEncoderProvider()
+        .getEncoder(mColumnName.getFamily(), mColumnName.getQualifier());
+    if (null == cellEncoder) {
+      throw new NoSuchColumnException(mColumnName.toString());
+    }
+    final Resolution newResolution = new Resolution(capsule, hbaseColumnName, cellEncoder);
+    mResolution = newResolution;
+    return newResolution;
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Row;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+
+/**
+ * Replays the mutations of a spill log to HBase.
+ *
+ * <p>
+ *   Mutations are sent in the order they were spilled: consecutive puts are sent as one list,
+ *   and so are consecutive deletes. Mutations are removed from the log only once HBase accepted
+ *   them. A replay interrupted by a crash may send the last batch of mutations again; spilled
+ *   mutations are pinned to a timestamp, so sending them again is harmless. Each list is
+ *   throttled right before it is sent; a replay rejected by a throttle is retried later.
+ * </p>
+ *
+ * <p> Replays are serialized: access to this replayer is threadsafe. </p>
+ */
+@ApiAudience.Private
+final class SpillLogReplayer {
+  private static final Logger LOG = LoggerFactory.getLogger(SpillLogReplayer.class);
+
+  /** Maximum number of mutations read from the log and sent to HBase at once. */
+  private static final int BATCH_SIZE = 1000;
+
+  /** Spill log to replay. */
+  private final MutationSpillLog mLog;
+
+  /** HTable to send the mutations with. Not owned by this replayer. */
+  private final HTableInterface mHTable;
+
+  /** Kiji table the mutations apply to. */
+  private final HBaseKijiTable mTable;
+
+  /** Throttles the mutations replayed. */
+  private final MutationThrottler mThrottler;
+
+  /**
+   * Creates a replayer for a spill log.
+   *
+   * @param log Spill log to replay.
+   * @param htable HTable to send the mutations with. Auto-flush must be enabled, so that the
+   *     HTable does not retain the puts of a failed replay and send them out of order later.
+   * @param table Kiji table the mutations apply to.
+   * @param throttler Throttles the mutations replayed, with the throttles of the writer that
+   *     spilled them and of the table.
+   */
+  SpillLogReplayer(
+      MutationSpillLog log,
+      HTableInterface htable,
+      HBaseKijiTable table,
+      MutationThrottler throttler) {
+    mLog = log;
+    mHTable = htable;
+    mTable = table;
+    mThrottler = throttler;
+  }
+
+  /**
+   * Sends all the mutations of the spill log to HBase, including the ones appended while
+   * replaying.
+   *
+   * @return the number of mutations replayed.
+   * @throws IOException on I/O error. Mutations not yet accepted by HBase remain in the log.
+   */
+  public synchronized long replay() throws IOException {
+    long count = 0;
+    while (!mLog.isEmpty()) {
+      final MutationSpillLog.Batch batch = mLog.read(BATCH_SIZE);
+      send(batch.getMutations());
+      mLog.commit(batch);
+      count += batch.getMutations().size();
+    }
+    if (count > 0) {
+      LOG.info("Replayed {} mutations from {} to table {}.", count, mLog, mTable.getURI());
+    }
+    return count;
+  }
+
+  /**
+   * Sends mutations to HBase, in order.
+   *
+   * @param mutations Puts and Deletes to send.
+   * @throws IOException on I/O error.
+   */
+  private void send(List<Row> mutations) throws IOException {
+    final List<Put> puts = Lists.newArrayList();
+    final List<Delete> deletes = Lists.newArrayList();
+    for (Row mutation : mutations) {
+      if (mutation instanceof Put) {
+        sendDeletes(deletes);
+        puts.add((Put) mutation);
+      } else {
+        sendPuts(puts);
+        deletes.add((Delete) mutation);
+      }
+    }
+    sendDeletes(deletes);
+    sendPuts(puts);
+  }
+
+  /**
+   * Sends puts to HBase, and clears the list.
+   *
+   * @param puts Puts to send.
+   * @throws IOException on I/O error.
+   */
+  private void sendPuts(List<Put> puts) throws IOException {
+    if (puts.isEmpty()) {
+      return;
+    }
+    mThrottler.throttlePuts(puts);
+    mHTable.put(new ArrayList<Put>(puts));
+    for (Put put : puts) {
+      mTable.invalidateCachedRow(put.getRow());
+    }
+    puts.clear();
+  }
+
+  /**
+   * Sends deletes to HBase, and clears the list.
+   *
+   * @param deletes Deletes to send.
+   * @throws IOException on I/O error.
+   */
+  private void sendDeletes(List<Delete> deletes) throws IOException {
+    if (deletes.isEmpty()) {
+      return;
+    }
+    mThrottler.throttleDeletes(deletes);
+    // HTable.delete(List) removes the deletes it applied from the list:
+    mHTable.delete(new ArrayList<Delete>(deletes));
+    for (Delete delete : deletes) {
+      mTable.invalidateCachedRow(delete.getRow());
+    }
+    deletes.clear();
+  }
+}
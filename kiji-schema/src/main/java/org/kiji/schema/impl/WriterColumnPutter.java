@@ -0,0 +1,105 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hbase.HConstants;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiColumnPutter;
+import org.kiji.schema.impl.HBaseKijiTableWriter.WriterLayoutCapsule;
+
+/**
+ * Puts data into a single column, through a writer.
+ *
+ * <p>
+ *   The column is resolved against the layout of the writer once, and again only after a layout
+ *   update. Encoded cells are handed to the writer through a {@link CellWriter}.
+ * </p>
+ */
+@ApiAudience.Private
+final class WriterColumnPutter implements KijiColumnPutter {
+  /** Column to put data into. */
+  private final ResolvedWriterColumn mColumn;
+
+  /** Writer the encoded cells are handed to. */
+  private final CellWriter mCellWriter;
+
+  /** Callback through which a writer receives the cells put by its column putters. */
+  interface CellWriter {
+    /**
+     * Gets the current layout capsule of the writer.
+     *
+     * @return the current layout capsule of the writer.
+     * @throws IllegalStateException if the writer is not open.
+     */
+    WriterLayoutCapsule getLayoutCapsule();
+
+    /**
+     * Writes an encoded cell.
+     *
+     * @param entityId Entity ID of the row to write to.
+     * @param family HBase family of the cell.
+     * @param qualifier HBase qualifier of the cell.
+     * @param timestamp Timestamp of the cell, or HConstants.LATEST_TIMESTAMP for the current time.
+     * @param encoded Encoded value of the cell.
+     * @throws IOException on I/O error.
+     */
+    void writeCell(
+        EntityId entityId, byte[] family, byte[] qualifier, long timestamp, byte[] encoded)
+        throws IOException;
+  }
+
+  /**
+   * Creates a putter for a column.
+   *
+   * @param column Column to put data into.
+   * @param cellWriter Writer the encoded cells are handed to.
+   */
+  WriterColumnPutter(ResolvedWriterColumn column, CellWriter cellWriter) {
+    mColumn = column;
+    mCellWriter = cellWriter;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiColumnName getColumnName() {
+    return mColumn.getColumnName();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> void put(EntityId entityId, T value) throws IOException {
+    put(entityId, HConstants.LATEST_TIMESTAMP, value);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <T> void put(EntityId entityId, long timestamp, T value) throws IOException {
+    final ResolvedWriterColumn.Resolution resolution =
+        mColumn.resolve(mCellWriter.getLayoutCapsule());
+    final byte[] encoded = resolution.getCellEncoder().encode(value);
+    mCellWriter.writeCell(entityId, resolution.getHBaseFamily(), resolution.getHBaseQualifier(),
+        timestamp, encoded);
+  }
+}
@@ -19,10 +19,12 @@
 
 package org.kiji.schema.layout.impl;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,12 +51,92 @@ public final class ColumnNameTranslator {
   /** Used to separate the Kiji family from the Kiji qualifier in an HBase qualifier. */
   public static final String SEPARATOR = ":";
 
+  /** Byte separating the Kiji family from the Kiji qualifier in an HBase qualifier. */
+  private static final byte SEPARATOR_BYTE = (byte) ':';
+
+  /**
+   * Maximum number of digits of a ColumnId decoded from HBase bytes.
+   * Longer IDs are left to the slow translation path.
+   */
+  private static final int MAX_ID_DIGITS = 4;
+
+  /** Value of each ColumnId digit, indexed by ASCII code, or -1 if not a ColumnId digit. */
+  private static final int[] DIGIT_VALUES = new int[128];
+  static {
+    Arrays.fill(DIGIT_VALUES, -1);
+    for (int i = 0; i < ColumnId.ALPHABET.length(); ++i) {
+      DIGIT_VALUES[ColumnId.ALPHABET.charAt(i)] = i;
+    }
+  }
+
   /** The table to translate names for. */
   private final KijiTableLayout mTableLayout;
 
   /** A map from ColumnId to its locality group. */
   private final Map<ColumnId, LocalityGroupLayout> mLocalityGroups;
 
+  /** Translation tables of the locality groups. Built once and never modified afterwards. */
+  private final LocalityGroupTable[] mLocalityGroupTables;
+
+  /** Translation table for the families of a locality group. */
+  private static final class LocalityGroupTable {
+    /** HBase family of the locality group. */
+    private final byte[] mHBaseFamily;
+
+    /** Families of the locality group, indexed by ColumnId. Null entries for unused IDs. */
+    private final FamilyTable[] mFamilies;
+
+    /**
+     * Builds the translation table of a locality group.
+     *
+     * @param localityGroup Layout of the locality group.
+     */
+    private LocalityGroupTable(LocalityGroupLayout localityGroup) {
+      mHBaseFamily = toHBaseFamily(localityGroup.getId());
+      int maxId = 0;
+      for (FamilyLayout family : localityGroup.getFamilies()) {
+        maxId = Math.max(maxId, family.getId().getId());
+      }
+      mFamilies = new FamilyTable[maxId + 1];
+      for (FamilyLayout family : localityGroup.getFamilies()) {
+        mFamilies[family.getId().getId()] = new FamilyTable(family);
+      }
+    }
+  }
+
+  /** Translation table for the columns of a family. */
+  private static final class FamilyTable {
+    /** Name of the Kiji family. */
+    private final String mName;
+
+    /**
+     * For group-type families, Kiji names of the columns, indexed by ColumnId,
+     * with null entries for unused IDs. Null for map-type families.
+     */
+    private final KijiColumnName[] mColumns;
+
+    /**
+     * Builds the translation table of a family.
+     *
+     * @param family Layout of the family.
+     */
+    private FamilyTable(FamilyLayout family) {
+      mName = family.getDesc().getName();
+      if (family.isGroupType()) {
+        int maxId = 0;
+        for (ColumnId columnId : family.getColumnIdNameMap().keySet()) {
+          maxId = Math.max(maxId, columnId.getId());
+        }
+        mColumns = new KijiColumnName[maxId + 1];
+        for (Map.Entry<ColumnId, String> entry : family.getColumnIdNameMap().entrySet()) {
+          mColumns[entry.getKey().getId()] = new KijiColumnName(mName, entry.getValue());
+        }
+      } else {
+        mColumns = null;
+      }
+    }
+  }
+
   /**
    * Creates a new <code>ColumnNameTranslator</code> instance.
    *
@@ -70,6 +152,12 @@ public final class ColumnNameTranslator {
       final String lgName = entry.getValue();
       mLocalityGroups.put(lgId, mTableLayout.getLocalityGroupMap().get(lgName));
     }
+
+    mLocalityGroupTables = new LocalityGroupTable[mLocalityGroups.size()];
+    int index = 0;
+    for (LocalityGroupLayout localityGroup : mLocalityGroups.values()) {
+      mLocalityGroupTables[index++] = new LocalityGroupTable(localityGroup);
+    }
   }
 
   /**
@@ -81,8 +169,143 @@ public final class ColumnNameTranslator {
    */
   public KijiColumnName toKijiColumnName(HBaseColumnName hbaseColumnName)
       throws NoSuchColumnException {
-    LOG.debug(String.format("Translating HBase column name '%s' to Kiji column name...",
-        hbaseColumnName));
+    return toKijiColumnName(hbaseColumnName.getFamily(), hbaseColumnName.getQualifier());
+  }
+
+  /**
+   * Translates an HBase column name to a Kiji column name.
+   *
+   * @param hbaseFamily The HBase family.
+   * @param hbaseQualifier The HBase qualifier.
+   * @return The Kiji column name.
+   * @throws NoSuchColumnException If the column name cannot be found.
+   */
+  public KijiColumnName toKijiColumnName(byte[] hbaseFamily, byte[] hbaseQualifier)
+      throws NoSuchColumnException {
+    final KijiColumnName columnName = lookupKijiColumnName(
+        hbaseFamily, 0, hbaseFamily.length, hbaseQualifier, 0, hbaseQualifier.length);
+    if (null != columnName) {
+      return columnName;
+    }
+    return parseKijiColumnName(new HBaseColumnName(hbaseFamily, hbaseQualifier));
+  }
+
+  /**
+   * Translates the HBase column of a KeyValue to a Kiji column name.
+   *
+   * <p>
+   *   The column is translated directly from the KeyValue buffer: group-type columns translate
+   *   to a KijiColumnName instance shared by all the lookups, and map-type columns only allocate
+   *   the Kiji qualifier and the KijiColumnName.
+   * </p>
+   *
+   * @param kv KeyValue whose column is to be translated.
+   * @return The Kiji column name.
+   * @throws NoSuchColumnException If the column name cannot be found.
+   */
+  public KijiColumnName toKijiColumnName(KeyValue kv) throws NoSuchColumnException {
+    final byte[] buffer = kv.getBuffer();
+    final KijiColumnName columnName = lookupKijiColumnName(
+        buffer, kv.getFamilyOffset(), kv.getFamilyLength(),
+        buffer, kv.getQualifierOffset(), kv.getQualifierLength());
+    if (null != columnName) {
+      return columnName;
+    }
+    return parseKijiColumnName(new HBaseColumnName(kv.getFamily(), kv.getQualifier()));
+  }
+
+  /**
+   * Translates an HBase column to a Kiji column name using the translation tables.
+   *
+   * @param family Buffer containing the HBase family.
+   * @param familyOffset Offset of the HBase family in its buffer.
+   * @param familyLength Length of the HBase family.
+   * @param qualifier Buffer containing the HBase qualifier.
+   * @param qualifierOffset Offset of the HBase qualifier in its buffer.
+   * @param qualifierLength Length of the HBase qualifier.
+   * @return the Kiji column name, or null if the HBase column cannot be translated with the
+   *     translation tables. Callers should fall back to the slow path to report the error.
+   */
+  private KijiColumnName lookupKijiColumnName(
+      byte[] family, int familyOffset, int familyLength,
+      byte[] qualifier, int qualifierOffset, int qualifierLength) {
+    LocalityGroupTable localityGroup = null;
+    for (LocalityGroupTable table : mLocalityGroupTables) {
+      if (Bytes.equals(table.mHBaseFamily, 0, table.mHBaseFamily.length,
+          family, familyOffset, familyLength)) {
+        localityGroup = table;
+        break;
+      }
+    }
+    if (null == localityGroup) {
+      return null;
+    }
+
+    final int qualifierEnd = qualifierOffset + qualifierLength;
+    int separator = qualifierOffset;
+    while ((separator < qualifierEnd) && (qualifier[separator] != SEPARATOR_BYTE)) {
+      separator += 1;
+    }
+    if (separator == qualifierEnd) {
+      return null;
+    }
+
+    final int familyId = decodeColumnId(qualifier, qualifierOffset, separator);
+    if ((familyId < 0) || (familyId >= localityGroup.mFamilies.length)) {
+      return null;
+    }
+    final FamilyTable familyTable = localityGroup.mFamilies[familyId];
+    if (null == familyTable) {
+      return null;
+    }
+
+    if (null == familyTable.mColumns) {
+      // Map type family: the Kiji qualifier is the remainder of the HBase qualifier.
+      return new KijiColumnName(familyTable.mName,
+          Bytes.toString(qualifier, separator + 1, qualifierEnd - separator - 1));
+    }
+
+    // Group type family.
+    final int columnId = decodeColumnId(qualifier, separator + 1, qualifierEnd);
+    if ((columnId < 0) || (columnId >= familyTable.mColumns.length)) {
+      return null;
+    }
+    return familyTable.mColumns[columnId];
+  }
+
+  /**
+   * Decodes a ColumnId encoded in HBase bytes, as done by {@link ColumnId#fromString(String)}.
+   *
+   * @param bytes Buffer containing the encoded ColumnId.
+   * @param start Offset of the first digit (least significant).
+   * @param end Offset after the last digit (most significant).
+   * @return the decoded ColumnId, or -1 if the bytes cannot be decoded by the fast path.
+   */
+  private static int decodeColumnId(byte[] bytes, int start, int end) {
+    if ((end - start) > MAX_ID_DIGITS) {
+      return -1;
+    }
+    int id = 0;
+    for (int i = start; i < end; ++i) {
+      final int b = bytes[i];
+      if ((b < 0) || (DIGIT_VALUES[b] < 0)) {
+        return -1;
+      }
+      id += DIGIT_VALUES[b] << ((i - start) * ColumnId.BITS_PER_DIGIT);
+    }
+    return id;
+  }
+
+  /**
+   * Translates an HBase column name to a Kiji column name, by parsing the HBase column name.
+   *
+   * @param hbaseColumnName The HBase column name.
+   * @return The Kiji column name.
+   * @throws NoSuchColumnException If the column name cannot be found.
+   */
+  private KijiColumnName parseKijiColumnName(HBaseColumnName hbaseColumnName)
+      throws NoSuchColumnException {
+    LOG.debug("Translating HBase column name '{}' to Kiji column name...", hbaseColumnName);
     final ColumnId lgId = ColumnId.fromByteArray(hbaseColumnName.getFamily());
     final LocalityGroupLayout localityGroup = mLocalityGroups.get(lgId);
     if (null == localityGroup) {
@@ -119,14 +342,14 @@ public final class ColumnNameTranslator {
       }
       final KijiColumnName result =
           new KijiColumnName(kijiFamily.getDesc().getName(), kijiColumn.getDesc().getName());
-      LOG.debug(String.format("Translated to Kiji group column '%s'.", result));
+      LOG.debug("Translated to Kiji group column '{}'.", result);
       return result;
     }
 
     // Map type family.
     assert kijiFamily.isMapType();
     final KijiColumnName result = new KijiColumnName(kijiFamily.getDesc().getName(), parts[1]);
-    LOG.debug(String.format("Translated to Kiji map column '%s'.", result));
+    LOG.debug("Translated to Kiji map column '{}'.", result);
     return result;
   }
 
@@ -22,15 +22,24 @@ package org.kiji.schema;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.google.common.collect.Lists;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.kiji.schema.KijiBufferedWriter.KijiBufferedWriterOptions;
+import org.kiji.schema.KijiDataRequestBuilder.ColumnsDef;
 import org.kiji.schema.layout.KijiTableLayout;
 import org.kiji.schema.layout.KijiTableLayouts;
 import org.kiji.schema.util.InstanceBuilder;
@@ -196,4 +205,188 @@ public class TestHBaseKijiBufferedWriter extends KijiClientTest {
     assertFalse(mReader.get(oldEntityId, request).containsColumn("info", "name"));
     assertTrue(mReader.get(newEntityId, request).containsColumn("info", "name"));
   }
+
+  @Test
+  public void testColumnPutter() throws Exception {
+    final EntityId entityId = mTable.getEntityId("bar");
+    final KijiDataRequest request = KijiDataRequest.create("info", "name");
+
+    // Buffer a put through the column putter and confirm it has not been written.
+    final KijiColumnPutter name = mBufferedWriter.column("info", "name");
+    name.put(entityId, 123L, "baz");
+    assertFalse(mReader.get(entityId, request).containsCell("info", "name", 123L));
+
+    // Flush the buffer and confirm the new value has been written.
+    mBufferedWriter.flush();
+    final String actual = mReader.get(entityId, request).getValue("info", "name", 123L).toString();
+    assertEquals("baz", actual);
+  }
+
+  @Test
+  public void testFlushPreservesRowOrder() throws Exception {
+    final EntityId entityId = mTable.getEntityId("foo");
+    final EntityId otherId = mTable.getEntityId("bar");
+    final KijiDataRequest request = KijiDataRequest.builder()
+        .addColumns(ColumnsDef.create().withMaxVersions(10).add("info", "name"))
+        .build();
+
+    // Buffer a put, a delete covering it, then a put the delete does not cover.
+    mBufferedWriter.put(entityId, "info", "name", 10L, "deleted");
+    mBufferedWriter.put(otherId, "info", "name", 10L, "other");
+    mBufferedWriter.deleteColumn(entityId, "info", "name", 15L);
+    mBufferedWriter.put(entityId, "info", "name", 20L, "kept");
+    mBufferedWriter.flush();
+
+    final KijiRowData row = mReader.get(entityId, request);
+    assertFalse(row.containsCell("info", "name", 1L));
+    assertFalse(row.containsCell("info", "name", 10L));
+    assertEquals("kept", row.getValue("info", "name", 20L).toString());
+    assertEquals("other", mReader.get(otherId, request).getValue("info", "name", 10L).toString());
+  }
+
+  @Test
+  public void testFlushManyRows() throws Exception {
+    final int numRows = 1000;
+    final KijiDataRequest request = KijiDataRequest.create("info", "name");
+    mBufferedWriter.setBufferSize(64L * 1024L);
+
+    final long startTime = System.currentTimeMillis();
+    for (int i = 0; i < numRows; ++i) {
+      final EntityId entityId = mTable.getEntityId("row" + i);
+      mBufferedWriter.put(entityId, "info", "name", 1L, "name" + i);
+      if (i % 10 == 0) {
+        mBufferedWriter.deleteRow(entityId);
+      }
+    }
+    mBufferedWriter.flush();
+    LOG.debug("Buffered and flushed {} rows in {} ms.",
+        numRows, System.currentTimeMillis() - startTime);
+
+    for (int i = 0; i < numRows; ++i) {
+      final KijiRowData row = mReader.get(mTable.getEntityId("row" + i), request);
+      if (i % 10 == 0) {
+        assertFalse(row.containsColumn("info", "name"));
+      } else {
+        assertEquals("name" + i, row.getMostRecentValue("info", "name").toString());
+      }
+    }
+  }
+
+  @Test
+  public void testAsyncFlush() throws Exception {
+    final KijiDataRequest request = KijiDataRequest.create("info", "name");
+    final KijiBufferedWriter writer = mTable.getWriterFactory().openBufferedWriter(
+        new KijiBufferedWriterOptions().setAsyncFlush(2));
+    try {
+      // Every put overflows the buffer and is flushed in the background:
+      writer.setBufferSize(1L);
+      final KijiColumnPutter name = writer.column("info", "name");
+      for (int i = 0; i < 100; ++i) {
+        name.put(mTable.getEntityId("row" + i), 1L, "name" + i);
+        if (i % 10 == 0) {
+          writer.deleteRow(mTable.getEntityId("row" + i));
+        }
+      }
+      writer.flush();
+
+      for (int i = 0; i < 100; ++i) {
+        final KijiRowData row = mReader.get(mTable.getEntityId("row" + i), request);
+        if (i % 10 == 0) {
+          assertFalse(row.containsColumn("info", "name"));
+        } else {
+          assertEquals("name" + i, row.getMostRecentValue("info", "name").toString());
+        }
+      }
+
+      // Close waits for the pending background flushes:
+      writer.put(mTable.getEntityId("last"), "info", "name", 1L, "last");
+    } finally {
+      writer.close();
+    }
+    assertEquals("last", mReader.get(mTable.getEntityId("last"), request)
+        .getMostRecentValue("info", "name").toString());
+  }
+
+  @Test
+  public void testConcurrentStripedWrites() throws Exception {
+    final int numThreads = 8;
+    final int numRowsPerThread = 50;
+    final KijiBufferedWriter writer = mTable.getWriterFactory().openBufferedWriter(
+        new KijiBufferedWriterOptions().setStripes(4));
+    final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      writer.setBufferSize(4L * 1024L);
+      final List<Future<Void>> futures = Lists.newArrayList();
+      for (int t = 0; t < numThreads; ++t) {
+        final int thread = t;
+        futures.add(executor.submit(new Callable<Void>() {
+          /** {@inheritDoc} */
+          @Override
+          public Void call() throws Exception {
+            for (int i = 0; i < numRowsPerThread; ++i) {
+              final EntityId entityId = mTable.getEntityId(String.format("row-%d-%d", thread, i));
+              writer.put(entityId, "info", "name", 1L, "deleted");
+              writer.deleteColumn(entityId, "info", "name", 1L);
+              writer.put(entityId, "info", "name", 2L, "kept");
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      writer.flush();
+    } finally {
+      executor.shutdown();
+      writer.close();
+    }
+
+    final KijiDataRequest request = KijiDataRequest.builder()
+        .addColumns(ColumnsDef.create().withMaxVersions(10).add("info", "name"))
+        .build();
+    for (int t = 0; t < numThreads; ++t) {
+      for (int i = 0; i < numRowsPerThread; ++i) {
+        final EntityId entityId = mTable.getEntityId(String.format("row-%d-%d", t, i));
+        final KijiRowData row = mReader.get(entityId, request);
+        assertFalse(row.containsCell("info", "name", 1L));
+        assertEquals("kept", row.getValue("info", "name", 2L).toString());
+      }
+    }
+  }
+
+  @Test
+  public void testWriterThrottleAppliesWhenSending() throws Exception {
+    final KijiWriteThrottle throttle = new KijiWriteThrottle();
+    throttle.setBackpressure(KijiWriteThrottle.Backpressure.REJECT);
+    throttle.setMaxMutationsPerSecond(1L);
+    final KijiBufferedWriter writer = mTable.getWriterFactory().openBufferedWriter(throttle);
+    final KijiDataRequest request = KijiDataRequest.create("info", "name");
+    try {
+      // Buffering is never throttled, and a batch larger than the rate goes through when the
+      // bucket is full:
+      writer.put(mTable.getEntityId("row1"), "info", "name", 1L, "one");
+      writer.put(mTable.getEntityId("row2"), "info", "name", 1L, "two");
+      writer.flush();
+      assertEquals(0L, throttle.getThrottledCount());
+
+      writer.put(mTable.getEntityId("row3"), "info", "name", 1L, "three");
+      try {
+        writer.flush();
+        fail("An exception should have been thrown.");
+      } catch (KijiWriteThrottle.ThrottledException te) {
+        LOG.debug("Expected exception: {}", te.getMessage());
+      }
+      assertEquals(1L, throttle.getThrottledCount());
+      assertFalse(mReader.get(mTable.getEntityId("row3"), request).containsColumn("info", "name"));
+
+      // The rejected mutations stay buffered, and are sent by the next flush:
+      throttle.setMaxMutationsPerSecond(KijiWriteThrottle.UNLIMITED);
+      writer.flush();
+      assertEquals("three", mReader.get(mTable.getEntityId("row3"), request)
+          .getMostRecentValue("info", "name").toString());
+    } finally {
+      writer.close();
+    }
+  }
 }
@@ -0,0 +1,189 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.schema.KijiCoalescingIncrementer.KijiCoalescingIncrementerOptions;
+import org.kiji.schema.layout.KijiTableLayout;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+
+public class TestHBaseKijiCoalescingIncrementer extends KijiClientTest {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TestHBaseKijiCoalescingIncrementer.class);
+
+  private Kiji mKiji;
+  private KijiTable mTable;
+  private KijiCoalescingIncrementer mIncrementer;
+  private KijiTableReader mReader;
+
+  @Before
+  public final void setupEnvironment() throws Exception {
+    // Get the test table layouts.
+    final KijiTableLayout layout = KijiTableLayout.newLayout(
+        KijiTableLayouts.getLayout(KijiTableLayouts.COUNTER_TEST));
+
+    // Populate the environment.
+    mKiji = new InstanceBuilder(getKiji())
+        .withTable("user", layout)
+            .withRow("foo")
+                .withFamily("info")
+                    .withQualifier("name").withValue(1L, "foo-val")
+                    .withQualifier("visits").withValue(1L, 42L)
+            .withRow("bar")
+                .withFamily("info")
+                    .withQualifier("visits").withValue(1L, 100L)
+        .build();
+
+    // Fill local variables.
+    mTable = mKiji.openTable("user");
+    mIncrementer = mTable.getWriterFactory().openCoalescingIncrementer();
+    mReader = mTable.openTableReader();
+  }
+
+  @After
+  public final void cleanupEnvironment() throws IOException {
+    mIncrementer.close();
+    mReader.close();
+    mTable.release();
+  }
+
+  /**
+   * Reads the current value of a visits counter.
+   *
+   * @param row Row of the counter.
+   * @return the current value of the counter.
+   * @throws IOException on I/O error.
+   */
+  private long getVisits(String row) throws IOException {
+    final KijiDataRequest request = KijiDataRequest.create("info", "visits");
+    final KijiCell<Long> counter =
+        mReader.get(mTable.getEntityId(row), request).getMostRecentCell("info", "visits");
+    return counter.getData();
+  }
+
+  @Test
+  public void testCoalesceUntilFlush() throws Exception {
+    final EntityId foo = mTable.getEntityId("foo");
+    final EntityId bar = mTable.getEntityId("bar");
+    for (int i = 0; i < 100; ++i) {
+      mIncrementer.increment(foo, "info", "visits", 2L);
+      mIncrementer.increment(bar, "info", "visits", -1L);
+    }
+    assertEquals(200L, mIncrementer.getPendingDelta(foo, "info", "visits"));
+    assertEquals(-100L, mIncrementer.getPendingDelta(bar, "info", "visits"));
+
+    // Nothing is sent before the flush:
+    assertEquals(42L, getVisits("foo"));
+    assertEquals(100L, getVisits("bar"));
+
+    mIncrementer.flush();
+    assertEquals(0L, mIncrementer.getPendingDelta(foo, "info", "visits"));
+    assertEquals(242L, getVisits("foo"));
+    assertEquals(0L, getVisits("bar"));
+  }
+
+  @Test
+  public void testFlushOnMaxPendingDeltas() throws Exception {
+    final KijiCoalescingIncrementer incrementer = mTable.getWriterFactory()
+        .openCoalescingIncrementer(new KijiCoalescingIncrementerOptions().setMaxPendingDeltas(1));
+    try {
+      final EntityId foo = mTable.getEntityId("foo");
+      final EntityId bar = mTable.getEntityId("bar");
+      incrementer.increment(foo, "info", "visits", 1L);
+      incrementer.increment(foo, "info", "visits", 1L);
+      assertEquals(42L, getVisits("foo"));
+
+      // A second counter exceeds the maximum number of pending deltas:
+      incrementer.increment(bar, "info", "visits", 5L);
+      assertEquals(44L, getVisits("foo"));
+      assertEquals(100L, getVisits("bar"));
+      assertEquals(5L, incrementer.getPendingDelta(bar, "info", "visits"));
+    } finally {
+      incrementer.close();
+    }
+    assertEquals(105L, getVisits("bar"));
+  }
+
+  @Test
+  public void testDurabilityWindow() throws Exception {
+    final KijiCoalescingIncrementer incrementer = mTable.getWriterFactory()
+        .openCoalescingIncrementer(new KijiCoalescingIncrementerOptions()
+            .setDurabilityWindow(50L, TimeUnit.MILLISECONDS));
+    try {
+      final EntityId foo = mTable.getEntityId("foo");
+      incrementer.increment(foo, "info", "visits", 3L);
+
+      final long deadline = System.currentTimeMillis() + 10000L;
+      while ((getVisits("foo") != 45L) && (System.currentTimeMillis() < deadline)) {
+        Thread.sleep(10L);
+      }
+      assertEquals(0L, incrementer.getPendingDelta(foo, "info", "visits"));
+      assertEquals(45L, getVisits("foo"));
+    } finally {
+      incrementer.close();
+    }
+  }
+
+  @Test
+  public void testParallelSends() throws Exception {
+    final int numRows = 20;
+    final KijiCoalescingIncrementer incrementer = mTable.getWriterFactory()
+        .openCoalescingIncrementer(new KijiCoalescingIncrementerOptions().setSendThreads(4));
+    try {
+      for (int i = 0; i < numRows; ++i) {
+        incrementer.increment(mTable.getEntityId("row" + i), "info", "visits", i);
+        incrementer.increment(mTable.getEntityId("row" + i), "info", "visits", 1L);
+      }
+      incrementer.flush();
+      for (int i = 0; i < numRows; ++i) {
+        final EntityId entityId = mTable.getEntityId("row" + i);
+        assertEquals(0L, incrementer.getPendingDelta(entityId, "info", "visits"));
+      }
+    } finally {
+      incrementer.close();
+    }
+    for (int i = 0; i < numRows; ++i) {
+      assertEquals(i + 1L, getVisits("row" + i));
+    }
+  }
+
+  @Test
+  public void testIncrementNonCounter() throws Exception {
+    try {
+      mIncrementer.increment(mTable.getEntityId("foo"), "info", "name", 1L);
+      fail("Incrementing a non-counter column should fail.");
+    } catch (IOException ioe) {
+      LOG.debug("Expected exception: {}", ioe.getMessage());
+    }
+  }
+}
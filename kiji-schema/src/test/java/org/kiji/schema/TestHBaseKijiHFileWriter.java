@@ -0,0 +1,257 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFile;
+import org.apache.hadoop.hbase.io.hfile.HFileScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.schema.impl.HBaseKijiHFileWriter;
+import org.kiji.schema.impl.HBaseKijiTable;
+import org.kiji.schema.layout.KijiTableLayouts;
+
+public class TestHBaseKijiHFileWriter extends KijiClientTest {
+  private static final Logger LOG = LoggerFactory.getLogger(TestHBaseKijiHFileWriter.class);
+
+  private static final int NUM_REGIONS = 3;
+
+  private KijiTable mTable;
+  private Path mOutputPath;
+  private FileSystem mFileSystem;
+
+  @Before
+  public final void setupEnvironment() throws Exception {
+    getKiji().createTable(KijiTableLayouts.getLayout(KijiTableLayouts.FULL_FEATURED), NUM_REGIONS);
+    mTable = getKiji().openTable("user");
+    mOutputPath = new Path(new File(getLocalTempDir(), "hfiles").toURI());
+    mFileSystem = mOutputPath.getFileSystem(getConf());
+  }
+
+  @After
+  public final void cleanupEnvironment() throws IOException {
+    mTable.release();
+  }
+
+  /**
+   * Reads all the cells of the HFiles written for one region of the table, checking they are
+   * sorted and within the region.
+   *
+   * @param partDir Part directory written by a flush.
+   * @param cells Cells read so far, to append to.
+   * @throws IOException on I/O error.
+   */
+  private void readPart(Path partDir, List<KeyValue> cells) throws IOException {
+    final List<byte[]> startKeys = Lists.newArrayList();
+    for (KijiRegion region : mTable.getRegions()) {
+      startKeys.add(region.getStartKey());
+    }
+    Collections.sort(startKeys, Bytes.BYTES_COMPARATOR);
+    assertEquals(NUM_REGIONS, startKeys.size());
+
+    for (FileStatus familyDir : mFileSystem.listStatus(partDir)) {
+      for (FileStatus hfile : mFileSystem.listStatus(familyDir.getPath())) {
+        final String name = hfile.getPath().getName();
+        assertTrue(name, name.startsWith("region-"));
+        final int region = Integer.parseInt(name.substring("region-".length()));
+        final byte[] startKey = startKeys.get(region);
+        final byte[] endKey =
+            (region + 1 < startKeys.size()) ? startKeys.get(region + 1) : null;
+
+        final HFile.Reader reader =
+            HFile.createReader(mFileSystem, hfile.getPath(), new CacheConfig(getConf()));
+        try {
+          reader.loadFileInfo();
+          final HFileScanner scanner = reader.getScanner(false, false);
+          KeyValue previous = null;
+          if (scanner.seekTo()) {
+            do {
+              final KeyValue kv = scanner.getKeyValue();
+              if (previous != null) {
+                assertTrue(KeyValue.COMPARATOR.compare(previous, kv) < 0);
+              }
+              assertTrue(Bytes.compareTo(kv.getRow(), startKey) >= 0);
+              assertTrue((endKey == null) || (Bytes.compareTo(kv.getRow(), endKey) < 0));
+              cells.add(kv);
+              previous = kv;
+            } while (scanner.next());
+          }
+        } finally {
+          reader.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests whether an encoded string cell holds the specified string.
+   *
+   * @param kv Cell to test.
+   * @param value Expected string.
+   * @return whether the cell holds the specified string.
+   */
+  private static boolean holdsString(KeyValue kv, String value) {
+    final byte[] expected = Bytes.toBytes(value);
+    final byte[] actual = kv.getValue();
+    return (actual.length > expected.length)
+        && Bytes.equals(expected, 0, expected.length,
+            actual, actual.length - expected.length, expected.length);
+  }
+
+  @Test
+  public void testFlushSortsSpilledPutsByRegion() throws Exception {
+    final File spillDir = new File(getLocalTempDir(), "spill");
+    assertTrue(spillDir.mkdirs());
+    final int numRows = 500;
+
+    final KijiHFileWriter writer = new HBaseKijiHFileWriter((HBaseKijiTable) mTable,
+        new HBaseKijiHFileWriter.Options()
+            .withOutputPath(mOutputPath)
+            .withBufferSize(4 * 1024)
+            .withSpillDirectory(spillDir));
+    try {
+      for (int i = 0; i < numRows; i++) {
+        writer.put(mTable.getEntityId("row-" + i), "info", "name", 1L, "name-" + i);
+      }
+      // Overwrite some cells: the last put wins, across spilled runs and the buffer.
+      final KijiColumnPutter putter = writer.column("info", "name");
+      for (int i = 0; i < numRows; i += 5) {
+        putter.put(mTable.getEntityId("row-" + i), 1L, "updated");
+      }
+      assertTrue("Buffer was not spilled.", spillDir.list().length > 1);
+
+      writer.flush();
+      assertEquals(0, spillDir.list().length);
+    } finally {
+      writer.close();
+    }
+
+    final List<KeyValue> cells = Lists.newArrayList();
+    readPart(new Path(mOutputPath, "part-00000.hfile"), cells);
+    assertEquals(numRows, cells.size());
+    int numUpdated = 0;
+    for (KeyValue kv : cells) {
+      assertEquals(1L, kv.getTimestamp());
+      if (holdsString(kv, "updated")) {
+        numUpdated += 1;
+      }
+    }
+    assertEquals(numRows / 5, numUpdated);
+  }
+
+  @Test
+  public void testFlushMergesRunsInPasses() throws Exception {
+    final File spillDir = new File(getLocalTempDir(), "spill");
+    assertTrue(spillDir.mkdirs());
+    final int numRows = 500;
+
+    // Merging two sources at a time requires several merge passes:
+    final KijiHFileWriter writer = new HBaseKijiHFileWriter((HBaseKijiTable) mTable,
+        new HBaseKijiHFileWriter.Options()
+            .withOutputPath(mOutputPath)
+            .withBufferSize(4 * 1024)
+            .withSpillDirectory(spillDir)
+            .withMaxMergeFanIn(2));
+    try {
+      for (int i = 0; i < numRows; i++) {
+        writer.put(mTable.getEntityId("row-" + i), "info", "name", 1L, "name-" + i);
+      }
+      // Overwrite the cells of the oldest runs: the newest put wins across merge passes.
+      for (int i = 0; i < numRows; i += 5) {
+        writer.put(mTable.getEntityId("row-" + i), "info", "name", 1L, "updated");
+      }
+      assertTrue("Buffer was not spilled enough.", spillDir.list().length > 2);
+
+      writer.flush();
+      assertEquals(0, spillDir.list().length);
+    } finally {
+      writer.close();
+    }
+
+    final List<KeyValue> cells = Lists.newArrayList();
+    readPart(new Path(mOutputPath, "part-00000.hfile"), cells);
+    assertEquals(numRows, cells.size());
+    int numUpdated = 0;
+    for (KeyValue kv : cells) {
+      if (holdsString(kv, "updated")) {
+        numUpdated += 1;
+      }
+    }
+    assertEquals(numRows / 5, numUpdated);
+  }
+
+  @Test
+  public void testFlushWritesNewPart() throws Exception {
+    final KijiHFileWriter writer = mTable.getWriterFactory().openHFileWriter(mOutputPath);
+    try {
+      final long before = System.currentTimeMillis();
+      writer.put(mTable.getEntityId("row-1"), "info", "name", "first");
+      writer.flush();
+      writer.put(mTable.getEntityId("row-1"), "info", "email", "second");
+      writer.put(mTable.getEntityId("row-2"), "info", "name", 5L, "second");
+      writer.close();
+
+      final List<KeyValue> first = Lists.newArrayList();
+      readPart(new Path(mOutputPath, "part-00000.hfile"), first);
+      assertEquals(1, first.size());
+      final long timestamp = first.get(0).getTimestamp();
+      assertTrue(timestamp != HConstants.LATEST_TIMESTAMP);
+      assertTrue(timestamp >= before);
+
+      final List<KeyValue> second = Lists.newArrayList();
+      readPart(new Path(mOutputPath, "part-00001.hfile"), second);
+      assertEquals(2, second.size());
+    } finally {
+      // Closing twice only logs an error.
+      writer.close();
+    }
+  }
+
+  @Test
+  public void testNonEmptyOutputRejected() throws Exception {
+    assertTrue(mFileSystem.mkdirs(new Path(mOutputPath, "existing")));
+    try {
+      mTable.getWriterFactory().openHFileWriter(mOutputPath);
+      fail("HFile writer should not write to a non-empty directory.");
+    } catch (IOException ioe) {
+      LOG.debug("Expected exception: {}", ioe.getMessage());
+    }
+  }
+}
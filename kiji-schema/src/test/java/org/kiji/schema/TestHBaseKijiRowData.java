@@ -19,9 +19,11 @@
 
 package org.kiji.schema;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -266,6 +268,43 @@ public class TestHBaseKijiRowData extends KijiClientTest {
     assertTrue(input.getMap().isEmpty());
   }
 
+  /** Tests reading a wide row, with cells indexed directly from the HBase Result. */
+  @Test
+  public void testReadWideRow() throws IOException {
+    final int numCells = 10000;
+    final ColumnNameTranslator translator = mTable.getLayoutCapsule().getColumnNameTranslator();
+    final List<KeyValue> kvs = Lists.newArrayList();
+    final EntityId eid = mEntityIdFactory.getEntityId("row0");
+    final byte[] hbaseRowKey = eid.getHBaseRowKey();
+    kvs.add(new KeyValue(hbaseRowKey, mHBaseFamily, mHBaseQual1, 2L, encodeStr("new")));
+    kvs.add(new KeyValue(hbaseRowKey, mHBaseFamily, mHBaseQual1, 1L, encodeStr("old")));
+    for (int i = 0; i < numCells; ++i) {
+      final byte[] qualifier = translator.toHBaseColumnName(
+          new KijiColumnName("map", String.format("key%05d", i))).getQualifier();
+      kvs.add(new KeyValue(hbaseRowKey, mHBaseMapFamily, qualifier, 1L, encodeInt(i)));
+    }
+    final Result result = new Result(kvs);
+
+    final KijiDataRequest dataRequest = KijiDataRequest.builder()
+        .addColumns(ColumnsDef.create().withMaxVersions(2).add("family", "qual1"))
+        .addColumns(ColumnsDef.create().addFamily("map"))
+        .build();
+    final HBaseKijiRowData input = new HBaseKijiRowData(mTable, dataRequest, eid, result, null);
+
+    assertEquals("new", input.getMostRecentValue("family", "qual1").toString());
+    assertEquals("old", input.getValue("family", "qual1", 1L).toString());
+    assertEquals(2, input.getCells("family", "qual1").size());
+    assertTrue(input.containsCell("family", "qual1", 1L));
+    assertFalse(input.containsCell("family", "qual1", 3L));
+    assertFalse(input.containsColumn("family", "qual0"));
+
+    assertEquals(1234, ((Integer) input.getMostRecentValue("map", "key01234")).intValue());
+    assertEquals(numCells, input.getQualifiers("map").size());
+    assertEquals("key00000", input.getQualifiers("map").first());
+    assertEquals(2, input.getMap().size());
+    assertEquals(numCells, input.getMap().get("map").size());
+  }
+
   @Test
   public void testReadWithMaxVersions() throws IOException {
     final List<KeyValue> kvs = Lists.newArrayList();
@@ -487,6 +526,137 @@ public class TestHBaseKijiRowData extends KijiClientTest {
         ((Node) input.getValue("family", "nodequal0", 200L)).getLabel().toString());
   }
 
+  @Test
+  public void testReadWithReuse() throws IOException {
+    final List<KeyValue> kvs = Lists.newArrayList();
+    final EntityId eid = mEntityIdFactory.getEntityId("row0");
+    final byte[] hbaseRowKey = eid.getHBaseRowKey();
+    kvs.add(new KeyValue(hbaseRowKey, mHBaseFamily, mHBaseNodequal0, 100L, encodeNode(mNode0)));
+    kvs.add(new KeyValue(hbaseRowKey, mHBaseFamily, mHBaseNodequal0, 200L, encodeNode(mNode1)));
+    final Result result = new Result(kvs);
+
+    final KijiDataRequest dataRequest = KijiDataRequest.builder()
+        .addColumns(
+            ColumnsDef.create().withMaxVersions(Integer.MAX_VALUE).add("family", "nodequal0"))
+        .build();
+    final KijiRowData input = new HBaseKijiRowData(mTable, dataRequest, eid, result, null);
+
+    final Node reuse = new Node();
+    final Node mostRecent = input.getMostRecentValue("family", "nodequal0", reuse);
+    assertSame(reuse, mostRecent);
+    assertEquals("node1", mostRecent.getLabel());
+    final Node oldest = input.getValue("family", "nodequal0", 100L, reuse);
+    assertSame(reuse, oldest);
+    assertEquals("node0", oldest.getLabel());
+
+    // Each cell is decoded into the reused record as the iterator advances:
+    final Iterator<KijiCell<Node>> it = input.iterator("family", "nodequal0", reuse);
+    assertTrue(it.hasNext());
+    final KijiCell<Node> cell1 = it.next();
+    assertSame(reuse, cell1.getData());
+    assertEquals(200L, cell1.getTimestamp());
+    assertEquals("node1", cell1.getData().getLabel());
+    assertTrue(it.hasNext());
+    final KijiCell<Node> cell0 = it.next();
+    assertSame(reuse, cell0.getData());
+    assertEquals(100L, cell0.getTimestamp());
+    assertEquals("node0", cell0.getData().getLabel());
+    assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void testPrimitiveAccessors() throws IOException {
+    final List<KeyValue> kvs = Lists.newArrayList();
+    final EntityId eid = mEntityIdFactory.getEntityId("row0");
+    final byte[] hbaseRowKey = eid.getHBaseRowKey();
+    kvs.add(new KeyValue(hbaseRowKey, mHBaseFamily, mHBaseQual3, 3L, encodeInt(30)));
+    kvs.add(new KeyValue(hbaseRowKey, mHBaseFamily, mHBaseQual3, 2L, encodeInt(20)));
+    kvs.add(new KeyValue(hbaseRowKey, mHBaseFamily, mHBaseQual3, 1L, encodeInt(10)));
+    final Result result = new Result(kvs);
+
+    final KijiDataRequest dataRequest = KijiDataRequest.builder()
+        .addColumns(ColumnsDef.create().withMaxVersions(Integer.MAX_VALUE).add("family", "qual3"))
+        .build();
+    final KijiRowData input = new HBaseKijiRowData(mTable, dataRequest, eid, result, null);
+
+    assertEquals(30L, input.getMostRecentLong("family", "qual3", -1L));
+    assertArrayEquals(new long[] {3L, 2L, 1L}, input.getTimestampArray("family", "qual3"));
+    assertArrayEquals(new long[] {30L, 20L, 10L}, input.getLongValues("family", "qual3"));
+    assertArrayEquals(
+        new double[] {30.0, 20.0, 10.0}, input.getDoubleValues("family", "qual3"), 0.0);
+
+    // Columns with no cell in the row:
+    assertEquals(-1L, input.getMostRecentLong("family", "qual2", -1L));
+    assertEquals(0, input.getTimestampArray("family", "qual2").length);
+    assertEquals(0, input.getLongValues("family", "qual2").length);
+
+    // Columns not in the table layout:
+    try {
+      input.getLongValues("family", "no-such-qualifier");
+      fail("Column does not exist in the table layout.");
+    } catch (NoSuchColumnException nsce) {
+      LOG.debug("Expected exception: {}", nsce.getMessage());
+    }
+  }
+
+  @Test
+  public void testPrimitiveCounterAccessors() throws Exception {
+    final Kiji kiji = new InstanceBuilder(getKiji())
+        .withTable(KijiTableLayouts.getLayout(KijiTableLayouts.COUNTER_TEST))
+            .withRow("row1")
+                .withFamily("info")
+                    .withQualifier("visits")
+                        .withValue(1L, 10L)
+                        .withValue(2L, 20L)
+                    .withQualifier("name").withValue(1L, "name")
+        .build();
+    final KijiTable table = kiji.openTable("user");
+    try {
+      final KijiTableReader reader = table.openTableReader();
+      try {
+        final KijiDataRequest dataRequest = KijiDataRequest.builder()
+            .addColumns(ColumnsDef.create().withMaxVersions(Integer.MAX_VALUE)
+                .add("info", "visits")
+                .add("info", "name"))
+            .build();
+        final KijiRowData row = reader.get(table.getEntityId("row1"), dataRequest);
+        assertEquals(20L, row.getMostRecentLong("info", "visits", 0L));
+        assertArrayEquals(new long[] {2L, 1L}, row.getTimestampArray("info", "visits"));
+        assertArrayEquals(new long[] {20L, 10L}, row.getLongValues("info", "visits"));
+        assertArrayEquals(
+            new double[] {20.0, 10.0}, row.getDoubleValues("info", "visits"), 0.0);
+        try {
+          row.getLongValues("info", "name");
+          fail("String column should not decode as longs.");
+        } catch (IOException ioe) {
+          LOG.debug("Expected exception: {}", ioe.getMessage());
+        }
+
+        // A counter cell that does not hold exactly 8 bytes is reported, not misread:
+        final HBaseColumnName visits = HBaseKijiTable.downcast(table).getLayoutCapsule()
+            .getColumnNameTranslator().toHBaseColumnName(new KijiColumnName("info", "visits"));
+        final KeyValue counter = ((HBaseKijiRowData) row).getHBaseResult()
+            .getColumnLatest(visits.getFamily(), visits.getQualifier());
+        final List<KeyValue> kvs = Lists.newArrayList();
+        final KeyValue truncated = new KeyValue(counter.getRow(), counter.getFamily(),
+            counter.getQualifier(), counter.getTimestamp(), Bytes.toBytes(20));
+        kvs.add(truncated);
+        final KijiRowData truncatedRow = new HBaseKijiRowData(HBaseKijiTable.downcast(table),
+            dataRequest, table.getEntityId("row1"), new Result(kvs), null);
+        try {
+          truncatedRow.getMostRecentLong("info", "visits", 0L);
+          fail("Counter cell of 4 bytes should not decode.");
+        } catch (IOException ioe) {
+          assertTrue(ioe.getMessage(), ioe.getMessage().contains("info:visits"));
+        }
+      } finally {
+        reader.close();
+      }
+    } finally {
+      table.release();
+    }
+  }
+
   @Test
   public void testReadSpecificTypes() throws IOException {
     final List<KeyValue> kvs = Lists.newArrayList();
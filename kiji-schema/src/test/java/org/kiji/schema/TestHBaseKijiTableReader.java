@@ -20,13 +20,30 @@
 package org.kiji.schema;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.kiji.schema.KijiTableReader.KijiScannerOptions;
+import org.kiji.schema.avro.TableLayoutDesc;
+import org.kiji.schema.filter.HasColumnDataRowFilter;
+import org.kiji.schema.impl.HBaseKijiTable;
+import org.kiji.schema.impl.HBaseKijiTableReader;
+import org.kiji.schema.impl.KijiRowCache;
 import org.kiji.schema.layout.KijiTableLayout;
 import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.CloseableIterable;
 import org.kiji.schema.util.InstanceBuilder;
 
 public class TestHBaseKijiTableReader extends KijiClientTest {
@@ -96,4 +113,218 @@ public class TestHBaseKijiTableReader extends KijiClientTest {
     assertEquals("bar-val", actual2);
   }
 
+  @Test
+  public void testGetAsync() throws Exception {
+    final EntityId entityId = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("info", "name");
+    final ListenableFuture<KijiRowData> future = mReader.getAsync(entityId, request);
+    assertEquals("foo-val", future.get().getValue("info", "name", 1L).toString());
+  }
+
+  @Test
+  public void testBulkGetAsync() throws Exception {
+    final List<EntityId> entityIds =
+        Lists.newArrayList(mTable.getEntityId("foo"), mTable.getEntityId("bar"));
+    final KijiDataRequest request = KijiDataRequest.create("info", "name");
+    final List<KijiRowData> rows = mReader.bulkGetAsync(entityIds, request).get();
+    assertEquals(2, rows.size());
+    assertEquals("foo-val", rows.get(0).getValue("info", "name", 1L).toString());
+    assertEquals("bar-val", rows.get(1).getValue("info", "name", 1L).toString());
+  }
+
+  @Test
+  public void testAsyncGetsConcurrentWithSyncGets() throws Exception {
+    final KijiTableReader reader = new HBaseKijiTableReader(
+        HBaseKijiTable.downcast(mTable),
+        new HBaseKijiTableReader.Options()
+            .withRowCache(1024 * 1024, 60 * 1000)
+            .withGetCoalescing(true));
+    try {
+      final EntityId foo = mTable.getEntityId("foo");
+      final EntityId bar = mTable.getEntityId("bar");
+      final List<EntityId> entityIds = Lists.newArrayList(foo, bar);
+      final List<ListenableFuture<KijiRowData>> gets = Lists.newArrayList();
+      final List<ListenableFuture<List<KijiRowData>>> bulkGets = Lists.newArrayList();
+      for (int i = 0; i < 100; ++i) {
+        // Use a new data request each time, to exercise the cache of prepared requests:
+        final KijiDataRequest request = KijiDataRequest.create("info");
+        gets.add(reader.getAsync((i % 2 == 0) ? foo : bar, request));
+        bulkGets.add(reader.bulkGetAsync(entityIds, request));
+        final Long visits = reader.get(foo, request).getMostRecentValue("info", "visits");
+        assertEquals(42L, (long) visits);
+      }
+      for (int i = 0; i < gets.size(); ++i) {
+        final String expected = (i % 2 == 0) ? "foo-val" : "bar-val";
+        final KijiRowData row = gets.get(i).get(60, TimeUnit.SECONDS);
+        assertEquals(expected, row.getMostRecentValue("info", "name").toString());
+      }
+      for (ListenableFuture<List<KijiRowData>> bulkGet : bulkGets) {
+        final List<KijiRowData> rows = bulkGet.get(60, TimeUnit.SECONDS);
+        assertEquals("foo-val", rows.get(0).getMostRecentValue("info", "name").toString());
+        assertEquals("bar-val", rows.get(1).getMostRecentValue("info", "name").toString());
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testParallelBulkGet() throws Exception {
+    final KijiTableReader reader = new HBaseKijiTableReader(
+        HBaseKijiTable.downcast(mTable),
+        new HBaseKijiTableReader.Options().withBulkGetParallelism(4));
+    try {
+      final List<EntityId> entityIds = Lists.newArrayList(
+          mTable.getEntityId("bar"), mTable.getEntityId("missing"), mTable.getEntityId("foo"));
+      final KijiDataRequest request = KijiDataRequest.create("info", "name");
+      final List<KijiRowData> rows = reader.bulkGet(entityIds, request);
+      assertEquals(3, rows.size());
+      assertEquals("bar-val", rows.get(0).getValue("info", "name", 1L).toString());
+      assertFalse(rows.get(1).containsColumn("info", "name"));
+      assertEquals("foo-val", rows.get(2).getValue("info", "name", 1L).toString());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testParallelBulkGetAcrossRegions() throws Exception {
+    final TableLayoutDesc desc = TableLayoutDesc.newBuilder(
+        KijiTableLayouts.getLayout(KijiTableLayouts.FULL_FEATURED)).setName("regions").build();
+    mKiji.createTable(desc, 4);
+    final KijiTable table = mKiji.openTable("regions");
+    try {
+      final List<EntityId> entityIds = Lists.newArrayList();
+      final KijiTableWriter writer = table.openTableWriter();
+      try {
+        for (int i = 0; i < 20; ++i) {
+          final EntityId entityId = table.getEntityId("row-" + i);
+          writer.put(entityId, "info", "name", 1L, "name-" + i);
+          entityIds.add(0, entityId);
+        }
+      } finally {
+        writer.close();
+      }
+
+      final KijiTableReader reader = new HBaseKijiTableReader(
+          HBaseKijiTable.downcast(table),
+          new HBaseKijiTableReader.Options().withBulkGetParallelism(4));
+      try {
+        final KijiDataRequest request = KijiDataRequest.create("info", "name");
+        final List<KijiRowData> rows = reader.bulkGet(entityIds, request);
+        assertEquals(entityIds.size(), rows.size());
+        for (int i = 0; i < rows.size(); ++i) {
+          assertEquals(entityIds.get(i), rows.get(i).getEntityId());
+          final String expected = "name-" + (19 - i);
+          assertEquals(expected, rows.get(i).getMostRecentValue("info", "name").toString());
+        }
+
+        // Bulk gets issued from the reader executor itself must not wait on queued tasks:
+        final List<Future<List<KijiRowData>>> futures = Lists.newArrayList();
+        for (int i = 0; i < 64; ++i) {
+          futures.add(HBaseKijiTable.downcast(table).getReaderExecutor().submit(
+              new Callable<List<KijiRowData>>() {
+                /** {@inheritDoc} */
+                @Override
+                public List<KijiRowData> call() throws Exception {
+                  return reader.bulkGet(entityIds, request);
+                }
+              }));
+        }
+        for (Future<List<KijiRowData>> future : futures) {
+          final List<KijiRowData> nested = future.get(60, TimeUnit.SECONDS);
+          assertEquals(entityIds.size(), nested.size());
+          assertEquals("name-19", nested.get(0).getMostRecentValue("info", "name").toString());
+        }
+      } finally {
+        reader.close();
+      }
+    } finally {
+      table.release();
+    }
+  }
+
+  @Test
+  public void testRowCache() throws Exception {
+    final HBaseKijiTableReader reader = new HBaseKijiTableReader(
+        HBaseKijiTable.downcast(mTable),
+        new HBaseKijiTableReader.Options().withRowCache(1024 * 1024, 60 * 1000));
+    try {
+      final EntityId entityId = mTable.getEntityId("foo");
+      final KijiDataRequest request = KijiDataRequest.create("info", "name");
+      final KijiRowData row1 = reader.get(entityId, request);
+      final KijiRowData row2 = reader.get(entityId, request);
+      assertSame(row1, row2);
+      final KijiRowCache rowCache = reader.getRowCache();
+      assertEquals(1L, rowCache.getHitCount());
+      assertEquals(1L, rowCache.getMissCount());
+
+      // Writes through a writer of the same table invalidate the cached row:
+      final KijiTableWriter writer = mTable.openTableWriter();
+      try {
+        writer.put(entityId, "info", "name", 2L, "foo-val2");
+      } finally {
+        writer.close();
+      }
+      final KijiRowData row3 = reader.get(entityId, request);
+      assertEquals("foo-val2", row3.getMostRecentValue("info", "name").toString());
+      assertEquals(2L, rowCache.getMissCount());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRowFilterDoesNotLeakIntoPreparedRequest() throws Exception {
+    final KijiDataRequest request = KijiDataRequest.create("info", "name");
+
+    // The row filter adds info:visits to the columns of the scan:
+    final KijiRowScanner scanner = mReader.getScanner(request,
+        new KijiScannerOptions().setKijiRowFilter(new HasColumnDataRowFilter("info", "visits")));
+    try {
+      for (KijiRowData row : scanner) {
+        assertTrue(row.containsColumn("info", "name"));
+      }
+    } finally {
+      scanner.close();
+    }
+
+    // Later requests prepared from the same data request must not fetch info:visits:
+    final KijiRowData row = mReader.get(mTable.getEntityId("foo"), request);
+    assertEquals("foo-val", row.getMostRecentValue("info", "name").toString());
+    assertFalse(row.containsColumn("info", "visits"));
+  }
+
+  @Test
+  public void testBulkGetIterator() throws Exception {
+    final KijiTableReader reader = new HBaseKijiTableReader(
+        HBaseKijiTable.downcast(mTable),
+        new HBaseKijiTableReader.Options().withMaxInFlightBatches(2));
+    try {
+      final List<EntityId> entityIds = Lists.newArrayList();
+      for (int i = 0; i < 10; ++i) {
+        entityIds.add(mTable.getEntityId((i % 2 == 0) ? "foo" : "bar"));
+      }
+      entityIds.add(mTable.getEntityId("missing"));
+      final KijiDataRequest request = KijiDataRequest.create("info", "name");
+      final CloseableIterable<KijiRowData> rows = reader.bulkGetIterator(entityIds, request, 3);
+      try {
+        int index = 0;
+        for (KijiRowData row : rows) {
+          if (index < 10) {
+            final String expected = (index % 2 == 0) ? "foo-val" : "bar-val";
+            assertEquals(expected, row.getMostRecentValue("info", "name").toString());
+          } else {
+            assertFalse(row.containsColumn("info", "name"));
+          }
+          index += 1;
+        }
+        assertEquals(entityIds.size(), index);
+      } finally {
+        rows.close();
+      }
+    } finally {
+      reader.close();
+    }
+  }
 }
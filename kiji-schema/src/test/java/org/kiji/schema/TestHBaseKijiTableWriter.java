@@ -20,6 +20,7 @@
 package org.kiji.schema;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
@@ -28,6 +29,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.kiji.schema.KijiDataRequestBuilder.ColumnsDef;
 import org.kiji.schema.layout.KijiTableLayout;
 import org.kiji.schema.layout.KijiTableLayouts;
 import org.kiji.schema.util.InstanceBuilder;
@@ -112,4 +114,88 @@ public class TestHBaseKijiTableWriter extends KijiClientTest {
     final long actual = counter.getData();
     assertEquals(5L, actual);
   }
+
+  @Test
+  public void testColumnPutter() throws Exception {
+    final EntityId entityId = mTable.getEntityId("foo");
+    final KijiColumnPutter name = mWriter.column("info", "name");
+    assertEquals(new KijiColumnName("info", "name"), name.getColumnName());
+    name.put(entityId, 123L, "baz");
+    name.put(entityId, 124L, "qux");
+
+    final KijiDataRequest request = KijiDataRequest.builder()
+        .addColumns(ColumnsDef.create().withMaxVersions(10).add("info", "name"))
+        .build();
+    final KijiRowData row = mReader.get(entityId, request);
+    assertEquals("baz", row.getValue("info", "name", 123L).toString());
+    assertEquals("qux", row.getValue("info", "name", 124L).toString());
+
+    final KijiColumnPutter visits = mWriter.column("info", "visits");
+    visits.put(entityId, 5L);
+    assertEquals(5L, mReader.get(entityId, KijiDataRequest.create("info", "visits"))
+        .getMostRecentLong("info", "visits", 0L));
+  }
+
+  @Test
+  public void testColumnPutterForMissingColumn() throws Exception {
+    try {
+      mWriter.column("info", "missing");
+      fail("An exception should have been thrown.");
+    } catch (NoSuchColumnException nsce) {
+      assertEquals("info:missing", nsce.getMessage());
+    }
+  }
+
+  @Test
+  public void testWriterThrottle() throws Exception {
+    final KijiWriteThrottle throttle = new KijiWriteThrottle();
+    throttle.setBackpressure(KijiWriteThrottle.Backpressure.REJECT);
+    throttle.setMaxMutationsPerSecond(2L);
+    final KijiTableWriter writer = mTable.getWriterFactory().openTableWriter(throttle);
+    try {
+      final EntityId entityId = mTable.getEntityId("foo");
+      writer.put(entityId, "info", "name", 123L, "baz");
+      writer.increment(entityId, "info", "visits", 1L);
+      try {
+        writer.put(entityId, "info", "name", 124L, "qux");
+        fail("An exception should have been thrown.");
+      } catch (KijiWriteThrottle.ThrottledException te) {
+        assertEquals(1L, throttle.getThrottledCount());
+      }
+      assertEquals("baz", mReader.get(entityId, KijiDataRequest.create("info", "name"))
+          .getMostRecentValue("info", "name").toString());
+
+      // Limits can be lifted at any time:
+      throttle.setMaxMutationsPerSecond(KijiWriteThrottle.UNLIMITED);
+      writer.put(entityId, "info", "name", 124L, "qux");
+    } finally {
+      writer.close();
+    }
+  }
+
+  @Test
+  public void testTableThrottle() throws Exception {
+    final KijiWriteThrottle throttle = mTable.getWriterFactory().getTableWriteThrottle();
+    throttle.setBackpressure(KijiWriteThrottle.Backpressure.REJECT);
+    throttle.setMaxBytesPerSecond(1L);
+    // The table throttle is shared by the writers of all the handles on the table:
+    final KijiTable otherTable = mKiji.openTable("user");
+    final KijiTableWriter otherWriter = otherTable.openTableWriter();
+    try {
+      assertSame(throttle, otherTable.getWriterFactory().getTableWriteThrottle());
+      // Requests larger than the rate go through when the bucket is full:
+      mWriter.put(mTable.getEntityId("foo"), "info", "name", 123L, "baz");
+      try {
+        otherWriter.deleteRow(mTable.getEntityId("bar"));
+        fail("An exception should have been thrown.");
+      } catch (KijiWriteThrottle.ThrottledException te) {
+        assertEquals(1L, throttle.getThrottledCount());
+      }
+    } finally {
+      otherWriter.close();
+      otherTable.release();
+      throttle.setMaxBytesPerSecond(KijiWriteThrottle.UNLIMITED);
+      throttle.setBackpressure(KijiWriteThrottle.Backpressure.BLOCK);
+    }
+  }
 }
@@ -20,11 +20,23 @@
 package org.kiji.schema;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.google.common.collect.Lists;
+
+import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.specific.SpecificDatumReader;
 import org.junit.Test;
 
 import org.kiji.schema.avro.CellSchema;
@@ -32,6 +44,7 @@ import org.kiji.schema.avro.Edge;
 import org.kiji.schema.avro.Node;
 import org.kiji.schema.avro.SchemaStorage;
 import org.kiji.schema.avro.SchemaType;
+import org.kiji.schema.impl.AvroCellDecoder;
 import org.kiji.schema.impl.DefaultKijiCellEncoderFactory;
 import org.kiji.schema.layout.CellSpec;
 
@@ -95,4 +108,60 @@ public class TestKijiCellDecoder extends KijiClientTest {
   public void testDecodeAvroSchemaFinal() throws IOException {
     testDecodeAvroSchema(SchemaStorage.FINAL);
   }
+
+  @Test
+  public void testDecodeConcurrently() throws Exception {
+    final CellSpec cellSpec = CellSpec.create()
+        .setCellSchema(CellSchema.newBuilder()
+            .setType(SchemaType.CLASS)
+            .setValue(Node.class.getName())
+            .setStorage(SchemaStorage.HASH)
+            .build())
+        .setSchemaTable(getKiji().getSchemaTable());
+    final KijiCellEncoder encoder = DefaultKijiCellEncoderFactory.get().create(cellSpec);
+    final AtomicInteger createdReaders = new AtomicInteger(0);
+    final KijiCellDecoder<Node> decoder = new AvroCellDecoder<Node>(cellSpec) {
+      /** {@inheritDoc} */
+      @Override
+      protected DatumReader<Node> createDatumReader(Schema writer, Schema reader) {
+        createdReaders.incrementAndGet();
+        return new SpecificDatumReader<Node>(writer, reader);
+      }
+    };
+
+    final int nthreads = 4;
+    final int ncells = 1000;
+    final ExecutorService executor = Executors.newFixedThreadPool(nthreads);
+    try {
+      final List<Future<Void>> futures = Lists.newArrayList();
+      for (int ithread = 0; ithread < nthreads; ++ithread) {
+        final String prefix = "thread-" + ithread + "-";
+        futures.add(executor.submit(new Callable<Void>() {
+          /** {@inheritDoc} */
+          @Override
+          public Void call() throws Exception {
+            // Decoders reuse their Avro readers across cells, make sure values never mix up:
+            for (int i = 0; i < ncells; ++i) {
+              final Node node = Node.newBuilder()
+                  .setWeight(i)
+                  .setLabel(prefix + i)
+                  .setAnnotations(Collections.<String, String>emptyMap())
+                  .setEdges(Collections.<Edge>emptyList())
+                  .build();
+              final Node decoded = decoder.decodeValue(encoder.encode(node));
+              assertEquals(prefix + i, decoded.getLabel().toString());
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    // All the cells have the same writer schema: each thread creates at most one DatumReader.
+    assertTrue(createdReaders.get() <= nthreads);
+  }
 }
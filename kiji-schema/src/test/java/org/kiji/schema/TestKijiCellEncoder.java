@@ -22,7 +22,15 @@ package org.kiji.schema;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
 
 import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.Test;
@@ -108,4 +116,64 @@ public class TestKijiCellEncoder extends KijiClientTest {
     assertEquals(-38, bytes[16]);
     assertEquals(49, bytes[17]);
   }
+
+  @Test
+  public void testEncodeToOutputStream() throws IOException {
+    final CellSpec cellSpec = CellSpec.create()
+        .setCellSchema(CellSchema.newBuilder()
+            .setStorage(SchemaStorage.UID)
+            .setType(SchemaType.INLINE)
+            .setValue("\"long\"")
+            .build())
+        .setSchemaTable(getKiji().getSchemaTable());
+    final KijiCellEncoder encoder =
+        DefaultKijiCellEncoderFactory.get().create(cellSpec);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    encoder.encode(3181L, out);
+    encoder.encode(3181L, out);
+    assertArrayEquals(new byte[]{3, -38, 49, 3, -38, 49}, out.toByteArray());
+  }
+
+  @Test
+  public void testEncodeConcurrently() throws Exception {
+    final CellSpec cellSpec = CellSpec.create()
+        .setCellSchema(CellSchema.newBuilder()
+            .setStorage(SchemaStorage.FINAL)
+            .setType(SchemaType.CLASS)
+            .setValue(TestRecord.class.getName())
+            .build());
+    final KijiCellEncoder encoder =
+        DefaultKijiCellEncoderFactory.get().create(cellSpec);
+
+    final int nthreads = 4;
+    final ExecutorService executor = Executors.newFixedThreadPool(nthreads);
+    try {
+      final List<Future<Void>> futures = Lists.newArrayList();
+      for (int ithread = 0; ithread < nthreads; ++ithread) {
+        final int value = ithread;
+        futures.add(executor.submit(new Callable<Void>() {
+          /** {@inheritDoc} */
+          @Override
+          public Void call() throws Exception {
+            final TestRecord record = TestRecord.newBuilder()
+                .setA("a")  // encodes as [2, 97]
+                .setB(value)
+                .setC(value)
+                .build();
+            // Small ints zig-zag encode as a single byte 2 * value:
+            final byte[] expected = new byte[]{2, 97, (byte) (2 * value), (byte) (2 * value)};
+            for (int i = 0; i < 1000; ++i) {
+              assertArrayEquals(expected, encoder.encode(record));
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
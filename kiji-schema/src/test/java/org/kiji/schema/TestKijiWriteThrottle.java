@@ -0,0 +1,134 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Tests for KijiWriteThrottle. */
+public class TestKijiWriteThrottle {
+  private static final Logger LOG = LoggerFactory.getLogger(TestKijiWriteThrottle.class);
+
+  @Test
+  public void testUnlimited() throws Exception {
+    final KijiWriteThrottle throttle = new KijiWriteThrottle();
+    assertEquals(KijiWriteThrottle.UNLIMITED, throttle.getMaxMutationsPerSecond());
+    assertEquals(KijiWriteThrottle.UNLIMITED, throttle.getMaxBytesPerSecond());
+    for (int i = 0; i < 10000; ++i) {
+      throttle.acquire(1000L);
+    }
+    assertEquals(0L, throttle.getThrottledCount());
+  }
+
+  @Test
+  public void testBlockingMutationRate() throws Exception {
+    final KijiWriteThrottle throttle = new KijiWriteThrottle();
+    throttle.setMaxMutationsPerSecond(100L);
+
+    // The first second worth of mutations goes through, the next 50 take half a second:
+    final long start = System.nanoTime();
+    for (int i = 0; i < 150; ++i) {
+      throttle.acquire(1L);
+    }
+    final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    LOG.info("150 mutations at 100 mutations/sec took {} ms", elapsedMillis);
+    assertTrue(elapsedMillis >= 400L);
+    assertTrue(throttle.getThrottledCount() > 0L);
+    assertTrue(throttle.getThrottledTime(TimeUnit.MILLISECONDS) >= 400L);
+  }
+
+  @Test
+  public void testRejectByteRate() throws Exception {
+    final KijiWriteThrottle throttle = new KijiWriteThrottle();
+    throttle.setBackpressure(KijiWriteThrottle.Backpressure.REJECT);
+    throttle.setMaxBytesPerSecond(1000L);
+    throttle.acquire(600L);
+    try {
+      throttle.acquire(600L);
+      fail("Mutation should have been rejected.");
+    } catch (KijiWriteThrottle.ThrottledException te) {
+      LOG.debug("Expected exception: {}", te.getMessage());
+    }
+    assertEquals(1L, throttle.getThrottledCount());
+    assertEquals(0L, throttle.getThrottledTime(TimeUnit.NANOSECONDS));
+
+    // Rejected mutations do not consume the rate:
+    throttle.acquire(400L);
+
+    // Adjusting the rate at runtime:
+    throttle.setMaxBytesPerSecond(KijiWriteThrottle.UNLIMITED);
+    throttle.acquire(600L);
+  }
+
+  @Test
+  public void testRejectByOneOfSeveralThrottles() throws Exception {
+    final KijiWriteThrottle writerThrottle = new KijiWriteThrottle();
+    writerThrottle.setBackpressure(KijiWriteThrottle.Backpressure.REJECT);
+    writerThrottle.setMaxMutationsPerSecond(2L);
+    final KijiWriteThrottle tableThrottle = new KijiWriteThrottle();
+    tableThrottle.setBackpressure(KijiWriteThrottle.Backpressure.REJECT);
+    tableThrottle.setMaxMutationsPerSecond(1L);
+
+    KijiWriteThrottle.acquireAll(1L, writerThrottle, tableThrottle);
+    try {
+      KijiWriteThrottle.acquireAll(1L, tableThrottle, writerThrottle);
+      fail("Mutation should have been rejected.");
+    } catch (KijiWriteThrottle.ThrottledException te) {
+      LOG.debug("Expected exception: {}", te.getMessage());
+    }
+    assertEquals(1L, tableThrottle.getThrottledCount());
+    assertEquals(0L, writerThrottle.getThrottledCount());
+
+    // The mutation rejected by the table throttle did not consume the rate of the writer:
+    writerThrottle.acquire(1L);
+    try {
+      writerThrottle.acquire(1L);
+      fail("Mutation should have been rejected.");
+    } catch (KijiWriteThrottle.ThrottledException te) {
+      LOG.debug("Expected exception: {}", te.getMessage());
+    }
+  }
+
+  @Test
+  public void testRejectBatchAsAWhole() throws Exception {
+    final KijiWriteThrottle throttle = new KijiWriteThrottle();
+    throttle.setBackpressure(KijiWriteThrottle.Backpressure.REJECT);
+    throttle.setMaxMutationsPerSecond(3L);
+    KijiWriteThrottle.acquireAll(2, 10L, throttle);
+    try {
+      KijiWriteThrottle.acquireAll(2, 10L, throttle);
+      fail("Batch should have been rejected.");
+    } catch (KijiWriteThrottle.ThrottledException te) {
+      LOG.debug("Expected exception: {}", te.getMessage());
+    }
+    assertEquals(2L, throttle.getThrottledCount());
+
+    // The rejected batch did not consume the rate:
+    KijiWriteThrottle.acquireAll(1, 10L, throttle);
+  }
+}
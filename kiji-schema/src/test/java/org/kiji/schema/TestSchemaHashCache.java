@@ -72,4 +72,30 @@ public class TestSchemaHashCache extends KijiClientTest {
     assertEquals(key1, key1bis);
     assertFalse(key1.equals(key2));
   }
+
+  /** Hashes served from the cache must be byte-identical to freshly computed hashes. */
+  @Test
+  public void testSchemaMD5CacheMatchesHashSchema() throws Exception {
+    final String jsonSchema =
+        "{"
+        + "  \"name\": \"Record\","
+        + "  \"type\": \"record\","
+        + "  \"fields\": [{\"name\": \"field\", \"type\": \"int\", \"doc\": \"Doc\"}]"
+        + "}";
+    final SchemaHashCache cache = new SchemaHashCache();
+    for (int i = 0; i < 3; ++i) {
+      final Schema schema = new Schema.Parser().parse(jsonSchema);
+      assertEquals(new BytesKey(SchemaHashCache.hashSchema(schema)), cache.getHash(schema));
+    }
+
+    // Field docs and aliases must be accounted for, even though Schema.equals() ignores them:
+    final Schema modifiedDoc = new Schema.Parser().parse(jsonSchema.replace("Doc", "Other doc"));
+    assertEquals(
+        new BytesKey(SchemaHashCache.hashSchema(modifiedDoc)), cache.getHash(modifiedDoc));
+    final Schema aliased = new Schema.Parser().parse(
+        jsonSchema.replace("\"doc\"", "\"aliases\": [\"alias\"], \"doc\""));
+    assertEquals(new BytesKey(SchemaHashCache.hashSchema(aliased)), cache.getHash(aliased));
+    final Schema original = new Schema.Parser().parse(jsonSchema);
+    assertFalse(cache.getHash(aliased).equals(cache.getHash(original)));
+  }
 }
@@ -56,6 +56,7 @@ import org.kiji.schema.KijiRowScanner;
 import org.kiji.schema.KijiTable;
 import org.kiji.schema.KijiTableReader;
 import org.kiji.schema.hbase.HBaseColumnName;
+import org.kiji.schema.hbase.HBaseScanOptions;
 import org.kiji.schema.layout.KijiTableLayout;
 import org.kiji.schema.layout.KijiTableLayouts;
 import org.kiji.schema.layout.impl.ColumnNameTranslator;
@@ -139,6 +140,29 @@ public class TestHBaseDataRequestAdapter extends KijiClientTest {
     assertEquals(expectedScan.toString(), hbaseDataRequest.toScan(mTableLayout).toString());
   }
 
+  @Test
+  public void testPreparedDataRequest() throws IOException {
+    KijiDataRequestBuilder builder = KijiDataRequest.builder();
+    builder.newColumnsDef().withMaxVersions(1).add("info", "name");
+    builder.newColumnsDef().withMaxVersions(2).addFamily("purchases");
+    builder.withTimeRange(1L, 3L);
+    KijiDataRequest request = builder.build();
+
+    PreparedKijiDataRequest prepared =
+        PreparedKijiDataRequest.prepare(request, mTableLayout, mColumnNameTranslator);
+    HBaseDataRequestAdapter hbaseDataRequest =
+        new HBaseDataRequestAdapter(request, mColumnNameTranslator);
+    for (String row : new String[]{"entity1", "entity2"}) {
+      EntityId entityId = mEntityIdFactory.getEntityId(row);
+      assertEquals(
+          hbaseDataRequest.toGet(entityId, mTableLayout).toString(),
+          prepared.toGet(entityId).toString());
+    }
+    assertEquals(
+        hbaseDataRequest.toScan(mTableLayout).toString(),
+        prepared.toScan(new HBaseScanOptions()).toString());
+  }
+
   @Test
   public void testDataRequestToScanEmpty() throws IOException {
     KijiDataRequest request = KijiDataRequest.builder().build();
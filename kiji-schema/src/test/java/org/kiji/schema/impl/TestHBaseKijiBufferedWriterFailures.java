@@ -0,0 +1,271 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiBufferedWriter;
+import org.kiji.schema.KijiBufferedWriter.KijiBufferedWriterOptions;
+import org.kiji.schema.KijiClientTest;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiDataRequestBuilder.ColumnsDef;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.hbase.HBaseFactory;
+import org.kiji.schema.layout.KijiTableLayout;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+
+/** Tests HBaseKijiBufferedWriter when HBase fails to apply its mutations. */
+public class TestHBaseKijiBufferedWriterFailures extends KijiClientTest {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TestHBaseKijiBufferedWriterFailures.class);
+
+  /** Whether the puts and deletes sent through the HTables of mFailingTable currently fail. */
+  private final AtomicBoolean mFailing = new AtomicBoolean(false);
+
+  /** When set, the next injected failure waits for this latch, then failures stop. */
+  private volatile CountDownLatch mFailureLatch = null;
+
+  /** Table whose HTables fail on demand. */
+  private HBaseKijiTable mFailingTable;
+
+  /** Regular table, to read the rows back. */
+  private KijiTable mTable;
+  private KijiTableReader mReader;
+
+  @Before
+  public final void setupEnvironment() throws Exception {
+    final KijiTableLayout layout = KijiTableLayout.newLayout(
+        KijiTableLayouts.getLayout(KijiTableLayouts.COUNTER_TEST));
+    final HBaseKiji kiji = (HBaseKiji) new InstanceBuilder(getKiji())
+        .withTable("user", layout)
+            .withRow("foo")
+                .withFamily("info")
+                    .withQualifier("name").withValue(1L, "foo-val")
+        .build();
+
+    final HTableInterfaceFactory factory =
+        HBaseFactory.Provider.get().getHTableInterfaceFactory(kiji.getURI());
+    mFailingTable = new HBaseKijiTable(kiji, "user", getConf(), new HTableInterfaceFactory() {
+      /** {@inheritDoc} */
+      @Override
+      public HTableInterface create(Configuration conf, String hbaseTableName)
+          throws IOException {
+        return injectFailures(factory.create(conf, hbaseTableName));
+      }
+    });
+    mTable = kiji.openTable("user");
+    mReader = mTable.openTableReader();
+  }
+
+  @After
+  public final void cleanupEnvironment() throws IOException {
+    mReader.close();
+    mTable.release();
+    mFailingTable.release();
+  }
+
+  /**
+   * Wraps an HTable so that its puts and deletes fail while mFailing is set.
+   *
+   * @param htable HTable to wrap.
+   * @return the wrapped HTable.
+   */
+  private HTableInterface injectFailures(final HTableInterface htable) {
+    return (HTableInterface) Proxy.newProxyInstance(
+        HTableInterface.class.getClassLoader(),
+        new Class<?>[] {HTableInterface.class},
+        new InvocationHandler() {
+          /** {@inheritDoc} */
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            if (mFailing.get()
+                && (name.equals("put") || name.equals("delete") || name.equals("batch"))) {
+              final CountDownLatch latch = mFailureLatch;
+              if (latch != null) {
+                latch.await();
+                mFailing.set(false);
+              }
+              throw new IOException("Injected failure of HTable." + name);
+            }
+            try {
+              return method.invoke(htable, args);
+            } catch (InvocationTargetException ite) {
+              throw ite.getCause();
+            }
+          }
+        });
+  }
+
+  @Test
+  public void testFailedFlushIsRetried() throws Exception {
+    final EntityId foo = mTable.getEntityId("foo");
+    final KijiBufferedWriter writer = new HBaseKijiBufferedWriter(mFailingTable);
+    try {
+      writer.put(foo, "info", "name", 2L, "new");
+      writer.put(foo, "info", "name", 3L, "newer");
+      writer.deleteCell(foo, "info", "name", 1L);
+
+      mFailing.set(true);
+      try {
+        writer.flush();
+        fail("Flush should fail while HBase fails.");
+      } catch (IOException ioe) {
+        LOG.debug("Expected exception: {}", ioe.getMessage());
+      }
+
+      // Issued after the unsent put of foo@2, so it must be applied after the put:
+      writer.deleteCell(foo, "info", "name", 2L);
+      writer.put(mTable.getEntityId("bar"), "info", "name", 1L, "bar-val");
+
+      mFailing.set(false);
+      writer.flush();
+    } finally {
+      writer.close();
+    }
+
+    final KijiDataRequest request = KijiDataRequest.builder()
+        .addColumns(ColumnsDef.create().withMaxVersions(10).add("info", "name"))
+        .build();
+    final KijiRowData row = mReader.get(foo, request);
+    assertEquals("newer", row.getValue("info", "name", 3L).toString());
+    assertFalse(row.containsCell("info", "name", 2L));
+    assertFalse(row.containsCell("info", "name", 1L));
+    assertEquals("bar-val", mReader.get(mTable.getEntityId("bar"), request)
+        .getMostRecentValue("info", "name").toString());
+  }
+
+  @Test
+  public void testFailedOverflowFlushKeepsMutations() throws Exception {
+    final KijiBufferedWriter writer = new HBaseKijiBufferedWriter(mFailingTable);
+    try {
+      mFailing.set(true);
+      writer.setBufferSize(1L);
+      for (int i = 0; i < 5; ++i) {
+        try {
+          // Every put overflows the buffer and fails to flush:
+          writer.put(mTable.getEntityId("row" + i), "info", "name", 1L, "name" + i);
+          fail("Flush of the full buffer should fail while HBase fails.");
+        } catch (IOException ioe) {
+          LOG.debug("Expected exception: {}", ioe.getMessage());
+        }
+      }
+      for (int i = 0; i < 5; ++i) {
+        assertFalse(mReader.get(mTable.getEntityId("row" + i), KijiDataRequest.create("info"))
+            .containsColumn("info", "name"));
+      }
+      mFailing.set(false);
+      writer.flush();
+    } finally {
+      writer.close();
+    }
+    for (int i = 0; i < 5; ++i) {
+      assertEquals("name" + i, mReader.get(mTable.getEntityId("row" + i),
+          KijiDataRequest.create("info", "name")).getMostRecentValue("info", "name").toString());
+    }
+  }
+
+  @Test
+  public void testFailedBackgroundFlushHoldsLaterFlushes() throws Exception {
+    final EntityId foo = mTable.getEntityId("foo");
+    final EntityId bar = mTable.getEntityId("bar");
+    final KijiDataRequest request = KijiDataRequest.create("info", "name");
+    final KijiBufferedWriter writer = new HBaseKijiBufferedWriter(
+        mFailingTable, new KijiBufferedWriterOptions().setAsyncFlush(2));
+    try {
+      writer.setBufferSize(1L);
+      final CountDownLatch latch = new CountDownLatch(1);
+      mFailureLatch = latch;
+      mFailing.set(true);
+
+      // Every write overflows the buffer: the first background flush fails once released,
+      // while the second is queued behind it.
+      writer.put(foo, "info", "name", 2L, "new");
+      writer.put(bar, "info", "name", 1L, "bar-val");
+      latch.countDown();
+
+      try {
+        writer.flush();
+        fail("Flush should report the failed background flush.");
+      } catch (IOException ioe) {
+        LOG.debug("Expected exception: {}", ioe.getMessage());
+      }
+      // HBase accepts writes again, but nothing is sent until the failure is reported:
+      assertFalse(mReader.get(bar, request).containsColumn("info", "name"));
+      assertEquals("foo-val", mReader.get(foo, request).getMostRecentValue("info", "name")
+          .toString());
+
+      writer.flush();
+    } finally {
+      writer.close();
+    }
+    assertEquals("new", mReader.get(foo, request).getMostRecentValue("info", "name").toString());
+    assertEquals("bar-val",
+        mReader.get(bar, request).getMostRecentValue("info", "name").toString());
+  }
+
+  @Test
+  public void testCloseAfterFailedFlush() throws Exception {
+    final KijiBufferedWriter writer = new HBaseKijiBufferedWriter(mFailingTable);
+    writer.put(mTable.getEntityId("foo"), "info", "name", 2L, "new");
+    mFailing.set(true);
+    try {
+      writer.close();
+      fail("Close should report the failed flush.");
+    } catch (IOException ioe) {
+      LOG.debug("Expected exception: {}", ioe.getMessage());
+    }
+    // The writer released its resources and is closed, even though its flush failed:
+    try {
+      writer.close();
+      fail("Closing twice should fail.");
+    } catch (IllegalStateException ise) {
+      LOG.debug("Expected exception: {}", ise.getMessage());
+    }
+    try {
+      writer.put(mTable.getEntityId("foo"), "info", "name", 3L, "newer");
+      fail("Writing to a closed writer should fail.");
+    } catch (IllegalStateException ise) {
+      LOG.debug("Expected exception: {}", ise.getMessage());
+    }
+  }
+}
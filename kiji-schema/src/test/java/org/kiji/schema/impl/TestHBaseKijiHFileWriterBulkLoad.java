@@ -0,0 +1,128 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+
+package org.kiji.schema.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.schema.KijiClientTest;
+import org.kiji.schema.KijiHFileWriter;
+import org.kiji.schema.hbase.HBaseFactory;
+import org.kiji.schema.layout.KijiTableLayout;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+
+/** Tests HBaseKijiHFileWriter when HBase fails to bulk-load its HFiles. */
+public class TestHBaseKijiHFileWriterBulkLoad extends KijiClientTest {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(TestHBaseKijiHFileWriterBulkLoad.class);
+
+  /** Whether bulk-loads into mFailingTable currently fail. */
+  private final AtomicBoolean mFailing = new AtomicBoolean(false);
+
+  /** Number of bulk-loads attempted while failing. */
+  private final AtomicInteger mNumFailedLoads = new AtomicInteger(0);
+
+  /** Table whose bulk-loads fail on demand. */
+  private HBaseKijiTable mFailingTable;
+
+  private Path mOutputPath;
+
+  @Before
+  public final void setupEnvironment() throws Exception {
+    final KijiTableLayout layout = KijiTableLayout.newLayout(
+        KijiTableLayouts.getLayout(KijiTableLayouts.COUNTER_TEST));
+    final HBaseKiji kiji = (HBaseKiji) new InstanceBuilder(getKiji())
+        .withTable("user", layout)
+        .build();
+
+    final HTableInterfaceFactory factory =
+        HBaseFactory.Provider.get().getHTableInterfaceFactory(kiji.getURI());
+    mFailingTable = new HBaseKijiTable(kiji, "user", getConf(), new HTableInterfaceFactory() {
+      /** {@inheritDoc} */
+      @Override
+      public HTableInterface create(Configuration conf, String hbaseTableName)
+          throws IOException {
+        // HBaseKijiTable.bulkLoad() opens an HTable before loading anything:
+        if (mFailing.get()) {
+          mNumFailedLoads.incrementAndGet();
+          throw new IOException("Injected failure of bulk-load into " + hbaseTableName);
+        }
+        return factory.create(conf, hbaseTableName);
+      }
+    });
+    mOutputPath = new Path(new File(getLocalTempDir(), "hfiles").toURI());
+  }
+
+  @After
+  public final void cleanupEnvironment() throws IOException {
+    mFailingTable.release();
+  }
+
+  @Test
+  public void testFailedLoadKeepsPartUnloaded() throws Exception {
+    final KijiHFileWriter writer = new HBaseKijiHFileWriter(mFailingTable,
+        new HBaseKijiHFileWriter.Options().withOutputPath(mOutputPath));
+    try {
+      writer.put(mFailingTable.getEntityId("foo"), "info", "name", 1L, "foo-val");
+      writer.flush();
+      final Path partDir = new Path(mOutputPath, "part-00000.hfile");
+      final FileSystem fs = mOutputPath.getFileSystem(getConf());
+      assertTrue(fs.exists(partDir));
+
+      mFailing.set(true);
+      try {
+        writer.bulkLoad();
+        fail("Bulk-load should fail while HBase is unavailable.");
+      } catch (IOException ioe) {
+        LOG.debug("Expected exception: {}", ioe.getMessage());
+      }
+      assertEquals(1, mNumFailedLoads.get());
+
+      // The part directory that failed to load is loaded again by the next bulk-load:
+      try {
+        writer.bulkLoad();
+        fail("Bulk-load should fail while HBase is unavailable.");
+      } catch (IOException ioe) {
+        LOG.debug("Expected exception: {}", ioe.getMessage());
+      }
+      assertEquals(2, mNumFailedLoads.get());
+      assertTrue(fs.exists(partDir));
+    } finally {
+      mFailing.set(false);
+      writer.close();
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiClientTest;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.hbase.HBaseFactory;
+import org.kiji.schema.layout.KijiTableLayout;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+
+/** Tests the coalescing of concurrent identical gets by HBaseKijiTableReader. */
+public class TestHBaseKijiTableReaderGetCoalescing extends KijiClientTest {
+  /** How long each HBase get takes, in milliseconds. */
+  private static final long GET_LATENCY_MS = 300;
+
+  /** Number of HBase gets sent through the HTables of mTable. */
+  private final AtomicInteger mNumGets = new AtomicInteger(0);
+
+  private HBaseKijiTable mTable;
+
+  @Before
+  public final void setupEnvironment() throws Exception {
+    final KijiTableLayout layout = KijiTableLayout.newLayout(
+        KijiTableLayouts.getLayout(KijiTableLayouts.COUNTER_TEST));
+    final HBaseKiji kiji = (HBaseKiji) new InstanceBuilder(getKiji())
+        .withTable("user", layout)
+            .withRow("foo")
+                .withFamily("info")
+                    .withQualifier("name").withValue(1L, "foo-val")
+        .build();
+
+    // Open the table through a factory whose HTables count and slow down gets:
+    final HTableInterfaceFactory factory =
+        HBaseFactory.Provider.get().getHTableInterfaceFactory(kiji.getURI());
+    mTable = new HBaseKijiTable(kiji, "user", getConf(), new HTableInterfaceFactory() {
+      /** {@inheritDoc} */
+      @Override
+      public HTableInterface create(Configuration conf, String hbaseTableName)
+          throws IOException {
+        return countGets(factory.create(conf, hbaseTableName));
+      }
+    });
+  }
+
+  @After
+  public final void cleanupEnvironment() throws IOException {
+    mTable.release();
+  }
+
+  /**
+   * Wraps an HTable so that its single-row gets are counted and take GET_LATENCY_MS.
+   *
+   * @param htable HTable to wrap.
+   * @return the wrapped HTable.
+   */
+  private HTableInterface countGets(final HTableInterface htable) {
+    return (HTableInterface) Proxy.newProxyInstance(
+        HTableInterface.class.getClassLoader(),
+        new Class<?>[] {HTableInterface.class},
+        new InvocationHandler() {
+          /** {@inheritDoc} */
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("get") && !(args[0] instanceof List)) {
+              mNumGets.incrementAndGet();
+              Thread.sleep(GET_LATENCY_MS);
+            }
+            try {
+              return method.invoke(htable, args);
+            } catch (InvocationTargetException ite) {
+              throw ite.getCause();
+            }
+          }
+        });
+  }
+
+  @Test
+  public void testGetCoalescing() throws Exception {
+    final int numGets = 20;
+    final KijiTableReader reader = new HBaseKijiTableReader(
+        mTable, new HBaseKijiTableReader.Options().withGetCoalescing(true));
+    try {
+      final EntityId entityId = mTable.getEntityId("foo");
+      final KijiDataRequest request = KijiDataRequest.create("info", "name");
+      final List<ListenableFuture<KijiRowData>> futures = Lists.newArrayList();
+      for (int i = 0; i < numGets; ++i) {
+        futures.add(reader.getAsync(entityId, request));
+      }
+      final Set<KijiRowData> rows = Sets.newIdentityHashSet();
+      for (ListenableFuture<KijiRowData> future : futures) {
+        final KijiRowData row = future.get();
+        assertEquals("foo-val", row.getMostRecentValue("info", "name").toString());
+        rows.add(row);
+      }
+      // Gets waiting for an identical get in flight share its HBase get and its row data:
+      assertTrue("Gets were not coalesced: " + mNumGets.get(), mNumGets.get() < numGets);
+      assertEquals(mNumGets.get(), rows.size());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testGetsNotCoalescedByDefault() throws Exception {
+    final int numGets = 4;
+    final KijiTableReader reader = new HBaseKijiTableReader(
+        mTable, new HBaseKijiTableReader.Options());
+    try {
+      final EntityId entityId = mTable.getEntityId("foo");
+      final KijiDataRequest request = KijiDataRequest.create("info", "name");
+      final List<ListenableFuture<KijiRowData>> futures = Lists.newArrayList();
+      for (int i = 0; i < numGets; ++i) {
+        futures.add(reader.getAsync(entityId, request));
+      }
+      for (ListenableFuture<KijiRowData> future : futures) {
+        future.get();
+      }
+      assertEquals(numGets, mNumGets.get());
+    } finally {
+      reader.close();
+    }
+  }
+}
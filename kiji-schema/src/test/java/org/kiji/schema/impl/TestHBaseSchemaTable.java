@@ -21,15 +21,35 @@ package org.kiji.schema.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Lists;
 import org.apache.avro.Schema;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.HTableInterface;
 import org.junit.Test;
 
 import org.kiji.schema.Kiji;
 import org.kiji.schema.KijiClientTest;
 import org.kiji.schema.KijiSchemaTable;
+import org.kiji.schema.KijiURI;
+import org.kiji.schema.hbase.HBaseFactory;
 import org.kiji.schema.impl.HBaseSchemaTable.PreRegisteredSchema;
 import org.kiji.schema.util.BytesKey;
+import org.kiji.schema.util.LockFactory;
 
 /** Tests for HBaseSchemaTable. */
 public class TestHBaseSchemaTable extends KijiClientTest {
@@ -118,4 +138,132 @@ public class TestHBaseSchemaTable extends KijiClientTest {
     assertEquals(TEST_SCHEMA_B, schemaTable.getSchema(testSchemaBId));
     assertEquals(testSchemaAId + 1, testSchemaBId);
   }
+
+  /** Tests concurrent lookups and registrations of schemas. */
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    final KijiSchemaTable schemaTable = getKiji().getSchemaTable();
+
+    final int nthreads = 8;
+    final ExecutorService executor = Executors.newFixedThreadPool(nthreads);
+    try {
+      final List<Future<Long>> futures = Lists.newArrayList();
+      for (int i = 0; i < nthreads; ++i) {
+        futures.add(executor.submit(new Callable<Long>() {
+          /** {@inheritDoc} */
+          @Override
+          public Long call() throws Exception {
+            for (int j = 0; j < 1000; ++j) {
+              assertEquals(SCHEMA_LONG, schemaTable.getSchema(3L));
+              assertEquals(
+                  SCHEMA_INT, schemaTable.getSchema(schemaTable.getSchemaHash(SCHEMA_INT)));
+            }
+            // All threads must agree on the ID of a newly registered schema:
+            return schemaTable.getOrCreateSchemaId(TEST_SCHEMA_A);
+          }
+        }));
+      }
+      final long testSchemaAId = futures.get(0).get();
+      for (Future<Long> future : futures) {
+        assertEquals(testSchemaAId, (long) future.get());
+      }
+      assertEquals(TEST_SCHEMA_A, schemaTable.getSchema(testSchemaAId));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Wraps an HTable so that its gets and scans are counted.
+   *
+   * @param htable HTable to wrap.
+   * @param numReads Counter of the gets and scans.
+   * @return the wrapped HTable.
+   */
+  private static HTableInterface countReads(
+      final HTableInterface htable,
+      final AtomicInteger numReads) {
+    return (HTableInterface) Proxy.newProxyInstance(
+        HTableInterface.class.getClassLoader(),
+        new Class<?>[] {HTableInterface.class},
+        new InvocationHandler() {
+          /** {@inheritDoc} */
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("get") || method.getName().equals("getScanner")) {
+              numReads.incrementAndGet();
+            }
+            try {
+              return method.invoke(htable, args);
+            } catch (InvocationTargetException ite) {
+              throw ite.getCause();
+            }
+          }
+        });
+  }
+
+  /** Tests preloading the schema table through a snapshot file. */
+  @Test
+  public void testSnapshotFile() throws Exception {
+    final KijiSchemaTable schemaTable = getKiji().getSchemaTable();
+    final long testSchemaAId = schemaTable.getOrCreateSchemaId(TEST_SCHEMA_A);
+
+    final File snapshotDir = new File(getLocalTempDir(), "snapshot");
+    assertTrue(snapshotDir.mkdirs());
+    final File snapshotFile = new File(snapshotDir, "schema-table.snapshot");
+    final Configuration conf = new Configuration(getConf());
+    conf.set(HBaseSchemaTable.SNAPSHOT_FILE, snapshotFile.getPath());
+
+    // Preloads from HBase and writes the snapshot, configured through the Kiji instance:
+    final Kiji kiji1 = Kiji.Factory.open(getKiji().getURI(), conf);
+    try {
+      assertEquals(TEST_SCHEMA_A, kiji1.getSchemaTable().getSchema(testSchemaAId));
+    } finally {
+      kiji1.release();
+    }
+    assertTrue(snapshotFile.exists());
+    // The temporary file the snapshot was written to has been renamed:
+    assertEquals(1, snapshotDir.list().length);
+
+    final KijiURI uri = getKiji().getURI();
+    final HTableInterfaceFactory factory =
+        HBaseFactory.Provider.get().getHTableInterfaceFactory(uri);
+    final LockFactory lockFactory = HBaseFactory.Provider.get().getLockFactory(uri, conf);
+    final AtomicInteger numReads = new AtomicInteger(0);
+    final HTableInterfaceFactory countingFactory = new HTableInterfaceFactory() {
+      /** {@inheritDoc} */
+      @Override
+      public HTableInterface create(Configuration tableConf, String hbaseTableName)
+          throws IOException {
+        return countReads(factory.create(tableConf, hbaseTableName), numReads);
+      }
+    };
+
+    // Preloads from the snapshot: the only HBase read is the schema ID counter.
+    final HBaseSchemaTable schemaTable2 =
+        new HBaseSchemaTable(uri, conf, countingFactory, lockFactory);
+    try {
+      assertEquals(1, numReads.get());
+      assertEquals(TEST_SCHEMA_A, schemaTable2.getSchema(testSchemaAId));
+      final BytesKey testSchemaAHash = schemaTable2.getSchemaHash(TEST_SCHEMA_A);
+      assertEquals(TEST_SCHEMA_A, schemaTable2.getSchema(testSchemaAHash));
+      assertEquals(1, numReads.get());
+    } finally {
+      schemaTable2.close();
+    }
+
+    // Registering a new schema invalidates the snapshot, which is reloaded from HBase:
+    final long testSchemaBId = schemaTable.getOrCreateSchemaId(TEST_SCHEMA_B);
+    numReads.set(0);
+    final HBaseSchemaTable schemaTable3 =
+        new HBaseSchemaTable(uri, conf, countingFactory, lockFactory);
+    try {
+      assertEquals(2, numReads.get());
+      assertEquals(TEST_SCHEMA_A, schemaTable3.getSchema(testSchemaAId));
+      assertEquals(TEST_SCHEMA_B, schemaTable3.getSchema(testSchemaBId));
+      assertEquals(2, numReads.get());
+    } finally {
+      schemaTable3.close();
+    }
+  }
 }
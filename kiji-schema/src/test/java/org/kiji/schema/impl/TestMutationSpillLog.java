@@ -0,0 +1,160 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for MutationSpillLog. */
+public class TestMutationSpillLog {
+  private static final byte[] FAMILY = Bytes.toBytes("family");
+  private static final byte[] QUALIFIER = Bytes.toBytes("qualifier");
+
+  @Rule
+  public TemporaryFolder mTempDir = new TemporaryFolder();
+
+  /**
+   * Creates a put of a single cell.
+   *
+   * @param row Row key.
+   * @param timestamp Timestamp of the cell.
+   * @param value Value of the cell.
+   * @return the put.
+   */
+  private static Put put(String row, long timestamp, String value) {
+    return new Put(Bytes.toBytes(row))
+        .add(FAMILY, QUALIFIER, timestamp, Bytes.toBytes(value));
+  }
+
+  @Test
+  public void testAppendReadCommit() throws Exception {
+    final File path = new File(mTempDir.getRoot(), "spill.log");
+    final MutationSpillLog log = MutationSpillLog.open(path);
+    try {
+      assertTrue(log.isEmpty());
+      assertFalse(log.appendIfNotEmpty(Lists.<Row>newArrayList(put("row1", 1L, "value1"))));
+
+      log.append(Lists.<Row>newArrayList(
+          put("row1", 1L, "value1"),
+          new Delete(Bytes.toBytes("row2")),
+          put("row3", 3L, "value3")));
+      assertFalse(log.isEmpty());
+      assertTrue(log.appendIfNotEmpty(Lists.<Row>newArrayList(put("row4", 4L, "value4"))));
+
+      final MutationSpillLog.Batch first = log.read(2);
+      final List<Row> mutations = first.getMutations();
+      assertEquals(2, mutations.size());
+      assertArrayEquals(Bytes.toBytes("row1"), mutations.get(0).getRow());
+      final KeyValue kv = ((Put) mutations.get(0)).get(FAMILY, QUALIFIER).get(0);
+      assertEquals(1L, kv.getTimestamp());
+      assertEquals("value1", Bytes.toString(kv.getValue()));
+      assertTrue(mutations.get(1) instanceof Delete);
+      assertArrayEquals(Bytes.toBytes("row2"), mutations.get(1).getRow());
+
+      // Mutations stay in the log until committed:
+      assertEquals(2, log.read(2).getMutations().size());
+      log.commit(first);
+      assertFalse(log.isEmpty());
+      final MutationSpillLog.Batch second = log.read(10);
+      assertEquals(2, second.getMutations().size());
+      assertArrayEquals(Bytes.toBytes("row4"), second.getMutations().get(1).getRow());
+      log.commit(second);
+      assertTrue(log.isEmpty());
+      assertEquals(0, log.read(10).getMutations().size());
+    } finally {
+      log.close();
+    }
+  }
+
+  @Test
+  public void testPinLatestTimestamp() throws Exception {
+    final File path = new File(mTempDir.getRoot(), "spill.log");
+    final MutationSpillLog log = MutationSpillLog.open(path);
+    try {
+      final long before = System.currentTimeMillis();
+      log.append(Lists.<Row>newArrayList(
+          put("row1", HConstants.LATEST_TIMESTAMP, "value1"),
+          new Delete(Bytes.toBytes("row1"))));
+      final List<Row> mutations = log.read(10).getMutations();
+      final long putTimestamp =
+          ((Put) mutations.get(0)).get(FAMILY, QUALIFIER).get(0).getTimestamp();
+      assertTrue(putTimestamp >= before);
+      assertTrue(putTimestamp != HConstants.LATEST_TIMESTAMP);
+      assertEquals(putTimestamp, ((Delete) mutations.get(1)).getTimeStamp());
+    } finally {
+      log.close();
+    }
+  }
+
+  @Test
+  public void testRecoverAfterCrash() throws Exception {
+    final File path = new File(mTempDir.getRoot(), "spill.log");
+    final MutationSpillLog log = MutationSpillLog.open(path);
+    log.append(Lists.<Row>newArrayList(put("row1", 1L, "value1"), put("row2", 2L, "value2")));
+    log.commit(log.read(1));
+    log.append(Lists.<Row>newArrayList(put("row3", 3L, "value3")));
+    log.close();
+
+    // Simulate a crash in the middle of an append, leaving an incomplete record:
+    final long length = path.length();
+    final RandomAccessFile file = new RandomAccessFile(path, "rw");
+    try {
+      file.seek(length);
+      file.writeInt(1000);
+      file.writeLong(0L);
+      file.write(new byte[10]);
+    } finally {
+      file.close();
+    }
+
+    final MutationSpillLog reopened = MutationSpillLog.open(path);
+    try {
+      assertEquals(length, path.length());
+      final List<Row> mutations = reopened.read(10).getMutations();
+      assertEquals(2, mutations.size());
+      assertArrayEquals(Bytes.toBytes("row2"), mutations.get(0).getRow());
+      assertArrayEquals(Bytes.toBytes("row3"), mutations.get(1).getRow());
+
+      // The log remains usable after recovery:
+      reopened.append(Lists.<Row>newArrayList(put("row4", 4L, "value4")));
+      assertEquals(3, reopened.read(10).getMutations().size());
+    } finally {
+      reopened.close();
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import org.apache.avro.util.Utf8;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.schema.KijiCellDecoder;
+import org.kiji.schema.KijiCellEncoder;
+import org.kiji.schema.KijiClientTest;
+import org.kiji.schema.SpecificCellDecoderFactory;
+import org.kiji.schema.avro.CellSchema;
+import org.kiji.schema.avro.SchemaStorage;
+import org.kiji.schema.avro.SchemaType;
+import org.kiji.schema.layout.CellSpec;
+
+/** Tests for PrimitiveCellEncoder and PrimitiveCellDecoder. */
+public class TestPrimitiveCellCodecs extends KijiClientTest {
+  private static final Logger LOG = LoggerFactory.getLogger(TestPrimitiveCellCodecs.class);
+
+  /**
+   * Creates the specification of a final column with an inline schema.
+   *
+   * @param schema JSON representation of the Avro schema of the column.
+   * @return the cell specification.
+   * @throws Exception on error.
+   */
+  private CellSpec finalCellSpec(String schema) throws Exception {
+    return CellSpec.create()
+        .setCellSchema(CellSchema.newBuilder()
+            .setStorage(SchemaStorage.FINAL)
+            .setType(SchemaType.INLINE)
+            .setValue(schema)
+            .build())
+        .setSchemaTable(getKiji().getSchemaTable());
+  }
+
+  /**
+   * Checks that the primitive codecs are byte-compatible with the Avro codecs.
+   *
+   * @param schema JSON representation of the Avro schema of the column.
+   * @param values Values to encode and decode.
+   * @throws Exception on error.
+   */
+  private void checkCodecs(String schema, List<Object> values) throws Exception {
+    final CellSpec cellSpec = finalCellSpec(schema);
+    final KijiCellEncoder primitiveEncoder = new PrimitiveCellEncoder(cellSpec);
+    final KijiCellEncoder avroEncoder = new AvroCellEncoder(cellSpec);
+    final KijiCellDecoder<Object> primitiveDecoder = new PrimitiveCellDecoder<Object>(cellSpec);
+    final KijiCellDecoder<Object> avroDecoder = new SpecificCellDecoder<Object>(cellSpec);
+
+    for (Object value : values) {
+      final byte[] expected = avroEncoder.encode(value);
+      assertArrayEquals(expected, primitiveEncoder.encode(value));
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      primitiveEncoder.encode(value, out);
+      assertArrayEquals(expected, out.toByteArray());
+      assertEquals(avroDecoder.decodeValue(expected), primitiveDecoder.decodeValue(expected));
+    }
+  }
+
+  @Test
+  public void testLong() throws Exception {
+    checkCodecs("\"long\"", Lists.<Object>newArrayList(
+        0L, 1L, -1L, 3181L, Long.MAX_VALUE, Long.MIN_VALUE));
+  }
+
+  @Test
+  public void testInt() throws Exception {
+    checkCodecs("\"int\"", Lists.<Object>newArrayList(
+        0, 1, -1, 3181, Integer.MAX_VALUE, Integer.MIN_VALUE));
+  }
+
+  @Test
+  public void testFloatingPoint() throws Exception {
+    checkCodecs("\"double\"", Lists.<Object>newArrayList(
+        0.0, -1.5, Math.PI, Double.MAX_VALUE, Double.NaN));
+    checkCodecs("\"float\"", Lists.<Object>newArrayList(
+        0.0f, -1.5f, (float) Math.PI, Float.MIN_VALUE));
+  }
+
+  @Test
+  public void testBoolean() throws Exception {
+    checkCodecs("\"boolean\"", Lists.<Object>newArrayList(true, false));
+  }
+
+  @Test
+  public void testString() throws Exception {
+    checkCodecs("\"string\"", Lists.<Object>newArrayList(
+        "", "foo", "\u00e9t\u00e9 \u65e5\u672c", new Utf8("utf8")));
+    checkCodecs("{\"type\": \"string\", \"avro.java.string\": \"String\"}",
+        Lists.<Object>newArrayList("", "foo", "\u00e9t\u00e9"));
+  }
+
+  @Test
+  public void testBytes() throws Exception {
+    final ByteBuffer slice = ByteBuffer.wrap(Bytes.toBytes("0123456789"));
+    slice.position(3);
+    checkCodecs("\"bytes\"", Lists.<Object>newArrayList(
+        ByteBuffer.wrap(new byte[0]), ByteBuffer.wrap(Bytes.toBytes("bytes")), slice));
+  }
+
+  @Test
+  public void testFactoriesSelectPrimitiveCodecs() throws Exception {
+    final CellSpec cellSpec = finalCellSpec("\"long\"");
+    assertTrue(DefaultKijiCellEncoderFactory.get().create(cellSpec)
+        instanceof PrimitiveCellEncoder);
+    assertTrue(SpecificCellDecoderFactory.get().create(cellSpec)
+        instanceof PrimitiveCellDecoder);
+  }
+
+  @Test
+  public void testDecodeIntoReusedUtf8() throws Exception {
+    final CellSpec cellSpec = finalCellSpec("\"string\"");
+    final KijiCellEncoder encoder = new PrimitiveCellEncoder(cellSpec);
+    final KijiCellDecoder<Utf8> decoder = new PrimitiveCellDecoder<Utf8>(cellSpec);
+    final Utf8 reuse = new Utf8();
+    final Utf8 decoded = decoder.decodeValue(encoder.encode("some longer string"), reuse);
+    assertSame(reuse, decoded);
+    assertEquals("some longer string", decoded.toString());
+    assertEquals("short", decoder.decodeValue(encoder.encode("short"), reuse).toString());
+  }
+
+  @Test
+  public void testDecodePrimitiveInPlace() throws Exception {
+    final CellSpec longSpec = finalCellSpec("\"long\"");
+    final PrimitiveCellDecoder<Long> longDecoder = new PrimitiveCellDecoder<Long>(longSpec);
+    final byte[] encodedLong = new PrimitiveCellEncoder(longSpec).encode(-3181L);
+    final byte[] buffer = new byte[encodedLong.length + 4];
+    System.arraycopy(encodedLong, 0, buffer, 2, encodedLong.length);
+    assertEquals(-3181L, longDecoder.decodeLong(buffer, 2, encodedLong.length));
+    assertEquals(-3181.0, longDecoder.decodeDouble(buffer, 2, encodedLong.length), 0.0);
+    try {
+      longDecoder.decodeLong(buffer, 2, encodedLong.length - 1);
+      fail("Truncated cell should not decode.");
+    } catch (IOException ioe) {
+      LOG.debug("Expected exception: {}", ioe.getMessage());
+    }
+
+    final CellSpec doubleSpec = finalCellSpec("\"double\"");
+    final PrimitiveCellDecoder<Double> doubleDecoder =
+        new PrimitiveCellDecoder<Double>(doubleSpec);
+    final byte[] encodedDouble = new PrimitiveCellEncoder(doubleSpec).encode(Math.E);
+    assertEquals(Math.E, doubleDecoder.decodeDouble(encodedDouble, 0, encodedDouble.length), 0.0);
+    try {
+      doubleDecoder.decodeLong(encodedDouble, 0, encodedDouble.length);
+      fail("Double cell should not decode as a long.");
+    } catch (IOException ioe) {
+      LOG.debug("Expected exception: {}", ioe.getMessage());
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiClientTest;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.hbase.HBaseColumnName;
+import org.kiji.schema.impl.HBaseKijiTable.LayoutCapsule;
+import org.kiji.schema.impl.HBaseKijiTableWriter.WriterLayoutCapsule;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.layout.impl.CellEncoderProvider;
+
+public class TestResolvedWriterColumn extends KijiClientTest {
+  private HBaseKijiTable mTable;
+
+  @Before
+  public final void setupTable() throws Exception {
+    final Kiji kiji = getKiji();
+    kiji.createTable(KijiTableLayouts.getLayout(KijiTableLayouts.COUNTER_TEST));
+    mTable = HBaseKijiTable.downcast(kiji.openTable("user"));
+  }
+
+  @After
+  public final void releaseTable() throws Exception {
+    mTable.release();
+  }
+
+  /**
+   * Creates a new writer layout capsule for the current layout of the test table.
+   *
+   * @return a new writer layout capsule.
+   * @throws Exception on error.
+   */
+  private WriterLayoutCapsule newWriterCapsule() throws Exception {
+    final LayoutCapsule capsule = mTable.getLayoutCapsule();
+    return new WriterLayoutCapsule(
+        new CellEncoderProvider(
+            mTable.getURI(),
+            capsule.getLayout(),
+            mTable.getKiji().getSchemaTable(),
+            DefaultKijiCellEncoderFactory.get()),
+        capsule.getLayout(),
+        capsule.getColumnNameTranslator());
+  }
+
+  @Test
+  public void testResolvesOncePerCapsule() throws Exception {
+    final KijiColumnName column = new KijiColumnName("info", "name");
+    final WriterLayoutCapsule capsule1 = newWriterCapsule();
+    final ResolvedWriterColumn resolved = new ResolvedWriterColumn(column, capsule1);
+
+    final ResolvedWriterColumn.Resolution resolution1 = resolved.resolve(capsule1);
+    assertSame(resolution1, resolved.resolve(capsule1));
+    final HBaseColumnName hbaseColumn =
+        capsule1.getColumnNameTranslator().toHBaseColumnName(column);
+    assertArrayEquals(hbaseColumn.getFamily(), resolution1.getHBaseFamily());
+    assertArrayEquals(hbaseColumn.getQualifier(), resolution1.getHBaseQualifier());
+
+    // Swapping the writer capsule, as on a layout update, resolves the column again:
+    final WriterLayoutCapsule capsule2 = newWriterCapsule();
+    final ResolvedWriterColumn.Resolution resolution2 = resolved.resolve(capsule2);
+    assertNotSame(resolution1, resolution2);
+    assertSame(resolution2, resolved.resolve(capsule2));
+  }
+}
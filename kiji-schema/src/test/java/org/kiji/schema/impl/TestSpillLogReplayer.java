@@ -0,0 +1,264 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.kiji.schema.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.collect.Lists;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiBufferedWriter;
+import org.kiji.schema.KijiBufferedWriter.KijiBufferedWriterOptions;
+import org.kiji.schema.KijiClientTest;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.hbase.HBaseColumnName;
+import org.kiji.schema.layout.KijiTableLayout;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+
+/** Tests for SpillLogReplayer, and for spilling with HBaseKijiBufferedWriter. */
+public class TestSpillLogReplayer extends KijiClientTest {
+  private static final Logger LOG = LoggerFactory.getLogger(TestSpillLogReplayer.class);
+
+  private HBaseKijiTable mTable;
+  private KijiTableReader mReader;
+  private File mLogPath;
+
+  @Before
+  public final void setupEnvironment() throws Exception {
+    final KijiTableLayout layout = KijiTableLayout.newLayout(
+        KijiTableLayouts.getLayout(KijiTableLayouts.COUNTER_TEST));
+    final Kiji kiji = new InstanceBuilder(getKiji())
+        .withTable("user", layout)
+            .withRow("foo")
+                .withFamily("info")
+                    .withQualifier("visits").withValue(1L, 42L)
+        .build();
+    mTable = HBaseKijiTable.downcast(kiji.openTable("user"));
+    mReader = mTable.openTableReader();
+    mLogPath = new File(getLocalTempDir(), "spill.log");
+  }
+
+  @After
+  public final void cleanupEnvironment() throws IOException {
+    mReader.close();
+    mTable.release();
+  }
+
+  /**
+   * Creates an HBase put of a visits counter.
+   *
+   * @param row Row of the counter.
+   * @param timestamp Timestamp of the counter cell.
+   * @param visits Value of the counter.
+   * @return the HBase put.
+   * @throws IOException on I/O error.
+   */
+  private Put putVisits(String row, long timestamp, long visits) throws IOException {
+    final HBaseColumnName column = mTable.getColumnNameTranslator()
+        .toHBaseColumnName(new KijiColumnName("info", "visits"));
+    return new Put(mTable.getEntityId(row).getHBaseRowKey())
+        .add(column.getFamily(), column.getQualifier(), timestamp, Bytes.toBytes(visits));
+  }
+
+  /**
+   * Reads the current value of a visits counter.
+   *
+   * @param row Row of the counter.
+   * @return the current value of the counter.
+   * @throws IOException on I/O error.
+   */
+  private long getVisits(String row) throws IOException {
+    final Long visits = mReader.get(mTable.getEntityId(row), KijiDataRequest.create("info"))
+        .getMostRecentValue("info", "visits");
+    return visits;
+  }
+
+  /**
+   * Creates a replayer throttled by the throttle of the table only.
+   *
+   * @param log Spill log to replay.
+   * @param htable HTable to send the mutations with.
+   * @return the replayer.
+   */
+  private SpillLogReplayer newReplayer(MutationSpillLog log, HTableInterface htable) {
+    return new SpillLogReplayer(log, htable, mTable, new MutationThrottler(null, mTable));
+  }
+
+  /**
+   * Wraps an HTable so that its puts and deletes fail on demand.
+   *
+   * @param htable HTable to wrap.
+   * @param failing Whether puts and deletes currently fail.
+   * @return the wrapped HTable.
+   */
+  private static HTableInterface injectFailures(
+      final HTableInterface htable, final AtomicBoolean failing) {
+    return (HTableInterface) Proxy.newProxyInstance(
+        HTableInterface.class.getClassLoader(),
+        new Class<?>[] {HTableInterface.class},
+        new InvocationHandler() {
+          /** {@inheritDoc} */
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            if (failing.get() && (name.equals("put") || name.equals("delete"))) {
+              throw new IOException("Injected failure of HTable." + name);
+            }
+            try {
+              return method.invoke(htable, args);
+            } catch (InvocationTargetException ite) {
+              throw ite.getCause();
+            }
+          }
+        });
+  }
+
+  @Test
+  public void testReplayAfterFailure() throws Exception {
+    final AtomicBoolean failing = new AtomicBoolean(true);
+    final HTableInterface htable = mTable.openHTableConnection();
+    final MutationSpillLog log = MutationSpillLog.open(mLogPath);
+    try {
+      final SpillLogReplayer replayer = newReplayer(log, injectFailures(htable, failing));
+      log.append(Lists.<Row>newArrayList(putVisits("foo", 10L, 7L), putVisits("bar", 10L, 5L)));
+
+      try {
+        replayer.replay();
+        fail("Replay should fail while HBase is unavailable.");
+      } catch (IOException ioe) {
+        LOG.debug("Expected exception: {}", ioe.getMessage());
+      }
+      assertFalse(log.isEmpty());
+      assertEquals(42L, getVisits("foo"));
+
+      failing.set(false);
+      assertEquals(2L, replayer.replay());
+      assertTrue(log.isEmpty());
+      assertEquals(7L, getVisits("foo"));
+      assertEquals(5L, getVisits("bar"));
+    } finally {
+      log.close();
+      htable.close();
+    }
+  }
+
+  @Test
+  public void testDeleteThenPutOfRowSurvivesReplay() throws Exception {
+    final HTableInterface htable = mTable.openHTableConnection();
+    final MutationSpillLog log = MutationSpillLog.open(mLogPath);
+    try {
+      // Both mutations target the latest timestamp, and are spilled together:
+      final Delete delete = new Delete(mTable.getEntityId("foo").getHBaseRowKey());
+      log.append(Lists.<Row>newArrayList(
+          delete, putVisits("foo", HConstants.LATEST_TIMESTAMP, 8L)));
+
+      final List<Row> spilled = log.read(10).getMutations();
+      assertEquals(2, spilled.size());
+      final long deleteTimestamp = ((Delete) spilled.get(0)).getTimeStamp();
+      final long putTimestamp =
+          ((Put) spilled.get(1)).getFamilyMap().values().iterator().next().get(0).getTimestamp();
+      assertTrue(deleteTimestamp != HConstants.LATEST_TIMESTAMP);
+      assertTrue(putTimestamp > deleteTimestamp);
+
+      final SpillLogReplayer replayer = newReplayer(log, htable);
+      assertEquals(2L, replayer.replay());
+      assertTrue(log.isEmpty());
+      assertEquals(8L, getVisits("foo"));
+    } finally {
+      log.close();
+      htable.close();
+    }
+  }
+
+  @Test
+  public void testSpilledDeleteCellDeletesMostRecentVersion() throws Exception {
+    final HTableInterface htable = mTable.openHTableConnection();
+    final MutationSpillLog log = MutationSpillLog.open(mLogPath);
+    try {
+      final HBaseColumnName column = mTable.getColumnNameTranslator()
+          .toHBaseColumnName(new KijiColumnName("info", "visits"));
+      // As issued by KijiTableWriter.deleteCell(entityId, "info", "visits"):
+      final Delete delete = new Delete(mTable.getEntityId("foo").getHBaseRowKey())
+          .deleteColumn(column.getFamily(), column.getQualifier(), HConstants.LATEST_TIMESTAMP);
+      log.append(Lists.<Row>newArrayList(delete));
+
+      final SpillLogReplayer replayer = newReplayer(log, htable);
+      assertEquals(1L, replayer.replay());
+      assertTrue(log.isEmpty());
+      assertFalse(mReader.get(mTable.getEntityId("foo"), KijiDataRequest.create("info"))
+          .containsColumn("info", "visits"));
+    } finally {
+      log.close();
+      htable.close();
+    }
+  }
+
+  @Test
+  public void testWriterReplaysSpillLogOnReopen() throws Exception {
+    // Mutations left in the spill log by a writer that crashed:
+    final MutationSpillLog log = MutationSpillLog.open(mLogPath);
+    log.append(Lists.<Row>newArrayList(putVisits("foo", 20L, 9L)));
+    log.close();
+
+    final KijiBufferedWriter writer = mTable.getWriterFactory().openBufferedWriter(
+        new KijiBufferedWriterOptions().setSpillLog(mLogPath));
+    try {
+      writer.put(mTable.getEntityId("bar"), "info", "visits", 30L, 11L);
+    } finally {
+      writer.close();
+    }
+    assertEquals(9L, getVisits("foo"));
+    assertEquals(11L, getVisits("bar"));
+
+    final MutationSpillLog reopened = MutationSpillLog.open(mLogPath);
+    try {
+      assertTrue(reopened.isEmpty());
+    } finally {
+      reopened.close();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * (c) Copyright 2013 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kiji.schema.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import org.apache.hadoop.hbase.HConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiCellEncoder;
+import org.kiji.schema.KijiClientTest;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.hbase.HBaseColumnName;
+import org.kiji.schema.impl.HBaseKijiTable.LayoutCapsule;
+import org.kiji.schema.impl.HBaseKijiTableWriter.WriterLayoutCapsule;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.layout.impl.CellEncoderProvider;
+
+public class TestWriterColumnPutter extends KijiClientTest {
+  private HBaseKijiTable mTable;
+
+  @Before
+  public final void setupTable() throws Exception {
+    final Kiji kiji = getKiji();
+    kiji.createTable(KijiTableLayouts.getLayout(KijiTableLayouts.COUNTER_TEST));
+    mTable = HBaseKijiTable.downcast(kiji.openTable("user"));
+  }
+
+  @After
+  public final void releaseTable() throws Exception {
+    mTable.release();
+  }
+
+  @Test
+  public void testPutHandsEncodedCellsToTheWriter() throws Exception {
+    final LayoutCapsule capsule = mTable.getLayoutCapsule();
+    final CellEncoderProvider encoderProvider = new CellEncoderProvider(
+        mTable.getURI(),
+        capsule.getLayout(),
+        mTable.getKiji().getSchemaTable(),
+        DefaultKijiCellEncoderFactory.get());
+    final WriterLayoutCapsule writerCapsule = new WriterLayoutCapsule(
+        encoderProvider, capsule.getLayout(), capsule.getColumnNameTranslator());
+
+    final List<Object[]> cells = Lists.newArrayList();
+    final WriterColumnPutter.CellWriter cellWriter = new WriterColumnPutter.CellWriter() {
+      /** {@inheritDoc} */
+      @Override
+      public WriterLayoutCapsule getLayoutCapsule() {
+        return writerCapsule;
+      }
+
+      /** {@inheritDoc} */
+      @Override
+      public void writeCell(
+          EntityId entityId, byte[] family, byte[] qualifier, long timestamp, byte[] encoded)
+          throws IOException {
+        cells.add(new Object[] {entityId, family, qualifier, timestamp, encoded});
+      }
+    };
+
+    final KijiColumnName column = new KijiColumnName("info", "name");
+    final WriterColumnPutter putter = new WriterColumnPutter(
+        new ResolvedWriterColumn(column, writerCapsule), cellWriter);
+    assertEquals(column, putter.getColumnName());
+
+    final EntityId entityId = mTable.getEntityId("row");
+    putter.put(entityId, 1L, "value1");
+    putter.put(entityId, "value2");
+    assertEquals(2, cells.size());
+
+    final HBaseColumnName hbaseColumn =
+        capsule.getColumnNameTranslator().toHBaseColumnName(column);
+    final KijiCellEncoder encoder = encoderProvider.getEncoder("info", "name");
+    assertEquals(entityId, cells.get(0)[0]);
+    assertArrayEquals(hbaseColumn.getFamily(), (byte[]) cells.get(0)[1]);
+    assertArrayEquals(hbaseColumn.getQualifier(), (byte[]) cells.get(0)[2]);
+    assertEquals(1L, cells.get(0)[3]);
+    assertArrayEquals(encoder.encode("value1"), (byte[]) cells.get(0)[4]);
+    assertEquals(HConstants.LATEST_TIMESTAMP, cells.get(1)[3]);
+    assertArrayEquals(encoder.encode("value2"), (byte[]) cells.get(1)[4]);
+  }
+}
@@ -20,8 +20,10 @@
 package org.kiji.schema.layout;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.Before;
 import org.junit.Test;
@@ -82,6 +84,46 @@ public class TestColumnNameTranslator {
     assertEquals("purchases:foo", purchases.toString());
   }
 
+  @Test
+  public void testTranslateBytesFromHBaseToKiji() throws Exception {
+    ColumnNameTranslator translator = new ColumnNameTranslator(mTableLayout);
+
+    KijiColumnName infoName = translator.toKijiColumnName(Bytes.toBytes("B"), Bytes.toBytes("B:B"));
+    assertEquals("info:name", infoName.toString());
+    // Group-type columns are translated to the same instance every time:
+    assertSame(infoName, translator.toKijiColumnName(Bytes.toBytes("B"), Bytes.toBytes("B:B")));
+    assertSame(infoName, translator.toKijiColumnName(getHBaseColumnName("B", "B:B")));
+
+    KijiColumnName purchases =
+        translator.toKijiColumnName(Bytes.toBytes("C"), Bytes.toBytes("C:foo"));
+    assertEquals("purchases:foo", purchases.toString());
+  }
+
+  @Test
+  public void testTranslateKeyValueFromHBaseToKiji() throws Exception {
+    ColumnNameTranslator translator = new ColumnNameTranslator(mTableLayout);
+
+    final KeyValue infoEmail = new KeyValue(
+        Bytes.toBytes("row"), Bytes.toBytes("B"), Bytes.toBytes("B:C"), 1L, Bytes.toBytes("v"));
+    assertSame(
+        translator.toKijiColumnName(getHBaseColumnName("B", "B:C")),
+        translator.toKijiColumnName(infoEmail));
+
+    final KeyValue purchases = new KeyValue(
+        Bytes.toBytes("row"), Bytes.toBytes("C"), Bytes.toBytes("C:foo:bar"), 1L,
+        Bytes.toBytes("v"));
+    assertEquals("purchases:foo:bar", translator.toKijiColumnName(purchases).toString());
+
+    final KeyValue noSuchColumn = new KeyValue(
+        Bytes.toBytes("row"), Bytes.toBytes("B"), Bytes.toBytes("B:Z"), 1L, Bytes.toBytes("v"));
+    try {
+      translator.toKijiColumnName(noSuchColumn);
+      fail("An exception should have been thrown.");
+    } catch (NoSuchColumnException nsce) {
+      assertEquals("No column with ColumnId 'Z' in family 'info'.", nsce.getMessage());
+    }
+  }
+
   /**
    * Tests that an exception is thrown when the HBase family doesn't match a Kiji locality group.
    */